@@ -75,7 +75,7 @@ public class DataSyncService {
     private List<Map<String, Object>> fetchSessionsFromChargingService() {
         try {
             // Call charging-service API
-            String url = "http://localhost:8082/api/sessions";
+            String url = "http://localhost:8082/api/sessions?all=true";
             log.info("Fetching sessions from charging-service: {}", url);
             
             ResponseEntity<List> response = restTemplate.getForEntity(url, List.class);
@@ -34,6 +34,9 @@ public class CorsConfig {
                 "Access-Control-Request-Headers"
         ));
 
+        // Header phân trang (keyset cursor) mà FE cần đọc được
+        corsConfig.setExposedHeaders(Arrays.asList("X-Next-Cursor"));
+
         // Cho phép tất cả methods
         corsConfig.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
 
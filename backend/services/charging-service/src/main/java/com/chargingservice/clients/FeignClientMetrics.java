@@ -0,0 +1,63 @@
+package com.chargingservice.clients;
+
+import feign.Capability;
+import feign.InvocationHandlerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feign capability that times every client method (StationServiceClient.getStationById, ...) as
+ * charging.remote.calls{client, method, outcome}. Timers are registered when the client is built, so every
+ * method shows up on /actuator/prometheus before its first call. Registered for all Feign clients by MetricsConfig.
+ */
+public class FeignClientMetrics implements Capability {
+
+    public static final String METRIC = "charging.remote.calls";
+
+    private final MeterRegistry registry;
+
+    public FeignClientMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public InvocationHandlerFactory enrich(InvocationHandlerFactory factory) {
+        return (target, dispatch) -> {
+            String client = target.type().getSimpleName();
+            Map<Method, InvocationHandlerFactory.MethodHandler> timed = new LinkedHashMap<>();
+            dispatch.forEach((method, handler) -> timed.put(method, timed(client, method.getName(), handler)));
+            return factory.create(target, timed);
+        };
+    }
+
+    private InvocationHandlerFactory.MethodHandler timed(String client, String method,
+                                                         InvocationHandlerFactory.MethodHandler handler) {
+        Timer success = timer(client, method, "success");
+        Timer error = timer(client, method, "error");
+        return args -> {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = handler.invoke(args);
+                failed = false;
+                return result;
+            } finally {
+                (failed ? error : success).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private Timer timer(String client, String method, String outcome) {
+        return Timer.builder(METRIC)
+                .description("Calls to other services through Feign clients")
+                .tag("client", client)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
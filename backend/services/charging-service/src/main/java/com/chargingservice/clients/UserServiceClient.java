@@ -3,7 +3,10 @@ package com.chargingservice.clients;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
 import java.util.Map;
 
 @FeignClient(name = "user-service")
@@ -11,5 +14,9 @@ public interface UserServiceClient {
     
     @GetMapping("/api/users/{id}")
     Map<String, Object> getUserById(@PathVariable("id") Long id);
+
+    // Users that do not exist are left out of the response
+    @PostMapping("/api/users/batch")
+    List<Map<String, Object>> getUsersByIds(@RequestBody List<Long> ids);
 }
 
@@ -0,0 +1,254 @@
+package com.chargingservice.configs;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+
+/**
+ * Single-pass LocalDateTime parser for request bodies and inter-service (Feign) JSON.
+ * Accepts in one scan, without exceptions as control flow:
+ * <ul>
+ *   <li>ISO local date-time, seconds and fraction (0-9 digits) optional: "2025-10-31T09:00", "2025-10-31T09:00:00.123"</li>
+ *   <li>the same with an offset or "Z", which is dropped (the wall-clock time is kept): "2025-10-31T09:00:00+07:00"</li>
+ *   <li>a space instead of 'T': "2025-10-31 09:00:00"</li>
+ *   <li>epoch milliseconds (JSON number or digit string), converted in the server time zone</li>
+ * </ul>
+ * Results match the previous multi-formatter deserializer for every input it accepted, including its lenient
+ * fallbacks: day 29-31 past the month end is clamped and 24:00:00 rolls to the next day when the text has
+ * seconds and no fraction (or exactly 3 fraction digits).
+ */
+public class LocalDateTimeDeserializer extends JsonDeserializer<LocalDateTime> {
+
+    @Override
+    public LocalDateTime deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return fromEpochMillis(p.getLongValue());
+        }
+        String text = p.getText();
+        LocalDateTime parsed = parse(text);
+        if (parsed == null) {
+            throw new IOException("Unable to parse LocalDateTime: " + text);
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses text in any accepted format, or returns null when it is not a valid date-time.
+     */
+    public static LocalDateTime parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        if (start == end) {
+            return null;
+        }
+        if (allDigits(text, start, end)) {
+            return end - start <= 18 ? fromEpochMillis(parseDigits(text, start, end)) : null;
+        }
+
+        // Offset suffix: a trailing 'Z', or everything from the last '+'/'-' past the date part
+        if (text.charAt(end - 1) == 'Z') {
+            end--;
+        } else {
+            for (int i = end - 1; i > start + 10; i--) {
+                char c = text.charAt(i);
+                if (c == '+' || c == '-') {
+                    end = i;
+                    break;
+                }
+            }
+        }
+
+        // [+-]yyyy-MM-dd: exactly 4 year digits unsigned, 5-9 after '+', 4-9 after '-' (ISO 8601 expanded years)
+        int pos = start;
+        char sign = text.charAt(pos);
+        if (sign == '+' || sign == '-') {
+            pos++;
+        }
+        int yearStart = pos;
+        while (pos < end && pos - yearStart < 10 && isDigit(text.charAt(pos))) {
+            pos++;
+        }
+        int yearDigits = pos - yearStart;
+        boolean yearOk = sign == '+' ? yearDigits > 4 && yearDigits < 10
+                : sign == '-' ? yearDigits >= 4 && yearDigits < 10
+                : yearDigits == 4;
+        if (!yearOk || end - pos < 12) {
+            return null;
+        }
+        int year = (int) parseDigits(text, yearStart, pos);
+        if (sign == '-') {
+            if (year == 0) return null;
+            year = -year;
+        }
+        if (text.charAt(pos) != '-') return null;
+        int month = digits(text, pos + 1, 2);
+        if (month < 0 || text.charAt(pos + 3) != '-') return null;
+        int day = digits(text, pos + 4, 2);
+        if (day < 0) return null;
+        char separator = text.charAt(pos + 6);
+        if (separator != 'T' && separator != 't' && separator != ' ') return null;
+
+        // HH:mm[:ss[.fffffffff]]
+        pos += 7;
+        int hour = digits(text, pos, 2);
+        if (hour < 0 || text.charAt(pos + 2) != ':') return null;
+        int minute = digits(text, pos + 3, 2);
+        if (minute < 0) return null;
+        pos += 5;
+        int second = 0;
+        int nano = 0;
+        boolean hasSeconds = false;
+        int fractionDigits = -1; // -1 = no '.'
+        if (pos < end && text.charAt(pos) == ':') {
+            second = end - pos >= 3 ? digits(text, pos + 1, 2) : -1;
+            if (second < 0) return null;
+            hasSeconds = true;
+            pos += 3;
+            if (pos < end && text.charAt(pos) == '.') {
+                pos++;
+                fractionDigits = 0;
+                while (pos < end && fractionDigits < 9 && isDigit(text.charAt(pos))) {
+                    nano = nano * 10 + (text.charAt(pos) - '0');
+                    fractionDigits++;
+                    pos++;
+                }
+                for (int i = fractionDigits; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+
+        // Offset left in place (only when a trailing 'Z' was stripped first), optionally followed by [region]
+        boolean hasSuffix = pos < end;
+        if (hasSuffix) {
+            pos = skipOffset(text, pos, end);
+            if (pos < 0) return null;
+            if (pos < end) {
+                if (text.charAt(pos) != '[' || text.charAt(end - 1) != ']' || !isZoneId(text.substring(pos + 1, end - 1))) {
+                    return null;
+                }
+            }
+        }
+
+        if (month < 1 || month > 12 || minute > 59 || second > 59) {
+            return null;
+        }
+        int monthLength = monthLength(year, month);
+        if (day >= 1 && day <= monthLength && hour <= 23) {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        }
+
+        // Lenient fallback of the old "yyyy-MM-dd'T'HH:mm:ss[.SSS]" patterns (ResolverStyle.SMART)
+        boolean smartPattern = separator == 'T' && hasSeconds && !hasSuffix && year >= 1
+                && (fractionDigits == -1 || fractionDigits == 3);
+        if (!smartPattern || day < 1 || day > 31) {
+            return null;
+        }
+        boolean endOfDay = hour == 24 && minute == 0 && second == 0 && nano == 0;
+        if (hour > 23 && !endOfDay) {
+            return null;
+        }
+        LocalDateTime clamped = LocalDateTime.of(year, month, Math.min(day, monthLength), endOfDay ? 0 : hour, minute, second, nano);
+        return endOfDay ? clamped.plusDays(1) : clamped;
+    }
+
+    private static LocalDateTime fromEpochMillis(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Skips 'Z' or +HH:MM[:SS] (at most 18:00) starting at pos; returns the next position or -1.
+     */
+    private static int skipOffset(String text, int pos, int end) {
+        char c = text.charAt(pos);
+        if (c == 'Z' || c == 'z') {
+            return pos + 1;
+        }
+        if ((c != '+' && c != '-') || end - pos < 6 || text.charAt(pos + 3) != ':') {
+            return -1;
+        }
+        int hours = digits(text, pos + 1, 2);
+        int minutes = digits(text, pos + 4, 2);
+        if (hours < 0 || minutes < 0 || hours > 18 || minutes > 59) {
+            return -1;
+        }
+        int seconds = 0;
+        int next = pos + 6;
+        if (end - next >= 3 && text.charAt(next) == ':' && isDigit(text.charAt(next + 1)) && isDigit(text.charAt(next + 2))) {
+            seconds = digits(text, next + 1, 2);
+            if (seconds > 59) return -1;
+            next += 3;
+        }
+        return hours * 3600 + minutes * 60 + seconds <= 18 * 3600 ? next : -1;
+    }
+
+    // "[Asia/Ho_Chi_Minh]" suffix; rare, so the exception path of ZoneId.of only covers ids like "UT" or "GMT+7"
+    private static boolean isZoneId(String zone) {
+        if (ZoneId.getAvailableZoneIds().contains(zone)) {
+            return true;
+        }
+        try {
+            ZoneId.of(zone);
+            return true;
+        } catch (DateTimeException e) {
+            return false;
+        }
+    }
+
+    private static int monthLength(int year, int month) {
+        return switch (month) {
+            case 2 -> Year.isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * Value of count digits at pos, or -1 if any of them is not a digit.
+     */
+    private static int digits(String text, int pos, int count) {
+        int value = 0;
+        for (int i = pos; i < pos + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean allDigits(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseDigits(String text, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
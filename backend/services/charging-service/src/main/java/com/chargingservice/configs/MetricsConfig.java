@@ -0,0 +1,23 @@
+package com.chargingservice.configs;
+
+import com.chargingservice.clients.FeignClientMetrics;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Bật @Timed trên các method service (charging.operations)
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    // Capability dùng chung cho mọi Feign client (charging.remote.calls)
+    @Bean
+    public FeignClientMetrics feignClientMetrics(MeterRegistry registry) {
+        return new FeignClientMetrics(registry);
+    }
+}
@@ -0,0 +1,64 @@
+package com.chargingservice.configs;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RabbitMQConfig {
+
+    @Value("${app.rabbitmq.entitlement-exchange:entitlement.events}")
+    private String entitlementExchangeName;
+
+    @Value("${app.rabbitmq.session-exchange:charging.session.events}")
+    private String sessionExchangeName;
+
+    // Fanout exchange do user-service phát sự kiện đổi gói subscription
+    @Bean
+    public FanoutExchange entitlementExchange() {
+        return new FanoutExchange(entitlementExchangeName, true, false);
+    }
+
+    /**
+     * Queue riêng của instance này (tên ngẫu nhiên, tự xóa khi instance dừng):
+     * mỗi instance đều nhận mọi sự kiện và xóa cache entitlement cục bộ của mình
+     */
+    @Bean
+    public Queue entitlementEventsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding entitlementEventsBinding(Queue entitlementEventsQueue, FanoutExchange entitlementExchange) {
+        return BindingBuilder.bind(entitlementEventsQueue).to(entitlementExchange);
+    }
+
+    // Fanout exchange giữa các instance charging-service: phiên kết thúc ở instance này, instance khác bỏ trạng thái cục bộ
+    @Bean
+    public FanoutExchange sessionExchange() {
+        return new FanoutExchange(sessionExchangeName, true, false);
+    }
+
+    @Bean
+    public Queue sessionEventsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding sessionEventsBinding(Queue sessionEventsQueue, FanoutExchange sessionExchange) {
+        return BindingBuilder.bind(sessionEventsQueue).to(sessionExchange);
+    }
+
+    // JSON, kiểu đích suy ra từ tham số của listener (bỏ qua __TypeId__ của service gửi)
+    @Bean
+    public MessageConverter jsonMessageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+}
@@ -4,14 +4,23 @@
 // ===============================================================
 package com.chargingservice.controllers;
 
+import com.chargingservice.dtos.OfflineSessionsBatchRequestDto;
+import com.chargingservice.dtos.OfflineSessionsReconcileResponseDto;
 import com.chargingservice.dtos.SessionResponseDto;
 import com.chargingservice.dtos.StartSessionRequestDto;
 import com.chargingservice.services.ChargingService;
+import com.chargingservice.services.ConsumptionRollupService;
+import com.chargingservice.services.OfflineSessionReconciler;
+import com.chargingservice.services.SessionHistoryService;
+import com.chargingservice.services.SessionTelemetryBroadcaster;
 import lombok.RequiredArgsConstructor;
 import com.chargingservice.repositories.ChargingSessionRepository;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -22,6 +31,10 @@ public class ChargingController {
 
     private final ChargingService chargingService;
     private final ChargingSessionRepository sessionRepository;
+    private final SessionTelemetryBroadcaster telemetryBroadcaster;
+    private final ConsumptionRollupService consumptionRollupService;
+    private final SessionHistoryService sessionHistoryService;
+    private final OfflineSessionReconciler offlineSessionReconciler;
 
     // [COMMAND]: POST /api/sessions/start
     @PostMapping("/start")
@@ -30,6 +43,16 @@ public class ChargingController {
         return ResponseEntity.status(HttpStatus.CREATED).body(newSession);
     }
 
+    /**
+     * Replay completed sessions a station recorded while offline (many sessions per request)
+     * POST /api/sessions/offline-reconciliation
+     */
+    @PostMapping("/offline-reconciliation")
+    public ResponseEntity<OfflineSessionsReconcileResponseDto> reconcileOfflineSessions(
+            @RequestBody OfflineSessionsBatchRequestDto requestDto) {
+        return ResponseEntity.ok(offlineSessionReconciler.reconcile(requestDto));
+    }
+
     // [COMMAND]: POST /api/sessions/{id}/stop
     @PostMapping("/{id}/stop")
     public ResponseEntity<SessionResponseDto> stopChargingSession(
@@ -52,10 +75,36 @@ public class ChargingController {
         return ResponseEntity.ok(chargingService.getSessionById(id));
     }
 
-    // [COMMAND]: GET /api/sessions
+    // [COMMAND]: GET /api/sessions?cursor=...&limit=50 (phân trang, mặc định trang đầu 50 phiên)
+    // Trang tiếp theo: gửi lại giá trị header X-Next-Cursor (không có header = trang cuối)
+    // all=true trả toàn bộ danh sách (đọc theo trang nhưng gom trong bộ nhớ), chỉ cho các caller còn tính tổng trên
+    // mọi phiên: analytics-service DataSyncService, adminService (dashboard, hoạt động gần đây), RevenueReport,
+    // StaffDashboard, ChargingPointMonitoring, SessionManagement, OnSitePayment. Caller mới dùng cursor hoặc /export
     @GetMapping
-    public ResponseEntity<List<SessionResponseDto>> getAllSessions() {
-        return ResponseEntity.ok(chargingService.getAllSessions());
+    public ResponseEntity<List<SessionResponseDto>> getAllSessions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + SessionHistoryService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(defaultValue = "false") boolean all) {
+        if (all && cursor == null) {
+            return ResponseEntity.ok(sessionHistoryService.getAllSessions());
+        }
+        return SessionPageResponses.of(sessionHistoryService.getAllSessions(cursor, limit));
+    }
+
+    // [COMMAND]: GET /api/sessions/mine?cursor=...&limit=50
+    @GetMapping("/mine")
+    public ResponseEntity<List<SessionResponseDto>> getMySessions(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + SessionHistoryService.DEFAULT_PAGE_SIZE) int limit) {
+        return SessionPageResponses.of(sessionHistoryService.getUserSessions(userId, cursor, limit));
+    }
+
+    // [COMMAND]: GET /api/sessions/export?format=ndjson|csv
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAllSessions(
+            @RequestParam(defaultValue = "ndjson") SessionHistoryService.ExportFormat format) {
+        return SessionPageResponses.export("sessions", format, out -> sessionHistoryService.export(null, format, out));
     }
 
     // [COMMAND]: GET /api/sessions/active
@@ -78,6 +127,17 @@ public class ChargingController {
             @RequestParam(defaultValue = "1") int speedMultiplier) {
         return ResponseEntity.ok(chargingService.getSessionStatus(id, speedMultiplier));
     }
+
+    /**
+     * Stream real-time charging status (Server-Sent Events, event name "status")
+     * GET /api/sessions/{id}/stream?speedMultiplier=1
+     */
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSessionStatus(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "1") int speedMultiplier) {
+        return telemetryBroadcaster.subscribe(id, speedMultiplier);
+    }
     
     /**
      * Get dashboard statistics for user
@@ -85,49 +145,7 @@ public class ChargingController {
      */
     @GetMapping("/dashboard/stats")
     public ResponseEntity<java.util.Map<String, Object>> getDashboardStats(@RequestHeader("X-User-Id") Long userId) {
-        var sessions = sessionRepository.findByUserIdOrderByStartTimeDesc(userId);
-        
-        // Calculate stats
-        long totalSessions = sessions.size();
-        long completedSessions = sessions.stream()
-            .filter(s -> s.getSessionStatus() == com.chargingservice.entities.ChargingSession.SessionStatus.completed)
-            .count();
-        
-        // Calculate total energy consumed this month
-        var now = java.time.LocalDateTime.now();
-        var startOfMonth = now.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        var totalEnergyThisMonth = sessions.stream()
-            .filter(s -> s.getEndTime() != null && s.getEndTime().isAfter(startOfMonth))
-            .filter(s -> s.getSessionStatus() == com.chargingservice.entities.ChargingSession.SessionStatus.completed)
-            .map(s -> s.getEnergyConsumed() != null ? s.getEnergyConsumed() : java.math.BigDecimal.ZERO)
-            .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-        
-        // Calculate last month energy for comparison
-        var startOfLastMonth = startOfMonth.minusMonths(1);
-        var endOfLastMonth = startOfMonth.minusSeconds(1);
-        var totalEnergyLastMonth = sessions.stream()
-            .filter(s -> s.getEndTime() != null && s.getEndTime().isAfter(startOfLastMonth) && s.getEndTime().isBefore(endOfLastMonth))
-            .filter(s -> s.getSessionStatus() == com.chargingservice.entities.ChargingSession.SessionStatus.completed)
-            .map(s -> s.getEnergyConsumed() != null ? s.getEnergyConsumed() : java.math.BigDecimal.ZERO)
-            .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-        
-        // Calculate percentage change
-        double energyChangePercent = 0.0;
-        if (totalEnergyLastMonth.compareTo(java.math.BigDecimal.ZERO) > 0) {
-            var diff = totalEnergyThisMonth.subtract(totalEnergyLastMonth);
-            energyChangePercent = diff.divide(totalEnergyLastMonth, 4, java.math.RoundingMode.HALF_UP)
-                .multiply(java.math.BigDecimal.valueOf(100)).doubleValue();
-        } else if (totalEnergyThisMonth.compareTo(java.math.BigDecimal.ZERO) > 0) {
-            energyChangePercent = 100.0; // First month with data
-        }
-        
-        return ResponseEntity.ok(java.util.Map.of(
-            "totalSessions", totalSessions,
-            "completedSessions", completedSessions,
-            "totalEnergyThisMonth", totalEnergyThisMonth,
-            "totalEnergyLastMonth", totalEnergyLastMonth,
-            "energyChangePercent", energyChangePercent
-        ));
+        return ResponseEntity.ok(consumptionRollupService.getDashboardStats(userId));
     }
     
     /**
@@ -138,12 +156,7 @@ public class ChargingController {
     public ResponseEntity<List<SessionResponseDto>> getRecentSessions(
             @RequestHeader("X-User-Id") Long userId,
             @RequestParam(defaultValue = "5") int limit) {
-        var sessions = sessionRepository.findByUserIdOrderByStartTimeDesc(userId);
-        var recent = sessions.stream()
-            .limit(limit)
-            .map(s -> chargingService.getSessionById(s.getSessionId()))
-            .collect(java.util.stream.Collectors.toList());
-        return ResponseEntity.ok(recent);
+        return ResponseEntity.ok(sessionHistoryService.getUserSessions(userId, null, limit).items());
     }
     
     /**
@@ -166,36 +179,9 @@ public class ChargingController {
     public ResponseEntity<List<java.util.Map<String, Object>>> getEnergyUsageChart(
             @RequestHeader("X-User-Id") Long userId,
             @RequestParam(defaultValue = "week") String period) {
-        
-        var now = java.time.LocalDateTime.now();
-        var sessions = sessionRepository.findByUserIdOrderByStartTimeDesc(userId)
-            .stream()
-            .filter(s -> s.getSessionStatus() == com.chargingservice.entities.ChargingSession.SessionStatus.completed)
-            .filter(s -> s.getEndTime() != null)
-            .collect(java.util.stream.Collectors.toList());
-        
-        List<java.util.Map<String, Object>> chartData = new java.util.ArrayList<>();
-        
-        if ("week".equals(period)) {
-            // Last 7 days
-            var dayNames = new String[]{"CN", "T2", "T3", "T4", "T5", "T6", "T7"};
-            for (int i = 6; i >= 0; i--) {
-                var day = now.minusDays(i);
-                var dayStart = day.withHour(0).withMinute(0).withSecond(0);
-                var dayEnd = day.withHour(23).withMinute(59).withSecond(59);
-                
-                var dayEnergy = sessions.stream()
-                    .filter(s -> s.getEndTime().isAfter(dayStart) && s.getEndTime().isBefore(dayEnd))
-                    .map(s -> s.getEnergyConsumed() != null ? s.getEnergyConsumed() : java.math.BigDecimal.ZERO)
-                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-                
-                chartData.add(java.util.Map.of(
-                    "day", dayNames[day.getDayOfWeek().getValue() % 7],
-                    "usage", dayEnergy.doubleValue()
-                ));
-            }
+        if (!"week".equals(period)) {
+            return ResponseEntity.ok(List.of());
         }
-        
-        return ResponseEntity.ok(chartData);
+        return ResponseEntity.ok(consumptionRollupService.getWeeklyEnergyUsage(userId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.chargingservice.controllers;
+
+import com.chargingservice.services.SubscriptionEntitlementCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Internal endpoints for the subscription entitlement cache.
+ * invalidate only clears the instance that serves the request; subscription changes reach every instance
+ * through the entitlement.events exchange.
+ */
+@RestController
+@RequestMapping("/api/entitlements")
+@RequiredArgsConstructor
+public class EntitlementController {
+
+    private final SubscriptionEntitlementCache entitlementCache;
+
+    // POST /api/entitlements/{userId}/invalidate
+    @PostMapping("/{userId}/invalidate")
+    public ResponseEntity<Void> invalidate(@PathVariable Long userId) {
+        entitlementCache.invalidate(userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // GET /api/entitlements/stats
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        CacheStats stats = entitlementCache.stats();
+        return ResponseEntity.ok(Map.of(
+                "size", entitlementCache.size(),
+                "hitCount", stats.hitCount(),
+                "missCount", stats.missCount(),
+                "hitRate", stats.hitRate(),
+                "loadSuccessCount", stats.loadSuccessCount(),
+                "loadFailureCount", stats.loadFailureCount(),
+                "averageLoadPenaltyMs", stats.averageLoadPenalty() / 1_000_000.0,
+                "evictionCount", stats.evictionCount()
+        ));
+    }
+}
@@ -0,0 +1,26 @@
+package com.chargingservice.controllers;
+
+import com.chargingservice.dtos.MeterValuesBatchRequestDto;
+import com.chargingservice.dtos.MeterValuesIngestResponseDto;
+import com.chargingservice.services.MeterValueStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/meter-values")
+@RequiredArgsConstructor
+public class MeterValueController {
+
+    private final MeterValueStore meterValueStore;
+
+    /**
+     * Ingest batched meter values from chargers (many sessions per request)
+     * POST /api/meter-values
+     */
+    @PostMapping
+    public ResponseEntity<MeterValuesIngestResponseDto> ingest(@RequestBody MeterValuesBatchRequestDto requestDto) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(meterValueStore.ingest(requestDto));
+    }
+}
@@ -1,15 +1,23 @@
 package com.chargingservice.controllers;
 
 import com.chargingservice.dtos.CreateReservationRequestDto;
+import com.chargingservice.dtos.QrCodeVerificationDto;
 import com.chargingservice.dtos.ReservationResponseDto;
 import com.chargingservice.dtos.RouteBookingRequestDto;
+import com.chargingservice.dtos.StationAvailabilityDto;
+import com.chargingservice.services.ReservationQrTokens;
 import com.chargingservice.services.ReservationService;
+import com.chargingservice.services.StationAvailabilityService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/reservations")
@@ -17,6 +25,8 @@ import java.util.List;
 public class ReservationController {
 
     private final ReservationService reservationService;
+    private final StationAvailabilityService stationAvailabilityService;
+    private final ReservationQrTokens qrTokens;
 
     @PostMapping
     public ResponseEntity<ReservationResponseDto> createReservation(
@@ -48,6 +58,29 @@ public class ReservationController {
         return ResponseEntity.status(HttpStatus.CREATED).body(reservations);
     }
 
+    /**
+     * Phase 1 of a route booking: tentative holds on every leg (status pending, expire after a few minutes)
+     * POST /api/reservations/route/hold
+     */
+    @PostMapping("/route/hold")
+    public ResponseEntity<List<ReservationResponseDto>> holdRouteReservations(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestBody RouteBookingRequestDto requestDto) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(reservationService.holdRouteReservations(userId, requestDto.getBookings()));
+    }
+
+    /**
+     * Phase 2: confirm every held leg of the route at once
+     * POST /api/reservations/route/{routeId}/commit
+     */
+    @PostMapping("/route/{routeId}/commit")
+    public ResponseEntity<List<ReservationResponseDto>> commitRouteReservations(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable String routeId) {
+        return ResponseEntity.ok(reservationService.commitRouteReservations(routeId, userId));
+    }
+
     /**
      * Cancel a route reservation and auto-cancel subsequent ones
      * PUT /api/reservations/{id}/cancel-route
@@ -69,6 +102,18 @@ public class ReservationController {
         return ResponseEntity.ok(reservationService.getReservationsByUserId(userId));
     }
 
+    /**
+     * Booking calendar of a station: busy 5-minute slots per charger and free chargers per slot
+     * GET /api/reservations/stations/{stationId}/availability?date=2026-10-20
+     * (/api/stations/** is routed to station-service)
+     */
+    @GetMapping("/stations/{stationId}/availability")
+    public ResponseEntity<StationAvailabilityDto> getStationAvailability(
+            @PathVariable Long stationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(stationAvailabilityService.getAvailability(stationId, date));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ReservationResponseDto> getReservationById(@PathVariable Long id) {
         return ResponseEntity.ok(reservationService.getReservationById(id));
@@ -109,6 +154,28 @@ public class ReservationController {
         return ResponseEntity.status(HttpStatus.CREATED).body(session);
     }
 
+    /**
+     * Verify a signed QR code without touching the database (signature, validity window, revocation list)
+     * GET /api/reservations/qr/verify?qrCode=
+     */
+    @GetMapping("/qr/verify")
+    public ResponseEntity<QrCodeVerificationDto> verifyQRCode(@RequestParam String qrCode) {
+        ReservationQrTokens.Claims claims = qrTokens.verify(qrCode, LocalDateTime.now())
+                .orElseThrow(() -> new IllegalArgumentException("QR code is not a signed code of an active key"));
+        return ResponseEntity.ok(new QrCodeVerificationDto(claims.reservationId(), claims.chargerId(),
+                claims.userId(), claims.validFrom(), claims.validUntil(), claims.keyId()));
+    }
+
+    /**
+     * Revoked reservations whose QR codes are still within their validity window (reservationId -> validUntil),
+     * for stations that verify codes offline
+     * GET /api/reservations/qr/revocations
+     */
+    @GetMapping("/qr/revocations")
+    public ResponseEntity<Map<Long, LocalDateTime>> getQRCodeRevocations() {
+        return ResponseEntity.ok(qrTokens.revocations());
+    }
+
     // Admin endpoints
     @GetMapping("/admin/all")
     public ResponseEntity<List<ReservationResponseDto>> getAllReservations() {
@@ -0,0 +1,53 @@
+package com.chargingservice.controllers;
+
+import com.chargingservice.dtos.SessionResponseDto;
+import com.chargingservice.services.SessionHistoryService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+/**
+ * Response helpers shared by the paginated session endpoints.
+ * The body stays a plain JSON array; the cursor travels in X-Next-Cursor.
+ * GET /api/sessions is paged by default (full list only with all=true); the per-user history is paged when a
+ * cursor or limit is given and otherwise returns the user's full list, as before pagination existed.
+ */
+final class SessionPageResponses {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private SessionPageResponses() {
+    }
+
+    static boolean isPaged(String cursor, Integer limit) {
+        return cursor != null || limit != null;
+    }
+
+    static int pageSize(Integer limit) {
+        return limit != null ? limit : SessionHistoryService.DEFAULT_PAGE_SIZE;
+    }
+
+    static ResponseEntity<List<SessionResponseDto>> of(SessionHistoryService.Page page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    static ResponseEntity<StreamingResponseBody> export(String fileName, SessionHistoryService.ExportFormat format,
+                                                        StreamingResponseBody body) {
+        boolean csv = format == SessionHistoryService.ExportFormat.csv;
+        return ResponseEntity.ok()
+                .contentType(csv ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + fileName + (csv ? ".csv" : ".ndjson") + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,38 @@
+package com.chargingservice.controllers;
+
+import com.chargingservice.dtos.StationQueueStatusDto;
+import com.chargingservice.services.StationQueueService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Virtual queue of a station whose chargers are all busy (under /api/sessions so it goes through the
+ * charging-service gateway route; /api/stations/** belongs to station-service).
+ */
+@RestController
+@RequestMapping("/api/sessions/queue")
+@RequiredArgsConstructor
+public class StationQueueController {
+
+    private final StationQueueService stationQueueService;
+
+    // POST /api/sessions/queue/{stationId}?userId=... - vào hàng đợi (gọi lại trả về vị trí hiện tại)
+    @PostMapping("/{stationId}")
+    public ResponseEntity<StationQueueStatusDto> join(@PathVariable Long stationId, @RequestParam Long userId) {
+        return ResponseEntity.ok(stationQueueService.join(stationId, userId));
+    }
+
+    // GET /api/sessions/queue/{stationId}?userId=... - vị trí và thời gian chờ dự kiến
+    @GetMapping("/{stationId}")
+    public ResponseEntity<StationQueueStatusDto> status(@PathVariable Long stationId, @RequestParam Long userId) {
+        return ResponseEntity.ok(stationQueueService.status(stationId, userId));
+    }
+
+    // DELETE /api/sessions/queue/{stationId}?userId=... - rời hàng đợi
+    @DeleteMapping("/{stationId}")
+    public ResponseEntity<Void> leave(@PathVariable Long stationId, @RequestParam Long userId) {
+        stationQueueService.leave(stationId, userId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.chargingservice.controllers;
+
+import com.chargingservice.dtos.TariffBandDto;
+import com.chargingservice.entities.TariffBand;
+import com.chargingservice.services.TariffEngine;
+import com.chargingservice.services.TariffTable;
+import com.chargingservice.units.Energy;
+import com.chargingservice.units.RatePerKwh;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time-of-use tariffs per station (and the default tariff for stations without their own).
+ */
+@RestController
+@RequestMapping("/api/tariffs")
+@RequiredArgsConstructor
+public class TariffController {
+
+    private final TariffEngine tariffEngine;
+
+    // GET /api/tariffs/default
+    @GetMapping("/default")
+    public ResponseEntity<List<TariffBandDto>> getDefaultBands() {
+        return ResponseEntity.ok(toDtos(tariffEngine.bands(null)));
+    }
+
+    // PUT /api/tariffs/default - thay toàn bộ biểu giá mặc định
+    @PutMapping("/default")
+    public ResponseEntity<List<TariffBandDto>> replaceDefaultBands(@RequestBody List<TariffBandDto> bands) {
+        return ResponseEntity.ok(toDtos(tariffEngine.replaceBands(null, toEntities(bands))));
+    }
+
+    // GET /api/tariffs/stations/{stationId}
+    @GetMapping("/stations/{stationId}")
+    public ResponseEntity<List<TariffBandDto>> getStationBands(@PathVariable Long stationId) {
+        return ResponseEntity.ok(toDtos(tariffEngine.bands(stationId)));
+    }
+
+    // PUT /api/tariffs/stations/{stationId} - thay toàn bộ biểu giá của trạm (danh sách rỗng = dùng biểu giá mặc định)
+    @PutMapping("/stations/{stationId}")
+    public ResponseEntity<List<TariffBandDto>> replaceStationBands(@PathVariable Long stationId,
+                                                                   @RequestBody List<TariffBandDto> bands) {
+        return ResponseEntity.ok(toDtos(tariffEngine.replaceBands(stationId, toEntities(bands))));
+    }
+
+    // GET /api/tariffs/stations/{stationId}/quote?start=...&end=...&energyKwh=...&discountPercent=...
+    @GetMapping("/stations/{stationId}/quote")
+    public ResponseEntity<Map<String, Object>> quote(
+            @PathVariable Long stationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam BigDecimal energyKwh,
+            @RequestParam(defaultValue = "0") long discountPercent) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("end must not be before start");
+        }
+        if (discountPercent < 0 || discountPercent > 100) {
+            throw new IllegalArgumentException("discountPercent must be between 0 and 100");
+        }
+        TariffTable table = tariffEngine.table(stationId);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("stationId", stationId);
+        response.put("cost", tariffEngine.cost(stationId, start, end, Energy.ofKwh(energyKwh), discountPercent).toLong());
+        response.put("rateAtStart", tariffEngine.rateAt(stationId, start, discountPercent).toBigDecimal());
+        response.put("bandsCrossed", table.boundariesCrossed(TariffTable.localMillis(start), TariffTable.localMillis(end)));
+        return ResponseEntity.ok(response);
+    }
+
+    private static List<TariffBandDto> toDtos(List<TariffBand> bands) {
+        return bands.stream().map(band -> {
+            TariffBandDto dto = new TariffBandDto();
+            dto.setBandId(band.getBandId());
+            dto.setDayType(band.getDayType());
+            dto.setStartTime(band.getStartTime());
+            dto.setEndTime(band.getEndTime());
+            dto.setPricePerKwh(band.getPricePerKwh() != null ? band.getPricePerKwh().toBigDecimal() : null);
+            dto.setLabel(band.getLabel());
+            return dto;
+        }).toList();
+    }
+
+    private static List<TariffBand> toEntities(List<TariffBandDto> dtos) {
+        if (dtos == null) {
+            throw new IllegalArgumentException("Tariff bands are required");
+        }
+        return dtos.stream().map(dto -> {
+            TariffBand band = new TariffBand();
+            band.setDayType(dto.getDayType() != null ? dto.getDayType() : TariffBand.DayType.all);
+            band.setStartTime(dto.getStartTime());
+            band.setEndTime(dto.getEndTime());
+            band.setPricePerKwh(dto.getPricePerKwh() != null ? RatePerKwh.of(dto.getPricePerKwh()) : null);
+            band.setLabel(dto.getLabel());
+            return band;
+        }).toList();
+    }
+}
@@ -1,46 +1,46 @@
 package com.chargingservice.controllers;
 
 import com.chargingservice.dtos.SessionResponseDto;
-import com.chargingservice.entities.ChargingSession;
-import com.chargingservice.repositories.ChargingSessionRepository;
+import com.chargingservice.services.SessionHistoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/transactions")
 @RequiredArgsConstructor
 public class TransactionController {
 
-    private final ChargingSessionRepository sessionRepository;
+    private final SessionHistoryService sessionHistoryService;
 
+    // GET /api/transactions/history (toàn bộ) hoặc GET /api/transactions/history?cursor=...&limit=50 (phân trang)
+    // Trang tiếp theo: gửi lại giá trị header X-Next-Cursor (không có header = trang cuối)
+    // Danh sách toàn bộ chỉ gồm phiên của một user; vẫn dùng bởi TransactionsHistory, QuickStats, DriverAnalyticsPage
     @GetMapping("/history")
-    public ResponseEntity<List<SessionResponseDto>> getMyHistory(@RequestHeader("X-User-Id") Long userId) {
-        List<ChargingSession> sessions = sessionRepository.findByUserIdOrderByStartTimeDesc(userId);
-        List<SessionResponseDto> result = sessions.stream().map(this::toDto).collect(Collectors.toList());
-        return ResponseEntity.ok(result);
+    public ResponseEntity<List<SessionResponseDto>> getMyHistory(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (!SessionPageResponses.isPaged(cursor, limit)) {
+            return ResponseEntity.ok(sessionHistoryService.getUserSessions(userId));
+        }
+        return SessionPageResponses.of(
+                sessionHistoryService.getUserSessions(userId, cursor, SessionPageResponses.pageSize(limit)));
     }
 
-    private SessionResponseDto toDto(ChargingSession s) {
-        SessionResponseDto dto = new SessionResponseDto();
-        dto.setSessionId(s.getSessionId());
-        dto.setUserId(s.getUserId());
-        dto.setStationId(s.getStationId());
-        dto.setChargerId(s.getChargerId());
-        dto.setSessionCode(s.getSessionCode());
-        dto.setStartTime(s.getStartTime());
-        dto.setEndTime(s.getEndTime());
-        dto.setEnergyConsumed(s.getEnergyConsumed());
-        dto.setSessionStatus(s.getSessionStatus());
-        dto.setCreatedAt(s.getCreatedAt());
-        return dto;
+    // GET /api/transactions/history/export?format=ndjson|csv
+    @GetMapping("/history/export")
+    public ResponseEntity<StreamingResponseBody> exportMyHistory(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(defaultValue = "ndjson") SessionHistoryService.ExportFormat format) {
+        return SessionPageResponses.export("transactions-" + userId, format,
+                out -> sessionHistoryService.export(userId, format, out));
     }
 }
-
-
@@ -0,0 +1,30 @@
+package com.chargingservice.dtos;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Batched meter values (OCPP MeterValues style) for one or more sessions.
+ */
+@Data
+public class MeterValuesBatchRequestDto {
+    private List<SessionMeterValuesDto> sessions;
+
+    @Data
+    public static class SessionMeterValuesDto {
+        private Long sessionId;
+        private List<MeterSampleDto> samples;
+    }
+
+    @Data
+    public static class MeterSampleDto {
+        private LocalDateTime timestamp;
+        // Energy.Active.Import.Register (Wh) - giá trị tích lũy của công tơ
+        private Long energyWh;
+        // Power.Active.Import (W)
+        private Integer powerW;
+        // SoC (%), có thể null nếu xe không gửi
+        private Double soc;
+    }
+}
@@ -0,0 +1,14 @@
+package com.chargingservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeterValuesIngestResponseDto {
+    private int accepted;
+    // Mẫu bị bỏ qua: session không active, trùng hoặc sai thứ tự thời gian
+    private int ignored;
+}
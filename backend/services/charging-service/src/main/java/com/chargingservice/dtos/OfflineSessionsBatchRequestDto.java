@@ -0,0 +1,27 @@
+package com.chargingservice.dtos;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Completed sessions a station recorded while it had no connection to charging-service,
+ * replayed in one request when the uplink comes back.
+ */
+@Data
+public class OfflineSessionsBatchRequestDto {
+    private Long stationId;
+    private List<OfflineSessionDto> sessions;
+
+    @Data
+    public static class OfflineSessionDto {
+        // Mã giao dịch nội bộ của trạm (duy nhất trong trạm), dùng để loại bản gửi trùng
+        private String transactionId;
+        private Long chargerId;
+        private Long userId;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        // Năng lượng đã sạc (Wh) = meterStop - meterStart
+        private Long energyWh;
+    }
+}
@@ -0,0 +1,33 @@
+package com.chargingservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OfflineSessionsReconcileResponseDto {
+    private int created;
+    // Giao dịch đã được ghi trước đó (hoặc lặp lại trong cùng request); sessionId là phiên đã có
+    private int duplicates;
+    private int rejected;
+    // Kết quả theo thứ tự gửi lên, để trạm đánh dấu giao dịch nào đã đồng bộ
+    private List<ResultDto> results;
+
+    public enum Status {
+        created, duplicate, rejected
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResultDto {
+        private String transactionId;
+        private Status status;
+        private Long sessionId;
+        private String reason;
+    }
+}
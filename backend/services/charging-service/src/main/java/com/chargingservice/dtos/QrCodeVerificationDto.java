@@ -0,0 +1,20 @@
+package com.chargingservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QrCodeVerificationDto {
+    private Long reservationId;
+    private Long chargerId;
+    private Long userId;
+    // Mã dùng được trong [validFrom, validUntil), giờ địa phương
+    private LocalDateTime validFrom;
+    private LocalDateTime validUntil;
+    private Integer keyId;
+}
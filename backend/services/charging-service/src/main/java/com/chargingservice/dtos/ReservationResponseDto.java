@@ -19,6 +19,9 @@ public class ReservationResponseDto {
     private String qrCode;
     private String confirmationCode;
     private String cancellationReason;
+    private String routeId;
+    // Chỉ có khi là giữ chỗ tạm của lộ trình chưa xác nhận
+    private LocalDateTime holdExpiresAt;
     private LocalDateTime cancelledAt;
     
     // Deposit info
@@ -16,7 +16,8 @@ public class SessionResponseDto {
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private BigDecimal energyConsumed;
-    private BigDecimal pricePerKwh; // Price at the time of session (includes discounts)
+    private BigDecimal pricePerKwh; // Price at the time of session (includes discounts); average rate once ended
+    private BigDecimal totalCost; // Time-of-use bill, set when the session ends
     private ChargingSession.SessionStatus sessionStatus;
     private Boolean isPaid;
     private Long paymentId;
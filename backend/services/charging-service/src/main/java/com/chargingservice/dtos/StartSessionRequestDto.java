@@ -1,6 +1,7 @@
 // FILE: StartSessionRequestDto.java
 package com.chargingservice.dtos;
 
+import com.chargingservice.entities.ChargingSession;
 import lombok.Data;
 
 @Data
@@ -13,4 +14,7 @@ public class StartSessionRequestDto {
 
     // [COMMAND]: ID của trụ sạc cụ thể được sử dụng.
     private Long chargerId;
+
+    // Loại pin của xe (tùy chọn, mặc định standard): dùng để ước tính SOC và thời gian sạc còn lại
+    private ChargingSession.BatteryClass batteryClass;
 }
\ No newline at end of file
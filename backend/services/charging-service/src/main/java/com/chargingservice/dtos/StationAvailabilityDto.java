@@ -0,0 +1,36 @@
+package com.chargingservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StationAvailabilityDto {
+    private Long stationId;
+    private LocalDate date;
+    private int slotMinutes;
+    private int slots;
+    // Đặt chỗ phải bắt đầu sau thời điểm này (tối thiểu 30 phút trước giờ sạc)
+    private LocalDateTime earliestStartTime;
+    private List<ChargerSlotsDto> chargers;
+    // Số trụ trống tại mỗi slot của ngày
+    private int[] freeChargers;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChargerSlotsDto {
+        private Long chargerId;
+        // Trạng thái hiện tại từ station-service; trụ không đặt được (offline, bảo trì...) bận cả ngày
+        private String status;
+        // 72 ký tự hex, chữ số thứ k chứa slot 4k..4k+3 (bit thấp trước); bit 1 = đã có đặt chỗ/phiên sạc
+        private String busySlots;
+        private int freeSlots;
+    }
+}
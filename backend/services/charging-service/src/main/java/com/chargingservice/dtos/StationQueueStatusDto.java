@@ -0,0 +1,24 @@
+package com.chargingservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StationQueueStatusDto {
+    private Long stationId;
+    private Long userId;
+    // Vị trí trong hàng đợi, 1 = người tiếp theo được gọi
+    private int position;
+    private int queueLength;
+    // Trụ đang có phiên sạc tại trạm (theo các phiên đang chạy)
+    private int runningSessions;
+    private int freeChargers;
+    // Ước tính từ thời điểm kết thúc dự kiến của các phiên đang sạc; null nếu chưa ước tính được
+    private Integer estimatedWaitMinutes;
+    private LocalDateTime estimatedStartTime;
+}
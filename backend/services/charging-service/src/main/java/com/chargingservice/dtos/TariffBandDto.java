@@ -0,0 +1,17 @@
+package com.chargingservice.dtos;
+
+import com.chargingservice.entities.TariffBand;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+
+@Data
+public class TariffBandDto {
+    private Long bandId;
+    private TariffBand.DayType dayType; // all (mặc định), weekday, weekend
+    private LocalTime startTime; // "17:00"
+    private LocalTime endTime;   // exclusive; "00:00" = hết ngày, nhỏ hơn startTime = qua nửa đêm
+    private BigDecimal pricePerKwh;
+    private String label; // peak, off-peak, ...
+}
@@ -0,0 +1,110 @@
+package com.chargingservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Cold copy of a charging session that ended long ago, moved out of charging_sessions by SessionArchiveScheduler.
+ * Same columns and ids as ChargingSession (session_id is not regenerated), but only the indexes needed by the
+ * history reads, so the hot table and its indexes only hold recent and still-active sessions.
+ * Rows are read-only once archived.
+ */
+@Data
+@Entity
+@Table(name = "charging_sessions_archive", indexes = {
+        @Index(name = "idx_archive_user_start", columnList = "user_id, start_time, session_id"),
+        @Index(name = "idx_archive_start", columnList = "start_time, session_id"),
+        @Index(name = "idx_archive_station_offline_tx", columnList = "station_id, offline_transaction_id")
+})
+public class ArchivedChargingSession {
+
+    @Id
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "station_id", nullable = false)
+    private Long stationId;
+
+    @Column(name = "charger_id", nullable = false)
+    private Long chargerId;
+
+    @Column(name = "session_code", nullable = false)
+    private String sessionCode;
+
+    @Column(name = "start_time")
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time")
+    private LocalDateTime endTime;
+
+    @Column(name = "timeout_at")
+    private LocalDateTime timeoutAt;
+
+    @Column(name = "energy_consumed", precision = 10, scale = 2)
+    private BigDecimal energyConsumed;
+
+    @Column(name = "price_per_kwh", precision = 10, scale = 2)
+    private BigDecimal pricePerKwh;
+
+    @Column(name = "discount_percent")
+    private Integer discountPercent;
+
+    @Column(name = "total_cost", precision = 12, scale = 2)
+    private BigDecimal totalCost;
+
+    @Column(name = "offline_transaction_id", length = 64)
+    private String offlineTransactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "battery_class", length = 16)
+    private ChargingSession.BatteryClass batteryClass;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "session_status")
+    private ChargingSession.SessionStatus sessionStatus;
+
+    @Column(name = "is_paid")
+    private Boolean isPaid;
+
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Chuyển về ChargingSession (chỉ để đọc) cho các API lịch sử
+    public ChargingSession toSession() {
+        ChargingSession session = new ChargingSession();
+        session.setSessionId(sessionId);
+        session.setUserId(userId);
+        session.setStationId(stationId);
+        session.setChargerId(chargerId);
+        session.setSessionCode(sessionCode);
+        session.setStartTime(startTime);
+        session.setEndTime(endTime);
+        session.setTimeoutAt(timeoutAt);
+        session.setEnergyConsumed(energyConsumed);
+        session.setPricePerKwh(pricePerKwh);
+        session.setDiscountPercent(discountPercent);
+        session.setTotalCost(totalCost);
+        session.setOfflineTransactionId(offlineTransactionId);
+        session.setBatteryClass(batteryClass);
+        session.setSessionStatus(sessionStatus);
+        session.setIsPaid(isPaid);
+        session.setPaymentId(paymentId);
+        session.setCreatedAt(createdAt);
+        session.setUpdatedAt(updatedAt);
+        return session;
+    }
+}
@@ -0,0 +1,27 @@
+package com.chargingservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * The one running session admitted on a charger. charger_id is the primary key, so a second claim
+ * for the same charger fails with a duplicate key, whichever instance inserts it.
+ * Inserted by ChargerAdmissionControl when a session starts and deleted when it ends.
+ */
+@Data
+@Entity
+@Table(name = "charger_active_claims")
+public class ChargerActiveClaim {
+
+    @Id
+    @Column(name = "charger_id")
+    private Long chargerId;
+
+    @Column(name = "session_id", nullable = false, unique = true)
+    private Long sessionId;
+
+    @Column(name = "claimed_at", nullable = false)
+    private LocalDateTime claimedAt;
+}
@@ -0,0 +1,59 @@
+package com.chargingservice.entities;
+
+import com.chargingservice.dtos.internal.UpdateChargerStatusDto;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pending charger status change for station-service.
+ * Written in the same transaction as the session change and delivered by ChargerStatusOutboxRelay.
+ */
+@Data
+@Entity
+@Table(name = "charger_status_outbox", indexes = {
+        @Index(name = "idx_outbox_status_id", columnList = "outbox_status, outbox_id"),
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "outbox_status, next_attempt_at"),
+        @Index(name = "idx_outbox_charger", columnList = "charger_id")
+})
+public class ChargerStatusOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_id")
+    private Long outboxId;
+
+    @Column(name = "charger_id", nullable = false)
+    private Long chargerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_status", nullable = false)
+    private UpdateChargerStatusDto.ChargerStatus targetStatus;
+
+    // Session that caused the change (for tracing only)
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "outbox_status", nullable = false)
+    private OutboxStatus outboxStatus = OutboxStatus.pending;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum OutboxStatus {
+        pending, failed
+    }
+}
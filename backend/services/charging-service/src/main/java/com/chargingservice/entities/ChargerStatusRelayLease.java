@@ -0,0 +1,27 @@
+package com.chargingservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * The instance currently relaying a charger's outbox rows. charger_id is the primary key, so only one
+ * instance can hold a charger at a time; the lease lapses at lease_until if its holder dies mid-delivery.
+ * Taken and released by ChargerStatusOutboxRelay.
+ */
+@Data
+@Entity
+@Table(name = "charger_status_relay_leases")
+public class ChargerStatusRelayLease {
+
+    @Id
+    @Column(name = "charger_id")
+    private Long chargerId;
+
+    @Column(name = "owner", nullable = false, length = 36)
+    private String owner;
+
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+}
@@ -10,7 +10,14 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "charging_sessions")
+@Table(name = "charging_sessions", indexes = {
+        @Index(name = "idx_session_user_start", columnList = "user_id, start_time, session_id"),
+        @Index(name = "idx_session_start", columnList = "start_time, session_id"),
+        @Index(name = "idx_session_status_timeout", columnList = "session_status, timeout_at")
+}, uniqueConstraints = {
+        // Phiên ngoại tuyến do trạm gửi lại: mỗi mã giao dịch của trạm chỉ được ghi một lần
+        @UniqueConstraint(name = "uk_session_station_offline_tx", columnNames = {"station_id", "offline_transaction_id"})
+})
 public class ChargingSession {
 
     @Id
@@ -39,6 +46,10 @@ public class ChargingSession {
     @Column(name = "end_time")
     private LocalDateTime endTime;
 
+    // Hạn chót tự động kết thúc phiên đang sạc (SessionTimeoutEngine)
+    @Column(name = "timeout_at")
+    private LocalDateTime timeoutAt;
+
     @Column(name = "energy_consumed", precision = 10, scale = 2)
     private BigDecimal energyConsumed;
 
@@ -47,6 +58,25 @@ public class ChargingSession {
     @Column(name = "price_per_kwh", precision = 10, scale = 2)
     private BigDecimal pricePerKwh;
 
+    // Discount (%) of the user's subscription, fixed at session start and applied to every tariff band.
+    // null = session started before time-of-use pricing; billed at the flat price_per_kwh
+    @Column(name = "discount_percent")
+    private Integer discountPercent;
+
+    // Final bill (VND) set by TariffEngine.settle when the session ends;
+    // price_per_kwh is then the effective average rate (total_cost / energy_consumed)
+    @Column(name = "total_cost", precision = 12, scale = 2)
+    private BigDecimal totalCost;
+
+    // Station-local transaction id of a session recorded while the station was offline (null for online sessions)
+    @Column(name = "offline_transaction_id", length = 64)
+    private String offlineTransactionId;
+
+    // Loại pin của xe (đường cong sạc dùng cho SOC/ETA); null = standard
+    @Enumerated(EnumType.STRING)
+    @Column(name = "battery_class", length = 16)
+    private BatteryClass batteryClass;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "session_status")
     private SessionStatus sessionStatus;
@@ -69,4 +99,8 @@ public class ChargingSession {
     public enum SessionStatus {
         reserved, starting, charging, paused, completed, cancelled, failed, timeout
     }
+
+    public enum BatteryClass {
+        compact, standard, large
+    }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.chargingservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Downsampled meter values: one append-only row per session per time bucket.
+ * Rows are written in JDBC batches by MeterValueStore.
+ */
+@Data
+@Entity
+@Table(name = "meter_value_buckets", indexes = {
+        @Index(name = "idx_meter_bucket_session", columnList = "session_id, bucket_start")
+})
+public class MeterValueBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "bucket_id")
+    private Long bucketId;
+
+    @Column(name = "session_id", nullable = false)
+    private Long sessionId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    // Energy register (Wh) at the first and last sample of the bucket
+    @Column(name = "energy_wh_start", nullable = false)
+    private Long energyWhStart;
+
+    @Column(name = "energy_wh_end", nullable = false)
+    private Long energyWhEnd;
+
+    @Column(name = "avg_power_w")
+    private Integer avgPowerW;
+
+    @Column(name = "max_power_w")
+    private Integer maxPowerW;
+
+    @Column(name = "soc_end")
+    private Double socEnd;
+
+    @Column(name = "sample_count", nullable = false)
+    private Integer sampleCount;
+}
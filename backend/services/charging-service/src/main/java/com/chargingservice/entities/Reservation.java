@@ -8,7 +8,10 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "reservations")
+@Table(name = "reservations", indexes = {
+        @Index(name = "idx_reservation_status_station", columnList = "status, station_id"),
+        @Index(name = "idx_reservation_route", columnList = "route_id")
+})
 public class Reservation {
 
     @Id
@@ -47,6 +50,14 @@ public class Reservation {
     @Column(name = "confirmation_code", length = 20)
     private String confirmationCode;
 
+    // Các chặng của cùng một lộ trình (đặt nhiều trạm) có chung routeId
+    @Column(name = "route_id", length = 36)
+    private String routeId;
+
+    // Giữ chỗ tạm của lộ trình (status pending) hết hạn lúc này nếu chưa được xác nhận; null khi không phải giữ chỗ
+    @Column(name = "hold_expires_at")
+    private LocalDateTime holdExpiresAt;
+
     @Column(name = "cancellation_reason", columnDefinition = "TEXT")
     private String cancellationReason;
 
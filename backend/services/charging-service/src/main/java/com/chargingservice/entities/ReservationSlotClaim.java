@@ -0,0 +1,32 @@
+package com.chargingservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * One five-minute slot of a charger taken by a reservation. (charger_id, slot_index) is unique, so two
+ * reservations covering the same slot cannot both commit, whichever instance inserts them.
+ * slot_index counts five-minute slots since 1970-01-01T00:00 of the reservation's local time.
+ * Rows are written by ReservationSlotClaims with plain JDBC.
+ */
+@Data
+@Entity
+@Table(name = "reservation_slot_claims",
+        uniqueConstraints = @UniqueConstraint(name = "uk_slot_claim_charger_slot", columnNames = {"charger_id", "slot_index"}),
+        indexes = @Index(name = "idx_slot_claim_reservation", columnList = "reservation_id"))
+public class ReservationSlotClaim {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "claim_id")
+    private Long claimId;
+
+    @Column(name = "charger_id", nullable = false)
+    private Long chargerId;
+
+    @Column(name = "slot_index", nullable = false)
+    private Long slotIndex;
+
+    @Column(name = "reservation_id", nullable = false)
+    private Long reservationId;
+}
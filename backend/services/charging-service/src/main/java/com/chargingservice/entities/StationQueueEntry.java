@@ -0,0 +1,33 @@
+package com.chargingservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A driver waiting for a charger at a station. Drivers are called in entry_id order; the unique key keeps one
+ * entry per driver and station, whichever instance the driver joined through.
+ * Written and removed by StationQueueService.
+ */
+@Data
+@Entity
+@Table(name = "station_queue_entries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_queue_station_user", columnNames = {"station_id", "user_id"}),
+        indexes = @Index(name = "idx_queue_station_entry", columnList = "station_id, entry_id"))
+public class StationQueueEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "entry_id")
+    private Long entryId;
+
+    @Column(name = "station_id", nullable = false)
+    private Long stationId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "joined_at", nullable = false)
+    private LocalDateTime joinedAt;
+}
@@ -0,0 +1,51 @@
+package com.chargingservice.entities;
+
+import com.chargingservice.units.RatePerKwh;
+import com.chargingservice.units.RatePerKwhConverter;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalTime;
+
+/**
+ * One time-of-use price band of a station's tariff (e.g. peak 17:00-20:00 on weekdays).
+ * Bands with station_id = null form the default tariff of stations that have none of their own.
+ * Compiled into a TariffTable by TariffEngine; where bands overlap, day-specific bands win over "all".
+ */
+@Data
+@Entity
+@Table(name = "tariff_bands", indexes = {
+        @Index(name = "idx_tariff_station", columnList = "station_id")
+})
+public class TariffBand {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "band_id")
+    private Long bandId;
+
+    @Column(name = "station_id")
+    private Long stationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "day_type", nullable = false)
+    private DayType dayType = DayType.all;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+
+    // Exclusive; 00:00 means end of day, an end before the start runs past midnight into the next day
+    @Column(name = "end_time", nullable = false)
+    private LocalTime endTime;
+
+    @Convert(converter = RatePerKwhConverter.class)
+    @Column(name = "price_per_kwh", precision = 10, scale = 2, nullable = false)
+    private RatePerKwh pricePerKwh;
+
+    @Column(name = "label", length = 50)
+    private String label; // peak, off-peak, ...
+
+    public enum DayType {
+        all, weekday, weekend
+    }
+}
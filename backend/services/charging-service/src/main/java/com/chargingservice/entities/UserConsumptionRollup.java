@@ -0,0 +1,47 @@
+package com.chargingservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDate;
+
+/**
+ * Per-user consumption totals for one day or one month.
+ * sessionsStarted is attributed to the session's start date, sessionsCompleted and energyWh to its end date.
+ * Rows are maintained incrementally by ConsumptionRollupService.
+ */
+@Data
+@Entity
+@Table(name = "user_consumption_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rollup_user_period", columnNames = {"user_id", "period_type", "period_start"})
+})
+public class UserConsumptionRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period_type", nullable = false, length = 10)
+    private PeriodType periodType;
+
+    // Ngày đầu của kỳ (ngày hoặc ngày 1 của tháng)
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "sessions_started", nullable = false)
+    private Long sessionsStarted = 0L;
+
+    @Column(name = "sessions_completed", nullable = false)
+    private Long sessionsCompleted = 0L;
+
+    @Column(name = "energy_wh", nullable = false)
+    private Long energyWh = 0L;
+
+    public enum PeriodType {
+        day, month
+    }
+}
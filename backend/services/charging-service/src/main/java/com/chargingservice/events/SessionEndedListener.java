@@ -0,0 +1,34 @@
+package com.chargingservice.events;
+
+import com.chargingservice.events.dtos.SessionEndedEvent;
+import com.chargingservice.services.ActiveSessionRegistry;
+import com.chargingservice.services.StationPowerAllocator;
+import com.chargingservice.services.StationQueueService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops a session that ended on another instance from this instance's registry, so status polls read the final
+ * state from the database instead of serving the stale running entry, and from its station power pool and
+ * station queue wait estimates.
+ */
+@Component
+@RequiredArgsConstructor
+public class SessionEndedListener {
+
+    private final SessionEventPublisher sessionEvents;
+    private final ActiveSessionRegistry activeSessionRegistry;
+    private final StationPowerAllocator powerAllocator;
+    private final StationQueueService stationQueueService;
+
+    @RabbitListener(queues = "#{sessionEventsQueue.name}")
+    public void onSessionEnded(SessionEndedEvent event) {
+        if (event.getSessionId() == null || sessionEvents.isOwn(event)) {
+            return;
+        }
+        activeSessionRegistry.untrack(event.getSessionId());
+        powerAllocator.detach(event.getSessionId());
+        stationQueueService.sessionEndedElsewhere(event.getStationId(), event.getSessionId());
+    }
+}
@@ -0,0 +1,51 @@
+package com.chargingservice.events;
+
+import com.chargingservice.events.dtos.SessionEndedEvent;
+import com.chargingservice.services.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Broadcasts session lifecycle changes over the session fanout exchange so every charging-service instance can
+ * drop the state it keeps in memory for the session. Sent after commit, so no instance acts on a rolled-back stop.
+ */
+@Component
+public class SessionEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionEventPublisher.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final String exchangeName;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public SessionEventPublisher(
+            RabbitTemplate rabbitTemplate,
+            @Value("${app.rabbitmq.session-exchange:charging.session.events}") String exchangeName) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.exchangeName = exchangeName;
+    }
+
+    public void sessionEnded(Long sessionId, Long stationId) {
+        SessionEndedEvent event = new SessionEndedEvent(sessionId, stationId, instanceId);
+        AfterCommit.run(() -> {
+            try {
+                rabbitTemplate.convertAndSend(exchangeName, "", event);
+            } catch (Exception e) {
+                // Instance khác tự đối chiếu lại với DB sau charging.registry.verify-interval-ms
+                log.warn("Failed to publish end of session {}: {}", sessionId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Events this instance sent itself; its own state was already updated when the session ended.
+     */
+    public boolean isOwn(SessionEndedEvent event) {
+        return instanceId.equals(event.getOrigin());
+    }
+}
@@ -0,0 +1,25 @@
+package com.chargingservice.events;
+
+import com.chargingservice.events.dtos.SubscriptionChangedEvent;
+import com.chargingservice.services.SubscriptionEntitlementCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops the cached entitlement of a user whose subscription changed. Every instance has its own queue on the
+ * fanout exchange, so every instance's cache is cleared, not just the one a load balancer would pick.
+ */
+@Component
+@RequiredArgsConstructor
+public class SubscriptionChangedListener {
+
+    private final SubscriptionEntitlementCache entitlementCache;
+
+    @RabbitListener(queues = "#{entitlementEventsQueue.name}")
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+        if (event.getUserId() != null) {
+            entitlementCache.invalidate(event.getUserId());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.chargingservice.events.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Broadcast by the charging-service instance that ended a session (stop, cancel, timeout) to every instance.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionEndedEvent {
+    private Long sessionId;
+    private Long stationId;
+    // Instance đã gửi sự kiện; instance đó đã tự cập nhật trạng thái của mình
+    private String origin;
+}
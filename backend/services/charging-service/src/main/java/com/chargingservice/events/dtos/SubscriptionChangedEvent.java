@@ -0,0 +1,15 @@
+package com.chargingservice.events.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Published by user-service after a user's subscription package changes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionChangedEvent {
+    private Long userId;
+}
@@ -0,0 +1,35 @@
+package com.chargingservice.repositories;
+
+import com.chargingservice.entities.ArchivedChargingSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Cùng các truy vấn keyset như ChargingSessionRepository, trên bảng lưu trữ
+@Repository
+public interface ArchivedChargingSessionRepository extends JpaRepository<ArchivedChargingSession, Long> {
+
+    List<ArchivedChargingSession> findByUserIdOrderByStartTimeDescSessionIdDesc(Long userId, Pageable pageable);
+
+    @Query("SELECT s FROM ArchivedChargingSession s WHERE s.userId = :userId AND " +
+           "(s.startTime < :startTime OR (s.startTime = :startTime AND s.sessionId < :sessionId)) " +
+           "ORDER BY s.startTime DESC, s.sessionId DESC")
+    List<ArchivedChargingSession> findUserPageAfter(@Param("userId") Long userId,
+                                                    @Param("startTime") LocalDateTime startTime,
+                                                    @Param("sessionId") Long sessionId,
+                                                    Pageable pageable);
+
+    List<ArchivedChargingSession> findAllByOrderByStartTimeDescSessionIdDesc(Pageable pageable);
+
+    @Query("SELECT s FROM ArchivedChargingSession s WHERE " +
+           "s.startTime < :startTime OR (s.startTime = :startTime AND s.sessionId < :sessionId) " +
+           "ORDER BY s.startTime DESC, s.sessionId DESC")
+    List<ArchivedChargingSession> findPageAfter(@Param("startTime") LocalDateTime startTime,
+                                                @Param("sessionId") Long sessionId,
+                                                Pageable pageable);
+}
@@ -0,0 +1,37 @@
+package com.chargingservice.repositories;
+
+import com.chargingservice.entities.ChargerActiveClaim;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChargerActiveClaimRepository extends JpaRepository<ChargerActiveClaim, Long> {
+
+    // Plain INSERT (not save/merge) so a concurrent claim fails with a duplicate key instead of overwriting
+    @Modifying
+    @Query(value = "INSERT INTO charger_active_claims (charger_id, session_id, claimed_at) VALUES (:chargerId, :sessionId, NOW())",
+           nativeQuery = true)
+    int insertClaim(@Param("chargerId") Long chargerId, @Param("sessionId") Long sessionId);
+
+    @Modifying
+    @Query("DELETE FROM ChargerActiveClaim c WHERE c.chargerId = :chargerId AND c.sessionId = :sessionId")
+    int deleteClaim(@Param("chargerId") Long chargerId, @Param("sessionId") Long sessionId);
+
+    // Claims whose session is no longer running (e.g. ended before claims existed)
+    @Modifying
+    @Query(value = "DELETE c FROM charger_active_claims c LEFT JOIN charging_sessions s ON s.session_id = c.session_id " +
+                   "WHERE s.session_id IS NULL OR s.session_status NOT IN ('charging', 'starting', 'paused')",
+           nativeQuery = true)
+    int deleteOrphanClaims();
+
+    // Running sessions without a claim (started before claims existed); duplicates on one charger keep the first
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO charger_active_claims (charger_id, session_id, claimed_at) " +
+                   "SELECT charger_id, session_id, start_time FROM charging_sessions " +
+                   "WHERE session_status IN ('charging', 'starting', 'paused') AND start_time IS NOT NULL ORDER BY session_id",
+           nativeQuery = true)
+    int backfillClaims();
+}
@@ -0,0 +1,36 @@
+package com.chargingservice.repositories;
+
+import com.chargingservice.entities.ChargerStatusOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChargerStatusOutboxRepository extends JpaRepository<ChargerStatusOutbox, Long> {
+
+    // Due entries only (rows backing off must not fill the batch), oldest first so that changes
+    // for the same charger are seen in commit order. Served by idx_outbox_status_next_attempt
+    @Query("SELECT o FROM ChargerStatusOutbox o WHERE o.outboxStatus = :status AND o.nextAttemptAt <= :now " +
+           "ORDER BY o.outboxId ASC")
+    List<ChargerStatusOutbox> findDue(@Param("status") ChargerStatusOutbox.OutboxStatus status,
+                                      @Param("now") LocalDateTime now, Pageable pageable);
+
+    // All pending rows of one charger in commit order, read again once the charger's relay lease is held
+    List<ChargerStatusOutbox> findByChargerIdAndOutboxStatusOrderByOutboxIdAsc(
+            Long chargerId, ChargerStatusOutbox.OutboxStatus status);
+
+    // Older rows of the charger, including ones still backing off, are superseded once a newer status is delivered
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChargerStatusOutbox o WHERE o.chargerId = :chargerId AND o.outboxId < :outboxId")
+    int deleteSuperseded(@Param("chargerId") Long chargerId, @Param("outboxId") Long outboxId);
+
+    long countByOutboxStatus(ChargerStatusOutbox.OutboxStatus status);
+}
@@ -0,0 +1,36 @@
+package com.chargingservice.repositories;
+
+import com.chargingservice.entities.ChargerStatusRelayLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ChargerStatusRelayLeaseRepository extends JpaRepository<ChargerStatusRelayLease, Long> {
+
+    // INSERT IGNORE: 0 khi instance khác đã có dòng của trụ này (còn hạn hay không thì takeOver quyết định)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO charger_status_relay_leases (charger_id, owner, lease_until) " +
+                   "VALUES (:chargerId, :owner, :until)",
+           nativeQuery = true)
+    int insertLease(@Param("chargerId") Long chargerId, @Param("owner") String owner, @Param("until") LocalDateTime until);
+
+    // Takes over a lapsed lease (holder died mid-delivery) or renews our own
+    @Modifying
+    @Transactional
+    @Query("UPDATE ChargerStatusRelayLease l SET l.owner = :owner, l.leaseUntil = :until " +
+           "WHERE l.chargerId = :chargerId AND (l.leaseUntil < :now OR l.owner = :owner)")
+    int takeOverLease(@Param("chargerId") Long chargerId, @Param("owner") String owner,
+                      @Param("until") LocalDateTime until, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChargerStatusRelayLease l WHERE l.chargerId = :chargerId AND l.owner = :owner")
+    int releaseLease(@Param("chargerId") Long chargerId, @Param("owner") String owner);
+}
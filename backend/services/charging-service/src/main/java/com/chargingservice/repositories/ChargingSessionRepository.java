@@ -2,27 +2,63 @@
 package com.chargingservice.repositories;
 
 import com.chargingservice.entities.ChargingSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ChargingSessionRepository extends JpaRepository<ChargingSession, Long> {
-    List<ChargingSession> findByUserIdOrderByStartTimeDesc(Long userId);
     Optional<ChargingSession> findFirstByUserIdAndSessionStatusOrderByStartTimeDesc(Long userId, ChargingSession.SessionStatus status);
 
     Optional<ChargingSession> findFirstByChargerIdAndSessionStatus(Long chargerId, ChargingSession.SessionStatus status);
+
+    Optional<ChargingSession> findFirstByChargerIdAndSessionStatusIn(Long chargerId, Collection<ChargingSession.SessionStatus> statuses);
     
     // Find sessions by status
     List<ChargingSession> findBySessionStatus(ChargingSession.SessionStatus status);
+
+    List<ChargingSession> findByStationIdAndSessionStatusIn(Long stationId, Collection<ChargingSession.SessionStatus> statuses);
     
     // Find all active sessions for a user (charging, starting, paused, reserved)
     // Used to prevent duplicate active sessions
     @Query("SELECT s FROM ChargingSession s WHERE s.userId = :userId AND " +
            "s.sessionStatus IN ('charging', 'starting', 'paused', 'reserved')")
     List<ChargingSession> findActiveSessionsByUserId(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    // Keyset pagination trên (startTime DESC, sessionId DESC); Pageable chỉ dùng để giới hạn số dòng
+    List<ChargingSession> findByUserIdOrderByStartTimeDescSessionIdDesc(Long userId, Pageable pageable);
+
+    @Query("SELECT s FROM ChargingSession s WHERE s.userId = :userId AND " +
+           "(s.startTime < :startTime OR (s.startTime = :startTime AND s.sessionId < :sessionId)) " +
+           "ORDER BY s.startTime DESC, s.sessionId DESC")
+    List<ChargingSession> findUserPageAfter(@Param("userId") Long userId,
+                                            @Param("startTime") LocalDateTime startTime,
+                                            @Param("sessionId") Long sessionId,
+                                            Pageable pageable);
+
+    List<ChargingSession> findAllByOrderByStartTimeDescSessionIdDesc(Pageable pageable);
+
+    @Query("SELECT s FROM ChargingSession s WHERE " +
+           "s.startTime < :startTime OR (s.startTime = :startTime AND s.sessionId < :sessionId) " +
+           "ORDER BY s.startTime DESC, s.sessionId DESC")
+    List<ChargingSession> findPageAfter(@Param("startTime") LocalDateTime startTime,
+                                        @Param("sessionId") Long sessionId,
+                                        Pageable pageable);
+
+    // Phiên quá hạn timeout_at (dùng index session_status, timeout_at)
+    List<ChargingSession> findBySessionStatusAndTimeoutAtBefore(ChargingSession.SessionStatus status,
+                                                                LocalDateTime time, Pageable pageable);
+
+    // Gán timeout_at cho phiên đang sạc tạo trước khi có cột này
+    @Modifying
+    @Query("UPDATE ChargingSession s SET s.timeoutAt = :timeoutAt WHERE s.sessionId = :sessionId AND s.timeoutAt IS NULL")
+    int initTimeoutAt(@Param("sessionId") Long sessionId, @Param("timeoutAt") LocalDateTime timeoutAt);
+}
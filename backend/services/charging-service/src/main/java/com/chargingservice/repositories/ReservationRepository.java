@@ -1,12 +1,16 @@
 package com.chargingservice.repositories;
 
 import com.chargingservice.entities.Reservation;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,15 +20,31 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
     List<Reservation> findByStationIdAndStatus(Long stationId, Reservation.ReservationStatus status);
     Optional<Reservation> findByConfirmationCode(String confirmationCode);
     Optional<Reservation> findByQrCode(String qrCode);
+    List<Reservation> findByStatusIn(Collection<Reservation.ReservationStatus> statuses);
 
-    @Query("SELECT r FROM Reservation r WHERE r.chargerId = :chargerId AND r.status IN :statuses AND r.reservedStartTime < :endTime AND r.reservedEndTime > :startTime")
+    // Giữ chỗ tạm đã quá hạn (holdExpiresAt <= now) không còn chặn trụ
+    @Query("SELECT r FROM Reservation r WHERE r.chargerId = :chargerId AND r.status IN :statuses AND r.reservedStartTime < :endTime AND r.reservedEndTime > :startTime " +
+           "AND (r.holdExpiresAt IS NULL OR r.holdExpiresAt > :now)")
     List<Reservation> findOverlappingReservations(
             @Param("chargerId") Long chargerId,
             @Param("startTime") LocalDateTime startTime,
             @Param("endTime") LocalDateTime endTime,
-            @Param("statuses") List<Reservation.ReservationStatus> statuses
+            @Param("statuses") List<Reservation.ReservationStatus> statuses,
+            @Param("now") LocalDateTime now
     );
 
+    // Các chặng của một lộ trình (index route_id)
+    List<Reservation> findByRouteIdOrderByReservedStartTimeAsc(String routeId);
+
+    // Khóa các chặng của lộ trình (SELECT ... FOR UPDATE) trước khi xác nhận: lần hết hạn giữ chỗ chạy song song
+    // phải chờ commit rồi mới đọc trạng thái, thay vì bị ghi đè thành confirmed
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reservation r WHERE r.routeId = :routeId ORDER BY r.reservedStartTime ASC, r.reservationId ASC")
+    List<Reservation> lockByRouteId(@Param("routeId") String routeId);
+
+    // Giữ chỗ tạm của lộ trình đã hết hạn mà chưa được xác nhận
+    List<Reservation> findByStatusAndHoldExpiresAtBefore(Reservation.ReservationStatus status, LocalDateTime time);
+
     // Find reservations needing reminder (starting between start and end, confirmed status, reminder not sent)
     @Query("SELECT r FROM Reservation r WHERE r.reservedStartTime >= :start AND r.reservedStartTime <= :end AND r.status = :status AND (r.reminderSent = false OR r.reminderSent IS NULL)")
     List<Reservation> findByReservedStartTimeBetweenAndStatusAndReminderNotSent(
@@ -42,5 +62,39 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
 
     // Find reservation by sessionId
     Optional<Reservation> findBySessionId(Long sessionId);
+
+    // Số reservation theo trạm cho các trạng thái cho trước: [stationId, count] (index status, station_id)
+    @Query("SELECT r.stationId, COUNT(r) FROM Reservation r WHERE r.status IN :statuses GROUP BY r.stationId")
+    List<Object[]> countByStationForStatuses(@Param("statuses") Collection<Reservation.ReservationStatus> statuses);
+
+    // Reservation đã hủy/hết hạn/no-show mà mã QR còn trong thời hạn: [reservationId, reservedEndTime]
+    @Query("SELECT r.reservationId, r.reservedEndTime FROM Reservation r " +
+           "WHERE r.status IN :statuses AND r.reservedEndTime > :now AND r.qrCode IS NOT NULL")
+    List<Object[]> findRevokedQrCodes(@Param("statuses") Collection<Reservation.ReservationStatus> statuses,
+                                      @Param("now") LocalDateTime now);
+
+    // Khóa các reservation có deadline vừa đến hạn trước khi xử lý theo lô (tránh hai instance cùng xử lý)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reservation r WHERE r.reservationId IN :ids")
+    List<Reservation> lockAllById(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Reservation r SET r.reminderSent = true, r.reminderSentAt = :now, r.updatedAt = :now " +
+           "WHERE r.reservationId IN :ids")
+    int markRemindersSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Chỉ chuyển các reservation còn ở trạng thái from (ví dụ confirmed -> no_show, pending -> expired)
+    @Modifying
+    @Query("UPDATE Reservation r SET r.status = :to, r.noShowCount = COALESCE(r.noShowCount, 0) + 1, " +
+           "r.noShowPenaltyApplied = true, r.updatedAt = :now WHERE r.reservationId IN :ids AND r.status = :from")
+    int markNoShows(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now,
+                    @Param("from") Reservation.ReservationStatus from, @Param("to") Reservation.ReservationStatus to);
+
+    @Modifying
+    @Query("UPDATE Reservation r SET r.status = :to, r.cancellationReason = :reason, r.updatedAt = :now " +
+           "WHERE r.reservationId IN :ids AND r.status = :from")
+    int transitionAll(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now,
+                      @Param("from") Reservation.ReservationStatus from, @Param("to") Reservation.ReservationStatus to,
+                      @Param("reason") String reason);
 }
 
@@ -0,0 +1,45 @@
+package com.chargingservice.repositories;
+
+import com.chargingservice.entities.StationQueueEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface StationQueueEntryRepository extends JpaRepository<StationQueueEntry, Long> {
+
+    // INSERT IGNORE: 0 khi tài xế đã có trong hàng đợi của trạm (vào lại giữ nguyên vị trí)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO station_queue_entries (station_id, user_id, joined_at) " +
+                   "VALUES (:stationId, :userId, :joinedAt)",
+           nativeQuery = true)
+    int insertEntry(@Param("stationId") Long stationId, @Param("userId") Long userId,
+                    @Param("joinedAt") LocalDateTime joinedAt);
+
+    Optional<StationQueueEntry> findByStationIdAndUserId(Long stationId, Long userId);
+
+    Optional<StationQueueEntry> findFirstByStationIdOrderByEntryIdAsc(Long stationId);
+
+    long countByStationId(Long stationId);
+
+    // Vị trí trong hàng đợi (0 = người được gọi tiếp theo)
+    long countByStationIdAndEntryIdLessThan(Long stationId, Long entryId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StationQueueEntry e WHERE e.stationId = :stationId AND e.userId = :userId")
+    int deleteEntry(@Param("stationId") Long stationId, @Param("userId") Long userId);
+
+    // 0 khi instance khác đã gọi người này trước (hai phiên kết thúc cùng lúc gọi hai người khác nhau)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StationQueueEntry e WHERE e.entryId = :entryId")
+    int claimEntry(@Param("entryId") Long entryId);
+}
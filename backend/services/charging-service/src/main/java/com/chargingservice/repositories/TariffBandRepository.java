@@ -0,0 +1,27 @@
+package com.chargingservice.repositories;
+
+import com.chargingservice.entities.TariffBand;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TariffBandRepository extends JpaRepository<TariffBand, Long> {
+
+    List<TariffBand> findByStationIdOrderByBandIdAsc(Long stationId);
+
+    // Biểu giá mặc định (station_id = null)
+    List<TariffBand> findByStationIdIsNullOrderByBandIdAsc();
+
+    @Modifying
+    @Query("DELETE FROM TariffBand b WHERE b.stationId = :stationId")
+    int deleteByStationId(@Param("stationId") Long stationId);
+
+    @Modifying
+    @Query("DELETE FROM TariffBand b WHERE b.stationId IS NULL")
+    int deleteDefaultBands();
+}
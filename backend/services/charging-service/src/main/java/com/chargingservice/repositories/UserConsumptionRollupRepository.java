@@ -0,0 +1,23 @@
+package com.chargingservice.repositories;
+
+import com.chargingservice.entities.UserConsumptionRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UserConsumptionRollupRepository extends JpaRepository<UserConsumptionRollup, Long> {
+
+    List<UserConsumptionRollup> findByUserIdAndPeriodTypeAndPeriodStartBetweenOrderByPeriodStartAsc(
+            Long userId, UserConsumptionRollup.PeriodType periodType, LocalDate from, LocalDate to);
+
+    // Lifetime totals from the rows of one period type (month): [sessionsStarted, sessionsCompleted]
+    @Query("SELECT COALESCE(SUM(r.sessionsStarted), 0), COALESCE(SUM(r.sessionsCompleted), 0) " +
+           "FROM UserConsumptionRollup r WHERE r.userId = :userId AND r.periodType = :periodType")
+    List<Object[]> sumLifetimeTotals(@Param("userId") Long userId,
+                                     @Param("periodType") UserConsumptionRollup.PeriodType periodType);
+}
@@ -0,0 +1,156 @@
+package com.chargingservice.schedulers;
+
+import com.chargingservice.clients.StationServiceClient;
+import com.chargingservice.dtos.internal.UpdateChargerStatusDto;
+import com.chargingservice.entities.ChargerStatusOutbox;
+import com.chargingservice.repositories.ChargerStatusOutboxRepository;
+import com.chargingservice.repositories.ChargerStatusRelayLeaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Delivers queued charger status changes to station-service:
+ * 1. Reads pending outbox rows that are due (not backing off) in batches, oldest first, to find chargers with work
+ * 2. Takes the charger's lease in charger_status_relay_leases before touching its rows: every instance runs the
+ *    relay, and the lease keeps one charger's changes on one instance at a time, so a status is never sent twice
+ *    and an older status never lands after a newer one
+ * 3. Per charger only the newest status is sent; older rows for the same charger, including rows
+ *    still backing off, are superseded
+ * 4. Failed deliveries are retried with exponential backoff and marked failed after max-attempts
+ * The lease outlives a delivery (charging.outbox.lease-seconds, above the Feign timeouts) and lapses if its holder dies.
+ */
+@Component
+public class ChargerStatusOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(ChargerStatusOutboxRelay.class);
+    private static final long MAX_BACKOFF_SECONDS = 300;
+
+    private final ChargerStatusOutboxRepository outboxRepository;
+    private final ChargerStatusRelayLeaseRepository leaseRepository;
+    private final StationServiceClient stationServiceClient;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long leaseSeconds;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public ChargerStatusOutboxRelay(
+            ChargerStatusOutboxRepository outboxRepository,
+            ChargerStatusRelayLeaseRepository leaseRepository,
+            StationServiceClient stationServiceClient,
+            @Value("${charging.outbox.batch-size:100}") int batchSize,
+            @Value("${charging.outbox.max-attempts:10}") int maxAttempts,
+            @Value("${charging.outbox.lease-seconds:60}") long leaseSeconds) {
+        this.outboxRepository = outboxRepository;
+        this.leaseRepository = leaseRepository;
+        this.stationServiceClient = stationServiceClient;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${charging.outbox.relay-interval-ms:1000}")
+    public void relay() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ChargerStatusOutbox> batch = outboxRepository.findDue(
+                ChargerStatusOutbox.OutboxStatus.pending, now, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Chargers in the order of their oldest due row
+        Set<Long> chargerIds = new LinkedHashSet<>();
+        for (ChargerStatusOutbox entry : batch) {
+            chargerIds.add(entry.getChargerId());
+        }
+
+        int delivered = 0;
+        for (Long chargerId : chargerIds) {
+            if (!takeLease(chargerId, now)) {
+                continue; // Instance khác đang gửi trạng thái của trụ này
+            }
+            try {
+                if (relayCharger(chargerId, now)) {
+                    delivered++;
+                }
+            } finally {
+                leaseRepository.releaseLease(chargerId, instanceId);
+            }
+        }
+        if (delivered > 0) {
+            log.info("Delivered {} charger status updates ({} outbox rows read)", delivered, batch.size());
+        }
+    }
+
+    private boolean takeLease(Long chargerId, LocalDateTime now) {
+        LocalDateTime until = now.plusSeconds(leaseSeconds);
+        return leaseRepository.insertLease(chargerId, instanceId, until) == 1
+                || leaseRepository.takeOverLease(chargerId, instanceId, until, now) == 1;
+    }
+
+    /**
+     * Sends the newest pending status of a charger whose lease is held. Rows are read again under the lease:
+     * the batch may be stale (another instance delivered them meanwhile) and newer rows may have committed since.
+     */
+    private boolean relayCharger(Long chargerId, LocalDateTime now) {
+        List<ChargerStatusOutbox> entries = outboxRepository.findByChargerIdAndOutboxStatusOrderByOutboxIdAsc(
+                chargerId, ChargerStatusOutbox.OutboxStatus.pending);
+        if (entries.isEmpty()) {
+            return false;
+        }
+        ChargerStatusOutbox latest = entries.get(entries.size() - 1);
+        if (latest.getNextAttemptAt().isAfter(now)) {
+            return false; // Trạng thái mới nhất đang backoff
+        }
+        List<ChargerStatusOutbox> superseded = entries.subList(0, entries.size() - 1);
+        if (!superseded.isEmpty()) {
+            outboxRepository.deleteAllInBatch(superseded);
+        }
+        if (deliver(latest)) {
+            // Cả các dòng cũ đã failed không còn ý nghĩa sau khi trạng thái mới hơn đã tới station-service
+            outboxRepository.deleteSuperseded(chargerId, latest.getOutboxId());
+            outboxRepository.delete(latest);
+            return true;
+        }
+        scheduleRetry(latest, now);
+        return false;
+    }
+
+    private boolean deliver(ChargerStatusOutbox entry) {
+        try {
+            UpdateChargerStatusDto statusDto = new UpdateChargerStatusDto();
+            statusDto.setStatus(entry.getTargetStatus());
+            stationServiceClient.updateChargerStatus(entry.getChargerId(), statusDto);
+            return true;
+        } catch (Exception e) {
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            entry.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+            log.warn("Failed to update charger {} to {} (attempt {}): {}",
+                    entry.getChargerId(), entry.getTargetStatus(), entry.getAttempts() + 1, message);
+            return false;
+        }
+    }
+
+    private void scheduleRetry(ChargerStatusOutbox entry, LocalDateTime now) {
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        if (attempts >= maxAttempts) {
+            entry.setOutboxStatus(ChargerStatusOutbox.OutboxStatus.failed);
+            log.error("CRITICAL: Giving up on charger {} status {} after {} attempts",
+                    entry.getChargerId(), entry.getTargetStatus(), attempts);
+        } else {
+            long backoffSeconds = Math.min(MAX_BACKOFF_SECONDS, 1L << Math.min(attempts, 16));
+            entry.setNextAttemptAt(now.plusSeconds(backoffSeconds));
+        }
+        outboxRepository.save(entry);
+    }
+}
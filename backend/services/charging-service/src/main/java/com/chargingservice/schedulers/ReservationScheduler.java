@@ -4,160 +4,246 @@ import com.chargingservice.clients.NotificationServiceClient;
 import com.chargingservice.dtos.internal.CreateNotificationRequestDto;
 import com.chargingservice.entities.Reservation;
 import com.chargingservice.repositories.ReservationRepository;
-import lombok.RequiredArgsConstructor;
+import com.chargingservice.services.ChargerAvailabilityIndex;
+import com.chargingservice.services.ChargingMetrics;
+import com.chargingservice.services.DependencyFanOut;
+import com.chargingservice.services.ReservationDeadlineEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Scheduled tasks for reservation management:
- * 1. Send reminder notifications 30-60 minutes before reservation time
+ * Scheduled tasks for reservation management, driven by ReservationDeadlineEngine:
+ * 1. Send reminder notifications one hour before reservation time
  * 2. Process no-show reservations (expired check-in deadline)
+ * 3. Expire route holds that were never confirmed
+ * Every tick the due deadlines are taken from the engine and handled in batches: the rows are locked, re-checked
+ * and updated with one bulk UPDATE per batch; notifications go out after commit. An idle tick touches no table.
+ * A slow sweep catches deadlines the engine never saw (rows written by another instance).
  */
 @Component
-@RequiredArgsConstructor
 public class ReservationScheduler {
 
     private static final Logger log = LoggerFactory.getLogger(ReservationScheduler.class);
-    
+    private static final DateTimeFormatter START_FORMAT = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
+
     private final ReservationRepository reservationRepository;
     private final NotificationServiceClient notificationServiceClient;
+    private final ChargingMetrics metrics;
+    private final ReservationDeadlineEngine deadlineEngine;
+    private final ChargerAvailabilityIndex availabilityIndex;
+    private final DependencyFanOut dependencyFanOut;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ReservationScheduler(
+            ReservationRepository reservationRepository,
+            NotificationServiceClient notificationServiceClient,
+            ChargingMetrics metrics,
+            ReservationDeadlineEngine deadlineEngine,
+            ChargerAvailabilityIndex availabilityIndex,
+            DependencyFanOut dependencyFanOut,
+            PlatformTransactionManager transactionManager,
+            @Value("${charging.reservation-deadlines.batch-size:200}") int batchSize) {
+        this.reservationRepository = reservationRepository;
+        this.notificationServiceClient = notificationServiceClient;
+        this.metrics = metrics;
+        this.deadlineEngine = deadlineEngine;
+        this.availabilityIndex = availabilityIndex;
+        this.dependencyFanOut = dependencyFanOut;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${charging.reservation-deadlines.tick-ms:1000}")
+    public void processDueDeadlines() {
+        List<ReservationDeadlineEngine.Deadline> due = deadlineEngine.pollDue();
+        if (due.isEmpty()) {
+            return;
+        }
+        Map<ReservationDeadlineEngine.Kind, List<Long>> byKind = new EnumMap<>(ReservationDeadlineEngine.Kind.class);
+        for (ReservationDeadlineEngine.Deadline deadline : due) {
+            byKind.computeIfAbsent(deadline.kind(), kind -> new ArrayList<>()).add(deadline.reservationId());
+        }
+        byKind.forEach(this::process);
+    }
 
     /**
-     * Send reminder notifications for upcoming reservations
-     * Runs every 5 minutes
+     * Backstop for deadlines that never reached this instance's engine.
      */
-    @Scheduled(fixedRate = 300000) // 5 minutes = 300,000 ms
-    @Transactional
-    public void sendReservationReminders() {
-        log.debug("Checking for reservations needing reminders...");
-        
+    @Scheduled(fixedDelayString = "${charging.reservation-deadlines.sweep-interval-ms:600000}",
+               initialDelayString = "${charging.reservation-deadlines.sweep-interval-ms:600000}")
+    public void sweepMissedDeadlines() {
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime reminderWindowStart = now.plusMinutes(30); // 30 minutes from now
-        LocalDateTime reminderWindowEnd = now.plusHours(1); // 1 hour from now
-        
-        // Find confirmed reservations starting between 30 minutes and 1 hour from now
-        List<Reservation> upcomingReservations = reservationRepository
+        process(ReservationDeadlineEngine.Kind.reminder, ids(reservationRepository
                 .findByReservedStartTimeBetweenAndStatusAndReminderNotSent(
-                        reminderWindowStart, reminderWindowEnd,
-                        Reservation.ReservationStatus.confirmed);
-        
-        for (Reservation reservation : upcomingReservations) {
+                        now, now.plus(ReservationDeadlineEngine.REMINDER_LEAD), Reservation.ReservationStatus.confirmed)));
+        process(ReservationDeadlineEngine.Kind.no_show, ids(reservationRepository
+                .findByStatusAndReservedStartTimeBeforeAndNotCheckedIn(
+                        Reservation.ReservationStatus.confirmed, now.minus(ReservationDeadlineEngine.CHECK_IN_GRACE))));
+        process(ReservationDeadlineEngine.Kind.hold_expiry, ids(reservationRepository
+                .findByStatusAndHoldExpiresAtBefore(Reservation.ReservationStatus.pending, now)));
+    }
+
+    private void process(ReservationDeadlineEngine.Kind kind, List<Long> reservationIds) {
+        for (int from = 0; from < reservationIds.size(); from += batchSize) {
+            List<Long> batch = reservationIds.subList(from, Math.min(from + batchSize, reservationIds.size()));
             try {
-                sendReminderNotification(reservation);
-                reservation.setReminderSent(true);
-                reservation.setReminderSentAt(now);
-                reservationRepository.save(reservation);
-                log.info("Reminder sent for reservation {} (user {}, starts at {})", 
-                        reservation.getReservationId(), 
-                        reservation.getUserId(), 
-                        reservation.getReservedStartTime());
+                switch (kind) {
+                    case reminder -> sendReminders(batch);
+                    case no_show -> processNoShows(batch);
+                    case hold_expiry -> expireHolds(batch);
+                }
             } catch (Exception e) {
-                log.error("Failed to send reminder for reservation {}: {}", 
-                        reservation.getReservationId(), e.getMessage(), e);
+                log.error("Failed to process {} deadlines for reservations {}: {}", kind, batch, e.getMessage(), e);
             }
         }
-        
-        if (!upcomingReservations.isEmpty()) {
-            log.info("Sent {} reservation reminders", upcomingReservations.size());
-        }
     }
 
     /**
-     * Process no-show reservations
-     * Runs every minute
+     * Nhắc các reservation confirmed sắp bắt đầu (trong vòng một giờ) chưa được nhắc
      */
-    @Scheduled(fixedRate = 60000) // 1 minute = 60,000 ms
-    @Transactional
-    public void processNoShows() {
-        log.debug("Checking for no-show reservations...");
-        
-        LocalDateTime deadline = LocalDateTime.now().minusMinutes(15); // 15 minutes after reservedStartTime
-        
-        // Find confirmed reservations that passed check-in deadline and not checked in
-        List<Reservation> expiredReservations = reservationRepository
-                .findByStatusAndReservedStartTimeBeforeAndNotCheckedIn(
-                        Reservation.ReservationStatus.confirmed, deadline);
-        
-        for (Reservation reservation : expiredReservations) {
-            try {
-                processNoShow(reservation);
-                log.info("Processed no-show for reservation {} (user {}, deadline: {})", 
-                        reservation.getReservationId(), 
-                        reservation.getUserId(), 
-                        reservation.getCheckInDeadline());
-            } catch (Exception e) {
-                log.error("Failed to process no-show for reservation {}: {}", 
-                        reservation.getReservationId(), e.getMessage(), e);
+    private void sendReminders(List<Long> reservationIds) {
+        List<Reservation> reminded = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Reservation> due = new ArrayList<>();
+            for (Reservation reservation : reservationRepository.lockAllById(reservationIds)) {
+                LocalDateTime start = reservation.getReservedStartTime();
+                // Đã nhắc, đã đổi trạng thái hoặc dời giờ muộn hơn (deadline mới đã được lên lịch lại)
+                if (reservation.getStatus() == Reservation.ReservationStatus.confirmed
+                        && !Boolean.TRUE.equals(reservation.getReminderSent())
+                        && start.isAfter(now) && !start.minus(ReservationDeadlineEngine.REMINDER_LEAD).isAfter(now)) {
+                    due.add(reservation);
+                }
+            }
+            if (!due.isEmpty()) {
+                reservationRepository.markRemindersSent(ids(due), now);
             }
+            return due;
+        });
+        for (Reservation reservation : reminded) {
+            dependencyFanOut.afterCommit("reservationReminder", () -> sendReminderNotification(reservation));
         }
-        
-        if (!expiredReservations.isEmpty()) {
-            log.info("Processed {} no-show reservations", expiredReservations.size());
+        if (!reminded.isEmpty()) {
+            log.info("Sent {} reservation reminders", reminded.size());
         }
     }
 
-    private void sendReminderNotification(Reservation reservation) {
-        try {
-            CreateNotificationRequestDto notification = new CreateNotificationRequestDto();
-            notification.setUserId(reservation.getUserId());
-            notification.setNotificationType(CreateNotificationRequestDto.NotificationType.reservation_reminder);
-            notification.setTitle("Nhắc nhở đặt chỗ sạc");
-            
-            long minutesUntilStart = java.time.Duration.between(
-                    LocalDateTime.now(), reservation.getReservedStartTime()).toMinutes();
-            
-            notification.setMessage(String.format(
-                    "Bạn có đặt chỗ sạc tại trạm ID %d trong %d phút nữa (lúc %s). " +
-                    "Vui lòng đến đúng giờ và check-in trong vòng 15 phút sau thời gian đặt để nhận lại tiền cọc.",
-                    reservation.getStationId(),
-                    minutesUntilStart,
-                    reservation.getReservedStartTime().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy"))));
-            notification.setReferenceId(reservation.getReservationId());
-            
-            notificationServiceClient.createNotification(notification);
-        } catch (Exception e) {
-            log.error("Error sending reminder notification: {}", e.getMessage(), e);
-            throw e;
+    /**
+     * Process no-show reservations: confirmed, not checked in 15 minutes after reservedStartTime
+     */
+    private void processNoShows(List<Long> reservationIds) {
+        List<Reservation> noShows = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime deadline = now.minus(ReservationDeadlineEngine.CHECK_IN_GRACE);
+            List<Reservation> due = new ArrayList<>();
+            for (Reservation reservation : reservationRepository.lockAllById(reservationIds)) {
+                if (reservation.getStatus() == Reservation.ReservationStatus.confirmed
+                        && !Boolean.TRUE.equals(reservation.getIsCheckedIn())
+                        && reservation.getReservedStartTime().isBefore(deadline)) {
+                    due.add(reservation);
+                }
+            }
+            if (due.isEmpty()) {
+                return due;
+            }
+            // Keep deposit - don't refund
+            reservationRepository.markNoShows(ids(due), now,
+                    Reservation.ReservationStatus.confirmed, Reservation.ReservationStatus.no_show);
+            for (Reservation reservation : due) {
+                metrics.record(ChargingMetrics.Transition.RESERVATION_NO_SHOW);
+                // Bulk UPDATE không qua listener: gỡ khỏi index sau commit
+                availabilityIndex.reservationRemoved(reservation.getReservationId());
+            }
+            return due;
+        });
+        for (Reservation reservation : noShows) {
+            dependencyFanOut.afterCommit("noShowNotification", () -> sendNoShowNotification(reservation));
+        }
+        if (!noShows.isEmpty()) {
+            log.info("Processed {} no-show reservations", noShows.size());
         }
     }
 
-    private void processNoShow(Reservation reservation) {
-        // Mark as no-show
-        reservation.setStatus(Reservation.ReservationStatus.no_show);
-        reservation.setNoShowCount((reservation.getNoShowCount() != null ? reservation.getNoShowCount() : 0) + 1);
-        reservation.setNoShowPenaltyApplied(true);
-        
-        // Keep deposit - don't refund
-        // Deposit will remain with the system
-        
-        reservationRepository.save(reservation);
-        
-        // Send notification about no-show
-        try {
-            CreateNotificationRequestDto notification = new CreateNotificationRequestDto();
-            notification.setUserId(reservation.getUserId());
-            notification.setNotificationType(CreateNotificationRequestDto.NotificationType.reservation_cancelled);
-            notification.setTitle("Đặt chỗ bị hủy - Không điểm danh");
-            notification.setMessage(String.format(
-                    "Đặt chỗ ID %d đã bị hủy do không check-in đúng hạn. " +
-                    "Tiền cọc %s VND sẽ không được hoàn lại. " +
-                    "Số lần không đến: %d. Nếu tích lũy nhiều lần, bạn có thể bị hạn chế quyền đặt trước.",
-                    reservation.getReservationId(),
-                    reservation.getDepositAmount() != null ? reservation.getDepositAmount().toString() : "0",
-                    reservation.getNoShowCount()));
-            notification.setReferenceId(reservation.getReservationId());
-            
-            notificationServiceClient.createNotification(notification);
-        } catch (Exception e) {
-            log.error("Error sending no-show notification: {}", e.getMessage(), e);
-            // Don't fail the process if notification fails
+    /**
+     * Giữ chỗ tạm của lộ trình quá hạn mà chưa xác nhận: chỉ đánh dấu expired (trụ chưa từng chuyển sang
+     * reserved, chưa gửi thông báo nên không có gì phải hoàn tác)
+     */
+    private void expireHolds(List<Long> reservationIds) {
+        Integer expired = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> due = new ArrayList<>();
+            for (Reservation reservation : reservationRepository.lockAllById(reservationIds)) {
+                if (reservation.getStatus() == Reservation.ReservationStatus.pending
+                        && reservation.getHoldExpiresAt() != null && !reservation.getHoldExpiresAt().isAfter(now)) {
+                    due.add(reservation.getReservationId());
+                }
+            }
+            if (due.isEmpty()) {
+                return 0;
+            }
+            reservationRepository.transitionAll(due, now, Reservation.ReservationStatus.pending,
+                    Reservation.ReservationStatus.expired, "Route hold expired");
+            due.forEach(availabilityIndex::reservationRemoved);
+            return due.size();
+        });
+        if (expired != null && expired > 0) {
+            log.info("Expired {} unconfirmed route holds", expired);
         }
     }
-}
 
+    private static List<Long> ids(List<Reservation> reservations) {
+        return reservations.stream().map(Reservation::getReservationId).toList();
+    }
+
+    private void sendReminderNotification(Reservation reservation) {
+        CreateNotificationRequestDto notification = new CreateNotificationRequestDto();
+        notification.setUserId(reservation.getUserId());
+        notification.setNotificationType(CreateNotificationRequestDto.NotificationType.reservation_reminder);
+        notification.setTitle("Nhắc nhở đặt chỗ sạc");
+
+        long minutesUntilStart = Duration.between(LocalDateTime.now(), reservation.getReservedStartTime()).toMinutes();
+
+        notification.setMessage(String.format(
+                "Bạn có đặt chỗ sạc tại trạm ID %d trong %d phút nữa (lúc %s). " +
+                "Vui lòng đến đúng giờ và check-in trong vòng 15 phút sau thời gian đặt để nhận lại tiền cọc.",
+                reservation.getStationId(),
+                minutesUntilStart,
+                reservation.getReservedStartTime().format(START_FORMAT)));
+        notification.setReferenceId(reservation.getReservationId());
+
+        notificationServiceClient.createNotification(notification);
+        log.info("Reminder sent for reservation {} (user {}, starts at {})",
+                reservation.getReservationId(), reservation.getUserId(), reservation.getReservedStartTime());
+    }
+
+    private void sendNoShowNotification(Reservation reservation) {
+        int noShowCount = (reservation.getNoShowCount() != null ? reservation.getNoShowCount() : 0) + 1;
+        CreateNotificationRequestDto notification = new CreateNotificationRequestDto();
+        notification.setUserId(reservation.getUserId());
+        notification.setNotificationType(CreateNotificationRequestDto.NotificationType.reservation_cancelled);
+        notification.setTitle("Đặt chỗ bị hủy - Không điểm danh");
+        notification.setMessage(String.format(
+                "Đặt chỗ ID %d đã bị hủy do không check-in đúng hạn. " +
+                "Tiền cọc %s VND sẽ không được hoàn lại. " +
+                "Số lần không đến: %d. Nếu tích lũy nhiều lần, bạn có thể bị hạn chế quyền đặt trước.",
+                reservation.getReservationId(),
+                reservation.getDepositAmount() != null ? reservation.getDepositAmount().toString() : "0",
+                noShowCount));
+        notification.setReferenceId(reservation.getReservationId());
+
+        notificationServiceClient.createNotification(notification);
+    }
+}
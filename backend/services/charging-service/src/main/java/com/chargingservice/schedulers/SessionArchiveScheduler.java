@@ -0,0 +1,150 @@
+package com.chargingservice.schedulers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Moves sessions that ended long ago from charging_sessions to charging_sessions_archive, so the hot table
+ * (and the indexes behind the active-session lookups) only grows with recent sessions.
+ * <ul>
+ *   <li>Archived: cancelled/failed sessions, and completed/timed-out sessions that are already paid,
+ *       started more than charging.archive.after-days ago. Unpaid sessions stay hot until markSessionAsPaid.</li>
+ *   <li>Bounded batches: each batch locks at most batch-size rows, copies them and deletes them in one
+ *       transaction; a run walks the start_time index with a keyset and stops after max-batches-per-run.</li>
+ * </ul>
+ * Session ids are kept, so references from reservations and meter values stay valid. History reads merge
+ * both tables (SessionHistoryService).
+ */
+@Component
+public class SessionArchiveScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionArchiveScheduler.class);
+
+    static final String COLUMNS = "session_id, user_id, station_id, charger_id, session_code, start_time, end_time, " +
+            "timeout_at, energy_consumed, price_per_kwh, discount_percent, total_cost, offline_transaction_id, " +
+            "battery_class, session_status, is_paid, payment_id, created_at, updated_at";
+
+    // Phiên đã kết thúc và không còn thay đổi (không chờ thanh toán)
+    private static final String ARCHIVABLE = "(session_status IN ('cancelled', 'failed') " +
+            "OR (session_status IN ('completed', 'timeout') AND is_paid = TRUE))";
+
+    private static final String FIRST_BATCH_SQL = "SELECT session_id, start_time FROM charging_sessions " +
+            "WHERE start_time < ? AND " + ARCHIVABLE + " ORDER BY start_time, session_id LIMIT ? FOR UPDATE";
+
+    private static final String NEXT_BATCH_SQL = "SELECT session_id, start_time FROM charging_sessions " +
+            "WHERE start_time < ? AND (start_time > ? OR (start_time = ? AND session_id > ?)) AND " + ARCHIVABLE +
+            " ORDER BY start_time, session_id LIMIT ? FOR UPDATE";
+
+    private static final String COPY_SQL = "INSERT INTO charging_sessions_archive (" + COLUMNS + ", archived_at) " +
+            "SELECT " + COLUMNS + ", ? FROM charging_sessions WHERE session_id IN (%s)";
+
+    private static final String DELETE_SQL = "DELETE FROM charging_sessions WHERE session_id IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long afterDays;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    private record Batch(int moved, LocalDateTime lastStartTime, Long lastSessionId) {
+    }
+
+    public SessionArchiveScheduler(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${charging.archive.enabled:true}") boolean enabled,
+            @Value("${charging.archive.after-days:90}") long afterDays,
+            @Value("${charging.archive.batch-size:1000}") int batchSize,
+            @Value("${charging.archive.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.afterDays = afterDays;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(cron = "${charging.archive.cron:0 30 3 * * *}")
+    public void archiveOldSessions() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archiveStartedBefore(LocalDateTime.now().minusDays(afterDays));
+        } catch (Exception e) {
+            log.error("Session archival failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Archives every archivable session started before the cutoff, at most maxBatchesPerRun batches.
+     *
+     * @return number of sessions moved
+     */
+    public int archiveStartedBefore(LocalDateTime cutoff) {
+        int moved = 0;
+        LocalDateTime lastStartTime = null;
+        Long lastSessionId = null;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            LocalDateTime afterStart = lastStartTime;
+            Long afterId = lastSessionId;
+            Batch batch = transactionTemplate.execute(status -> moveBatch(cutoff, afterStart, afterId));
+            moved += batch.moved();
+            if (batch.moved() < batchSize) {
+                break;
+            }
+            lastStartTime = batch.lastStartTime();
+            lastSessionId = batch.lastSessionId();
+        }
+        if (moved > 0) {
+            log.info("Archived {} sessions started before {}", moved, cutoff);
+        }
+        return moved;
+    }
+
+    private Batch moveBatch(LocalDateTime cutoff, LocalDateTime afterStart, Long afterId) {
+        List<Long> ids = new ArrayList<>(batchSize);
+        LocalDateTime[] lastStart = new LocalDateTime[1];
+        Timestamp cutoffTs = Timestamp.valueOf(cutoff);
+        if (afterStart == null) {
+            jdbcTemplate.query(FIRST_BATCH_SQL, rs -> {
+                ids.add(rs.getLong(1));
+                lastStart[0] = rs.getTimestamp(2).toLocalDateTime();
+            }, cutoffTs, batchSize);
+        } else {
+            Timestamp afterTs = Timestamp.valueOf(afterStart);
+            jdbcTemplate.query(NEXT_BATCH_SQL, rs -> {
+                ids.add(rs.getLong(1));
+                lastStart[0] = rs.getTimestamp(2).toLocalDateTime();
+            }, cutoffTs, afterTs, afterTs, afterId, batchSize);
+        }
+        if (ids.isEmpty()) {
+            return new Batch(0, null, null);
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<Object> copyArgs = new ArrayList<>(ids.size() + 1);
+        copyArgs.add(Timestamp.valueOf(LocalDateTime.now()));
+        copyArgs.addAll(ids);
+        int copied = jdbcTemplate.update(String.format(COPY_SQL, placeholders), copyArgs.toArray());
+        int deleted = jdbcTemplate.update(String.format(DELETE_SQL, placeholders), ids.toArray());
+        if (copied != ids.size() || deleted != ids.size()) {
+            // Rollback: không để phiên nằm ở cả hai bảng hoặc biến mất
+            throw new IllegalStateException("Archive batch mismatch: selected " + ids.size()
+                    + ", copied " + copied + ", deleted " + deleted);
+        }
+        return new Batch(ids.size(), lastStart[0], ids.get(ids.size() - 1));
+    }
+}
@@ -0,0 +1,236 @@
+package com.chargingservice.schedulers;
+
+import com.chargingservice.clients.NotificationServiceClient;
+import com.chargingservice.dtos.internal.CreateNotificationRequestDto;
+import com.chargingservice.dtos.internal.UpdateChargerStatusDto;
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.events.SessionEventPublisher;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.chargingservice.repositories.ReservationRepository;
+import com.chargingservice.services.ActiveSessionRegistry;
+import com.chargingservice.services.ChargerAdmissionControl;
+import com.chargingservice.services.ChargingMetrics;
+import com.chargingservice.services.ChargerStatusOutboxService;
+import com.chargingservice.services.AfterCommit;
+import com.chargingservice.services.ConsumptionRollupService;
+import com.chargingservice.services.MeterValueStore;
+import com.chargingservice.services.SessionTimeoutEngine;
+import com.chargingservice.services.StationPowerAllocator;
+import com.chargingservice.services.StationQueueService;
+import com.chargingservice.services.TariffEngine;
+import com.chargingservice.units.Energy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Auto-completes charging sessions that pass their timeout_at deadline (default 12 hours after start):
+ * 1. Every tick, expired ids are taken from SessionTimeoutEngine and closed in batches (one transaction per batch)
+ * 2. A periodic indexed sweep on (session_status, timeout_at) catches deadlines this instance never scheduled
+ *    (sessions started on another instance)
+ */
+@Component
+public class SessionTimeoutScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTimeoutScheduler.class);
+
+    private final ChargingSessionRepository sessionRepository;
+    private final ReservationRepository reservationRepository;
+    private final ChargerStatusOutboxService chargerStatusOutbox;
+    private final NotificationServiceClient notificationServiceClient;
+    private final ActiveSessionRegistry activeSessionRegistry;
+    private final ConsumptionRollupService consumptionRollupService;
+    private final SessionTimeoutEngine timeoutEngine;
+    private final ChargerAdmissionControl chargerAdmission;
+    private final StationPowerAllocator powerAllocator;
+    private final MeterValueStore meterValueStore;
+    private final StationQueueService stationQueueService;
+    private final SessionEventPublisher sessionEvents;
+    private final TariffEngine tariffEngine;
+    private final ChargingMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public SessionTimeoutScheduler(
+            ChargingSessionRepository sessionRepository,
+            ReservationRepository reservationRepository,
+            ChargerStatusOutboxService chargerStatusOutbox,
+            NotificationServiceClient notificationServiceClient,
+            ActiveSessionRegistry activeSessionRegistry,
+            ConsumptionRollupService consumptionRollupService,
+            SessionTimeoutEngine timeoutEngine,
+            ChargerAdmissionControl chargerAdmission,
+            StationPowerAllocator powerAllocator,
+            MeterValueStore meterValueStore,
+            StationQueueService stationQueueService,
+            SessionEventPublisher sessionEvents,
+            TariffEngine tariffEngine,
+            ChargingMetrics metrics,
+            PlatformTransactionManager transactionManager,
+            @Value("${charging.session-timeout.batch-size:100}") int batchSize) {
+        this.sessionRepository = sessionRepository;
+        this.reservationRepository = reservationRepository;
+        this.chargerStatusOutbox = chargerStatusOutbox;
+        this.notificationServiceClient = notificationServiceClient;
+        this.activeSessionRegistry = activeSessionRegistry;
+        this.consumptionRollupService = consumptionRollupService;
+        this.timeoutEngine = timeoutEngine;
+        this.chargerAdmission = chargerAdmission;
+        this.powerAllocator = powerAllocator;
+        this.meterValueStore = meterValueStore;
+        this.stationQueueService = stationQueueService;
+        this.sessionEvents = sessionEvents;
+        this.tariffEngine = tariffEngine;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${charging.session-timeout.tick-ms:1000}")
+    public void expireDueSessions() {
+        List<Long> expired = timeoutEngine.pollExpired();
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            closeBatch(expired.subList(from, Math.min(from + batchSize, expired.size())));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${charging.session-timeout.sweep-interval-ms:600000}",
+               initialDelayString = "${charging.session-timeout.sweep-interval-ms:600000}")
+    public void sweepOverdueSessions() {
+        int closed;
+        do {
+            List<Long> ids = sessionRepository.findBySessionStatusAndTimeoutAtBefore(
+                            ChargingSession.SessionStatus.charging, LocalDateTime.now(), PageRequest.of(0, batchSize))
+                    .stream().map(ChargingSession::getSessionId).toList();
+            if (ids.isEmpty()) {
+                return;
+            }
+            closed = closeBatch(ids);
+            // Stop when nothing in the batch could be closed, otherwise the same rows would be read again
+        } while (closed > 0);
+    }
+
+    /**
+     * Closes the given sessions in one transaction and returns how many were closed.
+     * Sessions that were stopped meanwhile are skipped; sessions whose deadline moved are rescheduled.
+     */
+    private int closeBatch(List<Long> sessionIds) {
+        List<ChargingSession> closed = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                for (ChargingSession session : sessionRepository.findAllById(sessionIds)) {
+                    if (session.getSessionStatus() != ChargingSession.SessionStatus.charging) {
+                        continue;
+                    }
+                    if (session.getTimeoutAt() != null && session.getTimeoutAt().isAfter(now)) {
+                        timeoutEngine.schedule(session);
+                        continue;
+                    }
+                    processStaleSession(session, now);
+                    closed.add(session);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to close timed-out sessions {}: {}", sessionIds, e.getMessage(), e);
+            return 0;
+        }
+        // Gửi thông báo sau khi commit
+        for (ChargingSession session : closed) {
+            log.info("Auto-completed session {} (started at {}, duration: {} hours)",
+                    session.getSessionId(),
+                    session.getStartTime(),
+                    Duration.between(session.getStartTime(), session.getEndTime()).toHours());
+            sendNotification(session);
+        }
+        if (!closed.isEmpty()) {
+            log.info("Processed {} timed-out charging sessions", closed.size());
+        }
+        return closed.size();
+    }
+
+    private void processStaleSession(ChargingSession session, LocalDateTime now) {
+        // Mark session as completed
+        session.setEndTime(now);
+        session.setSessionStatus(ChargingSession.SessionStatus.completed);
+
+        // Cùng thứ tự ưu tiên như stopSession: dữ liệu công tơ, rồi năng lượng tích lũy theo công suất phân bổ,
+        // ước lượng theo thời gian (giới hạn ở thời lượng tối đa) chỉ là phương án cuối
+        MeterValueStore.MeterReading meterReading = meterValueStore.read(session.getSessionId()).orElse(null);
+        StationPowerAllocator.Allocation allocated = powerAllocator.find(session.getSessionId()).orElse(null);
+        if (meterReading != null) {
+            session.setEnergyConsumed(meterReading.energy().toKwh());
+        } else if (allocated != null && allocated.energyWh() > 0) {
+            session.setEnergyConsumed(Energy.ofWh(allocated.energyWh()).toKwh());
+        } else {
+            long durationInMinutes = Duration.between(session.getStartTime(), now).toMinutes();
+            if (durationInMinutes <= 0) durationInMinutes = 1;
+
+            long cappedMinutes = Math.min(durationInMinutes, timeoutEngine.maxDuration().toMinutes());
+            double energy = cappedMinutes * 0.6; // 0.6 kWh/phút
+            session.setEnergyConsumed(BigDecimal.valueOf(energy).setScale(2, RoundingMode.HALF_UP));
+            log.warn("No meter data for timed-out session {}: billing {} minutes at the time-based estimate",
+                    session.getSessionId(), cappedMinutes);
+        }
+        tariffEngine.settle(session);
+
+        sessionRepository.save(session);
+        activeSessionRegistry.untrack(session.getSessionId());
+        sessionEvents.sessionEnded(session.getSessionId(), session.getStationId());
+        Long sessionId = session.getSessionId();
+        AfterCommit.run(() -> meterValueStore.close(sessionId));
+        chargerAdmission.release(session.getChargerId(), session.getSessionId());
+        powerAllocator.detach(session.getSessionId());
+        stationQueueService.sessionEnded(session.getStationId(), session.getSessionId());
+        consumptionRollupService.recordSessionCompleted(session);
+        metrics.record(ChargingMetrics.Transition.SESSION_TIMED_OUT);
+
+        // Cập nhật reservation status từ "active" sang "completed" nếu có
+        reservationRepository.findBySessionId(session.getSessionId()).ifPresent(reservation -> {
+            if (reservation.getStatus() == Reservation.ReservationStatus.active) {
+                reservation.setStatus(Reservation.ReservationStatus.completed);
+                reservationRepository.save(reservation);
+                metrics.record(ChargingMetrics.Transition.RESERVATION_COMPLETED);
+                log.info("Updated reservation {} status from active to completed for stale session {}",
+                        reservation.getReservationId(), session.getSessionId());
+            }
+        });
+
+        // Update charger status to available (delivered by ChargerStatusOutboxRelay)
+        chargerStatusOutbox.enqueue(session.getChargerId(), UpdateChargerStatusDto.ChargerStatus.available, session.getSessionId());
+    }
+
+    private void sendNotification(ChargingSession session) {
+        try {
+            CreateNotificationRequestDto notification = new CreateNotificationRequestDto();
+            notification.setUserId(session.getUserId());
+            notification.setNotificationType(CreateNotificationRequestDto.NotificationType.charging_complete);
+            notification.setTitle("Phiên sạc đã tự động hoàn thành");
+            notification.setMessage(String.format(
+                    "Phiên sạc (ID: %d) đã tự động hoàn thành sau %d giờ. " +
+                    "Năng lượng đã sạc: %.2f kWh. Vui lòng thanh toán.",
+                    session.getSessionId(),
+                    timeoutEngine.maxDuration().toHours(),
+                    session.getEnergyConsumed().doubleValue()));
+            notification.setReferenceId(session.getSessionId());
+
+            notificationServiceClient.createNotification(notification);
+        } catch (Exception e) {
+            log.error("Error sending notification for stale session {}: {}",
+                    session.getSessionId(), e.getMessage());
+        }
+    }
+}
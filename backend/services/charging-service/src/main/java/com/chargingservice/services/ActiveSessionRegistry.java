@@ -0,0 +1,198 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of sessions that are still running (charging, starting, paused).
+ * Status polling is served from here so that active sessions do not hit MySQL on every poll.
+ * The registry is rebuilt from the database on startup and kept current by start/stop/cancel.
+ * Each instance keeps its own registry, and a session may be stopped through another instance: the instance that
+ * ends a session broadcasts it (SessionEventPublisher) and every other instance drops its entry (SessionEndedListener).
+ * As a safety net for a lost broadcast, an entry is trusted for status polling only for
+ * charging.registry.verify-interval-ms (default 60 s, well above the 5 s poll of the driver app) after it was last
+ * loaded or written here. A poll can therefore show an ended session as running for at most that long, and only
+ * while the broker is unreachable.
+ */
+@Component
+public class ActiveSessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveSessionRegistry.class);
+
+    public static final Set<ChargingSession.SessionStatus> TRACKED_STATUSES = Collections.unmodifiableSet(EnumSet.of(
+            ChargingSession.SessionStatus.charging,
+            ChargingSession.SessionStatus.starting,
+            ChargingSession.SessionStatus.paused
+    ));
+
+    private final ChargingSessionRepository sessionRepository;
+    private final long verifyIntervalNanos;
+
+    private final Map<Long, ActiveSession> bySessionId = new ConcurrentHashMap<>();
+    // sessionId -> System.nanoTime() lần cuối entry được đối chiếu với DB hoặc ghi bởi instance này
+    private final Map<Long, Long> verifiedAt = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> byUserId = new ConcurrentHashMap<>();
+    private final Map<Long, Long> byChargerId = new ConcurrentHashMap<>();
+
+    /**
+     * Immutable snapshot of the fields the status path needs.
+     */
+    public record ActiveSession(
+            Long sessionId,
+            Long userId,
+            Long stationId,
+            Long chargerId,
+            LocalDateTime startTime,
+            ChargingSession.SessionStatus status,
+            BigDecimal pricePerKwh,
+            Integer discountPercent,
+            ChargingSession.BatteryClass batteryClass,
+            BigDecimal energyConsumed
+    ) {
+        static ActiveSession of(ChargingSession session) {
+            return new ActiveSession(
+                    session.getSessionId(),
+                    session.getUserId(),
+                    session.getStationId(),
+                    session.getChargerId(),
+                    session.getStartTime(),
+                    session.getSessionStatus(),
+                    session.getPricePerKwh(),
+                    session.getDiscountPercent(),
+                    session.getBatteryClass(),
+                    session.getEnergyConsumed()
+            );
+        }
+    }
+
+    @Autowired
+    public ActiveSessionRegistry(
+            ChargingSessionRepository sessionRepository,
+            @Value("${charging.registry.verify-interval-ms:60000}") long verifyIntervalMs) {
+        this.sessionRepository = sessionRepository;
+        this.verifyIntervalNanos = verifyIntervalMs * 1_000_000L;
+    }
+
+    ActiveSessionRegistry(ChargingSessionRepository sessionRepository) {
+        this(sessionRepository, 60_000);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        bySessionId.clear();
+        verifiedAt.clear();
+        byUserId.clear();
+        byChargerId.clear();
+        int loaded = 0;
+        for (ChargingSession.SessionStatus status : TRACKED_STATUSES) {
+            List<ChargingSession> sessions = sessionRepository.findBySessionStatus(status);
+            sessions.forEach(this::put);
+            loaded += sessions.size();
+        }
+        log.info("Active session registry rebuilt with {} sessions", loaded);
+    }
+
+    /**
+     * Track or refresh a session. Sessions in a non-active status are removed instead.
+     * When called inside a transaction the change is applied only after commit.
+     */
+    public void track(ChargingSession session) {
+        ActiveSession snapshot = ActiveSession.of(session);
+        AfterCommit.run(() -> {
+            if (TRACKED_STATUSES.contains(snapshot.status())) {
+                put(snapshot);
+            } else {
+                remove(snapshot.sessionId());
+            }
+        });
+    }
+
+    /**
+     * Stop tracking a session (completed, cancelled, failed, timeout).
+     */
+    public void untrack(Long sessionId) {
+        AfterCommit.run(() -> remove(sessionId));
+    }
+
+    public Optional<ActiveSession> findBySessionId(Long sessionId) {
+        return Optional.ofNullable(bySessionId.get(sessionId));
+    }
+
+    /**
+     * The entry for status polling, only if it was loaded from the database or written by this instance within the
+     * verify interval. Empty means the caller should read the session from the database and track it again.
+     */
+    public Optional<ActiveSession> findVerified(Long sessionId) {
+        Long verified = verifiedAt.get(sessionId);
+        if (verified == null || System.nanoTime() - verified > verifyIntervalNanos) {
+            return Optional.empty();
+        }
+        return findBySessionId(sessionId);
+    }
+
+    public Optional<ActiveSession> findByChargerId(Long chargerId) {
+        Long sessionId = byChargerId.get(chargerId);
+        return sessionId == null ? Optional.empty() : findBySessionId(sessionId);
+    }
+
+    public List<ActiveSession> findByUserId(Long userId) {
+        Set<Long> ids = byUserId.get(userId);
+        if (ids == null) {
+            return List.of();
+        }
+        return ids.stream().map(bySessionId::get).filter(s -> s != null).toList();
+    }
+
+    public Collection<ActiveSession> all() {
+        return Collections.unmodifiableCollection(bySessionId.values());
+    }
+
+    public int size() {
+        return bySessionId.size();
+    }
+
+    private void put(ChargingSession session) {
+        put(ActiveSession.of(session));
+    }
+
+    private void put(ActiveSession session) {
+        ActiveSession previous = bySessionId.put(session.sessionId(), session);
+        verifiedAt.put(session.sessionId(), System.nanoTime());
+        if (previous != null && !previous.chargerId().equals(session.chargerId())) {
+            byChargerId.remove(previous.chargerId(), previous.sessionId());
+        }
+        byUserId.computeIfAbsent(session.userId(), k -> ConcurrentHashMap.newKeySet()).add(session.sessionId());
+        byChargerId.put(session.chargerId(), session.sessionId());
+    }
+
+    private void remove(Long sessionId) {
+        ActiveSession removed = bySessionId.remove(sessionId);
+        verifiedAt.remove(sessionId);
+        if (removed == null) {
+            return;
+        }
+        byUserId.computeIfPresent(removed.userId(), (userId, ids) -> {
+            ids.remove(sessionId);
+            return ids.isEmpty() ? null : ids;
+        });
+        byChargerId.remove(removed.chargerId(), sessionId);
+    }
+}
@@ -0,0 +1,143 @@
+package com.chargingservice.services;
+
+import com.chargingservice.repositories.ChargerActiveClaimRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admits at most one running session per charger.
+ * 1. A striped in-process lock (stripe = hash of chargerId) serialises starts on the same charger inside
+ *    this instance, while starts on other chargers proceed in parallel
+ * 2. The claim row in charger_active_claims (primary key charger_id) is the cross-instance guarantee:
+ *    a second insert for the same charger fails with a duplicate key
+ * The stripe lock is held until the surrounding transaction completes, so the claim row is committed
+ * (or rolled back) before the next start on that stripe looks at it.
+ */
+@Component
+public class ChargerAdmissionControl {
+
+    private static final Logger log = LoggerFactory.getLogger(ChargerAdmissionControl.class);
+
+    /**
+     * Persistence of claim rows. insert must throw DataIntegrityViolationException when the charger is already claimed.
+     */
+    interface ClaimStore {
+        void insert(Long chargerId, Long sessionId);
+
+        void delete(Long chargerId, Long sessionId);
+    }
+
+    private final ClaimStore claimStore;
+    private final ChargerActiveClaimRepository claimRepository;
+    private final ReentrantLock[] stripes;
+    private final long lockTimeoutMillis;
+
+    @Autowired
+    public ChargerAdmissionControl(
+            ChargerActiveClaimRepository claimRepository,
+            @Value("${charging.admission.stripes:64}") int stripeCount,
+            @Value("${charging.admission.lock-timeout-ms:2000}") long lockTimeoutMillis) {
+        this(new ClaimStore() {
+            @Override
+            public void insert(Long chargerId, Long sessionId) {
+                claimRepository.insertClaim(chargerId, sessionId);
+            }
+
+            @Override
+            public void delete(Long chargerId, Long sessionId) {
+                claimRepository.deleteClaim(chargerId, sessionId);
+            }
+        }, claimRepository, stripeCount, lockTimeoutMillis);
+    }
+
+    ChargerAdmissionControl(ClaimStore claimStore, ChargerActiveClaimRepository claimRepository,
+                            int stripeCount, long lockTimeoutMillis) {
+        if (stripeCount < 1 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("charging.admission.stripes must be a power of two");
+        }
+        this.claimStore = claimStore;
+        this.claimRepository = claimRepository;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.lockTimeoutMillis = lockTimeoutMillis;
+    }
+
+    /**
+     * Claims the charger for the session. Must be called in the transaction that creates the session;
+     * the claim commits or rolls back with it.
+     *
+     * @throws IllegalStateException if the charger already has a running session, or the stripe stayed busy
+     */
+    public void admit(Long chargerId, Long sessionId) {
+        ReentrantLock lock = stripeFor(chargerId);
+        try {
+            if (!lock.tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Charger " + chargerId + " is busy, please try again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while admitting session on charger " + chargerId);
+        }
+
+        boolean unlockNow = true;
+        try {
+            try {
+                claimStore.insert(chargerId, sessionId);
+            } catch (DataIntegrityViolationException e) {
+                log.info("Rejected session {} on charger {}: charger already claimed", sessionId, chargerId);
+                throw new IllegalStateException("Charger is currently in use by an active session");
+            }
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                // Giữ lock đến khi transaction kết thúc để claim đã commit/rollback trước lượt kế tiếp
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        lock.unlock();
+                    }
+                });
+                unlockNow = false;
+            }
+        } finally {
+            if (unlockNow) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Releases the session's claim. Call in the transaction that ends the session.
+     */
+    public void release(Long chargerId, Long sessionId) {
+        claimStore.delete(chargerId, sessionId);
+    }
+
+    /**
+     * Aligns claim rows with running sessions (sessions started before this table existed, or claims left behind).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reconcile() {
+        int removed = claimRepository.deleteOrphanClaims();
+        int added = claimRepository.backfillClaims();
+        log.info("Charger claims reconciled: {} added, {} orphaned removed", added, removed);
+    }
+
+    private ReentrantLock stripeFor(Long chargerId) {
+        long h = chargerId * 0x9E3779B97F4A7C15L; // Fibonacci hashing: sequential ids spread across stripes
+        return stripes[(int) (h >>> 40) & (stripes.length - 1)];
+    }
+}
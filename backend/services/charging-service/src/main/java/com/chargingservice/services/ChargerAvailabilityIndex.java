@@ -0,0 +1,287 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.chargingservice.repositories.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory availability of every charger (one ChargerIntervals per charger): blocking reservations
+ * (pending, confirmed, active) over [reservedStartTime, reservedEndTime) and running sessions from their start
+ * onwards. Answers "is charger C free for [t1, t2)" in O(log n) without a database round trip.
+ * <p>
+ * Loaded on startup and kept in sync by ChargerAvailabilityListener on every insert/update of a reservation or
+ * session (applied after commit). Rows written or ended by another instance are not seen here, so the index is
+ * only a hint: a charger it reports free is verified against the database before it is booked, and a conflict it
+ * reports is re-checked there before the charger is given up. Conflicts found in the database are fed back with
+ * {@link #refresh}; entries the database no longer backs are dropped with {@link #forget}.
+ * <p>
+ * Days requested through {@link #busySlots} are also kept as SlotBitmap per charger; a cached day is
+ * recomputed whenever an interval touching it changes, so calendar reads are plain bitmap copies.
+ */
+@Component
+public class ChargerAvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ChargerAvailabilityIndex.class);
+
+    public static final Set<Reservation.ReservationStatus> BLOCKING_RESERVATIONS = Collections.unmodifiableSet(EnumSet.of(
+            Reservation.ReservationStatus.pending,
+            Reservation.ReservationStatus.confirmed,
+            Reservation.ReservationStatus.active
+    ));
+
+    public enum Conflict {
+        none, session, reservation
+    }
+
+    private final ReservationRepository reservationRepository;
+    private final ChargingSessionRepository sessionRepository;
+    // Số ngày bitmap giữ lại cho mỗi trụ (lịch đặt chỗ chỉ xem vài tuần tới)
+    private static final int MAX_CACHED_DAYS = 62;
+
+    private final Map<Long, Charger> byCharger = new ConcurrentHashMap<>();
+    private final Map<Long, Long> chargerByKey = new ConcurrentHashMap<>();
+
+    // Cây khoảng và bitmap theo ngày của một trụ; mọi truy cập đều synchronized trên đối tượng này
+    private static final class Charger {
+        final ChargerIntervals intervals = new ChargerIntervals();
+        final Map<Long, long[]> busyByDay = new HashMap<>();
+    }
+
+    public ChargerAvailabilityIndex(ReservationRepository reservationRepository,
+                                    ChargingSessionRepository sessionRepository) {
+        this.reservationRepository = reservationRepository;
+        this.sessionRepository = sessionRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        byCharger.clear();
+        chargerByKey.clear();
+        List<Reservation> reservations = reservationRepository.findByStatusIn(BLOCKING_RESERVATIONS);
+        reservations.forEach(this::refresh);
+        int sessions = 0;
+        for (ChargingSession.SessionStatus status : ActiveSessionRegistry.TRACKED_STATUSES) {
+            List<ChargingSession> running = sessionRepository.findBySessionStatus(status);
+            running.forEach(this::refresh);
+            sessions += running.size();
+        }
+        log.info("Charger availability index rebuilt with {} reservations and {} sessions on {} chargers",
+                reservations.size(), sessions, byCharger.size());
+    }
+
+    /**
+     * A reservation was inserted or updated. Inside a transaction this takes effect after commit.
+     */
+    public void reservationSaved(Reservation reservation) {
+        Long reservationId = reservation.getReservationId();
+        Long chargerId = reservation.getChargerId();
+        boolean blocking = BLOCKING_RESERVATIONS.contains(reservation.getStatus());
+        LocalDateTime start = reservation.getReservedStartTime();
+        LocalDateTime end = reservation.getReservedEndTime();
+        AfterCommit.run(() -> apply(reservationKey(reservationId), chargerId, blocking, start, end));
+    }
+
+    /**
+     * A session was inserted or updated. Inside a transaction this takes effect after commit.
+     */
+    public void sessionSaved(ChargingSession session) {
+        Long sessionId = session.getSessionId();
+        Long chargerId = session.getChargerId();
+        boolean running = ActiveSessionRegistry.TRACKED_STATUSES.contains(session.getSessionStatus());
+        LocalDateTime start = session.getStartTime();
+        AfterCommit.run(() -> apply(sessionKey(sessionId), chargerId, running, start, null));
+    }
+
+    public void reservationRemoved(Long reservationId) {
+        AfterCommit.run(() -> remove(reservationKey(reservationId)));
+    }
+
+    public void sessionRemoved(Long sessionId) {
+        AfterCommit.run(() -> remove(sessionKey(sessionId)));
+    }
+
+    /**
+     * Applies a row that is already committed (read back from the database), immediately.
+     */
+    public void refresh(Reservation reservation) {
+        apply(reservationKey(reservation.getReservationId()), reservation.getChargerId(),
+                BLOCKING_RESERVATIONS.contains(reservation.getStatus()),
+                reservation.getReservedStartTime(), reservation.getReservedEndTime());
+    }
+
+    public void refresh(ChargingSession session) {
+        apply(sessionKey(session.getSessionId()), session.getChargerId(),
+                ActiveSessionRegistry.TRACKED_STATUSES.contains(session.getSessionStatus()),
+                session.getStartTime(), null);
+    }
+
+    /**
+     * What blocks the charger during [start, end), if anything.
+     */
+    public Conflict conflict(Long chargerId, LocalDateTime start, LocalDateTime end) {
+        Charger charger = byCharger.get(chargerId);
+        if (charger == null) {
+            return Conflict.none;
+        }
+        long key;
+        synchronized (charger) {
+            key = charger.intervals.firstOverlap(toMillis(start), toMillis(end));
+        }
+        if (key == ChargerIntervals.NONE) {
+            return Conflict.none;
+        }
+        return (key & 1) == 1 ? Conflict.session : Conflict.reservation;
+    }
+
+    /**
+     * Drops every entry of the charger that overlaps [start, end), e.g. a session that ended on another instance
+     * (running sessions are open-ended). Call right before re-reading that window from the database.
+     */
+    public void forget(Long chargerId, LocalDateTime start, LocalDateTime end) {
+        Charger charger = byCharger.get(chargerId);
+        if (charger == null) {
+            return;
+        }
+        long from = toMillis(start);
+        long to = toMillis(end);
+        synchronized (charger) {
+            long key;
+            while ((key = charger.intervals.firstOverlap(from, to)) != ChargerIntervals.NONE) {
+                long[] previous = charger.intervals.get(key);
+                charger.intervals.remove(key);
+                chargerByKey.remove(key, chargerId);
+                refreshDays(charger, previous[0], previous[1]);
+            }
+        }
+    }
+
+    public boolean isFree(Long chargerId, LocalDateTime start, LocalDateTime end) {
+        return conflict(chargerId, start, end) == Conflict.none;
+    }
+
+    /**
+     * Busy SlotBitmap of each charger on the given day, in the order of chargerIds (copies; a charger
+     * with nothing booked gets an empty bitmap).
+     */
+    public long[][] busySlots(List<Long> chargerIds, LocalDate date) {
+        long day = date.toEpochDay();
+        long dayStartMs = toMillis(date.atStartOfDay());
+        long[][] result = new long[chargerIds.size()][];
+        for (int i = 0; i < result.length; i++) {
+            Charger charger = byCharger.get(chargerIds.get(i));
+            if (charger == null) {
+                result[i] = new long[SlotBitmap.WORDS];
+                continue;
+            }
+            synchronized (charger) {
+                long[] bits = charger.busyByDay.get(day);
+                if (bits == null) {
+                    if (charger.busyByDay.size() >= MAX_CACHED_DAYS) {
+                        evictPastDays(charger);
+                    }
+                    bits = SlotBitmap.busy(charger.intervals, dayStartMs);
+                    charger.busyByDay.put(day, bits);
+                }
+                result[i] = bits.clone();
+            }
+        }
+        return result;
+    }
+
+    private void apply(long key, Long chargerId, boolean blocking, LocalDateTime start, LocalDateTime end) {
+        if (!blocking || chargerId == null || start == null) {
+            remove(key);
+            return;
+        }
+        // Phiên đang chạy chiếm trụ từ lúc bắt đầu cho tới khi kết thúc (chưa biết giờ kết thúc)
+        long from = toMillis(start);
+        long to = end != null ? toMillis(end) : Long.MAX_VALUE;
+        if (to <= from) {
+            remove(key);
+            return;
+        }
+        Long previousCharger = chargerByKey.put(key, chargerId);
+        if (previousCharger != null && !previousCharger.equals(chargerId)) {
+            removeFrom(previousCharger, key);
+        }
+        Charger charger = byCharger.computeIfAbsent(chargerId, id -> new Charger());
+        synchronized (charger) {
+            long[] previous = charger.intervals.get(key);
+            charger.intervals.put(key, from, to);
+            if (previous != null) {
+                refreshDays(charger, previous[0], previous[1]);
+            }
+            refreshDays(charger, from, to);
+        }
+    }
+
+    private void remove(long key) {
+        Long chargerId = chargerByKey.remove(key);
+        if (chargerId != null) {
+            removeFrom(chargerId, key);
+        }
+    }
+
+    private void removeFrom(Long chargerId, long key) {
+        Charger charger = byCharger.get(chargerId);
+        if (charger != null) {
+            synchronized (charger) {
+                long[] previous = charger.intervals.get(key);
+                if (charger.intervals.remove(key)) {
+                    refreshDays(charger, previous[0], previous[1]);
+                }
+            }
+        }
+    }
+
+    // Tính lại các ngày đã cache có giao với [from, to)
+    private static void refreshDays(Charger charger, long from, long to) {
+        if (charger.busyByDay.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Long, long[]> entry : charger.busyByDay.entrySet()) {
+            long dayStartMs = toMillis(LocalDate.ofEpochDay(entry.getKey()).atStartOfDay());
+            if (from < dayStartMs + SlotBitmap.DAY_MS && to > dayStartMs) {
+                entry.setValue(SlotBitmap.busy(charger.intervals, dayStartMs));
+            }
+        }
+    }
+
+    private static void evictPastDays(Charger charger) {
+        long today = LocalDate.now().toEpochDay();
+        charger.busyByDay.keySet().removeIf(day -> day < today);
+        if (charger.busyByDay.size() >= MAX_CACHED_DAYS) {
+            charger.busyByDay.clear();
+        }
+    }
+
+    // Reservation và session dùng chung một cây: bit thấp phân biệt loại
+    private static long reservationKey(Long reservationId) {
+        return reservationId << 1;
+    }
+
+    private static long sessionKey(Long sessionId) {
+        return (sessionId << 1) | 1;
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,76 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.entities.Reservation;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate listener on Reservation and ChargingSession that keeps ChargerAvailabilityIndex in sync with every save,
+ * whichever service or scheduler changed the row. Registered with the session factory from here, so the entities
+ * stay free of service-layer imports.
+ */
+@Component
+public class ChargerAvailabilityListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ChargerAvailabilityIndex index;
+
+    public ChargerAvailabilityListener(EntityManagerFactory entityManagerFactory, ChargerAvailabilityIndex index) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.index = index;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        saved(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        saved(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Reservation reservation) {
+            index.reservationRemoved(reservation.getReservationId());
+        } else if (event.getEntity() instanceof ChargingSession session) {
+            index.sessionRemoved(session.getSessionId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void saved(Object entity) {
+        if (entity instanceof Reservation reservation) {
+            index.reservationSaved(reservation);
+        } else if (entity instanceof ChargingSession session) {
+            index.sessionSaved(session);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.chargingservice.services;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Busy intervals [start, end) of one charger (reservations and running sessions), keyed by a long id.
+ * Interval tree as a treap ordered by (start, key) where every node carries the largest end in its subtree:
+ * put and remove are O(log n), "is anything booked in [from, to)" is O(log n) and listing the k overlapping
+ * intervals is O(log n + k).
+ * Not thread-safe; callers must synchronise.
+ */
+public class ChargerIntervals {
+
+    public static final long NONE = -1;
+
+    private Node root;
+    private final Map<Long, Node> byKey = new HashMap<>();
+
+    private static final class Node {
+        final long key;
+        final long start;
+        final long end;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        Node left;
+        Node right;
+        long maxEnd;
+
+        Node(long key, long start, long end) {
+            this.key = key;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+
+        boolean before(Node other) {
+            return start < other.start || (start == other.start && key < other.key);
+        }
+    }
+
+    /**
+     * Visitor for {@link #forEachOverlap}.
+     */
+    @FunctionalInterface
+    public interface IntervalVisitor {
+        void visit(long key, long start, long end);
+    }
+
+    /**
+     * Adds an interval or replaces the interval stored under the same key.
+     */
+    public void put(long key, long start, long end) {
+        if (end <= start) {
+            throw new IllegalArgumentException("Interval end must be after start");
+        }
+        Node previous = byKey.get(key);
+        if (previous != null) {
+            if (previous.start == start && previous.end == end) {
+                return;
+            }
+            removeNode(previous);
+        }
+        Node node = new Node(key, start, end);
+        byKey.put(key, node);
+        Node[] parts = split(root, node);
+        root = merge(merge(parts[0], node), parts[1]);
+    }
+
+    public boolean remove(long key) {
+        Node node = byKey.remove(key);
+        if (node == null) {
+            return false;
+        }
+        removeNode(node);
+        return true;
+    }
+
+    public boolean contains(long key) {
+        return byKey.containsKey(key);
+    }
+
+    /**
+     * {start, end} stored under the key, or null.
+     */
+    public long[] get(long key) {
+        Node node = byKey.get(key);
+        return node == null ? null : new long[]{node.start, node.end};
+    }
+
+    public int size() {
+        return byKey.size();
+    }
+
+    /**
+     * Key of an interval overlapping [from, to), or NONE when the charger is free for the whole window.
+     */
+    public long firstOverlap(long from, long to) {
+        Node node = root;
+        while (node != null) {
+            // Bên trái còn khoảng kết thúc sau from: nếu có giao thì chắc chắn nằm ở đó hoặc tại node này
+            if (node.left != null && node.left.maxEnd > from) {
+                node = node.left;
+                continue;
+            }
+            if (node.start >= to) {
+                return NONE;
+            }
+            if (node.end > from) {
+                return node.key;
+            }
+            node = node.right;
+        }
+        return NONE;
+    }
+
+    /**
+     * Visits every interval overlapping [from, to), in order of start.
+     */
+    public void forEachOverlap(long from, long to, IntervalVisitor visitor) {
+        visit(root, from, to, visitor);
+    }
+
+    private static void visit(Node node, long from, long to, IntervalVisitor visitor) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        visit(node.left, from, to, visitor);
+        if (node.start >= to) {
+            return;
+        }
+        if (node.end > from) {
+            visitor.visit(node.key, node.start, node.end);
+        }
+        visit(node.right, from, to, visitor);
+    }
+
+    private void removeNode(Node node) {
+        Node[] parts = split(root, node);
+        // parts[1] bắt đầu bằng chính node: bỏ phần tử nhỏ nhất của nó
+        root = merge(parts[0], removeFirst(parts[1]));
+    }
+
+    private static Node removeFirst(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeFirst(node.left);
+        update(node);
+        return node;
+    }
+
+    // Tách thành (< pivot) và (>= pivot)
+    private static Node[] split(Node node, Node pivot) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (node.before(pivot)) {
+            Node[] parts = split(node.right, pivot);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+            return parts;
+        }
+        Node[] parts = split(node.left, pivot);
+        node.left = parts[1];
+        update(node);
+        parts[1] = node;
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+}
@@ -0,0 +1,37 @@
+package com.chargingservice.services;
+
+import com.chargingservice.dtos.internal.UpdateChargerStatusDto;
+import com.chargingservice.entities.ChargerStatusOutbox;
+import com.chargingservice.repositories.ChargerStatusOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records charger status changes in the outbox table instead of calling station-service inline.
+ * Must be called inside the transaction that changes the session so both commit (or roll back) together.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChargerStatusOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChargerStatusOutboxService.class);
+
+    private final ChargerStatusOutboxRepository outboxRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long chargerId, UpdateChargerStatusDto.ChargerStatus status, Long sessionId) {
+        ChargerStatusOutbox entry = new ChargerStatusOutbox();
+        entry.setChargerId(chargerId);
+        entry.setTargetStatus(status);
+        entry.setSessionId(sessionId);
+        entry.setNextAttemptAt(LocalDateTime.now());
+        outboxRepository.save(entry);
+        log.debug("Queued charger {} status {} (session {})", chargerId, status, sessionId);
+    }
+}
@@ -0,0 +1,185 @@
+package com.chargingservice.services;
+
+import com.chargingservice.units.Energy;
+
+/**
+ * Constant-current / constant-voltage charging curve of one battery class, precomputed into lookup tables.
+ * <p>
+ * CC phase (SOC below taperSoc): the battery accepts its maximum power. CV phase: the current decays
+ * exponentially in time, i.e. linearly in SOC, so acceptance falls as maxPower * (1 - soc) / (1 - taperSoc)
+ * until it reaches the termination current (cutoffC x capacity) at fullSoc, where charging stops.
+ * <p>
+ * Acceptance power and cumulative charging time from 0% are sampled at STEPS + 1 evenly spaced SOC points
+ * on [0, fullSoc] once; every query is then a constant-time table lookup without allocation. Power is
+ * interpolated linearly; time adds the part of the segment below the query SOC at the power of its midpoint,
+ * which stays accurate near fullSoc where time grows logarithmically.
+ * SOC values are fractions (0.0 - 1.0). Immutable and thread-safe.
+ */
+public final class ChargingCurve {
+
+    static final int STEPS = 1000;
+    private static final double SECONDS_PER_HOUR = 3600.0;
+
+    private final long capacityWh;
+    private final long maxPowerW;
+    private final double taperSoc;
+    private final double fullSoc;
+    private final double stepsPerSoc;
+    private final double socPerStep;
+    private final double[] powerW;   // acceptance at SOC i * fullSoc / STEPS
+    private final double[] seconds;  // time from 0% to SOC i * fullSoc / STEPS at the battery's own acceptance
+
+    private ChargingCurve(long capacityWh, long maxPowerW, double taperSoc, double fullSoc) {
+        this.capacityWh = capacityWh;
+        this.maxPowerW = maxPowerW;
+        this.taperSoc = taperSoc;
+        this.fullSoc = fullSoc;
+        this.stepsPerSoc = STEPS / fullSoc;
+        this.socPerStep = fullSoc / STEPS;
+        this.powerW = new double[STEPS + 1];
+        this.seconds = new double[STEPS + 1];
+        // Thời gian CV có nghiệm đóng: t = tau * ln((1 - taperSoc) / (1 - soc))
+        double ccSeconds = taperSoc * capacityWh / maxPowerW * SECONDS_PER_HOUR;
+        double tau = (1 - taperSoc) * capacityWh / maxPowerW * SECONDS_PER_HOUR;
+        for (int i = 0; i <= STEPS; i++) {
+            double soc = i * fullSoc / STEPS;
+            if (soc <= taperSoc) {
+                powerW[i] = maxPowerW;
+                seconds[i] = soc * capacityWh / maxPowerW * SECONDS_PER_HOUR;
+            } else {
+                powerW[i] = maxPowerW * (1 - soc) / (1 - taperSoc);
+                seconds[i] = ccSeconds + tau * Math.log((1 - taperSoc) / (1 - soc));
+            }
+        }
+    }
+
+    /**
+     * @param capacityWh usable battery capacity
+     * @param maxPowerW  power accepted during the constant-current phase
+     * @param taperSoc   SOC at which the constant-voltage taper starts
+     * @param cutoffC    termination current as a C-rate (e.g. 0.05 = capacity / 20 per hour)
+     */
+    public static ChargingCurve cccv(long capacityWh, long maxPowerW, double taperSoc, double cutoffC) {
+        if (capacityWh <= 0 || maxPowerW <= 0) {
+            throw new IllegalArgumentException("Capacity and max power must be positive");
+        }
+        if (!(taperSoc > 0 && taperSoc < 1)) {
+            throw new IllegalArgumentException("Taper SOC must be between 0 and 1: " + taperSoc);
+        }
+        double cutoffPowerW = cutoffC * capacityWh;
+        if (!(cutoffPowerW > 0 && cutoffPowerW < maxPowerW)) {
+            throw new IllegalArgumentException("Cut-off power must be positive and below max power: " + cutoffPowerW);
+        }
+        double fullSoc = 1 - cutoffPowerW / maxPowerW * (1 - taperSoc);
+        return new ChargingCurve(capacityWh, maxPowerW, taperSoc, fullSoc);
+    }
+
+    public Energy capacity() {
+        return Energy.ofWh(capacityWh);
+    }
+
+    public long maxPowerW() {
+        return maxPowerW;
+    }
+
+    public double taperSoc() {
+        return taperSoc;
+    }
+
+    /**
+     * SOC at which charging terminates (acceptance has fallen to the cut-off current); shown as 100% to drivers.
+     */
+    public double fullSoc() {
+        return fullSoc;
+    }
+
+    public boolean isFull(double soc) {
+        return soc >= fullSoc;
+    }
+
+    /**
+     * SOC after delivering energy into the battery from startSoc.
+     */
+    public double socAfter(double startSoc, Energy delivered) {
+        return Math.min(1.0, startSoc + (double) delivered.wh() / capacityWh);
+    }
+
+    /**
+     * Energy still needed to go from soc to fullSoc.
+     */
+    public Energy energyToFull(double soc) {
+        return Energy.ofWh(Math.max(0, Math.round((fullSoc - soc) * capacityWh)));
+    }
+
+    /**
+     * Power the battery accepts at this SOC (0 once full).
+     */
+    public long powerW(double soc) {
+        return soc >= fullSoc ? 0 : Math.round(interpolate(powerW, soc));
+    }
+
+    /**
+     * Power actually delivered at this SOC through a charger limited to chargerPowerW.
+     */
+    public long powerW(double soc, long chargerPowerW) {
+        return Math.min(powerW(soc), Math.max(0, chargerPowerW));
+    }
+
+    /**
+     * Seconds to charge from fromSoc to toSoc (clamped to [0, fullSoc]) through a charger limited to
+     * chargerPowerW. Below the SOC where the taper falls under the charger limit the charger is the bottleneck
+     * (constant power), above it the battery is: two table lookups.
+     */
+    public long secondsToCharge(double fromSoc, double toSoc, long chargerPowerW) {
+        if (chargerPowerW <= 0) {
+            throw new IllegalArgumentException("Charger power must be positive: " + chargerPowerW);
+        }
+        double from = clamp(fromSoc);
+        double to = clamp(toSoc);
+        if (to <= from) {
+            return 0;
+        }
+        // SOC từ đó công suất pin nhận (taper) thấp hơn giới hạn của trụ sạc
+        double crossover = chargerPowerW >= maxPowerW
+                ? 0
+                : Math.min(fullSoc, 1 - (double) chargerPowerW / maxPowerW * (1 - taperSoc));
+        double total = 0;
+        if (from < crossover) {
+            total += (Math.min(to, crossover) - from) * capacityWh / chargerPowerW * SECONDS_PER_HOUR;
+        }
+        if (to > crossover) {
+            total += secondsFromEmpty(to) - secondsFromEmpty(Math.max(from, crossover));
+        }
+        return Math.round(total);
+    }
+
+    public long secondsToFull(double soc, long chargerPowerW) {
+        return secondsToCharge(soc, fullSoc, chargerPowerW);
+    }
+
+    private double clamp(double soc) {
+        return soc < 0 ? 0 : Math.min(soc, fullSoc);
+    }
+
+    private double secondsFromEmpty(double soc) {
+        if (soc >= fullSoc) {
+            return seconds[STEPS];
+        }
+        double position = Math.max(soc, 0) * stepsPerSoc;
+        int index = (int) position;
+        double fraction = position - index;
+        if (fraction == 0) {
+            return seconds[index];
+        }
+        // Công suất tại trung điểm của đoạn [index, position] (nội suy tuyến tính trong cùng ô)
+        double midpointPowerW = powerW[index] + (powerW[index + 1] - powerW[index]) * fraction / 2;
+        return seconds[index] + fraction * socPerStep * capacityWh / midpointPowerW * SECONDS_PER_HOUR;
+    }
+
+    private double interpolate(double[] table, double soc) {
+        double position = clamp(soc) * stepsPerSoc;
+        int index = Math.min((int) position, STEPS - 1);
+        double fraction = position - index;
+        return table[index] + (table[index + 1] - table[index]) * fraction;
+    }
+}
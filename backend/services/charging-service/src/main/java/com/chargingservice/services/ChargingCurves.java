@@ -0,0 +1,42 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.ChargingSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Charging curves per vehicle battery class, compiled once at startup. Sessions without a battery class
+ * (started before classes existed, or by clients that do not send one) use the standard 80 kWh class.
+ */
+@Component
+public class ChargingCurves {
+
+    private static final Logger log = LoggerFactory.getLogger(ChargingCurves.class);
+
+    private final Map<ChargingSession.BatteryClass, ChargingCurve> curves = new EnumMap<>(ChargingSession.BatteryClass.class);
+
+    public ChargingCurves(@Value("${charging.curve.cutoff-c-rate:0.05}") double cutoffC) {
+        for (ChargingSession.BatteryClass batteryClass : ChargingSession.BatteryClass.values()) {
+            ChargingCurve curve = switch (batteryClass) {
+                // Xe cỡ nhỏ: pin 40 kWh, nhận tối đa 50 kW
+                case compact -> ChargingCurve.cccv(40_000, 50_000, 0.85, cutoffC);
+                case standard -> ChargingCurve.cccv(80_000, 150_000, 0.80, cutoffC);
+                // Xe cỡ lớn: pin 100 kWh, 250 kW, taper sớm hơn để bảo vệ cell
+                case large -> ChargingCurve.cccv(100_000, 250_000, 0.70, cutoffC);
+            };
+            curves.put(batteryClass, curve);
+            log.info("Charging curve {}: {} Wh, {} W until {}% SOC, full at {}% SOC", batteryClass,
+                    curve.capacity().wh(), curve.maxPowerW(), Math.round(curve.taperSoc() * 100),
+                    String.format("%.1f", curve.fullSoc() * 100));
+        }
+    }
+
+    public ChargingCurve forClass(ChargingSession.BatteryClass batteryClass) {
+        return curves.get(batteryClass != null ? batteryClass : ChargingSession.BatteryClass.standard);
+    }
+}
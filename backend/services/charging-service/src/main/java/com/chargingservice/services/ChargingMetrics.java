@@ -0,0 +1,135 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Session and reservation metrics exposed on /actuator/prometheus:
+ * <ul>
+ *   <li>charging.lifecycle.transitions{entity, transition}: one counter per lifecycle step, counted after commit</li>
+ *   <li>charging.station.sessions{station, state}: running sessions (from ActiveSessionRegistry) and upcoming
+ *       reservations (pending/confirmed, one grouped query) per station, refreshed every
+ *       charging.metrics.station-refresh-ms instead of on every scrape</li>
+ *   <li>charging.sessions.active: running sessions tracked by this instance</li>
+ * </ul>
+ */
+@Component
+public class ChargingMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(ChargingMetrics.class);
+
+    public static final String TRANSITIONS = "charging.lifecycle.transitions";
+    public static final String STATION_SESSIONS = "charging.station.sessions";
+    public static final String ACTIVE_SESSIONS = "charging.sessions.active";
+
+    static final Set<Reservation.ReservationStatus> RESERVED_STATUSES = EnumSet.of(
+            Reservation.ReservationStatus.pending,
+            Reservation.ReservationStatus.confirmed
+    );
+
+    public enum Transition {
+        SESSION_STARTED("session", "started"),
+        SESSION_STOPPED("session", "stopped"),
+        SESSION_CANCELLED("session", "cancelled"),
+        SESSION_TIMED_OUT("session", "timed_out"),
+        SESSION_PAID("session", "paid"),
+        SESSION_RECONCILED("session", "reconciled"),
+        RESERVATION_CREATED("reservation", "created"),
+        RESERVATION_CHECKED_IN("reservation", "checked_in"),
+        RESERVATION_STARTED("reservation", "started"),
+        RESERVATION_COMPLETED("reservation", "completed"),
+        RESERVATION_CANCELLED("reservation", "cancelled"),
+        RESERVATION_NO_SHOW("reservation", "no_show");
+
+        private final String entity;
+        private final String transition;
+
+        Transition(String entity, String transition) {
+            this.entity = entity;
+            this.transition = transition;
+        }
+    }
+
+    private final ActiveSessionRegistry activeSessionRegistry;
+    private final ReservationRepository reservationRepository;
+    private final Map<Transition, Counter> counters = new EnumMap<>(Transition.class);
+    private final MultiGauge stationSessions;
+
+    public ChargingMetrics(MeterRegistry registry,
+                           ActiveSessionRegistry activeSessionRegistry,
+                           ReservationRepository reservationRepository) {
+        this.activeSessionRegistry = activeSessionRegistry;
+        this.reservationRepository = reservationRepository;
+        for (Transition transition : Transition.values()) {
+            counters.put(transition, Counter.builder(TRANSITIONS)
+                    .description("Session and reservation lifecycle transitions")
+                    .tag("entity", transition.entity)
+                    .tag("transition", transition.transition)
+                    .register(registry));
+        }
+        this.stationSessions = MultiGauge.builder(STATION_SESSIONS)
+                .description("Running sessions and upcoming reservations per station")
+                .register(registry);
+        Gauge.builder(ACTIVE_SESSIONS, activeSessionRegistry, ActiveSessionRegistry::size)
+                .description("Running sessions tracked by this instance")
+                .register(registry);
+    }
+
+    /**
+     * Counts a lifecycle transition. Inside a transaction it is counted only if the transaction commits.
+     */
+    public void record(Transition transition) {
+        Counter counter = counters.get(transition);
+        AfterCommit.run(counter::increment);
+    }
+
+    public void record(Transition transition, long amount) {
+        if (amount > 0) {
+            Counter counter = counters.get(transition);
+            AfterCommit.run(() -> counter.increment(amount));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${charging.metrics.station-refresh-ms:15000}")
+    public void refreshStationGauges() {
+        Map<Long, long[]> byStation = new TreeMap<>(); // stationId -> [active, reserved]
+        for (ActiveSessionRegistry.ActiveSession session : activeSessionRegistry.all()) {
+            if (session.stationId() != null) {
+                byStation.computeIfAbsent(session.stationId(), id -> new long[2])[0]++;
+            }
+        }
+        try {
+            for (Object[] row : reservationRepository.countByStationForStatuses(RESERVED_STATUSES)) {
+                byStation.computeIfAbsent((Long) row[0], id -> new long[2])[1] = ((Number) row[1]).longValue();
+            }
+        } catch (Exception e) {
+            log.warn("Could not refresh reserved session gauges: {}", e.getMessage());
+            return;
+        }
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(byStation.size() * 2);
+        byStation.forEach((stationId, counts) -> {
+            String station = stationId.toString();
+            rows.add(MultiGauge.Row.of(Tags.of("station", station, "state", "active"), counts[0]));
+            rows.add(MultiGauge.Row.of(Tags.of("station", station, "state", "reserved"), counts[1]));
+        });
+        // overwrite = true: trạm không còn phiên nào sẽ bị gỡ khỏi gauge
+        stationSessions.register(rows, true);
+    }
+}
@@ -6,7 +6,6 @@ package com.chargingservice.services;
 
 import com.chargingservice.dtos.SessionResponseDto;
 import com.chargingservice.dtos.StartSessionRequestDto;
-import java.util.List;
 
 public interface ChargingService {
 
@@ -37,12 +36,6 @@ public interface ChargingService {
      */
     SessionResponseDto getSessionById(Long sessionId);
 
-    /**
-     * Lấy danh sách tất cả các phiên sạc.
-     * @return Danh sách các phiên sạc.
-     */
-    List<SessionResponseDto> getAllSessions();
-    
     /**
      * Lấy trạng thái sạc real-time (SOC %, thời gian còn lại, chi phí)
      * @param sessionId ID của phiên sạc
@@ -2,18 +2,25 @@ package com.chargingservice.services;
 
 import com.chargingservice.clients.NotificationServiceClient;
 import com.chargingservice.clients.PaymentServiceClient;
-import com.chargingservice.clients.StationServiceClient;
 import com.chargingservice.dtos.SessionResponseDto;
 import com.chargingservice.dtos.StartSessionRequestDto;
 import com.chargingservice.dtos.internal.CreateNotificationRequestDto;
 import com.chargingservice.dtos.internal.PaymentResponseDto;
 import com.chargingservice.dtos.internal.ProcessPaymentRequestDto;
 import com.chargingservice.dtos.internal.UpdateChargerStatusDto;
+import com.chargingservice.entities.ArchivedChargingSession;
 import com.chargingservice.entities.ChargingSession;
 import com.chargingservice.entities.Reservation;
+import com.chargingservice.events.SessionEventPublisher;
 import com.chargingservice.exceptions.ResourceNotFoundException;
+import com.chargingservice.repositories.ArchivedChargingSessionRepository;
 import com.chargingservice.repositories.ChargingSessionRepository;
 import com.chargingservice.repositories.ReservationRepository;
+import com.chargingservice.units.Energy;
+import com.chargingservice.units.FixedPoint;
+import com.chargingservice.units.RatePerKwh;
+import com.chargingservice.units.Vnd;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,10 +32,8 @@ import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
-import com.chargingservice.clients.UserServiceClient;
 
 @Service
 @RequiredArgsConstructor
@@ -37,22 +42,50 @@ public class ChargingServiceImpl implements ChargingService {
     private static final Logger log = LoggerFactory.getLogger(ChargingServiceImpl.class);
 
     private final ChargingSessionRepository sessionRepository;
+    private final ArchivedChargingSessionRepository archiveRepository;
     private final ReservationRepository reservationRepository;
-    private final StationServiceClient stationServiceClient;
+    private final ChargerStatusOutboxService chargerStatusOutbox;
     private final PaymentServiceClient paymentServiceClient;
     private final NotificationServiceClient notificationServiceClient; // Inject Notification client
-    private final UserServiceClient userServiceClient;
-    
-    // Base price per kWh
-    private static final BigDecimal BASE_PRICE_PER_KWH = new BigDecimal("3000.00");
+    private final ActiveSessionRegistry activeSessionRegistry;
+    private final SubscriptionEntitlementCache entitlementCache;
+    private final MeterValueStore meterValueStore;
+    private final ConsumptionRollupService consumptionRollupService;
+    private final SessionTimeoutEngine sessionTimeoutEngine;
+    private final DependencyFanOut dependencyFanOut;
+    private final ChargerAdmissionControl chargerAdmission;
+    private final StationPowerAllocator powerAllocator;
+    private final TariffEngine tariffEngine;
+    private final ChargingMetrics metrics;
+    private final ChargingCurves chargingCurves;
+    private final StationQueueService stationQueueService;
+    private final SessionEventPublisher sessionEvents;
+
+    // Giả lập: xe bắt đầu sạc ở 20% SOC; công suất trụ do StationPowerAllocator phân bổ theo trạm,
+    // công suất pin nhận theo đường cong sạc của loại pin (ChargingCurves)
+    static final double INITIAL_SOC = 0.20;
 
     // --- CREATE ---
     @Override
+    @Transactional
+    @Timed(value = "charging.operations", extraTags = {"operation", "startSession"})
     public SessionResponseDto startSession(StartSessionRequestDto requestDto) {
         log.info("Starting new charging session for user {} at charger {}", requestDto.getUserId(), requestDto.getChargerId());
         
+        // Kiểm tra phiên đang hoạt động và tra cứu giá chạy song song (cùng một deadline)
+        DependencyFanOut.Scope lookups = dependencyFanOut.open("startSession");
+        DependencyFanOut.Call<List<ChargingSession>> activeSessionsCall = lookups.fork("activeSessions",
+                () -> sessionRepository.findActiveSessionsByUserId(requestDto.getUserId()));
+        DependencyFanOut.Call<Long> discountCall = lookups.fork("pricing",
+                () -> lookupDiscountPercent(requestDto.getUserId()));
+        if (requestDto.getStationId() != null) {
+            // Nạp trước công suất trạm/trụ vào cache cho StationPowerAllocator
+            lookups.fork("powerProfile", () -> powerAllocator.profile(requestDto.getStationId()));
+        }
+        lookups.join();
+
         // VALIDATION: Check if user already has an active session
-        List<ChargingSession> activeSessions = sessionRepository.findActiveSessionsByUserId(requestDto.getUserId());
+        List<ChargingSession> activeSessions = activeSessionsCall.get();
         if (!activeSessions.isEmpty()) {
             ChargingSession existingSession = activeSessions.get(0);
             log.warn("⚠️ User {} already has an active session: {}", requestDto.getUserId(), existingSession.getSessionId());
@@ -63,24 +96,43 @@ public class ChargingServiceImpl implements ChargingService {
             );
         }
         
-        // Calculate price with discount for this user at session start time
-        BigDecimal currentPrice = calculatePriceWithDiscount(requestDto.getUserId());
+        // Discount theo gói được chốt khi bắt đầu phiên; giá theo khung giờ (time-of-use) của trạm.
+        // Không tra được gói thì từ chối (client thử lại) thay vì chốt 0% cho cả phiên của subscriber
+        long discountPercent;
+        try {
+            discountPercent = discountCall.get();
+        } catch (RuntimeException e) {
+            log.warn("Subscription lookup failed for user {}, session not started: {}", requestDto.getUserId(), e.getMessage());
+            throw new IllegalStateException("Subscription lookup is unavailable, please retry starting the session", e);
+        }
         
         ChargingSession session = new ChargingSession();
         session.setUserId(requestDto.getUserId());
         session.setStationId(requestDto.getStationId());
         session.setChargerId(requestDto.getChargerId());
+        session.setBatteryClass(requestDto.getBatteryClass());
         session.setSessionCode(UUID.randomUUID().toString());
         session.setStartTime(LocalDateTime.now());
+        session.setTimeoutAt(sessionTimeoutEngine.deadlineFor(session.getStartTime()));
         session.setSessionStatus(ChargingSession.SessionStatus.charging);
-        // Store price at the time of session creation
+        // Store price at the time of session creation (rate of the current tariff band)
+        BigDecimal currentPrice = tariffEngine.rateAt(requestDto.getStationId(), session.getStartTime(), discountPercent).toBigDecimal();
         session.setPricePerKwh(currentPrice);
+        session.setDiscountPercent((int) discountPercent);
 
         ChargingSession savedSession = sessionRepository.save(session);
+        // Chỉ một phiên được nhận trên mỗi trụ sạc; phiên thứ hai bị từ chối và transaction rollback
+        chargerAdmission.admit(savedSession.getChargerId(), savedSession.getSessionId());
         log.info("✅ Session {} created successfully with price per kWh: {}", savedSession.getSessionId(), currentPrice);
+        activeSessionRegistry.track(savedSession);
+        powerAllocator.attach(ActiveSessionRegistry.ActiveSession.of(savedSession));
+        stationQueueService.sessionStarted(ActiveSessionRegistry.ActiveSession.of(savedSession));
+        consumptionRollupService.recordSessionStarted(savedSession);
+        sessionTimeoutEngine.schedule(savedSession);
+        metrics.record(ChargingMetrics.Transition.SESSION_STARTED);
 
-        // Gọi sang station-service để cập nhật trụ sạc thành "in_use"
-        updateChargerStatus(savedSession.getChargerId(), UpdateChargerStatusDto.ChargerStatus.in_use);
+        // Ghi outbox để cập nhật trụ sạc thành "in_use" (gửi sang station-service sau khi commit)
+        updateChargerStatus(savedSession, UpdateChargerStatusDto.ChargerStatus.in_use);
 
         // Gọi sang notification-service khi bắt đầu
         sendNotification(
@@ -96,8 +148,14 @@ public class ChargingServiceImpl implements ChargingService {
 
     // --- UPDATE (STOP) ---
     @Override
+    @Transactional
+    @Timed(value = "charging.operations", extraTags = {"operation", "stopSession"})
     public SessionResponseDto stopSession(Long sessionId, com.chargingservice.dtos.StopSessionRequestDto requestDto) {
         log.info("Attempting to stop session {}", sessionId);
+        // Đọc công tơ song song với việc tải session; chỉ đọc, series được đóng sau khi commit
+        DependencyFanOut.Scope lookups = dependencyFanOut.open("stopSession");
+        DependencyFanOut.Call<Optional<MeterValueStore.MeterReading>> meterCall = lookups.fork("meterReading",
+                () -> meterValueStore.read(sessionId));
         ChargingSession session = findSessionById(sessionId);
 
         // Chỉ dừng nếu đang sạc
@@ -109,12 +167,24 @@ public class ChargingServiceImpl implements ChargingService {
         session.setEndTime(LocalDateTime.now());
         session.setSessionStatus(ChargingSession.SessionStatus.completed);
 
-        // Sử dụng energyCharged từ frontend nếu có, nếu không thì tính dựa trên thời gian
-        if (requestDto != null && requestDto.getEnergyCharged() != null && requestDto.getEnergyCharged().compareTo(BigDecimal.ZERO) > 0) {
+        // Ưu tiên dữ liệu công tơ (meter values) từ trụ sạc, sau đó energyCharged từ frontend,
+        // cuối cùng tính dựa trên thời gian
+        // Công tơ không trả lời kịp thì không tính tiền bằng số liệu ước lượng: từ chối dừng, client thử lại
+        lookups.join();
+        MeterValueStore.MeterReading meterReading = meterCall.get().orElse(null);
+        StationPowerAllocator.Allocation allocated = powerAllocator.find(sessionId).orElse(null);
+        if (meterReading != null) {
+            session.setEnergyConsumed(meterReading.energy().toKwh());
+            log.info("Using metered energy: {} Wh (SOC: {}%)", meterReading.energy().wh(), meterReading.soc());
+        } else if (requestDto != null && requestDto.getEnergyCharged() != null && requestDto.getEnergyCharged().compareTo(BigDecimal.ZERO) > 0) {
             // Sử dụng energy từ frontend (đã tính với speedMultiplier)
             session.setEnergyConsumed(requestDto.getEnergyCharged().setScale(2, RoundingMode.HALF_UP));
             log.info("Using energy from frontend: {} kWh (SOC: {}%)", 
                     requestDto.getEnergyCharged(), requestDto.getCurrentSOC());
+        } else if (allocated != null && allocated.energyWh() > 0) {
+            // Năng lượng tích lũy theo công suất được phân bổ tại trạm
+            session.setEnergyConsumed(Energy.ofWh(allocated.energyWh()).toKwh());
+            log.info("Using allocated-power energy: {} Wh", allocated.energyWh());
         } else {
             // Fallback: Tính toán năng lượng tiêu thụ dựa trên thời gian (0.6 kWh/phút = 36 kW)
             long durationInMinutes = Duration.between(session.getStartTime(), session.getEndTime()).toMinutes();
@@ -124,29 +194,48 @@ public class ChargingServiceImpl implements ChargingService {
             log.info("Using time-based calculation: {} minutes = {} kWh", durationInMinutes, energy);
         }
         
-        // Tính SOC cuối cùng
-        BigDecimal batteryCapacity = new BigDecimal("80.00"); // kWh
-        BigDecimal energyCharged = session.getEnergyConsumed();
-        double finalSOC = 20.0 + (energyCharged.doubleValue() / batteryCapacity.doubleValue() * 80.0);
-        if (finalSOC > 100.0) finalSOC = 100.0;
-        boolean isFullyCharged = finalSOC >= 99.9; // Gần 100%
+        // Tính SOC cuối cùng theo dung lượng pin của loại xe
+        ChargingCurve curve = chargingCurves.forClass(session.getBatteryClass());
+        double finalSOC;
+        boolean isFullyCharged;
+        if (meterReading != null && meterReading.soc() != null) {
+            finalSOC = Math.min(100.0, meterReading.soc());
+            isFullyCharged = finalSOC >= 99.9; // Gần 100%
+        } else {
+            double soc = curve.socAfter(INITIAL_SOC, Energy.ofKwh(session.getEnergyConsumed()));
+            isFullyCharged = curve.isFull(soc);
+            finalSOC = isFullyCharged ? 100.0 : soc * 100.0;
+        }
+
+        // Tính tiền theo các khung giá mà phiên đã đi qua
+        tariffEngine.settle(session);
 
         ChargingSession savedSession = sessionRepository.save(session);
+        activeSessionRegistry.untrack(savedSession.getSessionId());
+        sessionEvents.sessionEnded(savedSession.getSessionId(), savedSession.getStationId());
+        AfterCommit.run(() -> meterValueStore.close(sessionId));
+        sessionTimeoutEngine.cancel(savedSession.getSessionId());
+        chargerAdmission.release(savedSession.getChargerId(), savedSession.getSessionId());
+        powerAllocator.detach(savedSession.getSessionId());
+        stationQueueService.sessionEnded(savedSession.getStationId(), savedSession.getSessionId());
+        consumptionRollupService.recordSessionCompleted(savedSession);
+        metrics.record(ChargingMetrics.Transition.SESSION_STOPPED);
         log.info("Session {} stopped. Energy consumed: {} kWh, Final SOC: {:.2f}%", 
                 savedSession.getSessionId(), savedSession.getEnergyConsumed(), finalSOC);
 
         // Bước 1: Cập nhật reservation status từ "active" sang "completed" nếu có
-        reservationRepository.findBySessionId(savedSession.getSessionId()).ifPresent(reservation -> {
+        reservationRepository.findBySessionId(sessionId).ifPresent(reservation -> {
             if (reservation.getStatus() == Reservation.ReservationStatus.active) {
                 reservation.setStatus(Reservation.ReservationStatus.completed);
                 reservationRepository.save(reservation);
+                metrics.record(ChargingMetrics.Transition.RESERVATION_COMPLETED);
                 log.info("Updated reservation {} status from active to completed for session {}", 
                         reservation.getReservationId(), savedSession.getSessionId());
             }
         });
 
-        // Bước 2: Gọi sang station-service để cập nhật trụ sạc thành "available"
-        updateChargerStatus(savedSession.getChargerId(), UpdateChargerStatusDto.ChargerStatus.available);
+        // Bước 2: Ghi outbox để cập nhật trụ sạc thành "available"
+        updateChargerStatus(savedSession, UpdateChargerStatusDto.ChargerStatus.available);
 
         // Bước 3: KHÔNG tự động thanh toán - Driver sẽ chọn payment method sau
         // Payment sẽ được xử lý khi driver chọn payment method từ frontend
@@ -180,6 +269,7 @@ public class ChargingServiceImpl implements ChargingService {
 
     // --- UPDATE (CANCEL) ---
     @Override
+    @Transactional
     public SessionResponseDto cancelSession(Long sessionId) {
         log.info("Attempting to cancel session {}", sessionId);
         ChargingSession session = findSessionById(sessionId);
@@ -190,6 +280,13 @@ public class ChargingServiceImpl implements ChargingService {
             session.setEndTime(LocalDateTime.now());
             session.setSessionStatus(ChargingSession.SessionStatus.cancelled);
             ChargingSession savedSession = sessionRepository.save(session);
+            activeSessionRegistry.untrack(savedSession.getSessionId());
+            sessionEvents.sessionEnded(savedSession.getSessionId(), savedSession.getStationId());
+            sessionTimeoutEngine.cancel(savedSession.getSessionId());
+            chargerAdmission.release(savedSession.getChargerId(), savedSession.getSessionId());
+            powerAllocator.detach(savedSession.getSessionId());
+            stationQueueService.sessionEnded(savedSession.getStationId(), savedSession.getSessionId());
+            metrics.record(ChargingMetrics.Transition.SESSION_CANCELLED);
             log.info("Session {} cancelled", savedSession.getSessionId());
 
             // Cập nhật reservation status từ "active" sang "cancelled" nếu có
@@ -199,13 +296,14 @@ public class ChargingServiceImpl implements ChargingService {
                     reservation.setCancellationReason("Session cancelled");
                     reservation.setCancelledAt(LocalDateTime.now());
                     reservationRepository.save(reservation);
+                    metrics.record(ChargingMetrics.Transition.RESERVATION_CANCELLED);
                     log.info("Updated reservation {} status from active to cancelled for session {}", 
                             reservation.getReservationId(), savedSession.getSessionId());
                 }
             });
 
-            // Gọi sang station-service để cập nhật trụ sạc thành "available"
-            updateChargerStatus(savedSession.getChargerId(), UpdateChargerStatusDto.ChargerStatus.available);
+            // Ghi outbox để cập nhật trụ sạc thành "available"
+            updateChargerStatus(savedSession, UpdateChargerStatusDto.ChargerStatus.available);
 
             // Gửi thông báo hủy (Tùy chọn)
             sendNotification(
@@ -227,19 +325,34 @@ public class ChargingServiceImpl implements ChargingService {
     @Override
     public SessionResponseDto getSessionById(Long sessionId) {
         log.debug("Fetching session by ID {}", sessionId);
-        return convertToDto(findSessionById(sessionId));
-    }
-    @Override
-    public List<SessionResponseDto> getAllSessions() {
-        log.debug("Fetching all sessions");
-        return sessionRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDto(findSessionForRead(sessionId));
     }
     
     @Override
+    @Timed(value = "charging.operations", extraTags = {"operation", "getSessionStatus"})
     public com.chargingservice.dtos.SessionStatusDto getSessionStatus(Long sessionId, int speedMultiplier) {
-        ChargingSession session = findSessionById(sessionId);
+        // Phiên đang chạy được đọc từ registry trong bộ nhớ; entry quá hạn đối chiếu được đọc lại từ DB
+        // vì phiên có thể đã được dừng qua instance khác
+        ActiveSessionRegistry.ActiveSession session = activeSessionRegistry.findVerified(sessionId).orElse(null);
+        if (session == null) {
+            ChargingSession stored = findSessionForRead(sessionId);
+            if (!ActiveSessionRegistry.TRACKED_STATUSES.contains(stored.getSessionStatus())) {
+                activeSessionRegistry.untrack(sessionId);
+                // Trả về status cơ bản cho session đã kết thúc
+                com.chargingservice.dtos.SessionStatusDto statusDto = new com.chargingservice.dtos.SessionStatusDto();
+                statusDto.setSessionId(stored.getSessionId());
+                statusDto.setStatus(stored.getSessionStatus());
+                statusDto.setEnergyCharged(stored.getEnergyConsumed() != null ? stored.getEnergyConsumed() : BigDecimal.ZERO);
+                statusDto.setPricePerKwh(stored.getPricePerKwh() != null
+                        ? stored.getPricePerKwh()
+                        : calculatePriceWithDiscount(stored.getUserId()));
+                statusDto.setCurrentCost(stored.getTotalCost());
+                return statusDto;
+            }
+            // Phiên đang chạy nhưng chưa có (hoặc quá hạn) trong registry, ví dụ: tạo bởi instance khác
+            activeSessionRegistry.track(stored);
+            session = ActiveSessionRegistry.ActiveSession.of(stored);
+        }
         
         // Validate speedMultiplier (support up to 100 for demo/testing)
         if (speedMultiplier < 1) speedMultiplier = 1;
@@ -248,91 +361,117 @@ public class ChargingServiceImpl implements ChargingService {
             speedMultiplier = 100;
         }
         
+        // Đơn giá hiện tại: khung giá đang áp dụng tại trạm với discount đã chốt khi bắt đầu phiên.
+        // Phiên cũ (không có discount_percent) giữ đơn giá cố định đã lưu
+        LocalDateTime now = LocalDateTime.now();
+        boolean timeOfUse = session.discountPercent() != null;
+        BigDecimal pricePerKwh;
+        if (timeOfUse) {
+            pricePerKwh = tariffEngine.rateAt(session.stationId(), now, session.discountPercent()).toBigDecimal();
+        } else {
+            pricePerKwh = session.pricePerKwh() != null
+                    ? session.pricePerKwh()
+                    : calculatePriceWithDiscount(session.userId());
+        }
+        
         // Chỉ tính toán cho session đang charging
-        if (session.getSessionStatus() != ChargingSession.SessionStatus.charging) {
-            // Trả về status cơ bản cho session không đang sạc
+        if (session.status() != ChargingSession.SessionStatus.charging) {
+            // Trả về status cơ bản cho session không đang sạc (starting, paused)
             com.chargingservice.dtos.SessionStatusDto statusDto = new com.chargingservice.dtos.SessionStatusDto();
-            statusDto.setSessionId(session.getSessionId());
-            statusDto.setStatus(session.getSessionStatus());
-            statusDto.setEnergyCharged(session.getEnergyConsumed() != null ? session.getEnergyConsumed() : BigDecimal.ZERO);
-            statusDto.setPricePerKwh(calculatePriceWithDiscount(session.getUserId()));
+            statusDto.setSessionId(session.sessionId());
+            statusDto.setStatus(session.status());
+            statusDto.setEnergyCharged(session.energyConsumed() != null ? session.energyConsumed() : BigDecimal.ZERO);
+            statusDto.setPricePerKwh(pricePerKwh);
             return statusDto;
         }
         
         // Tính toán trạng thái sạc real-time với speed multiplier
-        LocalDateTime now = LocalDateTime.now();
-        long actualMinutesElapsed = Duration.between(session.getStartTime(), now).toMinutes();
+        // Dùng số nguyên fixed-point (Wh, VND) thay cho BigDecimal để tránh cấp phát trên đường polling
+        long actualMinutesElapsed = Duration.between(session.startTime(), now).toMinutes();
         if (actualMinutesElapsed < 0) actualMinutesElapsed = 0;
         
-        // Giả lập: tốc độ sạc 0.01 kWh/giây = 0.6 kWh/phút = 36 kW
-        BigDecimal chargingPower = new BigDecimal("36.00"); // kW
-        BigDecimal batteryCapacity = new BigDecimal("80.00"); // kWh (giả lập)
-        
+        // Công suất phân bổ hiện tại và năng lượng tích lũy theo các lần phân bổ lại tại trạm
+        StationPowerAllocator.Allocation allocation = powerAllocator.allocation(session);
+        long chargingPowerW = allocation.powerW();
+
+        // Đường cong sạc (CC/CV) của loại pin: tra bảng đã tính sẵn khi khởi động
+        ChargingCurve curve = chargingCurves.forClass(session.batteryClass());
+
         // Apply speed multiplier để tua nhanh
         long minutesElapsed;
-        BigDecimal energyCharged;
-        BigDecimal socPercentage;
+        Energy energyCharged;
+        double soc;
         
         if (speedMultiplier >= 100) {
             // x100 mode: Instant demo - sạc đầy ngay lập tức (for testing/demo only)
-            minutesElapsed = 134; // Equivalent time to charge from 20% → 100%
-            energyCharged = batteryCapacity.multiply(new BigDecimal("0.80")); // 80% of 80kWh = 64kWh
-            socPercentage = new BigDecimal("100.0");
+            minutesElapsed = curve.secondsToFull(INITIAL_SOC,
+                    chargingPowerW > 0 ? chargingPowerW : curve.maxPowerW()) / 60; // 20% → đầy
+            energyCharged = curve.energyToFull(INITIAL_SOC);
+            soc = curve.fullSoc();
             log.info("⚡ Session {}: DEMO MODE x100 - Instant full charge", sessionId);
         } else {
             // Normal mode: Apply speed multiplier
             minutesElapsed = actualMinutesElapsed * speedMultiplier;
-            energyCharged = BigDecimal.valueOf(minutesElapsed * 0.6).setScale(2, RoundingMode.HALF_UP);
+            energyCharged = Energy.ofWh(Math.multiplyExact(allocation.energyWh(), (long) speedMultiplier));
             
-            // Tính SOC: bắt đầu từ 20%, sạc lên 100%
-            double calculatedSOC = 20.0 + (energyCharged.doubleValue() / batteryCapacity.doubleValue() * 80.0);
-            socPercentage = BigDecimal.valueOf(Math.min(100.0, calculatedSOC));
+            // Tính SOC: bắt đầu từ 20%, cộng năng lượng đã nạp / dung lượng pin
+            soc = curve.socAfter(INITIAL_SOC, energyCharged);
             
-            log.info("Session {}: actual={}min, multiplier=x{}, simulated={}min, energyCharged={}kWh, SOC={}%", 
-                    sessionId, actualMinutesElapsed, speedMultiplier, minutesElapsed, energyCharged, socPercentage.doubleValue());
+            log.info("Session {}: actual={}min, multiplier=x{}, simulated={}min, energyCharged={}Wh, SOC={}%", 
+                    sessionId, actualMinutesElapsed, speedMultiplier, minutesElapsed, energyCharged.wh(), soc * 100);
         }
+        // Pin đạt dòng ngắt (cut-off) được hiển thị là 100%
+        boolean full = curve.isFull(soc);
+        double socPercentage = full ? 100.0 : soc * 100.0;
+        // Công suất thực tế: nhỏ hơn giữa công suất trụ được phân bổ và công suất pin nhận ở SOC hiện tại
+        long deliveredPowerW = curve.powerW(soc, chargingPowerW);
         
-        // Tính thời gian còn lại (phút)
-        BigDecimal remainingEnergy = batteryCapacity.subtract(energyCharged);
-        if (remainingEnergy.doubleValue() < 0) remainingEnergy = BigDecimal.ZERO;
+        // Tính thời gian còn lại (phút) theo đường cong: phần trụ giới hạn + phần taper của pin
+        Energy remainingEnergy = curve.energyToFull(soc);
         int estimatedMinutesRemaining = 0;
         
-        // Nếu đã đầy (SOC >= 100%), thời gian còn lại = 0
-        if (socPercentage.doubleValue() >= 100.0) {
-            estimatedMinutesRemaining = 0;
-        } else if (chargingPower.doubleValue() > 0 && remainingEnergy.doubleValue() > 0) {
-            // kW to kWh/min: chargingPower (kW) / 60 = kWh per minute
-            BigDecimal chargingRatePerMinute = chargingPower.divide(new BigDecimal("60"), 4, RoundingMode.HALF_UP);
-            if (chargingRatePerMinute.doubleValue() > 0) {
-                estimatedMinutesRemaining = (int) Math.ceil(remainingEnergy.divide(chargingRatePerMinute, 0, RoundingMode.UP).doubleValue());
-                // Chia cho speedMultiplier để hiển thị thời gian thực tế còn lại
-                estimatedMinutesRemaining = estimatedMinutesRemaining / speedMultiplier;
-                if (estimatedMinutesRemaining < 0) estimatedMinutesRemaining = 0;
+        // Nếu đã đầy, thời gian còn lại = 0
+        if (!full && remainingEnergy.wh() > 0 && chargingPowerW > 0) {
+            long secondsRemaining = curve.secondsToFull(soc, chargingPowerW);
+            estimatedMinutesRemaining = (int) FixedPoint.divideUp(secondsRemaining, 60);
+            if (speedMultiplier == 1) {
+                // Cập nhật thời điểm kết thúc dự kiến cho hàng đợi ảo của trạm
+                stationQueueService.updateEstimate(session.stationId(), sessionId, secondsRemaining);
             }
+            // Chia cho speedMultiplier để hiển thị thời gian thực tế còn lại
+            estimatedMinutesRemaining = estimatedMinutesRemaining / speedMultiplier;
         }
         
-        // Đơn giá với discount dựa trên subscription package
-        BigDecimal pricePerKwh = calculatePriceWithDiscount(session.getUserId());
-        BigDecimal currentCost = energyCharged.multiply(pricePerKwh).setScale(0, RoundingMode.HALF_UP);
-        BigDecimal estimatedTotalCost = batteryCapacity.multiply(pricePerKwh).setScale(0, RoundingMode.HALF_UP);
+        Vnd currentCost;
+        Vnd estimatedTotalCost;
+        if (timeOfUse) {
+            // Báo giá theo khung giờ: phần đã sạc từ lúc bắt đầu đến nay, phần còn lại đến giờ dự kiến xong
+            currentCost = tariffEngine.cost(session.stationId(), session.startTime(), now, energyCharged, session.discountPercent());
+            estimatedTotalCost = currentCost.plus(tariffEngine.cost(session.stationId(), now,
+                    now.plusMinutes(estimatedMinutesRemaining), remainingEnergy, session.discountPercent()));
+        } else {
+            RatePerKwh rate = RatePerKwh.of(pricePerKwh);
+            currentCost = rate.costOf(energyCharged);
+            estimatedTotalCost = rate.costOf(energyCharged.plus(remainingEnergy));
+        }
         
-        log.info("Session {}: energyCharged={}kWh, pricePerKwh={}VND, cost={}VND", 
-                sessionId, energyCharged, pricePerKwh, currentCost);
+        log.info("Session {}: energyCharged={}Wh, pricePerKwh={}VND, cost={}VND", 
+                sessionId, energyCharged.wh(), pricePerKwh, currentCost.amount());
         
         // Tạo DTO
         com.chargingservice.dtos.SessionStatusDto statusDto = new com.chargingservice.dtos.SessionStatusDto();
-        statusDto.setSessionId(session.getSessionId());
-        statusDto.setStatus(session.getSessionStatus());
-        statusDto.setCurrentSOC(socPercentage.doubleValue());
+        statusDto.setSessionId(session.sessionId());
+        statusDto.setStatus(session.status());
+        statusDto.setCurrentSOC(socPercentage);
         statusDto.setEstimatedMinutesRemaining(estimatedMinutesRemaining);
         statusDto.setEstimatedEndTime(now.plusMinutes(estimatedMinutesRemaining));
-        statusDto.setEnergyCharged(energyCharged);
-        statusDto.setEstimatedTotalEnergy(batteryCapacity);
-        statusDto.setCurrentCost(currentCost);
-        statusDto.setEstimatedTotalCost(estimatedTotalCost);
+        statusDto.setEnergyCharged(energyCharged.toKwh());
+        statusDto.setEstimatedTotalEnergy(energyCharged.plus(remainingEnergy).toKwh());
+        statusDto.setCurrentCost(currentCost.toBigDecimal());
+        statusDto.setEstimatedTotalCost(estimatedTotalCost.toBigDecimal());
         statusDto.setPricePerKwh(pricePerKwh);
         statusDto.setMinutesElapsed(minutesElapsed);
-        statusDto.setChargingPower(chargingPower);
+        statusDto.setChargingPower(BigDecimal.valueOf(deliveredPowerW, 3).setScale(2, RoundingMode.HALF_UP));
         
         return statusDto;
     }
@@ -348,69 +487,83 @@ public class ChargingServiceImpl implements ChargingService {
                 });
     }
 
-    // Gọi cập nhật trạng thái trụ sạc
-    private void updateChargerStatus(Long chargerId, UpdateChargerStatusDto.ChargerStatus status) {
-        try {
-            UpdateChargerStatusDto statusDto = new UpdateChargerStatusDto();
-            statusDto.setStatus(status);
-            log.info("Updating status for charger {} to {}", chargerId, status);
-            stationServiceClient.updateChargerStatus(chargerId, statusDto);
-            log.info("Successfully updated status for charger {}", chargerId);
-        } catch (Exception e) {
-            log.error("CRITICAL: Failed to update charger status for chargerId {}. Error: {}", chargerId, e.getMessage(), e);
+    // Đọc cả phiên đã chuyển sang bảng lưu trữ (chỉ dùng cho API đọc, không save lại)
+    private ChargingSession findSessionForRead(Long sessionId) {
+        Optional<ChargingSession> hot = sessionRepository.findById(sessionId);
+        if (hot.isPresent()) {
+            return hot.get();
         }
+        return archiveRepository.findById(sessionId)
+                .map(ArchivedChargingSession::toSession)
+                .orElseThrow(() -> {
+                    log.warn("Charging session not found with id: {}", sessionId);
+                    return new ResourceNotFoundException("Charging session not found with id: " + sessionId);
+                });
+    }
+
+    // Ghi yêu cầu cập nhật trạng thái trụ sạc vào outbox (cùng transaction với session)
+    // ChargerStatusOutboxRelay sẽ gửi sang station-service và retry nếu lỗi
+    private void updateChargerStatus(ChargingSession session, UpdateChargerStatusDto.ChargerStatus status) {
+        log.info("Queueing status {} for charger {}", status, session.getChargerId());
+        chargerStatusOutbox.enqueue(session.getChargerId(), status, session.getSessionId());
     }
 
     // Gọi gửi thông báo
+    // Gửi sau khi commit, ngoài luồng request (không cộng độ trễ notification-service vào API)
     private void sendNotification(Long userId, CreateNotificationRequestDto.NotificationType type, String title, String message, Long referenceId) {
-        try {
-            log.info("Sending notification type {} for user {}", type, userId);
-            CreateNotificationRequestDto notificationDto = new CreateNotificationRequestDto(userId, type, title, message, referenceId);
-            notificationServiceClient.createNotification(notificationDto);
-            log.info("Notification request sent successfully for user {}", userId);
-        } catch (Exception e) {
-            log.error("Failed to send notification request for user {}. Type: {}. Error: {}", userId, type, e.getMessage());
-        }
+        CreateNotificationRequestDto notificationDto = new CreateNotificationRequestDto(userId, type, title, message, referenceId);
+        dependencyFanOut.afterCommit("notification", () -> {
+            try {
+                log.info("Sending notification type {} for user {}", type, userId);
+                notificationServiceClient.createNotification(notificationDto);
+                log.info("Notification request sent successfully for user {}", userId);
+            } catch (Exception e) {
+                log.error("Failed to send notification request for user {}. Type: {}. Error: {}", userId, type, e.getMessage());
+            }
+        });
     }
 
-    // Tính giá với discount dựa trên subscription package
+    // Tính giá cơ bản (không theo khung giờ) với discount dựa trên subscription package
     private BigDecimal calculatePriceWithDiscount(Long userId) {
+        return tariffEngine.baseRate().discounted(getDiscountPercent(userId)).toBigDecimal();
+    }
+
+    // Discount (%) theo subscription package của user, chỉ để hiển thị giá: lỗi tra cứu thì hiển thị giá gốc
+    private long getDiscountPercent(Long userId) {
         try {
-            // Get user subscription package
-            Map<String, Object> userResponse = userServiceClient.getUserById(userId);
-            String subscriptionPackage = (String) userResponse.get("subscriptionPackage");
-            
-            if (subscriptionPackage == null) {
-                log.debug("User {} has no subscription package, using base price", userId);
-                return BASE_PRICE_PER_KWH;
-            }
-            
-            // Apply discount based on package
-            BigDecimal discountRate = getDiscountRate(subscriptionPackage);
-            BigDecimal discountedPrice = BASE_PRICE_PER_KWH.multiply(BigDecimal.ONE.subtract(discountRate));
-            
-            log.info("User {} with package {} gets {}% discount. Price: {} VND/kWh", 
-                    userId, subscriptionPackage, discountRate.multiply(new BigDecimal("100")), discountedPrice);
-            
-            return discountedPrice.setScale(2, RoundingMode.HALF_UP);
-            
+            return lookupDiscountPercent(userId);
         } catch (Exception e) {
             log.error("Error getting subscription for user {}: {}", userId, e.getMessage());
-            return BASE_PRICE_PER_KWH;
+            return 0;
         }
     }
+
+    // Discount (%) theo subscription package của user; lỗi tra cứu được ném ra cho caller
+    private long lookupDiscountPercent(Long userId) {
+        // Get user subscription package (cached locally, see SubscriptionEntitlementCache)
+        String subscriptionPackage = entitlementCache.get(userId).subscriptionPackage();
+
+        if (subscriptionPackage == null) {
+            log.debug("User {} has no subscription package, no discount", userId);
+            return 0;
+        }
+
+        long discountPercent = getDiscountPercentForPackage(subscriptionPackage);
+        log.debug("User {} with package {} gets {}% discount", userId, subscriptionPackage, discountPercent);
+        return discountPercent;
+    }
     
-    // Get discount rate based on subscription package
-    private BigDecimal getDiscountRate(String packageType) {
+    // Get discount percentage based on subscription package (also used by OfflineSessionReconciler)
+    static long getDiscountPercentForPackage(String packageType) {
         switch (packageType.toUpperCase()) {
             case "SILVER":
-                return new BigDecimal("0.25"); // 25% discount
+                return 25; // 25% discount
             case "GOLD":
-                return new BigDecimal("0.40"); // 40% discount
+                return 40; // 40% discount
             case "PLATINUM":
-                return new BigDecimal("0.50"); // 50% discount
+                return 50; // 50% discount
             default:
-                return BigDecimal.ZERO;
+                return 0;
         }
     }
 
@@ -418,10 +571,22 @@ public class ChargingServiceImpl implements ChargingService {
     @Transactional
     public void markSessionAsPaid(Long sessionId, Long paymentId) {
         log.info("Marking session {} as paid with payment {}", sessionId, paymentId);
+        Optional<ArchivedChargingSession> archived = sessionRepository.existsById(sessionId)
+                ? Optional.empty()
+                : archiveRepository.findById(sessionId);
+        if (archived.isPresent()) {
+            // Chỉ phiên đã thanh toán (hoặc không cần thanh toán) mới được lưu trữ: lần gọi lặp lại là no-op
+            if (Boolean.TRUE.equals(archived.get().getIsPaid()) && paymentId.equals(archived.get().getPaymentId())) {
+                log.info("Session {} is archived and already paid with payment {}", sessionId, paymentId);
+                return;
+            }
+            throw new IllegalStateException("Session " + sessionId + " is archived and cannot be marked as paid");
+        }
         ChargingSession session = findSessionById(sessionId);
         session.setIsPaid(true);
         session.setPaymentId(paymentId);
         sessionRepository.save(session);
+        metrics.record(ChargingMetrics.Transition.SESSION_PAID);
         log.info("Session {} marked as paid", sessionId);
     }
 
@@ -437,6 +602,7 @@ public class ChargingServiceImpl implements ChargingService {
         dto.setEndTime(session.getEndTime());
         dto.setEnergyConsumed(session.getEnergyConsumed());
         dto.setPricePerKwh(session.getPricePerKwh()); // [FIX]: Include price with discount
+        dto.setTotalCost(session.getTotalCost());
         dto.setSessionStatus(session.getSessionStatus());
         dto.setIsPaid(session.getIsPaid() != null ? session.getIsPaid() : false);
         dto.setPaymentId(session.getPaymentId());
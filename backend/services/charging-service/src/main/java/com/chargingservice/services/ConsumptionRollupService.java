@@ -0,0 +1,227 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.entities.UserConsumptionRollup;
+import com.chargingservice.repositories.UserConsumptionRollupRepository;
+import com.chargingservice.units.Energy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user daily and monthly consumption totals for the dashboard endpoints.
+ * Counters are incremented with an upsert in the same transaction that starts or completes a session,
+ * so the dashboard reads a handful of rollup rows instead of the user's whole session history.
+ */
+@Service
+public class ConsumptionRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumptionRollupService.class);
+
+    private static final String UPSERT_SQL = "INSERT INTO user_consumption_rollups " +
+            "(user_id, period_type, period_start, sessions_started, sessions_completed, energy_wh) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE sessions_started = sessions_started + VALUES(sessions_started), " +
+            "sessions_completed = sessions_completed + VALUES(sessions_completed), " +
+            "energy_wh = energy_wh + VALUES(energy_wh)";
+
+    // Both the hot table and the archive (sessions moved by SessionArchiveScheduler)
+    private static final String ALL_SESSIONS = "(SELECT user_id, start_time, end_time, session_status, energy_consumed " +
+            "FROM charging_sessions UNION ALL SELECT user_id, start_time, end_time, session_status, energy_consumed " +
+            "FROM charging_sessions_archive)";
+
+    // Rebuilds the rollups of one period type from the session history; {period:column} is the period start of that column.
+    // Existing rows are overwritten with the totals rather than added to, so running it twice counts nothing twice
+    private static final String BACKFILL_SQL = "INSERT INTO user_consumption_rollups " +
+            "(user_id, period_type, period_start, sessions_started, sessions_completed, energy_wh) " +
+            "SELECT user_id, ?, period_start, SUM(started), SUM(completed), SUM(wh) FROM (" +
+            "  SELECT user_id, {period:start_time} AS period_start, 1 AS started, 0 AS completed, 0 AS wh " +
+            "  FROM " + ALL_SESSIONS + " hs WHERE start_time IS NOT NULL " +
+            "  UNION ALL " +
+            "  SELECT user_id, {period:end_time}, 0, 1, ROUND(COALESCE(energy_consumed, 0) * 1000) " +
+            "  FROM " + ALL_SESSIONS + " cs WHERE session_status = 'completed' AND end_time IS NOT NULL" +
+            ") s GROUP BY user_id, period_start " +
+            "ON DUPLICATE KEY UPDATE sessions_started = VALUES(sessions_started), " +
+            "sessions_completed = VALUES(sessions_completed), energy_wh = VALUES(energy_wh)";
+
+    private static final String[] DAY_NAMES = {"CN", "T2", "T3", "T4", "T5", "T6", "T7"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserConsumptionRollupRepository rollupRepository;
+
+    public ConsumptionRollupService(JdbcTemplate jdbcTemplate, UserConsumptionRollupRepository rollupRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepository = rollupRepository;
+    }
+
+    /**
+     * Counts a new session against its start day/month. Must run in the transaction that creates the session.
+     */
+    @Transactional
+    public void recordSessionStarted(ChargingSession session) {
+        if (session.getStartTime() == null) {
+            return;
+        }
+        increment(session.getUserId(), session.getStartTime().toLocalDate(), 1, 0, 0);
+    }
+
+    /**
+     * Adds a completed session's energy to its end day/month. Must run in the transaction that completes the session.
+     */
+    @Transactional
+    public void recordSessionCompleted(ChargingSession session) {
+        if (session.getEndTime() == null) {
+            return;
+        }
+        long energyWh = session.getEnergyConsumed() != null ? Energy.ofKwh(session.getEnergyConsumed()).wh() : 0;
+        increment(session.getUserId(), session.getEndTime().toLocalDate(), 0, 1, energyWh);
+    }
+
+    /**
+     * Counts sessions that were both started and completed before charging-service heard of them (offline sessions
+     * replayed by a station). Increments are summed per user and period first and written in one batched upsert.
+     */
+    @Transactional
+    public void recordSessionsReplayed(Collection<ChargingSession> sessions) {
+        Map<PeriodKey, long[]> increments = new LinkedHashMap<>(); // [started, completed, energyWh]
+        for (ChargingSession session : sessions) {
+            if (session.getStartTime() != null) {
+                add(increments, session.getUserId(), session.getStartTime().toLocalDate(), 1, 0, 0);
+            }
+            if (session.getEndTime() != null) {
+                long energyWh = session.getEnergyConsumed() != null ? Energy.ofKwh(session.getEnergyConsumed()).wh() : 0;
+                add(increments, session.getUserId(), session.getEndTime().toLocalDate(), 0, 1, energyWh);
+            }
+        }
+        if (increments.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(increments.size());
+        increments.forEach((key, counts) -> rows.add(new Object[]{
+                key.userId(), key.periodType().name(), key.periodStart(), counts[0], counts[1], counts[2]}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    private record PeriodKey(Long userId, UserConsumptionRollup.PeriodType periodType, LocalDate periodStart) {
+    }
+
+    private static void add(Map<PeriodKey, long[]> increments, Long userId, LocalDate date,
+                            long started, long completed, long energyWh) {
+        for (PeriodKey key : new PeriodKey[]{
+                new PeriodKey(userId, UserConsumptionRollup.PeriodType.day, date),
+                new PeriodKey(userId, UserConsumptionRollup.PeriodType.month, date.withDayOfMonth(1))}) {
+            long[] counts = increments.computeIfAbsent(key, k -> new long[3]);
+            counts[0] += started;
+            counts[1] += completed;
+            counts[2] += energyWh;
+        }
+    }
+
+    public Map<String, Object> getDashboardStats(Long userId) {
+        Object[] totals = rollupRepository.sumLifetimeTotals(userId, UserConsumptionRollup.PeriodType.month).get(0);
+        long totalSessions = ((Number) totals[0]).longValue();
+        long completedSessions = ((Number) totals[1]).longValue();
+
+        LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1);
+        LocalDate startOfLastMonth = startOfMonth.minusMonths(1);
+        Energy thisMonth = Energy.ofWh(0);
+        Energy lastMonth = Energy.ofWh(0);
+        for (UserConsumptionRollup rollup : rollupRepository.findByUserIdAndPeriodTypeAndPeriodStartBetweenOrderByPeriodStartAsc(
+                userId, UserConsumptionRollup.PeriodType.month, startOfLastMonth, startOfMonth)) {
+            if (rollup.getPeriodStart().equals(startOfMonth)) {
+                thisMonth = Energy.ofWh(rollup.getEnergyWh());
+            } else {
+                lastMonth = Energy.ofWh(rollup.getEnergyWh());
+            }
+        }
+
+        BigDecimal totalEnergyThisMonth = thisMonth.toKwh();
+        BigDecimal totalEnergyLastMonth = lastMonth.toKwh();
+        double energyChangePercent = 0.0;
+        if (totalEnergyLastMonth.compareTo(BigDecimal.ZERO) > 0) {
+            var diff = totalEnergyThisMonth.subtract(totalEnergyLastMonth);
+            energyChangePercent = diff.divide(totalEnergyLastMonth, 4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100)).doubleValue();
+        } else if (totalEnergyThisMonth.compareTo(BigDecimal.ZERO) > 0) {
+            energyChangePercent = 100.0; // First month with data
+        }
+
+        return Map.of(
+                "totalSessions", totalSessions,
+                "completedSessions", completedSessions,
+                "totalEnergyThisMonth", totalEnergyThisMonth,
+                "totalEnergyLastMonth", totalEnergyLastMonth,
+                "energyChangePercent", energyChangePercent
+        );
+    }
+
+    /**
+     * Energy per day for the last 7 days (oldest first), labelled CN/T2..T7.
+     */
+    public List<Map<String, Object>> getWeeklyEnergyUsage(Long userId) {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(6);
+        Map<LocalDate, Long> energyByDay = new HashMap<>();
+        for (UserConsumptionRollup rollup : rollupRepository.findByUserIdAndPeriodTypeAndPeriodStartBetweenOrderByPeriodStartAsc(
+                userId, UserConsumptionRollup.PeriodType.day, from, today)) {
+            energyByDay.put(rollup.getPeriodStart(), rollup.getEnergyWh());
+        }
+
+        List<Map<String, Object>> chartData = new ArrayList<>(7);
+        for (LocalDate day = from; !day.isAfter(today); day = day.plusDays(1)) {
+            chartData.add(Map.of(
+                    "day", DAY_NAMES[day.getDayOfWeek().getValue() % 7],
+                    "usage", Energy.ofWh(energyByDay.getOrDefault(day, 0L)).toKwhDouble()
+            ));
+        }
+        return chartData;
+    }
+
+    /**
+     * One-time backfill: builds the rollups from the session history when the table is still empty
+     * (first deploy of this feature). Later changes are applied incrementally.
+     * Instances starting together can all see an empty table and all run it: rows are keyed by
+     * uk_rollup_user_period and set to the totals (not incremented), so the later run rewrites the same values
+     * instead of double-counting. A row already created by a session that started meanwhile is set to the totals,
+     * which include that session once it has committed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (rollupRepository.count() > 0) {
+            return;
+        }
+        int days = jdbcTemplate.update(backfillSql("DATE(%s)"), UserConsumptionRollup.PeriodType.day.name());
+        // Ngày 1 của tháng, viết bằng hàm chung của MySQL và H2 (test)
+        int months = jdbcTemplate.update(backfillSql("CAST(CONCAT(YEAR(%1$s), '-', LPAD(MONTH(%1$s), 2, '0'), '-01') AS DATE)"),
+                UserConsumptionRollup.PeriodType.month.name());
+        if (days > 0 || months > 0) {
+            log.info("Backfilled consumption rollups: {} daily rows, {} monthly rows", days, months);
+        }
+    }
+
+    private static String backfillSql(String periodExpression) {
+        return BACKFILL_SQL
+                .replace("{period:start_time}", String.format(periodExpression, "start_time"))
+                .replace("{period:end_time}", String.format(periodExpression, "end_time"));
+    }
+
+    private void increment(Long userId, LocalDate date, long started, long completed, long energyWh) {
+        jdbcTemplate.update(UPSERT_SQL, userId, UserConsumptionRollup.PeriodType.day.name(), date, started, completed, energyWh);
+        jdbcTemplate.update(UPSERT_SQL, userId, UserConsumptionRollup.PeriodType.month.name(), date.withDayOfMonth(1), started, completed, energyWh);
+    }
+}
@@ -0,0 +1,255 @@
+package com.chargingservice.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs independent dependency lookups (Feign calls, repository reads) concurrently under one deadline:
+ * <pre>
+ * DependencyFanOut.Scope scope = fanOut.open("startSession");
+ * DependencyFanOut.Call&lt;BigDecimal&gt; price = scope.fork("pricing", () -&gt; ...);
+ * scope.join();            // waits until every call finished or the budget ran out
+ * price.getOrElse(BASE);   // result, or the fallback if the call failed or timed out
+ * </pre>
+ * Calls still running at the deadline are cancelled (interrupted) and their results discarded.
+ * Per-dependency timings are logged for every scope (warn level when something timed out).
+ * Forks run on a bounded pool; when it is saturated the caller runs the task itself.
+ */
+@Component
+public class DependencyFanOut {
+
+    private static final Logger log = LoggerFactory.getLogger(DependencyFanOut.class);
+
+    private final ThreadPoolExecutor executor;
+    private final Duration defaultBudget;
+
+    public DependencyFanOut(
+            @Value("${charging.fanout.threads:32}") int threads,
+            @Value("${charging.fanout.queue-capacity:256}") int queueCapacity,
+            @Value("${charging.fanout.default-budget-ms:1500}") long defaultBudgetMs) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "fanout-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.defaultBudget = Duration.ofMillis(defaultBudgetMs);
+    }
+
+    public Scope open(String operation) {
+        return open(operation, defaultBudget);
+    }
+
+    public Scope open(String operation, Duration budget) {
+        return new Scope(operation, budget);
+    }
+
+    /**
+     * Runs a side effect (e.g. a notification) off the request thread once the current transaction commits,
+     * or immediately when there is no transaction. Failures are logged, never propagated.
+     */
+    public void afterCommit(String name, Runnable task) {
+        Runnable submit = () -> executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.warn("Background call {} failed: {}", name, e.getMessage());
+            } finally {
+                log.debug("Background call {} took {} ms", name, elapsedMillis(start));
+            }
+        });
+        AfterCommit.run(submit);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * A group of concurrent calls sharing one deadline. Not thread-safe: fork and join from the owning thread.
+     */
+    public final class Scope {
+
+        private final String operation;
+        private final Duration budget;
+        private final long startNanos = System.nanoTime();
+        private final long deadlineNanos;
+        private final List<Call<?>> calls = new ArrayList<>();
+        private boolean joined;
+
+        private Scope(String operation, Duration budget) {
+            this.operation = operation;
+            this.budget = budget;
+            this.deadlineNanos = startNanos + budget.toNanos();
+        }
+
+        public <T> Call<T> fork(String name, Callable<T> task) {
+            if (joined) {
+                throw new IllegalStateException("Fan-out " + operation + " already joined");
+            }
+            Call<T> call = new Call<>(name);
+            call.future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    call.elapsedNanos = System.nanoTime() - start;
+                }
+            });
+            calls.add(call);
+            return call;
+        }
+
+        /**
+         * Waits for every forked call until the deadline, then cancels whatever is still running.
+         */
+        public void join() {
+            joined = true;
+            for (Call<?> call : calls) {
+                call.await(deadlineNanos);
+            }
+            report();
+        }
+
+        /**
+         * Elapsed time per dependency in milliseconds; timed-out calls report -1.
+         */
+        public Map<String, Long> timingsMillis() {
+            Map<String, Long> timings = new LinkedHashMap<>();
+            for (Call<?> call : calls) {
+                timings.put(call.name, call.timedOut ? -1L : TimeUnit.NANOSECONDS.toMillis(call.elapsedNanos));
+            }
+            return timings;
+        }
+
+        private void report() {
+            boolean anyTimedOut = calls.stream().anyMatch(c -> c.timedOut);
+            StringBuilder summary = new StringBuilder();
+            for (Call<?> call : calls) {
+                if (summary.length() > 0) {
+                    summary.append(", ");
+                }
+                summary.append(call.name).append('=');
+                if (call.timedOut) {
+                    summary.append("TIMEOUT");
+                } else {
+                    summary.append(TimeUnit.NANOSECONDS.toMillis(call.elapsedNanos)).append("ms");
+                    if (call.failure != null) {
+                        summary.append(" (failed)");
+                    }
+                }
+            }
+            if (anyTimedOut) {
+                log.warn("Fan-out {} hit its {} ms budget: {}", operation, budget.toMillis(), summary);
+            } else {
+                log.debug("Fan-out {} took {} ms: {}", operation, elapsedMillis(startNanos), summary);
+            }
+        }
+    }
+
+    /**
+     * Result handle of one forked call. Read it only after Scope.join().
+     */
+    public static final class Call<T> {
+
+        private final String name;
+        private Future<T> future;
+        private volatile long elapsedNanos;
+        private T result;
+        private Throwable failure;
+        private boolean timedOut;
+        private boolean done;
+
+        private Call(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the result, rethrowing the call's own RuntimeException; timeouts and checked exceptions
+         * surface as IllegalStateException.
+         */
+        public T get() {
+            checkJoined();
+            if (timedOut) {
+                throw new IllegalStateException("Dependency " + name + " did not respond in time");
+            }
+            if (failure instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (failure instanceof Error error) {
+                throw error;
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Dependency " + name + " failed: " + failure.getMessage(), failure);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the result, or fallback if the call failed or timed out.
+         */
+        public T getOrElse(T fallback) {
+            checkJoined();
+            if (timedOut || failure != null) {
+                log.warn("Dependency {} unavailable ({}), using fallback", name,
+                        timedOut ? "timeout" : failure.getMessage());
+                return fallback;
+            }
+            return result;
+        }
+
+        public boolean timedOut() {
+            return timedOut;
+        }
+
+        private void await(long deadlineNanos) {
+            try {
+                result = future.get(Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | CancellationException e) {
+                timedOut = true;
+                future.cancel(true);
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                timedOut = true;
+                future.cancel(true);
+            }
+            done = true;
+        }
+
+        private void checkJoined() {
+            if (!done) {
+                throw new IllegalStateException("Call " + name + " read before join()");
+            }
+        }
+    }
+}
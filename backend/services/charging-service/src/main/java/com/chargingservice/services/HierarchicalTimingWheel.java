@@ -0,0 +1,169 @@
+package com.chargingservice.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel keyed by K (e.g. a session id).
+ * Level 0 has one slot per tick; each higher level has slots 64 times wider. Entries far in the future sit in
+ * a coarse slot and cascade down to finer levels as time approaches, so schedule, cancel and advancing one
+ * tick are O(1) amortised regardless of how many deadlines are pending.
+ * Not thread-safe; callers must synchronise.
+ */
+public class HierarchicalTimingWheel<K> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = WHEEL_SIZE - 1;
+
+    private final long tickMillis;
+    private final int levels;
+    private final Set<K>[][] slots;
+    private final Map<K, Entry> entries = new HashMap<>();
+    // Deadlines already due when scheduled; returned by the next advance
+    private final Set<K> overdue = new LinkedHashSet<>();
+    private long currentTick;
+
+    private static final class Entry {
+        final long deadlineTick;
+        int level = -1;
+        int slot = -1;
+
+        Entry(long deadlineTick) {
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    /**
+     * @param tickMillis resolution of the wheel
+     * @param levels     number of levels; the wheel spans tickMillis * 64^levels without clamping
+     * @param nowMillis  current time
+     */
+    public HierarchicalTimingWheel(long tickMillis, int levels, long nowMillis) {
+        if (tickMillis <= 0 || levels < 1 || levels > 8) {
+            throw new IllegalArgumentException("tickMillis must be > 0 and levels in 1..8");
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        // Mảng generic không tạo trực tiếp được; mỗi phần tử chỉ chứa Set<K>
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Set<K>[][] wheel = new Set[levels][WHEEL_SIZE];
+        this.slots = wheel;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedules (or reschedules) key to expire at deadlineMillis.
+     */
+    public void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        // Round up so that an entry never fires before its deadline
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        Entry entry = new Entry(deadlineTick);
+        entries.put(key, entry);
+        place(key, entry);
+    }
+
+    public boolean cancel(K key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.level < 0) {
+            overdue.remove(key);
+        } else {
+            slots[entry.level][entry.slot].remove(key);
+        }
+        return true;
+    }
+
+    public boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Advances the wheel to nowMillis and returns every key whose deadline has passed.
+     * Returned keys are removed from the wheel.
+     */
+    public List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>(overdue);
+        for (K key : overdue) {
+            entries.remove(key);
+        }
+        overdue.clear();
+
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Cascade from the coarsest level whose slot boundary we just crossed, so that entries moving down
+            // land in slots that are cascaded or expired later in this same tick
+            int topLevel = 0;
+            while (topLevel + 1 < levels && (currentTick & ((1L << (SLOT_BITS * (topLevel + 1))) - 1)) == 0) {
+                topLevel++;
+            }
+            for (int level = topLevel; level >= 1; level--) {
+                int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                Set<K> bucket = slots[level][slot];
+                if (bucket == null || bucket.isEmpty()) {
+                    continue;
+                }
+                slots[level][slot] = null;
+                for (K key : bucket) {
+                    Entry entry = entries.get(key);
+                    entry.level = -1;
+                    if (entry.deadlineTick <= currentTick) {
+                        entries.remove(key);
+                        expired.add(key);
+                    } else {
+                        place(key, entry);
+                    }
+                }
+            }
+            Set<K> due = slots[0][(int) (currentTick & SLOT_MASK)];
+            if (due != null && !due.isEmpty()) {
+                slots[0][(int) (currentTick & SLOT_MASK)] = null;
+                for (K key : due) {
+                    entries.remove(key);
+                    expired.add(key);
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void place(K key, Entry entry) {
+        long delta = entry.deadlineTick - currentTick;
+        if (delta <= 0) {
+            entry.level = -1;
+            overdue.add(key);
+            return;
+        }
+        int level = 0;
+        while (level + 1 < levels && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        // Beyond the wheel's span: park in the farthest top-level slot and re-place on cascade
+        long placementTick = Math.min(entry.deadlineTick, currentTick + (1L << (SLOT_BITS * levels)) - 1);
+        int slot = (int) ((placementTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        if (placementTick != entry.deadlineTick && slot == (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)) {
+            // The clamped slot aliases the current one; step back so it is cascaded one full turn from now
+            slot = (slot - 1) & SLOT_MASK;
+        }
+        entry.level = level;
+        entry.slot = slot;
+        Set<K> bucket = slots[level][slot];
+        if (bucket == null) {
+            bucket = new LinkedHashSet<>();
+            slots[level][slot] = bucket;
+        }
+        bucket.add(key);
+    }
+}
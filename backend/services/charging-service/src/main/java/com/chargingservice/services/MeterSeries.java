@@ -0,0 +1,107 @@
+package com.chargingservice.services;
+
+import java.util.function.Consumer;
+
+/**
+ * Per-session meter series kept in memory while a session is active.
+ * Only the totals and the currently open time bucket are held; closed buckets are handed to a consumer.
+ * Samples must arrive in timestamp order; older or duplicate samples are ignored.
+ */
+final class MeterSeries {
+
+    record ClosedBucket(Long sessionId, long bucketStartMillis, long energyWhStart, long energyWhEnd,
+                        Integer avgPowerW, Integer maxPowerW, Double socEnd, int sampleCount) {
+    }
+
+    private final Long sessionId;
+    private final long bucketMillis;
+
+    // Totals over the whole session
+    private long firstEnergyWh = -1;
+    private long lastEnergyWh;
+    private long lastTimestampMillis = Long.MIN_VALUE;
+    private Double lastSoc;
+
+    // Open bucket
+    private long bucketStartMillis = -1;
+    private long bucketEnergyStart;
+    private long bucketPowerSum;
+    private int bucketPowerCount;
+    private int bucketMaxPower;
+    private int bucketSampleCount;
+
+    MeterSeries(Long sessionId, long bucketMillis) {
+        this.sessionId = sessionId;
+        this.bucketMillis = bucketMillis;
+    }
+
+    synchronized boolean append(long timestampMillis, long energyWh, Integer powerW, Double soc, Consumer<ClosedBucket> closed) {
+        if (timestampMillis <= lastTimestampMillis || energyWh < lastEnergyWh) {
+            return false;
+        }
+        long bucketStart = Math.floorDiv(timestampMillis, bucketMillis) * bucketMillis;
+        if (bucketStartMillis >= 0 && bucketStart != bucketStartMillis) {
+            closed.accept(closeBucket());
+        }
+        if (bucketStartMillis < 0) {
+            bucketStartMillis = bucketStart;
+            // Buckets are contiguous: a new bucket starts where the previous one ended
+            bucketEnergyStart = firstEnergyWh < 0 ? energyWh : lastEnergyWh;
+        }
+        if (firstEnergyWh < 0) {
+            firstEnergyWh = energyWh;
+        }
+        if (powerW != null) {
+            bucketPowerSum += powerW;
+            bucketPowerCount++;
+            bucketMaxPower = Math.max(bucketMaxPower, powerW);
+        }
+        if (soc != null) {
+            lastSoc = soc;
+        }
+        bucketSampleCount++;
+        lastEnergyWh = energyWh;
+        lastTimestampMillis = timestampMillis;
+        return true;
+    }
+
+    /**
+     * Closes the open bucket (if any) and hands it to the consumer.
+     */
+    synchronized void close(Consumer<ClosedBucket> closed) {
+        if (bucketStartMillis >= 0) {
+            closed.accept(closeBucket());
+        }
+    }
+
+    synchronized boolean hasSamples() {
+        return firstEnergyWh >= 0;
+    }
+
+    synchronized long energyWh() {
+        return firstEnergyWh < 0 ? 0 : lastEnergyWh - firstEnergyWh;
+    }
+
+    synchronized Double lastSoc() {
+        return lastSoc;
+    }
+
+    private ClosedBucket closeBucket() {
+        ClosedBucket bucket = new ClosedBucket(
+                sessionId,
+                bucketStartMillis,
+                bucketEnergyStart,
+                lastEnergyWh,
+                bucketPowerCount > 0 ? (int) (bucketPowerSum / bucketPowerCount) : null,
+                bucketPowerCount > 0 ? bucketMaxPower : null,
+                lastSoc,
+                bucketSampleCount
+        );
+        bucketStartMillis = -1;
+        bucketPowerSum = 0;
+        bucketPowerCount = 0;
+        bucketMaxPower = 0;
+        bucketSampleCount = 0;
+        return bucket;
+    }
+}
@@ -0,0 +1,320 @@
+package com.chargingservice.services;
+
+import com.chargingservice.dtos.MeterValuesBatchRequestDto;
+import com.chargingservice.dtos.MeterValuesIngestResponseDto;
+import com.chargingservice.units.Energy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ingests charger meter values and stores them downsampled to one row per session per bucket.
+ * Memory is bounded: one open bucket per active session plus a fixed-size queue of closed buckets
+ * waiting to be written. When the queue is full the ingesting thread writes a batch itself.
+ * A batch that fails to write is kept and retried on the next flushes; after max-write-attempts it is written
+ * row by row, rows rejected by a constraint are dropped and the rest keep being retried. Failed batches waiting
+ * for a retry are bounded too (max-retry-batches): past that the oldest is dropped. Write failures and dropped buckets are counted in
+ * charging.meter.write.failures and charging.meter.buckets.dropped.
+ */
+@Component
+public class MeterValueStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MeterValueStore.class);
+
+    private static final String INSERT_SQL = "INSERT INTO meter_value_buckets " +
+            "(session_id, bucket_start, energy_wh_start, energy_wh_end, avg_power_w, max_power_w, soc_end, sample_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final ActiveSessionRegistry activeSessionRegistry;
+    private final StationPowerAllocator powerAllocator;
+    private final long bucketMillis;
+    private final int flushBatchSize;
+    private final BlockingQueue<MeterSeries.ClosedBucket> pending;
+    private final int maxWriteAttempts;
+    private final int maxRetryBatches;
+    // Batch ghi lỗi chờ thử lại, cũ nhất ở đầu; truy cập trong synchronized (retries)
+    private final Deque<FailedBatch> retries = new ArrayDeque<>();
+    private final Counter writeFailures;
+    private final Counter droppedBuckets;
+
+    private final Map<Long, MeterSeries> series = new ConcurrentHashMap<>();
+
+    /**
+     * Meter totals for a session: energy delivered (last register - first register) and last reported SOC.
+     */
+    public record MeterReading(Energy energy, Double soc) {
+    }
+
+    private record FailedBatch(List<MeterSeries.ClosedBucket> buckets, int attempts) {
+    }
+
+    public MeterValueStore(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ActiveSessionRegistry activeSessionRegistry,
+            StationPowerAllocator powerAllocator,
+            @Value("${charging.meter.bucket-seconds:60}") long bucketSeconds,
+            @Value("${charging.meter.flush-batch-size:500}") int flushBatchSize,
+            @Value("${charging.meter.max-pending-buckets:20000}") int maxPendingBuckets,
+            @Value("${charging.meter.max-write-attempts:5}") int maxWriteAttempts,
+            @Value("${charging.meter.max-retry-batches:20}") int maxRetryBatches,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Mỗi batch ghi trong transaction riêng: batch lỗi không để lại dòng nào (thử lại không bị trùng)
+        // và không làm rollback transaction của stopSession khi ghi do backpressure
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.activeSessionRegistry = activeSessionRegistry;
+        this.powerAllocator = powerAllocator;
+        this.bucketMillis = bucketSeconds * 1000;
+        this.flushBatchSize = flushBatchSize;
+        this.pending = new ArrayBlockingQueue<>(maxPendingBuckets);
+        this.maxWriteAttempts = maxWriteAttempts;
+        this.maxRetryBatches = maxRetryBatches;
+        this.writeFailures = Counter.builder("charging.meter.write.failures")
+                .description("Failed batch writes of meter value buckets")
+                .register(meterRegistry);
+        this.droppedBuckets = Counter.builder("charging.meter.buckets.dropped")
+                .description("Meter value buckets given up on after repeated write failures")
+                .register(meterRegistry);
+        Gauge.builder("charging.meter.buckets.retrying", this, MeterValueStore::retryingBucketCount)
+                .description("Meter value buckets of failed batches waiting for a retry")
+                .register(meterRegistry);
+    }
+
+    public MeterValuesIngestResponseDto ingest(MeterValuesBatchRequestDto request) {
+        int accepted = 0;
+        int ignored = 0;
+        if (request == null || request.getSessions() == null) {
+            return new MeterValuesIngestResponseDto(0, 0);
+        }
+        for (MeterValuesBatchRequestDto.SessionMeterValuesDto sessionValues : request.getSessions()) {
+            List<MeterValuesBatchRequestDto.MeterSampleDto> samples = sessionValues.getSamples();
+            if (samples == null || samples.isEmpty()) {
+                continue;
+            }
+            Long sessionId = sessionValues.getSessionId();
+            if (sessionId == null || activeSessionRegistry.findBySessionId(sessionId).isEmpty()) {
+                ignored += samples.size();
+                continue;
+            }
+            MeterSeries meterSeries = series.computeIfAbsent(sessionId, id -> new MeterSeries(id, bucketMillis));
+            Double lastSoc = null;
+            for (MeterValuesBatchRequestDto.MeterSampleDto sample : samples) {
+                if (sample.getTimestamp() == null || sample.getEnergyWh() == null) {
+                    ignored++;
+                    continue;
+                }
+                long timestampMillis = sample.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+                if (meterSeries.append(timestampMillis, sample.getEnergyWh(), sample.getPowerW(), sample.getSoc(), this::enqueue)) {
+                    accepted++;
+                    if (sample.getSoc() != null) {
+                        lastSoc = sample.getSoc();
+                    }
+                } else {
+                    ignored++;
+                }
+            }
+            // SOC mới nhất dùng để chia lại công suất trạm (policy soc)
+            powerAllocator.updateSoc(sessionId, lastSoc);
+        }
+        return new MeterValuesIngestResponseDto(accepted, ignored);
+    }
+
+    /**
+     * Returns the session's meter totals, if any samples were received, without closing its series.
+     * Falls back to the stored buckets when the series is no longer in memory (e.g. after a restart).
+     */
+    public Optional<MeterReading> read(Long sessionId) {
+        MeterSeries meterSeries = series.get(sessionId);
+        if (meterSeries != null && meterSeries.hasSamples()) {
+            return Optional.of(new MeterReading(Energy.ofWh(meterSeries.energyWh()), meterSeries.lastSoc()));
+        }
+        return jdbcTemplate.query(
+                "SELECT MIN(energy_wh_start), MAX(energy_wh_end), " +
+                        "(SELECT b2.soc_end FROM meter_value_buckets b2 WHERE b2.session_id = ? ORDER BY b2.bucket_start DESC LIMIT 1) " +
+                        "FROM meter_value_buckets WHERE session_id = ?",
+                rs -> {
+                    if (!rs.next() || rs.getObject(1) == null) {
+                        return Optional.<MeterReading>empty();
+                    }
+                    long energyWh = rs.getLong(2) - rs.getLong(1);
+                    Double soc = rs.getObject(3) != null ? rs.getDouble(3) : null;
+                    return Optional.of(new MeterReading(Energy.ofWh(energyWh), soc));
+                },
+                sessionId, sessionId);
+    }
+
+    /**
+     * Closes the session's series and queues its remaining buckets for writing. Called once the session has
+     * ended for good (after the stop commits), so a rolled-back stop keeps its samples in memory.
+     */
+    public void close(Long sessionId) {
+        MeterSeries meterSeries = series.remove(sessionId);
+        if (meterSeries != null) {
+            meterSeries.close(this::enqueue);
+        }
+    }
+
+    public int activeSeriesCount() {
+        return series.size();
+    }
+
+    public int pendingBucketCount() {
+        return pending.size();
+    }
+
+    public int retryingBucketCount() {
+        synchronized (retries) {
+            return retries.stream().mapToInt(batch -> batch.buckets().size()).sum();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${charging.meter.flush-interval-ms:1000}")
+    public void flush() {
+        // Sessions that ended without stopSession (cancel, timeout) are closed here
+        for (Long sessionId : series.keySet()) {
+            if (activeSessionRegistry.findBySessionId(sessionId).isEmpty()) {
+                close(sessionId);
+            }
+        }
+        retryFailedBatches();
+        int written;
+        do {
+            written = writeBatch();
+        } while (written == flushBatchSize);
+    }
+
+    private void enqueue(MeterSeries.ClosedBucket bucket) {
+        while (!pending.offer(bucket)) {
+            // Queue full: write a batch on the caller's thread (backpressure on ingestion)
+            writeBatch();
+        }
+    }
+
+    /**
+     * Drains up to one batch from the queue and writes it. A failed batch is kept for retry, so the queue
+     * keeps draining (and ingestion keeps going) while the database is unavailable.
+     *
+     * @return the number of buckets taken from the queue
+     */
+    private int writeBatch() {
+        List<MeterSeries.ClosedBucket> batch = new ArrayList<>(Math.min(flushBatchSize, pending.size()));
+        pending.drainTo(batch, flushBatchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        if (write(batch) != null) {
+            keepForRetry(new FailedBatch(batch, 1));
+        }
+        return batch.size();
+    }
+
+    /**
+     * Retries the batches that had failed before this flush. A batch that has used up its attempts is written row
+     * by row: one bad row (e.g. a constraint violation) must not take the whole batch down with it.
+     */
+    private void retryFailedBatches() {
+        List<FailedBatch> due;
+        synchronized (retries) {
+            due = new ArrayList<>(retries);
+            retries.clear();
+        }
+        for (FailedBatch failed : due) {
+            if (failed.attempts() >= maxWriteAttempts) {
+                writeRowByRow(failed);
+            } else if (write(failed.buckets()) == null) {
+                log.info("Wrote {} meter value buckets on attempt {}", failed.buckets().size(), failed.attempts() + 1);
+            } else {
+                keepForRetry(new FailedBatch(failed.buckets(), failed.attempts() + 1));
+            }
+        }
+    }
+
+    private void keepForRetry(FailedBatch failed) {
+        FailedBatch dropped = null;
+        synchronized (retries) {
+            retries.addLast(failed);
+            if (retries.size() > maxRetryBatches) {
+                dropped = retries.pollFirst();
+            }
+        }
+        if (dropped != null) {
+            droppedBuckets.increment(dropped.buckets().size());
+            log.error("Dropped {} meter value buckets: more than {} failed batches are waiting for a retry",
+                    dropped.buckets().size(), maxRetryBatches);
+        }
+    }
+
+    private void writeRowByRow(FailedBatch failed) {
+        int dropped = 0;
+        List<MeterSeries.ClosedBucket> unwritten = new ArrayList<>();
+        for (MeterSeries.ClosedBucket bucket : failed.buckets()) {
+            Exception error = write(List.of(bucket));
+            if (error instanceof DataIntegrityViolationException) {
+                // Dữ liệu bị ràng buộc từ chối: thử lại cũng không ghi được
+                dropped++;
+            } else if (error != null) {
+                unwritten.add(bucket);
+            }
+        }
+        if (dropped > 0) {
+            droppedBuckets.increment(dropped);
+            log.error("Dropped {} of {} meter value buckets rejected by the database",
+                    dropped, failed.buckets().size());
+        }
+        if (!unwritten.isEmpty()) {
+            keepForRetry(new FailedBatch(unwritten, failed.attempts() + 1));
+        }
+    }
+
+    /**
+     * @return null if the batch was written, otherwise the failure
+     */
+    private Exception write(List<MeterSeries.ClosedBucket> batch) {
+        try {
+            writeTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, bucket) -> {
+                ps.setLong(1, bucket.sessionId());
+                ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(bucket.bucketStartMillis()), ZoneOffset.UTC)));
+                ps.setLong(3, bucket.energyWhStart());
+                ps.setLong(4, bucket.energyWhEnd());
+                if (bucket.avgPowerW() != null) ps.setInt(5, bucket.avgPowerW()); else ps.setNull(5, Types.INTEGER);
+                if (bucket.maxPowerW() != null) ps.setInt(6, bucket.maxPowerW()); else ps.setNull(6, Types.INTEGER);
+                if (bucket.socEnd() != null) ps.setDouble(7, bucket.socEnd()); else ps.setNull(7, Types.DOUBLE);
+                ps.setInt(8, bucket.sampleCount());
+            }));
+            return null;
+        } catch (Exception e) {
+            writeFailures.increment();
+            log.warn("Failed to write {} meter value buckets: {}", batch.size(), e.getMessage());
+            return e;
+        }
+    }
+}
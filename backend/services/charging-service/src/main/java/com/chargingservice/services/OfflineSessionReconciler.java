@@ -0,0 +1,336 @@
+package com.chargingservice.services;
+
+import com.chargingservice.clients.NotificationServiceClient;
+import com.chargingservice.dtos.OfflineSessionsBatchRequestDto;
+import com.chargingservice.dtos.OfflineSessionsReconcileResponseDto;
+import com.chargingservice.dtos.internal.CreateNotificationRequestDto;
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.units.Energy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stores completed sessions that a station recorded while it was offline, replayed in one request
+ * (instead of one /start + /stop pair per session).
+ * <ul>
+ *   <li>Deduplicated by (station, station-local transaction id): within the request, against rows already stored,
+ *       and against a concurrent replay of the same batch (unique key uk_session_station_offline_tx).</li>
+ *   <li>Priced like online sessions (TariffEngine, user's subscription discount) and inserted with one JDBC batch;
+ *       consumption rollups are updated with one batched upsert in the same transaction. Subscriptions are looked
+ *       up in batches; if user-service is unavailable the whole request fails and the station retries it.</li>
+ *   <li>Payment-due notifications are sent after commit, off the request thread. Loyalty points are not touched
+ *       here: loyalty-service credits them on payment.success once the driver pays, as for online sessions.</li>
+ * </ul>
+ */
+@Service
+public class OfflineSessionReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(OfflineSessionReconciler.class);
+
+    static final int MAX_TRANSACTION_ID_LENGTH = 64;
+    // Sai lệch đồng hồ cho phép giữa trạm và server
+    private static final long CLOCK_SKEW_MINUTES = 5;
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
+    // Giao dịch đã có (do lần gửi trước hoặc một request song song) được giữ nguyên
+    private static final String INSERT_SQL = "INSERT INTO charging_sessions " +
+            "(user_id, station_id, charger_id, session_code, start_time, end_time, energy_consumed, price_per_kwh, " +
+            "discount_percent, total_cost, offline_transaction_id, session_status, is_paid, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE session_id = session_id";
+
+    // Cả bảng lưu trữ: trạm có thể gửi lại giao dịch rất cũ đã được chuyển sang charging_sessions_archive
+    private static final String LOOKUP_SQL = "SELECT offline_transaction_id, session_id, session_code " +
+            "FROM charging_sessions WHERE station_id = ? AND offline_transaction_id IN (%1$s) " +
+            "UNION ALL SELECT offline_transaction_id, session_id, session_code " +
+            "FROM charging_sessions_archive WHERE station_id = ? AND offline_transaction_id IN (%1$s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TariffEngine tariffEngine;
+    private final SubscriptionEntitlementCache entitlementCache;
+    private final DependencyFanOut dependencyFanOut;
+    private final ConsumptionRollupService consumptionRollupService;
+    private final NotificationServiceClient notificationServiceClient;
+    private final ChargingMetrics metrics;
+    private final int maxSessionsPerRequest;
+    private final int insertBatchSize;
+
+    private record StoredSession(Long sessionId, String sessionCode) {
+    }
+
+    public OfflineSessionReconciler(
+            JdbcTemplate jdbcTemplate,
+            TariffEngine tariffEngine,
+            SubscriptionEntitlementCache entitlementCache,
+            DependencyFanOut dependencyFanOut,
+            ConsumptionRollupService consumptionRollupService,
+            NotificationServiceClient notificationServiceClient,
+            ChargingMetrics metrics,
+            @Value("${charging.offline.max-sessions-per-request:1000}") int maxSessionsPerRequest,
+            @Value("${charging.offline.insert-batch-size:500}") int insertBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tariffEngine = tariffEngine;
+        this.entitlementCache = entitlementCache;
+        this.dependencyFanOut = dependencyFanOut;
+        this.consumptionRollupService = consumptionRollupService;
+        this.notificationServiceClient = notificationServiceClient;
+        this.metrics = metrics;
+        this.maxSessionsPerRequest = maxSessionsPerRequest;
+        this.insertBatchSize = insertBatchSize;
+    }
+
+    /**
+     * Reconciles a station's offline sessions. Results are returned in request order; replaying the same batch
+     * again is safe and reports every transaction as a duplicate of the session created the first time.
+     */
+    @Transactional
+    public OfflineSessionsReconcileResponseDto reconcile(OfflineSessionsBatchRequestDto request) {
+        if (request == null || request.getStationId() == null) {
+            throw new IllegalArgumentException("stationId is required");
+        }
+        List<OfflineSessionsBatchRequestDto.OfflineSessionDto> items =
+                request.getSessions() != null ? request.getSessions() : List.of();
+        if (items.size() > maxSessionsPerRequest) {
+            throw new IllegalArgumentException("At most " + maxSessionsPerRequest + " sessions per request, got " + items.size());
+        }
+        Long stationId = request.getStationId();
+        LocalDateTime now = LocalDateTime.now();
+
+        // Bước 1: kiểm tra từng giao dịch, gộp các bản lặp lại trong cùng request
+        List<OfflineSessionsReconcileResponseDto.ResultDto> results = new ArrayList<>(items.size());
+        Map<String, OfflineSessionsBatchRequestDto.OfflineSessionDto> candidates = new LinkedHashMap<>();
+        for (OfflineSessionsBatchRequestDto.OfflineSessionDto item : items) {
+            String reason = validate(item, now);
+            String transactionId = item != null ? item.getTransactionId() : null;
+            results.add(new OfflineSessionsReconcileResponseDto.ResultDto(transactionId,
+                    reason != null ? OfflineSessionsReconcileResponseDto.Status.rejected : null, null, reason));
+            if (reason == null) {
+                candidates.putIfAbsent(transactionId, item);
+            }
+        }
+
+        // Bước 2: bỏ các giao dịch đã được ghi từ lần đồng bộ trước
+        Map<String, StoredSession> stored = findStored(stationId, candidates.keySet());
+        List<ChargingSession> toInsert = new ArrayList<>();
+        if (stored.size() < candidates.size()) {
+            Map<Long, Long> discounts = lookupDiscounts(candidates, stored);
+            candidates.forEach((transactionId, item) -> {
+                if (!stored.containsKey(transactionId)) {
+                    toInsert.add(newSession(stationId, item, discounts.getOrDefault(item.getUserId(), 0L), now));
+                }
+            });
+        }
+
+        // Bước 3: ghi theo lô; đọc lại để biết phiên nào do request này tạo
+        List<ChargingSession> created = new ArrayList<>(toInsert.size());
+        if (!toInsert.isEmpty()) {
+            insert(toInsert);
+            Map<String, ChargingSession> byTransaction = new HashMap<>();
+            toInsert.forEach(session -> byTransaction.put(session.getOfflineTransactionId(), session));
+            stored.putAll(findStored(stationId, byTransaction.keySet()));
+            for (ChargingSession session : toInsert) {
+                StoredSession row = stored.get(session.getOfflineTransactionId());
+                if (row == null) {
+                    throw new IllegalStateException("Offline session " + session.getOfflineTransactionId() + " was not stored");
+                }
+                if (row.sessionCode().equals(session.getSessionCode())) {
+                    session.setSessionId(row.sessionId());
+                    created.add(session);
+                }
+            }
+        }
+
+        Set<Long> createdIds = new LinkedHashSet<>();
+        created.forEach(session -> createdIds.add(session.getSessionId()));
+        int createdCount = 0;
+        int duplicates = 0;
+        int rejected = 0;
+        for (OfflineSessionsReconcileResponseDto.ResultDto result : results) {
+            if (result.getStatus() == OfflineSessionsReconcileResponseDto.Status.rejected) {
+                rejected++;
+                continue;
+            }
+            Long sessionId = stored.get(result.getTransactionId()).sessionId();
+            result.setSessionId(sessionId);
+            // Lần xuất hiện đầu tiên của phiên vừa tạo là "created", các lần sau là "duplicate"
+            if (createdIds.remove(sessionId)) {
+                result.setStatus(OfflineSessionsReconcileResponseDto.Status.created);
+                createdCount++;
+            } else {
+                result.setStatus(OfflineSessionsReconcileResponseDto.Status.duplicate);
+                duplicates++;
+            }
+        }
+
+        if (!created.isEmpty()) {
+            consumptionRollupService.recordSessionsReplayed(created);
+            metrics.record(ChargingMetrics.Transition.SESSION_RECONCILED, created.size());
+            notifyPaymentDue(created);
+        }
+        log.info("Reconciled {} offline sessions for station {}: {} created, {} duplicates, {} rejected",
+                items.size(), stationId, createdCount, duplicates, rejected);
+        return new OfflineSessionsReconcileResponseDto(createdCount, duplicates, rejected, results);
+    }
+
+    static String validate(OfflineSessionsBatchRequestDto.OfflineSessionDto item, LocalDateTime now) {
+        if (item == null) {
+            return "session is empty";
+        }
+        if (item.getTransactionId() == null || item.getTransactionId().isBlank()) {
+            return "transactionId is required";
+        }
+        if (item.getTransactionId().length() > MAX_TRANSACTION_ID_LENGTH) {
+            return "transactionId is longer than " + MAX_TRANSACTION_ID_LENGTH + " characters";
+        }
+        if (item.getChargerId() == null || item.getUserId() == null) {
+            return "chargerId and userId are required";
+        }
+        if (item.getStartTime() == null || item.getEndTime() == null) {
+            return "startTime and endTime are required";
+        }
+        if (item.getEndTime().isBefore(item.getStartTime())) {
+            return "endTime is before startTime";
+        }
+        if (item.getEndTime().isAfter(now.plusMinutes(CLOCK_SKEW_MINUTES))) {
+            return "endTime is in the future";
+        }
+        if (item.getEnergyWh() == null || item.getEnergyWh() < 0) {
+            return "energyWh must be zero or positive";
+        }
+        return null;
+    }
+
+    private Map<String, StoredSession> findStored(Long stationId, Collection<String> transactionIds) {
+        Map<String, StoredSession> stored = new HashMap<>();
+        List<String> ids = new ArrayList<>(transactionIds);
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + LOOKUP_CHUNK_SIZE));
+            Object[] args = new Object[2 * (chunk.size() + 1)];
+            args[0] = stationId;
+            args[chunk.size() + 1] = stationId;
+            for (int i = 0; i < chunk.size(); i++) {
+                args[i + 1] = chunk.get(i);
+                args[chunk.size() + 2 + i] = chunk.get(i);
+            }
+            String sql = String.format(LOOKUP_SQL, String.join(",", Collections.nCopies(chunk.size(), "?")));
+            jdbcTemplate.query(sql, rs -> {
+                stored.put(rs.getString(1), new StoredSession(rs.getLong(2), rs.getString(3)));
+            }, args);
+        }
+        return stored;
+    }
+
+    // Discount theo gói của các user trong lô: user chưa có trong cache được tra theo lô (một lời gọi user-service
+    // cho tối đa 500 user). Tra cứu lỗi thì cả lô thất bại trước khi ghi gì, trạm gửi lại sau (đã chống trùng);
+    // không tính giá thiếu giảm giá cho user có gói
+    private Map<Long, Long> lookupDiscounts(Map<String, OfflineSessionsBatchRequestDto.OfflineSessionDto> candidates,
+                                            Map<String, StoredSession> stored) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        candidates.forEach((transactionId, item) -> {
+            if (!stored.containsKey(transactionId)) {
+                userIds.add(item.getUserId());
+            }
+        });
+        Map<Long, SubscriptionEntitlementCache.Entitlement> entitlements;
+        try {
+            entitlements = entitlementCache.getAll(userIds);
+        } catch (RuntimeException e) {
+            log.warn("Subscription lookup failed for {} users, offline batch rejected: {}", userIds.size(), e.getMessage());
+            throw new IllegalStateException("Subscription lookup is unavailable, please retry the batch later", e);
+        }
+        Map<Long, Long> discounts = new HashMap<>();
+        entitlements.forEach((userId, entitlement) -> {
+            String subscriptionPackage = entitlement.subscriptionPackage();
+            discounts.put(userId, subscriptionPackage != null
+                    ? ChargingServiceImpl.getDiscountPercentForPackage(subscriptionPackage) : 0L);
+        });
+        return discounts;
+    }
+
+    private ChargingSession newSession(Long stationId, OfflineSessionsBatchRequestDto.OfflineSessionDto item,
+                                       long discountPercent, LocalDateTime now) {
+        ChargingSession session = new ChargingSession();
+        session.setUserId(item.getUserId());
+        session.setStationId(stationId);
+        session.setChargerId(item.getChargerId());
+        session.setSessionCode(UUID.randomUUID().toString());
+        session.setOfflineTransactionId(item.getTransactionId());
+        session.setStartTime(item.getStartTime());
+        session.setEndTime(item.getEndTime());
+        session.setEnergyConsumed(Energy.ofWh(item.getEnergyWh()).toKwh());
+        session.setDiscountPercent((int) discountPercent);
+        session.setPricePerKwh(tariffEngine.rateAt(stationId, item.getStartTime(), discountPercent).toBigDecimal());
+        session.setSessionStatus(ChargingSession.SessionStatus.completed);
+        session.setIsPaid(false);
+        session.setCreatedAt(now);
+        session.setUpdatedAt(now);
+        tariffEngine.settle(session);
+        return session;
+    }
+
+    private void insert(List<ChargingSession> sessions) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, sessions, insertBatchSize, (ps, session) -> {
+            ps.setLong(1, session.getUserId());
+            ps.setLong(2, session.getStationId());
+            ps.setLong(3, session.getChargerId());
+            ps.setString(4, session.getSessionCode());
+            ps.setTimestamp(5, Timestamp.valueOf(session.getStartTime()));
+            ps.setTimestamp(6, Timestamp.valueOf(session.getEndTime()));
+            ps.setBigDecimal(7, session.getEnergyConsumed());
+            ps.setBigDecimal(8, session.getPricePerKwh());
+            if (session.getDiscountPercent() != null) ps.setInt(9, session.getDiscountPercent()); else ps.setNull(9, Types.INTEGER);
+            ps.setBigDecimal(10, session.getTotalCost());
+            ps.setString(11, session.getOfflineTransactionId());
+            ps.setString(12, session.getSessionStatus().name());
+            ps.setBoolean(13, Boolean.TRUE.equals(session.getIsPaid()));
+            ps.setTimestamp(14, Timestamp.valueOf(session.getCreatedAt()));
+            ps.setTimestamp(15, Timestamp.valueOf(session.getUpdatedAt()));
+        });
+    }
+
+    // Thông báo yêu cầu thanh toán cho từng phiên: một tác vụ nền cho cả lô, gửi tuần tự sau khi commit
+    // (trạm vừa online lại không kéo theo hàng trăm lời gọi song song tới notification-service)
+    private void notifyPaymentDue(List<ChargingSession> sessions) {
+        List<CreateNotificationRequestDto> notifications = new ArrayList<>(sessions.size());
+        for (ChargingSession session : sessions) {
+            notifications.add(new CreateNotificationRequestDto(
+                    session.getUserId(),
+                    CreateNotificationRequestDto.NotificationType.charging_complete,
+                    "Sạc hoàn tất",
+                    String.format("Phiên sạc (ID: %d) ghi nhận khi trạm mất kết nối đã được đồng bộ. Năng lượng: %.2f kWh. Vui lòng thanh toán.",
+                            session.getSessionId(), session.getEnergyConsumed().doubleValue()),
+                    session.getSessionId()));
+        }
+        dependencyFanOut.afterCommit("offlineNotifications", () -> {
+            int failed = 0;
+            for (CreateNotificationRequestDto notification : notifications) {
+                try {
+                    notificationServiceClient.createNotification(notification);
+                } catch (Exception e) {
+                    failed++;
+                    log.error("Failed to send notification for offline session {}: {}",
+                            notification.getReferenceId(), e.getMessage());
+                }
+            }
+            log.info("Sent {} offline session notifications ({} failed)", notifications.size() - failed, failed);
+        });
+    }
+}
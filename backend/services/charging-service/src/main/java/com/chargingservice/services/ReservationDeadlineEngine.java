@@ -0,0 +1,125 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deadlines of every open reservation in a hierarchical timing wheel: the reminder (one hour before the start),
+ * the check-in grace expiry (15 minutes after the start, then the reservation is a no-show) and the expiry of an
+ * unconfirmed route hold. The deadlines are derived from the reservation row itself (reserved_start_time,
+ * reminder_sent, is_checked_in, hold_expires_at), so the wheel is rebuilt from pending/confirmed reservations on
+ * startup and kept in sync by ReservationDeadlineListener. ReservationScheduler polls due deadlines every tick.
+ */
+@Component
+public class ReservationDeadlineEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationDeadlineEngine.class);
+    private static final int WHEEL_LEVELS = 4; // 64^4 ticks ≈ 194 days at 1 s
+
+    public static final Duration REMINDER_LEAD = Duration.ofHours(1);
+    public static final Duration CHECK_IN_GRACE = Duration.ofMinutes(15);
+
+    public enum Kind {
+        reminder, no_show, hold_expiry
+    }
+
+    public record Deadline(Kind kind, Long reservationId) {
+    }
+
+    private final ReservationRepository reservationRepository;
+    private final HierarchicalTimingWheel<Deadline> wheel;
+
+    public ReservationDeadlineEngine(
+            ReservationRepository reservationRepository,
+            @Value("${charging.reservation-deadlines.tick-ms:1000}") long tickMillis) {
+        this.reservationRepository = reservationRepository;
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_LEVELS, System.currentTimeMillis());
+    }
+
+    /**
+     * Reschedules every deadline of the reservation from its current state. Inside a transaction this takes
+     * effect after commit.
+     */
+    public void reservationSaved(Reservation reservation) {
+        Long reservationId = reservation.getReservationId();
+        Map<Kind, LocalDateTime> deadlines = deadlinesOf(reservation);
+        AfterCommit.run(() -> apply(reservationId, deadlines));
+    }
+
+    public void reservationRemoved(Long reservationId) {
+        AfterCommit.run(() -> apply(reservationId, Map.of()));
+    }
+
+    /**
+     * Advances the wheel to now and returns the deadlines that are due.
+     */
+    public List<Deadline> pollDue() {
+        synchronized (wheel) {
+            return wheel.advance(System.currentTimeMillis());
+        }
+    }
+
+    public int pendingCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        List<Reservation> open = reservationRepository.findByStatusIn(List.of(
+                Reservation.ReservationStatus.pending, Reservation.ReservationStatus.confirmed));
+        for (Reservation reservation : open) {
+            apply(reservation.getReservationId(), deadlinesOf(reservation));
+        }
+        log.info("Reservation deadline engine recovered {} reservations ({} deadlines)", open.size(), pendingCount());
+    }
+
+    /**
+     * Deadlines still ahead for the reservation in its current state (past ones fire on the next tick).
+     */
+    static Map<Kind, LocalDateTime> deadlinesOf(Reservation reservation) {
+        Map<Kind, LocalDateTime> deadlines = new EnumMap<>(Kind.class);
+        if (reservation.getReservationId() == null) {
+            return deadlines;
+        }
+        LocalDateTime start = reservation.getReservedStartTime();
+        if (reservation.getStatus() == Reservation.ReservationStatus.pending && reservation.getHoldExpiresAt() != null) {
+            deadlines.put(Kind.hold_expiry, reservation.getHoldExpiresAt());
+        } else if (reservation.getStatus() == Reservation.ReservationStatus.confirmed && start != null
+                && !Boolean.TRUE.equals(reservation.getIsCheckedIn())) {
+            deadlines.put(Kind.no_show, start.plus(CHECK_IN_GRACE));
+            if (!Boolean.TRUE.equals(reservation.getReminderSent())) {
+                deadlines.put(Kind.reminder, start.minus(REMINDER_LEAD));
+            }
+        }
+        return deadlines;
+    }
+
+    private void apply(Long reservationId, Map<Kind, LocalDateTime> deadlines) {
+        synchronized (wheel) {
+            for (Kind kind : Kind.values()) {
+                Deadline key = new Deadline(kind, reservationId);
+                LocalDateTime at = deadlines.get(kind);
+                if (at == null) {
+                    wheel.cancel(key);
+                } else {
+                    wheel.schedule(key, at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Self-verifying QR codes for reservations: "RQ." + base64url(payload || tag), 70 characters.
+ * payload (34 bytes, big-endian): version, key id, reservation id, charger id, user id, valid-from and valid-until
+ * as local time in epoch seconds (unsigned 32-bit). tag = first 16 bytes of HMAC-SHA256(key, payload).
+ * Anyone holding the key (this service, a station provisioned with charging.qr.keys) can check a code without the
+ * database: signature, validity window and the revocation list (reservations cancelled, expired or no-show while
+ * their code is still valid). Rotation: codes are signed with the active key and verified with any listed key,
+ * so a new key is added first, made active, and the old one removed once its codes have expired.
+ * Codes in the old "RES:id:code" format or signed with a retired key are reported as unverifiable, and callers
+ * fall back to the stored qr_code. Without charging.qr.keys codes are signed with a random per-process key that
+ * no other instance (and no later restart) shares, so such codes are always reported as unverifiable too.
+ */
+@Component
+public class ReservationQrTokens {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationQrTokens.class);
+
+    public static final String PREFIX = "RQ.";
+    private static final byte VERSION = 1;
+    private static final int PAYLOAD_BYTES = 34;
+    private static final int TAG_BYTES = 16;
+    private static final int TOKEN_BYTES = PAYLOAD_BYTES + TAG_BYTES;
+    // Mã dùng được từ 30 phút trước giờ đặt (mở check-in) đến hết khung giờ đặt
+    private static final long EARLY_SECONDS = 30 * 60;
+    private static final List<Reservation.ReservationStatus> REVOKED_STATUSES = List.of(
+            Reservation.ReservationStatus.cancelled, Reservation.ReservationStatus.expired,
+            Reservation.ReservationStatus.no_show);
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * Decoded, verified contents of a code. Times are local time.
+     */
+    public record Claims(long reservationId, long chargerId, long userId,
+                         LocalDateTime validFrom, LocalDateTime validUntil, int keyId) {
+    }
+
+    private final ReservationRepository reservationRepository;
+    private final Map<Integer, ThreadLocal<Mac>> macs;
+    private final int activeKeyId;
+    // Khóa ngẫu nhiên của riêng process này: chữ ký không kiểm tra được ở instance khác hay sau restart
+    private final boolean ephemeralKey;
+    // reservationId -> validUntil (epoch giây): chỉ giữ đến khi mã tự hết hạn
+    private final Map<Long, Long> revoked = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReservationQrTokens(
+            ReservationRepository reservationRepository,
+            @Value("${charging.qr.keys:}") String keys,
+            @Value("${charging.qr.active-key-id:-1}") int activeKeyId) {
+        this(reservationRepository, parseKeys(keys), activeKeyId);
+    }
+
+    ReservationQrTokens(ReservationRepository reservationRepository, Map<Integer, byte[]> keys, int activeKeyId) {
+        this.reservationRepository = reservationRepository;
+        Map<Integer, byte[]> secrets = new HashMap<>(keys);
+        if (secrets.isEmpty()) {
+            // Khóa tạm: mã phát hành trước khi restart sẽ không còn kiểm tra được
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            secrets.put(0, secret);
+            activeKeyId = 0;
+            log.warn("charging.qr.keys is not set: QR codes are signed with a random key and checked against the stored qr_code only");
+        } else if (activeKeyId < 0) {
+            activeKeyId = secrets.keySet().stream().mapToInt(Integer::intValue).max().getAsInt();
+        }
+        if (!secrets.containsKey(activeKeyId)) {
+            throw new IllegalArgumentException("charging.qr.active-key-id " + activeKeyId + " is not in charging.qr.keys");
+        }
+        this.activeKeyId = activeKeyId;
+        this.ephemeralKey = keys.isEmpty();
+        this.macs = new HashMap<>();
+        secrets.forEach((id, secret) -> {
+            SecretKeySpec key = new SecretKeySpec(secret, "HmacSHA256");
+            // Mac không thread-safe: mỗi thread một instance đã init
+            macs.put(id, ThreadLocal.withInitial(() -> {
+                try {
+                    Mac mac = Mac.getInstance("HmacSHA256");
+                    mac.init(key);
+                    return mac;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("HmacSHA256 unavailable", e);
+                }
+            }));
+        });
+    }
+
+    /**
+     * charging.qr.keys: comma-separated "id:hex-secret" entries, id 0-255.
+     */
+    static Map<Integer, byte[]> parseKeys(String keys) {
+        Map<Integer, byte[]> parsed = new HashMap<>();
+        if (keys == null || keys.isBlank()) {
+            return parsed;
+        }
+        for (String entry : keys.split(",")) {
+            String[] parts = entry.trim().split(":", 2);
+            int id = parts.length == 2 ? Integer.parseInt(parts[0].trim()) : -1;
+            if (id < 0 || id > 255) {
+                throw new IllegalArgumentException("Invalid charging.qr.keys entry: key id must be 0-255 followed by ':secret'");
+            }
+            byte[] secret = HexFormat.of().parseHex(parts[1].trim());
+            if (secret.length < 16) {
+                throw new IllegalArgumentException("charging.qr.keys secret " + id + " must be at least 16 bytes");
+            }
+            parsed.put(id, secret);
+        }
+        return parsed;
+    }
+
+    /**
+     * Signed code for a saved reservation, valid from 30 minutes before its start until its end.
+     */
+    public String issue(Reservation reservation) {
+        return issue(reservation.getReservationId(),
+                reservation.getChargerId() != null ? reservation.getChargerId() : 0L,
+                reservation.getUserId(),
+                reservation.getReservedStartTime().minusSeconds(EARLY_SECONDS),
+                reservation.getReservedEndTime());
+    }
+
+    String issue(long reservationId, long chargerId, long userId, LocalDateTime validFrom, LocalDateTime validUntil) {
+        byte[] token = new byte[TOKEN_BYTES];
+        ByteBuffer.wrap(token)
+                .put(VERSION)
+                .put((byte) activeKeyId)
+                .putLong(reservationId)
+                .putLong(chargerId)
+                .putLong(userId)
+                .putInt((int) epochSeconds(validFrom))
+                .putInt((int) epochSeconds(validUntil));
+        Mac mac = macs.get(activeKeyId).get();
+        mac.update(token, 0, PAYLOAD_BYTES);
+        System.arraycopy(mac.doFinal(), 0, token, PAYLOAD_BYTES, TAG_BYTES);
+        return PREFIX + ENCODER.encodeToString(token);
+    }
+
+    /**
+     * Verifies a scanned code at the given local time.
+     *
+     * @return the claims, or empty if the code cannot be checked here (old format, retired or ephemeral key)
+     * @throws IllegalArgumentException if the code is malformed or its signature does not match
+     * @throws IllegalStateException    if the code is outside its validity window or revoked
+     */
+    public Optional<Claims> verify(String code, LocalDateTime now) {
+        if (code == null || !code.startsWith(PREFIX)) {
+            return Optional.empty();
+        }
+        byte[] token;
+        try {
+            token = DECODER.decode(code.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed QR code");
+        }
+        if (token.length != TOKEN_BYTES || token[0] != VERSION) {
+            throw new IllegalArgumentException("Malformed QR code");
+        }
+        int keyId = token[1] & 0xFF;
+        ThreadLocal<Mac> keyMac = macs.get(keyId);
+        if (keyMac == null || ephemeralKey) {
+            return Optional.empty();
+        }
+        Mac mac = keyMac.get();
+        mac.update(token, 0, PAYLOAD_BYTES);
+        byte[] expected = mac.doFinal();
+        // So sánh hằng thời gian trên 16 byte đầu của HMAC
+        int diff = 0;
+        for (int i = 0; i < TAG_BYTES; i++) {
+            diff |= expected[i] ^ token[PAYLOAD_BYTES + i];
+        }
+        if (diff != 0) {
+            throw new IllegalArgumentException("Invalid QR code signature");
+        }
+
+        ByteBuffer payload = ByteBuffer.wrap(token, 2, PAYLOAD_BYTES - 2);
+        long reservationId = payload.getLong();
+        long chargerId = payload.getLong();
+        long userId = payload.getLong();
+        long validFrom = Integer.toUnsignedLong(payload.getInt());
+        long validUntil = Integer.toUnsignedLong(payload.getInt());
+        long nowSeconds = epochSeconds(now);
+        if (nowSeconds < validFrom) {
+            throw new IllegalStateException("QR code is not valid yet. It can be used from " + toLocal(validFrom));
+        }
+        if (nowSeconds >= validUntil) {
+            throw new IllegalStateException("QR code has expired");
+        }
+        if (revoked.containsKey(reservationId)) {
+            throw new IllegalStateException("QR code has been revoked");
+        }
+        return Optional.of(new Claims(reservationId, chargerId, userId, toLocal(validFrom), toLocal(validUntil), keyId));
+    }
+
+    /**
+     * Revokes the reservation's code, once the surrounding transaction commits, until it would have expired anyway.
+     */
+    public void revoke(Reservation reservation) {
+        Long reservationId = reservation.getReservationId();
+        LocalDateTime until = reservation.getReservedEndTime();
+        if (reservationId != null && until != null) {
+            AfterCommit.run(() -> revoked.put(reservationId, epochSeconds(until)));
+        }
+    }
+
+    /**
+     * Revoked reservations whose codes have not expired yet, with the local time they expire.
+     * Stations verifying offline download this list.
+     */
+    public Map<Long, LocalDateTime> revocations() {
+        Map<Long, LocalDateTime> list = new HashMap<>();
+        revoked.forEach((reservationId, until) -> list.put(reservationId, toLocal(until)));
+        return list;
+    }
+
+    /**
+     * Reloads the revocation list from the database: picks up cancellations made by other instances and the
+     * bulk no-show/expiry updates of ReservationScheduler, and drops entries whose codes have expired.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${charging.qr.revocation-refresh-ms:15000}",
+               initialDelayString = "${charging.qr.revocation-refresh-ms:15000}")
+    public void refreshRevocations() {
+        LocalDateTime now = LocalDateTime.now();
+        long nowSeconds = epochSeconds(now);
+        List<Object[]> rows = reservationRepository.findRevokedQrCodes(REVOKED_STATUSES, now);
+        for (Object[] row : rows) {
+            revoked.put((Long) row[0], epochSeconds((LocalDateTime) row[1]));
+        }
+        revoked.values().removeIf(until -> until <= nowSeconds);
+        log.debug("QR revocation list refreshed: {} entries", revoked.size());
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toLocal(long epochSeconds) {
+        return LocalDateTime.ofEpochSecond(epochSeconds, 0, ZoneOffset.UTC);
+    }
+}
@@ -22,5 +22,8 @@ public interface ReservationService {
     // Route booking methods
     List<ReservationResponseDto> createRouteReservations(Long userId, List<RouteBookingRequestDto.RouteBookingItemDto> bookings);
     void cancelRouteReservation(Long reservationId, Long userId);
+    // Two-phase route booking: tentative holds on every leg, then confirm all of them at once
+    List<ReservationResponseDto> holdRouteReservations(Long userId, List<RouteBookingRequestDto.RouteBookingItemDto> bookings);
+    List<ReservationResponseDto> commitRouteReservations(String routeId, Long userId);
 }
 
@@ -3,7 +3,6 @@ package com.chargingservice.services;
 import com.chargingservice.clients.NotificationServiceClient;
 import com.chargingservice.clients.PaymentServiceClient;
 import com.chargingservice.clients.StationServiceClient;
-import com.chargingservice.clients.UserServiceClient;
 import com.chargingservice.dtos.CreateReservationRequestDto;
 import com.chargingservice.dtos.RouteBookingRequestDto;
 import com.chargingservice.dtos.internal.CreateNotificationRequestDto;
@@ -15,20 +14,27 @@ import com.chargingservice.dtos.internal.PaymentResponseDto;
 import com.chargingservice.dtos.internal.ProcessDepositRequestDto;
 import com.chargingservice.entities.ChargingSession;
 import com.chargingservice.entities.Reservation;
+import com.chargingservice.exceptions.ResourceNotFoundException;
 import com.chargingservice.repositories.ChargingSessionRepository;
 import com.chargingservice.repositories.ReservationRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -38,6 +44,11 @@ public class ReservationServiceImpl implements ReservationService {
 
     private static final Logger log = LoggerFactory.getLogger(ReservationServiceImpl.class);
     private static final BigDecimal DEFAULT_DEPOSIT_AMOUNT = new BigDecimal("50000.00"); // 50,000 VND
+    // Thời gian giữ chỗ tạm của các chặng lộ trình trước khi được xác nhận
+    private static final Duration ROUTE_HOLD_TTL = Duration.ofMinutes(2);
+    // Reservation chặn trụ sạc (pending/confirmed/active)
+    private static final List<Reservation.ReservationStatus> BLOCKING_STATUSES =
+            List.copyOf(ChargerAvailabilityIndex.BLOCKING_RESERVATIONS);
     
     private final ReservationRepository reservationRepository;
     private final ChargingService chargingService;
@@ -45,142 +56,71 @@ public class ReservationServiceImpl implements ReservationService {
     private final StationServiceClient stationServiceClient;
     private final PaymentServiceClient paymentServiceClient;
     private final NotificationServiceClient notificationServiceClient;
-    private final UserServiceClient userServiceClient;
+    private final SubscriptionEntitlementCache entitlementCache;
+    private final ChargerStatusOutboxService chargerStatusOutbox;
+    private final DependencyFanOut dependencyFanOut;
+    private final ChargingMetrics metrics;
+    private final ChargerAvailabilityIndex availabilityIndex;
+    private final ReservationSlotClaims slotClaims;
+    private final ReservationQrTokens qrTokens;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     @Transactional
+    @Timed(value = "charging.operations", extraTags = {"operation", "createReservation"})
     public ReservationResponseDto createReservation(CreateReservationRequestDto requestDto) {
         log.info("Creating reservation for user {} at station {}", requestDto.getUserId(), requestDto.getStationId());
 
         validateRequestTimes(requestDto.getReservedStartTime(), requestDto.getReservedEndTime(), requestDto.getDurationMinutes());
-        
+        // Làm tròn về lưới 5 phút: slot giữ chỗ khớp đúng khung giờ, đặt chỗ nối tiếp nhau không tranh slot lẻ
+        LocalDateTime startTime = ReservationSlotClaims.snap(requestDto.getReservedStartTime());
+        LocalDateTime endTime = ReservationSlotClaims.snapEnd(startTime, requestDto.getReservedEndTime());
+        
+        // Các tra cứu độc lập (trạng thái trạm, danh sách trụ, gói subscription) chạy song song
+        DependencyFanOut.Scope lookups = dependencyFanOut.open("createReservation");
+        DependencyFanOut.Call<Map<String, Object>> stationCall = lookups.fork("station",
+                () -> stationServiceClient.getStationById(requestDto.getStationId()));
+        DependencyFanOut.Call<List<Map<String, Object>>> chargersCall = requestDto.getChargerId() == null
+                ? lookups.fork("chargers", () -> fetchChargers(requestDto.getStationId()))
+                : null;
+        DependencyFanOut.Call<String> subscriptionCall = lookups.fork("entitlement",
+                () -> entitlementCache.get(requestDto.getUserId()).subscriptionPackage());
+        lookups.join();
+
         // Kiểm tra trạng thái trạm: chỉ cho phép đặt chỗ khi trạm đang online
-        try {
-            Map<String, Object> station = stationServiceClient.getStationById(requestDto.getStationId());
-            if (station != null) {
-                String stationStatus = (String) station.get("status");
-                if (stationStatus == null || !"online".equalsIgnoreCase(stationStatus)) {
-                    String statusMsg = stationStatus == null ? "không xác định" :
-                                       "maintenance".equalsIgnoreCase(stationStatus) ? "đang bảo trì" :
-                                       "offline".equalsIgnoreCase(stationStatus) ? "tạm ngưng" :
-                                       "closed".equalsIgnoreCase(stationStatus) ? "đã đóng cửa" : stationStatus;
-                    throw new IllegalStateException("Trạm " + statusMsg + ". Không thể đặt chỗ hoặc sạc tại thời điểm này.");
-                }
-            }
-        } catch (IllegalStateException e) {
-            throw e; // Re-throw validation errors
-        } catch (Exception e) {
-            log.warn("Could not verify station status, proceeding anyway: {}", e.getMessage());
-            // Continue if station service is unavailable (fail gracefully)
-        }
-        
-        Long chargerId = requestDto.getChargerId();
+        requireStationOnline(stationCall);
         
-        // Nếu chargerId null, tự động tìm charger available tại station
-        if (chargerId == null) {
-            log.info("chargerId is null, finding available charger at station {}", requestDto.getStationId());
-            // findAvailableCharger sẽ throw IllegalStateException với thông báo chi tiết nếu không tìm thấy
-            chargerId = findAvailableCharger(requestDto.getStationId(), requestDto.getReservedStartTime(), requestDto.getReservedEndTime());
-            log.info("Found available charger: {}", chargerId);
-        }
-
-        // Check charger has no active charging session
-        chargingSessionRepository.findFirstByChargerIdAndSessionStatus(chargerId, ChargingSession.SessionStatus.charging)
-                .ifPresent(s -> { throw new IllegalStateException("Charger is currently in use by an active session"); });
-
-        // Overlap check with existing reservations on same charger (pending/confirmed/active)
-        List<Reservation.ReservationStatus> blockingStatuses = Arrays.asList(
-                Reservation.ReservationStatus.pending,
-                Reservation.ReservationStatus.confirmed,
-                Reservation.ReservationStatus.active
-        );
-        List<Reservation> overlaps = reservationRepository.findOverlappingReservations(
-                chargerId,
-                requestDto.getReservedStartTime(),
-                requestDto.getReservedEndTime(),
-                blockingStatuses
-        );
-        if (!overlaps.isEmpty()) {
-            throw new IllegalStateException("Time window overlaps with another reservation on this charger");
-        }
+        Long chargerId = resolveCharger(requestDto.getStationId(), requestDto.getChargerId(), chargersCall,
+                startTime, endTime);
 
         Reservation reservation = new Reservation();
         reservation.setUserId(requestDto.getUserId());
         reservation.setStationId(requestDto.getStationId());
         reservation.setChargerId(chargerId);
-        reservation.setReservedStartTime(requestDto.getReservedStartTime());
-        reservation.setReservedEndTime(requestDto.getReservedEndTime());
-        reservation.setDurationMinutes(requestDto.getDurationMinutes());
+        reservation.setReservedStartTime(startTime);
+        reservation.setReservedEndTime(endTime);
+        reservation.setDurationMinutes((int) Duration.between(startTime, endTime).toMinutes());
         reservation.setStatus(Reservation.ReservationStatus.confirmed); // Confirm ngay, không cần deposit
         reservation.setConfirmationCode(generateConfirmationCode());
         
         // Set check-in deadline: 15 minutes after reservedStartTime
-        reservation.setCheckInDeadline(requestDto.getReservedStartTime().plusMinutes(15));
+        reservation.setCheckInDeadline(startTime.plusMinutes(15));
         
         // Set priority based on user's subscription package
-        try {
-            Map<String, Object> userResponse = userServiceClient.getUserById(requestDto.getUserId());
-            String subscriptionPackage = (String) userResponse.get("subscriptionPackage");
-            reservation.setSubscriptionPackage(subscriptionPackage);
-            reservation.setPriorityLevel(getPriorityLevel(subscriptionPackage));
-            log.info("User {} has package {} with priority {}", 
-                    requestDto.getUserId(), subscriptionPackage, reservation.getPriorityLevel());
-        } catch (Exception e) {
-            log.warn("Could not fetch subscription for user {}: {}", requestDto.getUserId(), e.getMessage());
-            reservation.setPriorityLevel(0); // Default no priority
-        }
+        applySubscription(reservation, subscriptionCall);
         
         // Save first to get reservationId
         Reservation saved = reservationRepository.save(reservation);
+        // Giữ các slot của trụ: insert trùng khóa nếu một đặt chỗ đồng thời đã lấy khung giờ này
+        slotClaims.claim(saved);
+        metrics.record(ChargingMetrics.Transition.RESERVATION_CREATED);
         log.info("Reservation created: {}", saved.getReservationId());
 
         // Generate QR code after save (when reservationId is available)
         saved.setQrCode(generateQRCode(saved));
         
-        // Update charger status to "reserved"
-        try {
-            UpdateChargerStatusDto updateStatus = new UpdateChargerStatusDto();
-            updateStatus.setStatus(UpdateChargerStatusDto.ChargerStatus.reserved);
-            stationServiceClient.updateChargerStatus(chargerId, updateStatus);
-            log.info("Updated charger {} status to reserved", chargerId);
-        } catch (Exception e) {
-            log.warn("Failed to update charger status to reserved: {}", e.getMessage());
-            // Continue even if charger status update fails
-        }
-        
-        // Send notification to admin about new reservation
-        try {
-            notificationServiceClient.createNotification(new CreateNotificationRequestDto(
-                    null, // null = send to all admins (notification service will handle this)
-                    CreateNotificationRequestDto.NotificationType.reservation_confirmed,
-                    "Đặt chỗ mới",
-                    String.format("Có đặt chỗ mới tại trạm %d, trụ sạc %d. Thời gian: %s đến %s",
-                            saved.getStationId(), saved.getChargerId(),
-                            saved.getReservedStartTime(), saved.getReservedEndTime()),
-                    saved.getReservationId()
-            ));
-            log.info("Notification sent to admin about new reservation {}", saved.getReservationId());
-        } catch (Exception e) {
-            log.warn("Failed to send notification to admin: {}", e.getMessage());
-            // Continue even if notification fails
-        }
-        
-        // Also send notification to user
-        try {
-            notificationServiceClient.createNotification(new CreateNotificationRequestDto(
-                    requestDto.getUserId(),
-                    CreateNotificationRequestDto.NotificationType.reservation_confirmed,
-                    "Đặt chỗ thành công",
-                    String.format("Bạn đã đặt chỗ thành công. Mã xác nhận: %s. Thời gian: %s đến %s",
-                            saved.getConfirmationCode(),
-                            saved.getReservedStartTime(), saved.getReservedEndTime()),
-                    saved.getReservationId()
-            ));
-            log.info("Notification sent to user {} about reservation {}", requestDto.getUserId(), saved.getReservationId());
-        } catch (Exception e) {
-            log.warn("Failed to send notification to user: {}", e.getMessage());
-            // Continue even if notification fails
-        }
+        // Trụ chuyển sang "reserved" và gửi thông báo cho admin/user sau khi commit
+        announceConfirmed(saved);
         
         saved = reservationRepository.save(saved);
         log.info("Reservation confirmed: {}", saved.getReservationId());
@@ -218,16 +158,11 @@ public class ReservationServiceImpl implements ReservationService {
         reservation.setCancelledAt(LocalDateTime.now());
 
         Reservation saved = reservationRepository.save(reservation);
+        qrTokens.revoke(saved);
+        metrics.record(ChargingMetrics.Transition.RESERVATION_CANCELLED);
         
-        // Update charger status to available
-        try {
-            UpdateChargerStatusDto updateStatus = new UpdateChargerStatusDto();
-            updateStatus.setStatus(UpdateChargerStatusDto.ChargerStatus.available);
-            stationServiceClient.updateChargerStatus(reservation.getChargerId(), updateStatus);
-            log.info("Updated charger {} status to available after reservation cancellation", reservation.getChargerId());
-        } catch (Exception e) {
-            log.warn("Failed to update charger status to available: {}", e.getMessage());
-        }
+        // Update charger status to available (qua outbox, cùng thứ tự với "reserved" lúc đặt chỗ)
+        chargerStatusOutbox.enqueue(reservation.getChargerId(), UpdateChargerStatusDto.ChargerStatus.available, null);
         
         return convertToDto(saved);
     }
@@ -244,16 +179,11 @@ public class ReservationServiceImpl implements ReservationService {
         reservation.setCancelledAt(LocalDateTime.now());
 
         Reservation saved = reservationRepository.save(reservation);
+        qrTokens.revoke(saved);
+        metrics.record(ChargingMetrics.Transition.RESERVATION_CANCELLED);
         
-        // Update charger status to available
-        try {
-            UpdateChargerStatusDto updateStatus = new UpdateChargerStatusDto();
-            updateStatus.setStatus(UpdateChargerStatusDto.ChargerStatus.available);
-            stationServiceClient.updateChargerStatus(reservation.getChargerId(), updateStatus);
-            log.info("Updated charger {} status to available after admin cancellation", reservation.getChargerId());
-        } catch (Exception e) {
-            log.warn("Failed to update charger status to available: {}", e.getMessage());
-        }
+        // Update charger status to available (qua outbox, cùng thứ tự với "reserved" lúc đặt chỗ)
+        chargerStatusOutbox.enqueue(reservation.getChargerId(), UpdateChargerStatusDto.ChargerStatus.available, null);
         
         // Send notification to user
         try {
@@ -363,6 +293,7 @@ public class ReservationServiceImpl implements ReservationService {
         }
         
         reservation = reservationRepository.save(reservation);
+        metrics.record(ChargingMetrics.Transition.RESERVATION_CHECKED_IN);
         log.info("Check-in successful for reservation {}", reservationId);
         
         return convertToDto(reservation);
@@ -394,16 +325,9 @@ public class ReservationServiceImpl implements ReservationService {
         reservation.setSessionId(session.getSessionId());
         reservation.setStatus(Reservation.ReservationStatus.active);
         reservationRepository.save(reservation);
+        metrics.record(ChargingMetrics.Transition.RESERVATION_STARTED);
         
-        // Update charger status from reserved to in_use
-        try {
-            UpdateChargerStatusDto updateStatus = new UpdateChargerStatusDto();
-            updateStatus.setStatus(UpdateChargerStatusDto.ChargerStatus.in_use);
-            stationServiceClient.updateChargerStatus(reservation.getChargerId(), updateStatus);
-            log.info("Updated charger {} status from reserved to in_use", reservation.getChargerId());
-        } catch (Exception e) {
-            log.warn("Failed to update charger status to in_use: {}", e.getMessage());
-        }
+        // Charger reserved -> in_use: startSession đã ghi outbox trong cùng transaction
 
         return session;
     }
@@ -416,8 +340,16 @@ public class ReservationServiceImpl implements ReservationService {
     public SessionResponseDto startSessionFromQRCode(String qrCode, Long userId) {
         log.info("Starting session from QR code: {} for user {}", qrCode, userId);
         
-        // Tìm reservation bằng QR code
-        Reservation reservation = reservationRepository.findByQrCode(qrCode)
+        // Mã ký: chữ ký, thời hạn, thu hồi và chủ sở hữu được kiểm tra trước mọi truy vấn DB / gọi service
+        Optional<ReservationQrTokens.Claims> claims = qrTokens.verify(qrCode, LocalDateTime.now());
+        if (claims.isPresent() && !Objects.equals(claims.get().userId(), userId)) {
+            throw new RuntimeException("Unauthorized: QR code does not belong to you");
+        }
+
+        // Tìm reservation: theo id trong mã ký, hoặc theo qr_code với mã định dạng cũ (RES:id:code)
+        Reservation reservation = (claims.isPresent()
+                ? reservationRepository.findById(claims.get().reservationId())
+                : reservationRepository.findByQrCode(qrCode))
                 .orElseThrow(() -> new RuntimeException("Reservation not found for QR code: " + qrCode));
         
         // Validate user
@@ -447,16 +379,9 @@ public class ReservationServiceImpl implements ReservationService {
         reservation.setSessionId(session.getSessionId());
         reservation.setStatus(Reservation.ReservationStatus.active);
         reservationRepository.save(reservation);
+        metrics.record(ChargingMetrics.Transition.RESERVATION_STARTED);
         
-        // Update charger status from reserved to in_use
-        try {
-            UpdateChargerStatusDto updateStatus = new UpdateChargerStatusDto();
-            updateStatus.setStatus(UpdateChargerStatusDto.ChargerStatus.in_use);
-            stationServiceClient.updateChargerStatus(reservation.getChargerId(), updateStatus);
-            log.info("Updated charger {} status from reserved to in_use", reservation.getChargerId());
-        } catch (Exception e) {
-            log.warn("Failed to update charger status to in_use: {}", e.getMessage());
-        }
+        // Charger reserved -> in_use: startSession đã ghi outbox trong cùng transaction
         
         log.info("Session {} started from QR code {} for reservation {}", session.getSessionId(), qrCode, reservation.getReservationId());
         return session;
@@ -499,52 +424,148 @@ public class ReservationServiceImpl implements ReservationService {
         }
     }
 
+    /**
+     * Trụ cho khung giờ: trụ được chỉ định phải trống (kiểm tra trong DB), nếu không thì tự tìm trụ trống tại trạm.
+     */
+    private Long resolveCharger(Long stationId, Long chargerId, DependencyFanOut.Call<List<Map<String, Object>>> chargersCall,
+                                LocalDateTime startTime, LocalDateTime endTime) {
+        // Nếu chargerId null, tự động tìm charger available tại station
+        if (chargerId == null) {
+            log.info("chargerId is null, finding available charger at station {}", stationId);
+            // findAvailableCharger sẽ throw IllegalStateException với thông báo chi tiết nếu không tìm thấy
+            // (trụ được chọn đã được kiểm tra lại trong DB)
+            Long found = findAvailableCharger(stationId, chargersCall.get(), startTime, endTime);
+            log.info("Found available charger: {}", found);
+            return found;
+        }
+        // Check charger has no active charging session and no overlapping reservation (pending/confirmed/active)
+        switch (verifyInDatabase(chargerId, startTime, endTime)) {
+            case session -> throw new IllegalStateException("Charger is currently in use by an active session");
+            case reservation -> throw new IllegalStateException("Time window overlaps with another reservation on this charger");
+            default -> { }
+        }
+        return chargerId;
+    }
+
+    /**
+     * Chỉ cho phép đặt chỗ khi trạm đang online. Không lấy được trạng thái (lỗi hoặc quá hạn) thì vẫn cho đặt,
+     * như trước đây.
+     */
+    private void requireStationOnline(DependencyFanOut.Call<Map<String, Object>> stationCall) {
+        try {
+            Map<String, Object> station = stationCall.getOrElse(null);
+            if (station != null) {
+                String stationStatus = (String) station.get("status");
+                if (stationStatus == null || !"online".equalsIgnoreCase(stationStatus)) {
+                    String statusMsg = stationStatus == null ? "không xác định" :
+                                       "maintenance".equalsIgnoreCase(stationStatus) ? "đang bảo trì" :
+                                       "offline".equalsIgnoreCase(stationStatus) ? "tạm ngưng" :
+                                       "closed".equalsIgnoreCase(stationStatus) ? "đã đóng cửa" : stationStatus;
+                    throw new IllegalStateException("Trạm " + statusMsg + ". Không thể đặt chỗ hoặc sạc tại thời điểm này.");
+                }
+            }
+        } catch (IllegalStateException e) {
+            throw e; // Re-throw validation errors
+        } catch (Exception e) {
+            log.warn("Could not verify station status, proceeding anyway: {}", e.getMessage());
+            // Continue if station service is unavailable (fail gracefully)
+        }
+    }
+
+    private void applySubscription(Reservation reservation, DependencyFanOut.Call<String> subscriptionCall) {
+        try {
+            String subscriptionPackage = subscriptionCall.get();
+            reservation.setSubscriptionPackage(subscriptionPackage);
+            reservation.setPriorityLevel(getPriorityLevel(subscriptionPackage));
+            log.info("User {} has package {} with priority {}",
+                    reservation.getUserId(), subscriptionPackage, reservation.getPriorityLevel());
+        } catch (Exception e) {
+            log.warn("Could not fetch subscription for user {}: {}", reservation.getUserId(), e.getMessage());
+            reservation.setPriorityLevel(0); // Default no priority
+        }
+    }
+
+    /**
+     * Reservation vừa được xác nhận: trụ chuyển sang "reserved" (ChargerStatusOutboxRelay gửi sau commit),
+     * thông báo cho admin và user sau commit, ngoài luồng request.
+     */
+    private void announceConfirmed(Reservation saved) {
+        chargerStatusOutbox.enqueue(saved.getChargerId(), UpdateChargerStatusDto.ChargerStatus.reserved, null);
+
+        CreateNotificationRequestDto adminNotification = new CreateNotificationRequestDto(
+                null, // null = send to all admins (notification service will handle this)
+                CreateNotificationRequestDto.NotificationType.reservation_confirmed,
+                "Đặt chỗ mới",
+                String.format("Có đặt chỗ mới tại trạm %d, trụ sạc %d. Thời gian: %s đến %s",
+                        saved.getStationId(), saved.getChargerId(),
+                        saved.getReservedStartTime(), saved.getReservedEndTime()),
+                saved.getReservationId()
+        );
+        dependencyFanOut.afterCommit("adminNotification", () -> notificationServiceClient.createNotification(adminNotification));
+
+        CreateNotificationRequestDto userNotification = new CreateNotificationRequestDto(
+                saved.getUserId(),
+                CreateNotificationRequestDto.NotificationType.reservation_confirmed,
+                "Đặt chỗ thành công",
+                String.format("Bạn đã đặt chỗ thành công. Mã xác nhận: %s. Thời gian: %s đến %s",
+                        saved.getConfirmationCode(),
+                        saved.getReservedStartTime(), saved.getReservedEndTime()),
+                saved.getReservationId()
+        );
+        dependencyFanOut.afterCommit("userNotification", () -> notificationServiceClient.createNotification(userNotification));
+    }
+
     private String generateConfirmationCode() {
         return UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
 
     private String generateQRCode(Reservation reservation) {
-        // Generate QR code data (can be JSON or simple string)
+        // Mã QR ký HMAC (reservation, trụ, user, thời hạn): trạm và service tự kiểm tra không cần DB
         // reservationId is now guaranteed to be non-null since we save before calling this
-        return "RES:" + reservation.getReservationId() + ":" + reservation.getConfirmationCode();
+        return qrTokens.issue(reservation);
+    }
+
+    /**
+     * Lấy danh sách chargers của station từ station-service, dịch lỗi kết nối thành thông báo cho user
+     */
+    private List<Map<String, Object>> fetchChargers(Long stationId) {
+        try {
+            log.info("Calling station-service to get chargers for station {}", stationId);
+            List<Map<String, Object>> chargers = stationServiceClient.getChargersByStationId(stationId);
+            log.info("Received {} chargers from station-service", chargers != null ? chargers.size() : 0);
+            return chargers;
+        } catch (org.springframework.cloud.client.circuitbreaker.NoFallbackAvailableException e) {
+            log.error("STATION-SERVICE không khả dụng (Circuit breaker). Có thể service chưa chạy hoặc chưa đăng ký với Eureka. Error: {}", e.getMessage());
+            throw new IllegalStateException("Trạm sạc service hiện không khả dụng. Vui lòng đảm bảo Station Service đang chạy và đã đăng ký với Eureka.");
+        } catch (feign.FeignException.NotFound e) {
+            log.error("Station {} không tồn tại (404): {}", stationId, e.getMessage());
+            throw new IllegalStateException("Trạm " + stationId + " không tồn tại. Vui lòng chọn trạm khác.");
+        } catch (feign.FeignException e) {
+            log.error("Feign exception when calling station-service for station {}: Status={}, Message={}", 
+                    stationId, e.status(), e.getMessage());
+            throw new IllegalStateException("Không thể kết nối đến trạm sạc service (HTTP " + e.status() + 
+                    "). Vui lòng kiểm tra Station Service đang chạy.");
+        } catch (org.springframework.web.client.ResourceAccessException e) {
+            // ResourceAccessException wraps ConnectException, SocketTimeoutException, and other connection issues
+            log.error("Resource access exception when calling station-service for station {}: {} (Cause: {})", 
+                    stationId, e.getMessage(), e.getCause() != null ? e.getCause().getClass().getSimpleName() : "unknown");
+            throw new IllegalStateException("Không thể kết nối đến trạm sạc service. Vui lòng đảm bảo Station Service đang chạy (port 9001) và đã đăng ký với Eureka.");
+        } catch (Exception e) {
+            log.error("Unexpected error when calling station-service for station {}: {} - {}", 
+                    stationId, e.getClass().getSimpleName(), e.getMessage(), e);
+            throw new IllegalStateException("Lỗi khi lấy danh sách trụ sạc từ trạm " + stationId + ": " + 
+                    (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()) + 
+                    ". Vui lòng kiểm tra Station Service đang chạy.");
+        }
     }
 
     /**
      * Tìm charger available tại station cho time slot được yêu cầu
+     * @param chargers danh sách chargers của station (fetchChargers)
      */
-    private Long findAvailableCharger(Long stationId, LocalDateTime startTime, LocalDateTime endTime) {
+    private Long findAvailableCharger(Long stationId, List<Map<String, Object>> chargers, LocalDateTime startTime, LocalDateTime endTime) {
         try {
             log.info("Finding available charger at station {} for time slot {} - {}", stationId, startTime, endTime);
-            // Lấy danh sách chargers từ station-service
-            List<Map<String, Object>> chargers;
-            try {
-                log.info("Calling station-service to get chargers for station {}", stationId);
-                chargers = stationServiceClient.getChargersByStationId(stationId);
-                log.info("Received {} chargers from station-service", chargers != null ? chargers.size() : 0);
-            } catch (org.springframework.cloud.client.circuitbreaker.NoFallbackAvailableException e) {
-                log.error("STATION-SERVICE không khả dụng (Circuit breaker). Có thể service chưa chạy hoặc chưa đăng ký với Eureka. Error: {}", e.getMessage());
-                throw new IllegalStateException("Trạm sạc service hiện không khả dụng. Vui lòng đảm bảo Station Service đang chạy và đã đăng ký với Eureka.");
-            } catch (feign.FeignException.NotFound e) {
-                log.error("Station {} không tồn tại (404): {}", stationId, e.getMessage());
-                throw new IllegalStateException("Trạm " + stationId + " không tồn tại. Vui lòng chọn trạm khác.");
-            } catch (feign.FeignException e) {
-                log.error("Feign exception when calling station-service for station {}: Status={}, Message={}", 
-                        stationId, e.status(), e.getMessage());
-                throw new IllegalStateException("Không thể kết nối đến trạm sạc service (HTTP " + e.status() + 
-                        "). Vui lòng kiểm tra Station Service đang chạy.");
-            } catch (org.springframework.web.client.ResourceAccessException e) {
-                // ResourceAccessException wraps ConnectException, SocketTimeoutException, and other connection issues
-                log.error("Resource access exception when calling station-service for station {}: {} (Cause: {})", 
-                        stationId, e.getMessage(), e.getCause() != null ? e.getCause().getClass().getSimpleName() : "unknown");
-                throw new IllegalStateException("Không thể kết nối đến trạm sạc service. Vui lòng đảm bảo Station Service đang chạy (port 9001) và đã đăng ký với Eureka.");
-            } catch (Exception e) {
-                log.error("Unexpected error when calling station-service for station {}: {} - {}", 
-                        stationId, e.getClass().getSimpleName(), e.getMessage(), e);
-                throw new IllegalStateException("Lỗi khi lấy danh sách trụ sạc từ trạm " + stationId + ": " + 
-                        (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()) + 
-                        ". Vui lòng kiểm tra Station Service đang chạy.");
-            }
-            
             if (chargers == null || chargers.isEmpty()) {
                 log.warn("No chargers found at station {}. This station may not have any chargers configured.", stationId);
                 throw new IllegalStateException("Trạm " + stationId + " không có trụ sạc nào. Vui lòng chọn trạm khác.");
@@ -552,18 +573,13 @@ public class ReservationServiceImpl implements ReservationService {
             
             log.info("Found {} chargers at station {}", chargers.size(), stationId);
 
-            List<Reservation.ReservationStatus> blockingStatuses = Arrays.asList(
-                    Reservation.ReservationStatus.pending,
-                    Reservation.ReservationStatus.confirmed,
-                    Reservation.ReservationStatus.active
-            );
-
             // Tìm charger available (status = available hoặc reserved) và không có overlap
             int availableCount = 0;
             int busyCount = 0;
             int invalidStatusCount = 0;
             int hasActiveSessionCount = 0;
             int hasOverlapCount = 0;
+            List<Long> reportedBusy = new ArrayList<>();
             
             for (Map<String, Object> charger : chargers) {
                 // Try multiple possible keys for charger ID (chargerId, id, charger_id)
@@ -608,25 +624,22 @@ public class ReservationServiceImpl implements ReservationService {
                 
                 availableCount++;
                 
-                // Kiểm tra không có active charging session
-                boolean hasActiveSession = chargingSessionRepository
-                        .findFirstByChargerIdAndSessionStatus(chargerId, ChargingSession.SessionStatus.charging)
-                        .isPresent();
+                // Index chỉ là gợi ý (chỉ thấy thay đổi trên instance này): trụ index báo trống được xác nhận
+                // trong DB ngay, trụ index báo bận để lại và kiểm tra lại trong DB nếu không còn trụ nào khác
+                if (availabilityIndex.conflict(chargerId, startTime, endTime) != ChargerAvailabilityIndex.Conflict.none) {
+                    reportedBusy.add(chargerId);
+                    continue;
+                }
+                ChargerAvailabilityIndex.Conflict conflict = verifyInDatabase(chargerId, startTime, endTime);
                 
-                if (hasActiveSession) {
+                if (conflict == ChargerAvailabilityIndex.Conflict.session) {
                     hasActiveSessionCount++;
                     log.debug("Charger {} has active charging session, skipping", chargerId);
                     continue;
                 }
-
-                // Kiểm tra không có overlapping reservations
-                List<Reservation> overlaps = reservationRepository.findOverlappingReservations(
-                        chargerId, startTime, endTime, blockingStatuses
-                );
-                
-                if (!overlaps.isEmpty()) {
+                if (conflict == ChargerAvailabilityIndex.Conflict.reservation) {
                     hasOverlapCount++;
-                    log.debug("Charger {} has {} overlapping reservations, skipping", chargerId, overlaps.size());
+                    log.debug("Charger {} has overlapping reservations, skipping", chargerId);
                     continue;
                 }
                 
@@ -634,6 +647,21 @@ public class ReservationServiceImpl implements ReservationService {
                 log.info("Found available charger {} at station {}", chargerId, stationId);
                 return chargerId;
             }
+
+            // Xung đột do index báo có thể đã cũ (instance khác đã kết thúc phiên/hủy đặt chỗ): bỏ các mục đó và đọc
+            // lại cửa sổ này từ DB; xung đột thật được nạp lại vào index
+            for (Long chargerId : reportedBusy) {
+                availabilityIndex.forget(chargerId, startTime, endTime);
+                ChargerAvailabilityIndex.Conflict conflict = verifyInDatabase(chargerId, startTime, endTime);
+                if (conflict == ChargerAvailabilityIndex.Conflict.session) {
+                    hasActiveSessionCount++;
+                } else if (conflict == ChargerAvailabilityIndex.Conflict.reservation) {
+                    hasOverlapCount++;
+                } else {
+                    log.info("Found available charger {} at station {} (stale index entry dropped)", chargerId, stationId);
+                    return chargerId;
+                }
+            }
             
             // Log chi tiết về lý do không tìm thấy charger
             StringBuilder reasonMsg = new StringBuilder();
@@ -671,6 +699,23 @@ public class ReservationServiceImpl implements ReservationService {
         }
     }
 
+    /**
+     * Kiểm tra trong DB: phiên đang chạy trên trụ (các trạng thái index theo dõi), rồi reservation trùng giờ
+     * (pending/confirmed/active). Mọi xung đột tìm thấy được nạp vào ChargerAvailabilityIndex (ví dụ do instance khác ghi).
+     */
+    private ChargerAvailabilityIndex.Conflict verifyInDatabase(Long chargerId, LocalDateTime startTime, LocalDateTime endTime) {
+        Optional<ChargingSession> activeSession = chargingSessionRepository
+                .findFirstByChargerIdAndSessionStatusIn(chargerId, ActiveSessionRegistry.TRACKED_STATUSES);
+        List<Reservation> overlaps = reservationRepository.findOverlappingReservations(
+                chargerId, startTime, endTime, BLOCKING_STATUSES, LocalDateTime.now());
+        activeSession.ifPresent(availabilityIndex::refresh);
+        overlaps.forEach(availabilityIndex::refresh);
+        if (activeSession.isPresent()) {
+            return ChargerAvailabilityIndex.Conflict.session;
+        }
+        return overlaps.isEmpty() ? ChargerAvailabilityIndex.Conflict.none : ChargerAvailabilityIndex.Conflict.reservation;
+    }
+
     /**
      * Helper method để lấy Long value từ Map
      */
@@ -721,95 +766,126 @@ public class ReservationServiceImpl implements ReservationService {
         }
     }
 
+    /**
+     * Route booking (chain booking): giữ chỗ mọi chặng rồi xác nhận tất cả cùng lúc.
+     * Chặng nào thất bại thì không chặng nào được giữ, nên không phải hủy bù các chặng trước.
+     */
     @Override
-    @Transactional
     public List<ReservationResponseDto> createRouteReservations(Long userId, List<RouteBookingRequestDto.RouteBookingItemDto> bookings) {
-        log.info("Creating route reservations for user {} with {} bookings", userId, bookings.size());
-        
+        List<ReservationResponseDto> holds = holdRouteReservations(userId, bookings);
+        return commitRouteReservations(holds.get(0).getRouteId(), userId);
+    }
+
+    /**
+     * Phase 1: giữ chỗ tạm (pending, hết hạn sau ROUTE_HOLD_TTL) trên mọi chặng của lộ trình.
+     * Tra cứu station-service của mọi chặng và gói subscription chạy song song; sau đó toàn bộ giữ chỗ được ghi
+     * trong một transaction ngắn, nên hoặc mọi chặng được giữ hoặc không chặng nào. Giữ chỗ không được xác nhận
+     * thì tự hết hạn (ReservationScheduler đánh dấu expired), không cần gọi service nào để hoàn tác.
+     */
+    @Override
+    @Timed(value = "charging.operations", extraTags = {"operation", "holdRoute"})
+    public List<ReservationResponseDto> holdRouteReservations(Long userId, List<RouteBookingRequestDto.RouteBookingItemDto> bookings) {
         if (bookings == null || bookings.isEmpty()) {
             throw new IllegalArgumentException("Bookings list cannot be empty");
         }
-        
-        // Sort bookings by order
-        bookings.sort((a, b) -> Integer.compare(a.getOrder() != null ? a.getOrder() : 0, b.getOrder() != null ? b.getOrder() : 0));
-        
-        List<ReservationResponseDto> createdReservations = new java.util.ArrayList<>();
-        // Create a shorter route group ID to fit within confirmation_code limit (20 chars)
-        // Format: R-timestamp-userId (e.g., "R-345678-16" = 9 chars, leaving 11 for originalCode)
-        // Use last 6 digits of timestamp (seconds) to keep it short
-        long timestampSeconds = System.currentTimeMillis() / 1000;
-        String timestampStr = String.valueOf(timestampSeconds);
-        String shortTimestamp = timestampStr.length() > 6 ? timestampStr.substring(timestampStr.length() - 6) : timestampStr;
-        String routeGroupId = "R-" + shortTimestamp + "-" + userId;
-        
-        for (RouteBookingRequestDto.RouteBookingItemDto booking : bookings) {
-            try {
-                // Create CreateReservationRequestDto from RouteBookingItemDto
-                CreateReservationRequestDto requestDto = new CreateReservationRequestDto();
-                requestDto.setUserId(userId);
-                requestDto.setStationId(booking.getStationId());
-                requestDto.setChargerId(booking.getChargerId());
-                requestDto.setReservedStartTime(booking.getReservedStartTime());
-                requestDto.setReservedEndTime(booking.getReservedEndTime());
-                requestDto.setDurationMinutes(booking.getDurationMinutes());
-                
-                // Create reservation using existing method
-                ReservationResponseDto reservation = createReservation(requestDto);
-                
-                // Mark as part of route by updating confirmation code to include route group ID
-                // Keep it short to fit within 20 char limit: R-timestamp-userId-XXXX
-                Reservation savedReservation = reservationRepository.findById(reservation.getReservationId())
-                    .orElseThrow(() -> new RuntimeException("Reservation not found after creation"));
-                String originalCode = savedReservation.getConfirmationCode();
-                // Truncate originalCode if needed to ensure total length <= 20
-                String newCode = routeGroupId + "-" + originalCode;
-                if (newCode.length() > 20) {
-                    int maxOriginalLength = 20 - routeGroupId.length() - 1; // -1 for the dash
-                    if (maxOriginalLength > 0) {
-                        String truncatedOriginal = originalCode.length() > maxOriginalLength 
-                            ? originalCode.substring(originalCode.length() - maxOriginalLength)
-                            : originalCode;
-                        newCode = routeGroupId + "-" + truncatedOriginal;
-                    } else {
-                        // If routeGroupId itself is too long, use just the first 19 chars
-                        newCode = routeGroupId.substring(0, Math.min(19, routeGroupId.length()));
-                    }
-                }
-                savedReservation.setConfirmationCode(newCode);
-                reservationRepository.save(savedReservation);
-                reservation.setConfirmationCode(savedReservation.getConfirmationCode());
-                
-                createdReservations.add(reservation);
-                log.info("Created reservation {} for route {} at station {}", 
-                    reservation.getReservationId(), routeGroupId, booking.getStationId());
-                    
-            } catch (Exception e) {
-                log.error("Failed to create reservation for route booking at station {}: {}", 
-                    booking.getStationId(), e.getMessage(), e);
-                
-                // If any reservation fails, cancel all previously created ones
-                for (ReservationResponseDto created : createdReservations) {
-                    try {
-                        Reservation toCancel = reservationRepository.findById(created.getReservationId())
-                            .orElse(null);
-                        if (toCancel != null && toCancel.getStatus() != Reservation.ReservationStatus.cancelled) {
-                            toCancel.setStatus(Reservation.ReservationStatus.cancelled);
-                            toCancel.setCancellationReason("Route booking failed: " + e.getMessage());
-                            toCancel.setCancelledAt(LocalDateTime.now());
-                            reservationRepository.save(toCancel);
-                        }
-                    } catch (Exception cancelError) {
-                        log.error("Failed to cancel reservation {} during rollback: {}", 
-                            created.getReservationId(), cancelError.getMessage());
-                    }
-                }
-                
-                throw new RuntimeException("Failed to create route reservations: " + e.getMessage(), e);
+        log.info("Holding route reservations for user {} with {} bookings", userId, bookings.size());
+
+        List<RouteBookingRequestDto.RouteBookingItemDto> legs = new ArrayList<>(bookings);
+        legs.sort(Comparator.comparingInt(b -> b.getOrder() != null ? b.getOrder() : 0));
+        for (RouteBookingRequestDto.RouteBookingItemDto leg : legs) {
+            if (leg.getStationId() == null) {
+                throw new IllegalArgumentException("stationId is required for every booking");
+            }
+            validateRequestTimes(leg.getReservedStartTime(), leg.getReservedEndTime(), leg.getDurationMinutes());
+        }
+
+        // Mỗi trạm chỉ tra cứu một lần dù có nhiều chặng
+        DependencyFanOut.Scope lookups = dependencyFanOut.open("holdRoute");
+        Map<Long, DependencyFanOut.Call<Map<String, Object>>> stationCalls = new HashMap<>();
+        Map<Long, DependencyFanOut.Call<List<Map<String, Object>>>> chargersCalls = new HashMap<>();
+        for (RouteBookingRequestDto.RouteBookingItemDto leg : legs) {
+            Long stationId = leg.getStationId();
+            stationCalls.computeIfAbsent(stationId,
+                    id -> lookups.fork("station-" + id, () -> stationServiceClient.getStationById(id)));
+            if (leg.getChargerId() == null) {
+                chargersCalls.computeIfAbsent(stationId, id -> lookups.fork("chargers-" + id, () -> fetchChargers(id)));
             }
         }
-        
-        log.info("Successfully created {} reservations for route {}", createdReservations.size(), routeGroupId);
-        return createdReservations;
+        DependencyFanOut.Call<String> subscriptionCall = lookups.fork("entitlement",
+                () -> entitlementCache.get(userId).subscriptionPackage());
+        lookups.join();
+        stationCalls.values().forEach(this::requireStationOnline);
+
+        String routeId = UUID.randomUUID().toString();
+        LocalDateTime holdExpiresAt = LocalDateTime.now().plus(ROUTE_HOLD_TTL);
+        List<Reservation> held = transactionTemplate.execute(status -> {
+            List<Reservation> rows = new ArrayList<>();
+            for (RouteBookingRequestDto.RouteBookingItemDto leg : legs) {
+                // Kiểm tra trong DB thấy cả các chặng vừa giữ trong transaction này
+                LocalDateTime startTime = ReservationSlotClaims.snap(leg.getReservedStartTime());
+                LocalDateTime endTime = ReservationSlotClaims.snapEnd(startTime, leg.getReservedEndTime());
+                Long chargerId = resolveCharger(leg.getStationId(), leg.getChargerId(),
+                        chargersCalls.get(leg.getStationId()), startTime, endTime);
+                Reservation reservation = new Reservation();
+                reservation.setUserId(userId);
+                reservation.setStationId(leg.getStationId());
+                reservation.setChargerId(chargerId);
+                reservation.setReservedStartTime(startTime);
+                reservation.setReservedEndTime(endTime);
+                reservation.setDurationMinutes((int) Duration.between(startTime, endTime).toMinutes());
+                reservation.setStatus(Reservation.ReservationStatus.pending);
+                reservation.setRouteId(routeId);
+                reservation.setHoldExpiresAt(holdExpiresAt);
+                reservation.setConfirmationCode(generateConfirmationCode());
+                reservation.setCheckInDeadline(startTime.plusMinutes(15));
+                applySubscription(reservation, subscriptionCall);
+                Reservation saved = reservationRepository.save(reservation);
+                slotClaims.claim(saved);
+                rows.add(saved);
+            }
+            return rows;
+        });
+        log.info("Held {} legs for route {} until {}", held.size(), routeId, holdExpiresAt);
+        return held.stream().map(this::convertToDto).collect(Collectors.toList());
+    }
+
+    /**
+     * Phase 2: xác nhận mọi chặng của lộ trình trong một transaction, chỉ khi tất cả vẫn còn được giữ.
+     * Gọi lại cho lộ trình đã xác nhận trả về kết quả cũ.
+     */
+    @Override
+    @Timed(value = "charging.operations", extraTags = {"operation", "commitRoute"})
+    public List<ReservationResponseDto> commitRouteReservations(String routeId, Long userId) {
+        List<Reservation> confirmed = transactionTemplate.execute(status -> {
+            List<Reservation> legs = reservationRepository.lockByRouteId(routeId);
+            if (legs.isEmpty()) {
+                throw new ResourceNotFoundException("Route not found: " + routeId);
+            }
+            if (!legs.get(0).getUserId().equals(userId)) {
+                throw new RuntimeException("Unauthorized: Route belongs to different user");
+            }
+            if (legs.stream().allMatch(r -> r.getStatus() == Reservation.ReservationStatus.confirmed
+                    && r.getHoldExpiresAt() == null)) {
+                return legs;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            for (Reservation leg : legs) {
+                if (leg.getStatus() != Reservation.ReservationStatus.pending
+                        || leg.getHoldExpiresAt() == null || !leg.getHoldExpiresAt().isAfter(now)) {
+                    throw new IllegalStateException("Giữ chỗ cho lộ trình đã hết hạn hoặc đã bị hủy. Vui lòng đặt lại.");
+                }
+            }
+            for (Reservation leg : legs) {
+                leg.setStatus(Reservation.ReservationStatus.confirmed);
+                leg.setHoldExpiresAt(null);
+                leg.setQrCode(generateQRCode(leg));
+                metrics.record(ChargingMetrics.Transition.RESERVATION_CREATED);
+                announceConfirmed(leg);
+            }
+            return reservationRepository.saveAll(legs);
+        });
+        log.info("Confirmed {} reservations for route {}", confirmed.size(), routeId);
+        return confirmed.stream().map(this::convertToDto).collect(Collectors.toList());
     }
 
     @Override
@@ -829,34 +905,15 @@ public class ReservationServiceImpl implements ReservationService {
         reservation.setCancellationReason("Route cancelled by user");
         reservation.setCancelledAt(LocalDateTime.now());
         reservationRepository.save(reservation);
+        qrTokens.revoke(reservation);
+        metrics.record(ChargingMetrics.Transition.RESERVATION_CANCELLED);
         
-        // Find and cancel all subsequent reservations for the same user
-        // (reservations with start time >= this reservation's start time, ordered by start time)
-        List<Reservation> allUserReservations = reservationRepository.findByUserIdOrderByReservedStartTimeDesc(userId);
-        
-        // Filter: same route group (check confirmation code prefix) and start time >= cancelled reservation's start time
-        String routeGroupId = null;
-        if (reservation.getConfirmationCode() != null && reservation.getConfirmationCode().startsWith("R-")) {
-            // Extract route group ID: R-timestamp-userId (first 3 parts separated by "-")
-            String[] parts = reservation.getConfirmationCode().split("-");
-            if (parts.length >= 3) {
-                routeGroupId = parts[0] + "-" + parts[1] + "-" + parts[2];
-            }
-        }
-        
+        // Hủy các chặng sau của cùng lộ trình (start time >= chặng bị hủy)
         LocalDateTime cancelledStartTime = reservation.getReservedStartTime();
         int cancelledCount = 0;
         
-        for (Reservation r : allUserReservations) {
-            // Check if it's part of the same route
-            boolean isSameRoute = false;
-            if (routeGroupId != null && r.getConfirmationCode() != null) {
-                isSameRoute = r.getConfirmationCode().startsWith(routeGroupId);
-            }
-            
-            // Cancel if: same route, start time >= cancelled reservation start time, and not already cancelled
-            if (isSameRoute && 
-                r.getReservedStartTime().isAfter(cancelledStartTime.minusSeconds(1)) && 
+        for (Reservation r : routeLegs(reservation)) {
+            if (r.getReservedStartTime().isAfter(cancelledStartTime.minusSeconds(1)) && 
                 r.getStatus() != Reservation.ReservationStatus.cancelled &&
                 !r.getReservationId().equals(reservationId)) {
                 
@@ -864,6 +921,8 @@ public class ReservationServiceImpl implements ReservationService {
                 r.setCancellationReason("Auto-cancelled: previous reservation in route was cancelled");
                 r.setCancelledAt(LocalDateTime.now());
                 reservationRepository.save(r);
+                qrTokens.revoke(r);
+                metrics.record(ChargingMetrics.Transition.RESERVATION_CANCELLED);
                 cancelledCount++;
                 log.info("Auto-cancelled subsequent reservation {} (station {}, start {})", 
                     r.getReservationId(), r.getStationId(), r.getReservedStartTime());
@@ -873,6 +932,28 @@ public class ReservationServiceImpl implements ReservationService {
         log.info("Cancelled route reservation {} and {} subsequent reservations", reservationId, cancelledCount);
     }
 
+    /**
+     * Các chặng cùng lộ trình theo route_id. Lộ trình đặt trước khi có route_id được nhận diện bằng
+     * tiền tố mã xác nhận "R-timestamp-userId".
+     */
+    private List<Reservation> routeLegs(Reservation reservation) {
+        if (reservation.getRouteId() != null) {
+            return reservationRepository.findByRouteIdOrderByReservedStartTimeAsc(reservation.getRouteId());
+        }
+        String code = reservation.getConfirmationCode();
+        if (code == null || !code.startsWith("R-")) {
+            return List.of();
+        }
+        String[] parts = code.split("-");
+        if (parts.length < 3) {
+            return List.of();
+        }
+        String routeGroupId = parts[0] + "-" + parts[1] + "-" + parts[2];
+        return reservationRepository.findByUserIdOrderByReservedStartTimeDesc(reservation.getUserId()).stream()
+                .filter(r -> r.getConfirmationCode() != null && r.getConfirmationCode().startsWith(routeGroupId))
+                .collect(Collectors.toList());
+    }
+
     private ReservationResponseDto convertToDto(Reservation r) {
         ReservationResponseDto dto = new ReservationResponseDto();
         dto.setReservationId(r.getReservationId());
@@ -887,6 +968,8 @@ public class ReservationServiceImpl implements ReservationService {
         dto.setQrCode(r.getQrCode());
         dto.setConfirmationCode(r.getConfirmationCode());
         dto.setCancellationReason(r.getCancellationReason());
+        dto.setRouteId(r.getRouteId());
+        dto.setHoldExpiresAt(r.getHoldExpiresAt());
         dto.setCancelledAt(r.getCancelledAt());
         
         // Deposit info
@@ -0,0 +1,188 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.Reservation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Claims the five-minute slots of a charger covered by a reservation in reservation_slot_claims, whose unique key
+ * (charger_id, slot_index) makes the insert itself the conflict check: of two transactions booking overlapping
+ * windows on one charger, the second insert waits for the first to commit and then fails with a duplicate key.
+ * The overlap query in ReservationServiceImpl stays as a fast, precise pre-check; the claim is the guarantee.
+ * New reservations are snapped to the five-minute grid ({@link #snap}) before they are checked and saved, so their
+ * claims cover exactly their window and back-to-back bookings never compete for a shared partial slot.
+ * Reservations made off the grid before snapping existed are claimed rounded outwards, like SlotBitmap.
+ * Claims are not deleted when a reservation is cancelled, expires or ends: a claim whose reservation no longer
+ * blocks the charger is stale and is removed by the booking that runs into it. Past slots are purged periodically.
+ */
+@Component
+public class ReservationSlotClaims {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationSlotClaims.class);
+
+    private static final String INSERT_SQL = "INSERT INTO reservation_slot_claims (charger_id, slot_index, reservation_id) VALUES ";
+    private static final String BACKFILL_SQL = "INSERT IGNORE INTO reservation_slot_claims (charger_id, slot_index, reservation_id) VALUES ";
+    private static final String CLAIMERS_SQL = "SELECT reservation_id FROM reservation_slot_claims " +
+            "WHERE charger_id = ? AND slot_index >= ? AND slot_index < ? FOR UPDATE";
+    // Đọc có khóa (current read) để thấy cả reservation vừa commit sau snapshot của transaction này
+    private static final String LIVE_SQL = "SELECT reservation_id FROM reservations WHERE reservation_id IN (%s) " +
+            "AND status IN ('pending', 'confirmed', 'active') AND (hold_expires_at IS NULL OR hold_expires_at > ?) FOR UPDATE";
+    private static final String DELETE_SQL = "DELETE FROM reservation_slot_claims WHERE reservation_id IN (%s)";
+    private static final String PURGE_SQL = "DELETE FROM reservation_slot_claims WHERE slot_index < ?";
+    private static final String UNCLAIMED_SQL = "SELECT r.reservation_id, r.charger_id, r.reserved_start_time, r.reserved_end_time " +
+            "FROM reservations r WHERE r.status IN ('pending', 'confirmed', 'active') AND r.charger_id IS NOT NULL " +
+            "AND r.reserved_end_time > ? AND NOT EXISTS " +
+            "(SELECT 1 FROM reservation_slot_claims c WHERE c.reservation_id = r.reservation_id) ORDER BY r.reservation_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReservationSlotClaims(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Five-minute slot containing the given time.
+     */
+    public static long slotOf(LocalDateTime time) {
+        return Math.floorDiv(time.toInstant(ZoneOffset.UTC).toEpochMilli(), SlotBitmap.SLOT_MS);
+    }
+
+    /**
+     * Nearest slot boundary (halfway rounds up). Applied to both ends of a new reservation, so the end of one
+     * booking and the start of the next snap to the same boundary.
+     */
+    public static LocalDateTime snap(LocalDateTime time) {
+        long millis = time.toInstant(ZoneOffset.UTC).toEpochMilli();
+        long slot = Math.floorDiv(millis + SlotBitmap.SLOT_MS / 2, SlotBitmap.SLOT_MS);
+        return LocalDateTime.ofEpochSecond(slot * SlotBitmap.SLOT_MS / 1000, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Snapped end of a window that starts at the (already snapped) start: at least one slot long.
+     */
+    public static LocalDateTime snapEnd(LocalDateTime snappedStart, LocalDateTime end) {
+        LocalDateTime snapped = snap(end);
+        return snapped.isAfter(snappedStart) ? snapped : snappedStart.plusMinutes(SlotBitmap.SLOT_MINUTES);
+    }
+
+    /**
+     * Claims every slot touched by the saved reservation. Must be called in the transaction that creates it;
+     * the claim commits or rolls back with the reservation.
+     *
+     * @throws IllegalStateException if another reservation still holds one of the slots
+     */
+    public void claim(Reservation reservation) {
+        claim(reservation.getReservationId(), reservation.getChargerId(),
+                reservation.getReservedStartTime(), reservation.getReservedEndTime());
+    }
+
+    public void claim(Long reservationId, Long chargerId, LocalDateTime start, LocalDateTime end) {
+        long first = slotOf(start);
+        long last = slotOf(end.minusNanos(1)) + 1;
+        try {
+            try {
+                insert(INSERT_SQL, reservationId, chargerId, first, last);
+            } catch (DataIntegrityViolationException duplicate) {
+                // Slot có thể chỉ bị giữ bởi reservation đã hủy/hết hạn: dọn rồi thử lại một lần
+                if (releaseStale(chargerId, first, last) == 0) {
+                    throw duplicate;
+                }
+                insert(INSERT_SQL, reservationId, chargerId, first, last);
+            }
+        } catch (DataIntegrityViolationException e) {
+            log.info("Rejected reservation {} on charger {}: slots already claimed", reservationId, chargerId);
+            throw new IllegalStateException("Time window overlaps with another reservation on this charger");
+        } catch (PessimisticLockingFailureException e) {
+            log.info("Reservation {} on charger {} lost a lock wait on its slots: {}", reservationId, chargerId, e.getMessage());
+            throw new IllegalStateException("Charger " + chargerId + " is busy, please try again");
+        }
+    }
+
+    /**
+     * One multi-row INSERT: InnoDB applies a statement fully or not at all, so a partial claim is never left behind.
+     */
+    private void insert(String insertSql, Long reservationId, Long chargerId, long first, long last) {
+        int slots = (int) (last - first);
+        StringBuilder sql = new StringBuilder(insertSql.length() + slots * 10).append(insertSql);
+        Object[] args = new Object[slots * 3];
+        for (int i = 0; i < slots; i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+            args[i * 3] = chargerId;
+            args[i * 3 + 1] = first + i;
+            args[i * 3 + 2] = reservationId;
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    /**
+     * Deletes the claims of reservations in [first, last) of the charger that no longer block it
+     * (cancelled, expired, completed, lapsed hold or deleted). Returns the number of claims removed.
+     */
+    private int releaseStale(Long chargerId, long first, long last) {
+        Set<Long> claimers = new LinkedHashSet<>(
+                jdbcTemplate.queryForList(CLAIMERS_SQL, Long.class, chargerId, first, last));
+        if (claimers.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(claimers.size(), "?"));
+        Object[] args = claimers.toArray(new Object[claimers.size() + 1]);
+        args[claimers.size()] = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> live = jdbcTemplate.queryForList(String.format(LIVE_SQL, placeholders), Long.class, args);
+        live.forEach(claimers::remove);
+        if (claimers.isEmpty()) {
+            return 0;
+        }
+        int removed = jdbcTemplate.update(String.format(DELETE_SQL,
+                String.join(", ", Collections.nCopies(claimers.size(), "?"))), claimers.toArray());
+        log.debug("Released {} stale slot claims of reservations {} on charger {}", removed, claimers, chargerId);
+        return removed;
+    }
+
+    /**
+     * Slots that have passed can no longer conflict with a new booking.
+     */
+    @Scheduled(fixedDelayString = "${charging.reservation-claims.purge-interval-ms:3600000}",
+               initialDelayString = "${charging.reservation-claims.purge-interval-ms:3600000}")
+    public void purgePastClaims() {
+        int purged = jdbcTemplate.update(PURGE_SQL, slotOf(LocalDateTime.now()));
+        if (purged > 0) {
+            log.info("Purged {} past reservation slot claims", purged);
+        }
+    }
+
+    /**
+     * Claims slots for upcoming reservations created before this table existed. Reservations that already overlap
+     * keep whichever claimed a slot first (INSERT IGNORE), as the older booking wins.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        List<Reservation> unclaimed = jdbcTemplate.query(UNCLAIMED_SQL, (rs, row) -> {
+            Reservation reservation = new Reservation();
+            reservation.setReservationId(rs.getLong(1));
+            reservation.setChargerId(rs.getLong(2));
+            reservation.setReservedStartTime(rs.getTimestamp(3).toLocalDateTime());
+            reservation.setReservedEndTime(rs.getTimestamp(4).toLocalDateTime());
+            return reservation;
+        }, Timestamp.valueOf(LocalDateTime.now()));
+        for (Reservation reservation : unclaimed) {
+            insert(BACKFILL_SQL, reservation.getReservationId(), reservation.getChargerId(),
+                    slotOf(reservation.getReservedStartTime()), slotOf(reservation.getReservedEndTime().minusNanos(1)) + 1);
+        }
+        log.info("Reservation slot claims reconciled: {} reservations backfilled", unclaimed.size());
+    }
+}
@@ -0,0 +1,47 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.ChargingSession;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a session list ordered by (startTime DESC, sessionId DESC).
+ * Clients receive it as an opaque base64url token and send it back to fetch the next page.
+ */
+public record SessionCursor(LocalDateTime startTime, Long sessionId) {
+
+    public static SessionCursor after(ChargingSession session) {
+        return new SessionCursor(session.getStartTime(), session.getSessionId());
+    }
+
+    public String encode() {
+        String raw = startTime + "|" + sessionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the decoded cursor, or null for a blank token (first page)
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static SessionCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new SessionCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException too
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.chargingservice.services;
+
+import com.chargingservice.dtos.SessionResponseDto;
+import com.chargingservice.entities.ArchivedChargingSession;
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.repositories.ArchivedChargingSessionRepository;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Session history reads that stay bounded in memory:
+ * - list pages use keyset pagination on (startTime DESC, sessionId DESC), so page N costs the same as page 1
+ * - exports stream rows from a forward-only JDBC cursor straight to the response as NDJSON or CSV
+ * Sessions moved to charging_sessions_archive (SessionArchiveScheduler) are read transparently: each page
+ * fetches the same keyset page from both tables and merges them, exports merge the two cursors row by row.
+ * The full-list reads (getUserSessions(userId), getAllSessions()) are kept only for the callers documented on
+ * ChargingController.getAllSessions and TransactionController.getMyHistory; they are read internally page by page
+ * but the result is held in memory, so new callers page with the cursor or use the streaming export.
+ */
+@Service
+public class SessionHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // MySQL Connector/J only streams a result set row by row with this fetch size; any other value buffers it all
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private static final String EXPORT_COLUMNS = "SELECT session_id, user_id, station_id, charger_id, session_code, " +
+            "start_time, end_time, energy_consumed, price_per_kwh, total_cost, session_status, is_paid, payment_id, created_at " +
+            "FROM ";
+    private static final String HOT_TABLE = "charging_sessions";
+    private static final String ARCHIVE_TABLE = "charging_sessions_archive";
+
+    // (startTime DESC, sessionId DESC), startTime null xếp cuối như ORDER BY ... DESC của MySQL
+    static final Comparator<ChargingSession> NEWEST_FIRST = Comparator
+            .comparing(ChargingSession::getStartTime, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(ChargingSession::getSessionId)
+            .reversed();
+    private static final Comparator<SessionResponseDto> NEWEST_FIRST_DTO = Comparator
+            .comparing(SessionResponseDto::getStartTime, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(SessionResponseDto::getSessionId)
+            .reversed();
+    private static final String CSV_HEADER = "sessionId,userId,stationId,chargerId,sessionCode,startTime,endTime," +
+            "energyConsumed,pricePerKwh,totalCost,sessionStatus,isPaid,paymentId,createdAt\n";
+
+    private final ChargingSessionRepository sessionRepository;
+    private final ArchivedChargingSessionRepository archiveRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final int flushEveryRows;
+
+    /**
+     * One page of sessions. nextCursor is null on the last page.
+     */
+    public record Page(List<SessionResponseDto> items, String nextCursor) {
+    }
+
+    public enum ExportFormat {
+        ndjson, csv
+    }
+
+    public SessionHistoryService(
+            ChargingSessionRepository sessionRepository,
+            ArchivedChargingSessionRepository archiveRepository,
+            ObjectMapper objectMapper,
+            DataSource dataSource,
+            @Value("${charging.export.flush-every-rows:500}") int flushEveryRows) {
+        this.sessionRepository = sessionRepository;
+        this.archiveRepository = archiveRepository;
+        this.objectMapper = objectMapper;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(STREAMING_FETCH_SIZE);
+        this.flushEveryRows = flushEveryRows;
+    }
+
+    public Page getUserSessions(Long userId, String cursorToken, int limit) {
+        SessionCursor cursor = SessionCursor.decode(cursorToken);
+        int size = clampLimit(limit);
+        // Lấy thêm 1 dòng để biết còn trang sau hay không
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<ChargingSession> hot = cursor == null
+                ? sessionRepository.findByUserIdOrderByStartTimeDescSessionIdDesc(userId, pageable)
+                : sessionRepository.findUserPageAfter(userId, cursor.startTime(), cursor.sessionId(), pageable);
+        List<ArchivedChargingSession> cold = cursor == null
+                ? archiveRepository.findByUserIdOrderByStartTimeDescSessionIdDesc(userId, pageable)
+                : archiveRepository.findUserPageAfter(userId, cursor.startTime(), cursor.sessionId(), pageable);
+        return toPage(merge(hot, cold, size + 1), size);
+    }
+
+    /**
+     * Every session of the user, newest first, read in MAX_PAGE_SIZE keyset pages.
+     */
+    public List<SessionResponseDto> getUserSessions(Long userId) {
+        return readAll(cursor -> getUserSessions(userId, cursor, MAX_PAGE_SIZE));
+    }
+
+    public Page getAllSessions(String cursorToken, int limit) {
+        SessionCursor cursor = SessionCursor.decode(cursorToken);
+        int size = clampLimit(limit);
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<ChargingSession> hot = cursor == null
+                ? sessionRepository.findAllByOrderByStartTimeDescSessionIdDesc(pageable)
+                : sessionRepository.findPageAfter(cursor.startTime(), cursor.sessionId(), pageable);
+        List<ArchivedChargingSession> cold = cursor == null
+                ? archiveRepository.findAllByOrderByStartTimeDescSessionIdDesc(pageable)
+                : archiveRepository.findPageAfter(cursor.startTime(), cursor.sessionId(), pageable);
+        return toPage(merge(hot, cold, size + 1), size);
+    }
+
+    /**
+     * Every session, newest first, read in MAX_PAGE_SIZE keyset pages. Only for GET /api/sessions?all=true.
+     */
+    public List<SessionResponseDto> getAllSessions() {
+        return readAll(cursor -> getAllSessions(cursor, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Streams every session of the user (or of all users when userId is null), newest first.
+     * Rows are written as they are read; nothing is accumulated in memory.
+     */
+    public void export(Long userId, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        if (format == ExportFormat.csv) {
+            writer.write(CSV_HEADER);
+        }
+        String filter = (userId != null ? " WHERE user_id = ?" : "") + " ORDER BY start_time DESC, session_id DESC";
+        Object[] args = userId != null ? new Object[]{userId} : new Object[0];
+        int written = 0;
+        // Hai cursor (hai kết nối) đọc song song, ghi dòng mới hơn trước; client ngắt kết nối thì đóng cả hai
+        try (Stream<SessionResponseDto> hotRows = streamingJdbcTemplate.queryForStream(
+                     EXPORT_COLUMNS + HOT_TABLE + filter, (rs, rowNum) -> mapRow(rs), args);
+             Stream<SessionResponseDto> coldRows = streamingJdbcTemplate.queryForStream(
+                     EXPORT_COLUMNS + ARCHIVE_TABLE + filter, (rs, rowNum) -> mapRow(rs), args)) {
+            Iterator<SessionResponseDto> hot = hotRows.iterator();
+            Iterator<SessionResponseDto> cold = coldRows.iterator();
+            SessionResponseDto nextHot = hot.hasNext() ? hot.next() : null;
+            SessionResponseDto nextCold = cold.hasNext() ? cold.next() : null;
+            while (nextHot != null || nextCold != null) {
+                SessionResponseDto row;
+                if (nextCold == null || (nextHot != null && NEWEST_FIRST_DTO.compare(nextHot, nextCold) <= 0)) {
+                    row = nextHot;
+                    nextHot = hot.hasNext() ? hot.next() : null;
+                } else {
+                    row = nextCold;
+                    nextCold = cold.hasNext() ? cold.next() : null;
+                }
+                if (format == ExportFormat.csv) {
+                    writeCsvRow(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                if (++written % flushEveryRows == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    // Đi hết các trang theo cursor cho các client cũ vẫn cần toàn bộ danh sách
+    private static List<SessionResponseDto> readAll(Function<String, Page> pageReader) {
+        List<SessionResponseDto> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page page = pageReader.apply(cursor);
+            all.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return all;
+    }
+
+    static int clampLimit(int limit) {
+        if (limit < 1) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    // Gộp hai trang đã sắp xếp (bảng nóng và bảng lưu trữ), giữ tối đa limit dòng mới nhất
+    static List<ChargingSession> merge(List<ChargingSession> hot, List<ArchivedChargingSession> cold, int limit) {
+        if (cold.isEmpty()) {
+            return hot;
+        }
+        List<ChargingSession> merged = new ArrayList<>(Math.min(limit, hot.size() + cold.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < hot.size() || j < cold.size())) {
+            if (j == cold.size()) {
+                merged.add(hot.get(i++));
+                continue;
+            }
+            ChargingSession archived = cold.get(j).toSession();
+            if (i < hot.size() && NEWEST_FIRST.compare(hot.get(i), archived) <= 0) {
+                merged.add(hot.get(i++));
+            } else {
+                merged.add(archived);
+                j++;
+            }
+        }
+        return merged;
+    }
+
+    private Page toPage(List<ChargingSession> rows, int size) {
+        boolean hasMore = rows.size() > size;
+        List<ChargingSession> pageRows = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? SessionCursor.after(pageRows.get(pageRows.size() - 1)).encode() : null;
+        return new Page(pageRows.stream().map(this::toDto).collect(Collectors.toList()), nextCursor);
+    }
+
+    private SessionResponseDto toDto(ChargingSession session) {
+        SessionResponseDto dto = new SessionResponseDto();
+        dto.setSessionId(session.getSessionId());
+        dto.setUserId(session.getUserId());
+        dto.setStationId(session.getStationId());
+        dto.setChargerId(session.getChargerId());
+        dto.setSessionCode(session.getSessionCode());
+        dto.setStartTime(session.getStartTime());
+        dto.setEndTime(session.getEndTime());
+        dto.setEnergyConsumed(session.getEnergyConsumed());
+        dto.setPricePerKwh(session.getPricePerKwh());
+        dto.setTotalCost(session.getTotalCost());
+        dto.setSessionStatus(session.getSessionStatus());
+        dto.setIsPaid(session.getIsPaid() != null ? session.getIsPaid() : false);
+        dto.setPaymentId(session.getPaymentId());
+        dto.setCreatedAt(session.getCreatedAt());
+        return dto;
+    }
+
+    private static SessionResponseDto mapRow(ResultSet rs) throws SQLException {
+        SessionResponseDto dto = new SessionResponseDto();
+        dto.setSessionId(rs.getLong("session_id"));
+        dto.setUserId(rs.getLong("user_id"));
+        dto.setStationId(rs.getLong("station_id"));
+        dto.setChargerId(rs.getLong("charger_id"));
+        dto.setSessionCode(rs.getString("session_code"));
+        dto.setStartTime(toLocalDateTime(rs.getTimestamp("start_time")));
+        dto.setEndTime(toLocalDateTime(rs.getTimestamp("end_time")));
+        dto.setEnergyConsumed(rs.getBigDecimal("energy_consumed"));
+        dto.setPricePerKwh(rs.getBigDecimal("price_per_kwh"));
+        dto.setTotalCost(rs.getBigDecimal("total_cost"));
+        String status = rs.getString("session_status");
+        dto.setSessionStatus(status != null ? ChargingSession.SessionStatus.valueOf(status) : null);
+        dto.setIsPaid(rs.getBoolean("is_paid"));
+        long paymentId = rs.getLong("payment_id");
+        dto.setPaymentId(rs.wasNull() ? null : paymentId);
+        dto.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        return dto;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static void writeCsvRow(Writer writer, SessionResponseDto row) throws IOException {
+        writer.write(String.valueOf(row.getSessionId()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getUserId()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getStationId()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getChargerId()));
+        writer.write(',');
+        writer.write(csvField(row.getSessionCode()));
+        writer.write(',');
+        writer.write(csvField(row.getStartTime()));
+        writer.write(',');
+        writer.write(csvField(row.getEndTime()));
+        writer.write(',');
+        writer.write(csvField(row.getEnergyConsumed()));
+        writer.write(',');
+        writer.write(csvField(row.getPricePerKwh()));
+        writer.write(',');
+        writer.write(csvField(row.getTotalCost()));
+        writer.write(',');
+        writer.write(csvField(row.getSessionStatus()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getIsPaid()));
+        writer.write(',');
+        writer.write(csvField(row.getPaymentId()));
+        writer.write(',');
+        writer.write(csvField(row.getCreatedAt()));
+        writer.write('\n');
+    }
+
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,269 @@
+package com.chargingservice.services;
+
+import com.chargingservice.dtos.SessionStatusDto;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Server-push telemetry for charging sessions (SSE).
+ * Each tick computes one status frame per (session, speedMultiplier) channel and fans it out to every subscriber.
+ * Subscribers keep at most one pending frame (newer frames replace older ones). Sends run on a small shared pool,
+ * so a client that stops reading must not hold a sender thread: a subscriber whose send has been in flight longer
+ * than charging.telemetry.send-timeout-ms, or that keeps dropping frames while its own send is in flight, is
+ * evicted and its sender thread interrupted. Frames that only wait for a free sender thread are not counted
+ * against the subscriber.
+ */
+@Component
+public class SessionTelemetryBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTelemetryBroadcaster.class);
+    private static final String EVENT_NAME = "status";
+
+    private final ChargingService chargingService;
+    private final long emitterTimeoutMs;
+    private final int maxDroppedFrames;
+    private final long sendTimeoutNanos;
+    private final ExecutorService sender;
+
+    private final Map<Channel, Set<Subscriber>> channels = new ConcurrentHashMap<>();
+
+    private record Channel(Long sessionId, int speedMultiplier) {
+    }
+
+    public SessionTelemetryBroadcaster(
+            ChargingService chargingService,
+            @Value("${charging.telemetry.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${charging.telemetry.max-dropped-frames:5}") int maxDroppedFrames,
+            @Value("${charging.telemetry.send-timeout-ms:5000}") long sendTimeoutMs,
+            @Value("${charging.telemetry.sender-threads:4}") int senderThreads) {
+        this.chargingService = chargingService;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxDroppedFrames = maxDroppedFrames;
+        this.sendTimeoutNanos = sendTimeoutMs * 1_000_000L;
+        this.sender = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "session-telemetry-sender");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Subscribe to a session's telemetry. The current frame is sent immediately.
+     */
+    public SseEmitter subscribe(Long sessionId, int speedMultiplier) {
+        Channel channel = new Channel(sessionId, Math.max(1, Math.min(100, speedMultiplier)));
+        // Throws ResourceNotFoundException before the stream is opened if the session does not exist
+        SessionStatusDto initial = chargingService.getSessionStatus(channel.sessionId(), channel.speedMultiplier());
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(channel, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        if (ActiveSessionRegistry.TRACKED_STATUSES.contains(initial.getStatus())) {
+            channels.computeIfAbsent(channel, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            subscriber.offer(initial, false);
+        } else {
+            // Session already finished: send the final frame and close
+            subscriber.offer(initial, true);
+        }
+        log.debug("Telemetry subscriber added for session {} (x{})", sessionId, channel.speedMultiplier());
+        return emitter;
+    }
+
+    @Scheduled(fixedRateString = "${charging.telemetry.tick-ms:2000}")
+    public void tick() {
+        long now = System.nanoTime();
+        for (Map.Entry<Channel, Set<Subscriber>> entry : channels.entrySet()) {
+            Channel channel = entry.getKey();
+            Set<Subscriber> subscribers = entry.getValue();
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.sendingLongerThan(now, sendTimeoutNanos)) {
+                    log.info("Evicting telemetry subscriber for session {}: send blocked for more than {} ms",
+                            channel.sessionId(), sendTimeoutNanos / 1_000_000L);
+                    subscriber.close(new TimeoutException("SSE send timed out"));
+                }
+            }
+            if (subscribers.isEmpty()) {
+                channels.remove(channel, subscribers);
+                continue;
+            }
+            SessionStatusDto frame;
+            try {
+                frame = chargingService.getSessionStatus(channel.sessionId(), channel.speedMultiplier());
+            } catch (Exception e) {
+                log.warn("Failed to compute telemetry for session {}: {}", channel.sessionId(), e.getMessage());
+                continue;
+            }
+            boolean last = !ActiveSessionRegistry.TRACKED_STATUSES.contains(frame.getStatus());
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(frame, last);
+            }
+            if (last) {
+                channels.remove(channel);
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return channels.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(subscribers -> subscribers.forEach(s -> s.close(null)));
+        channels.clear();
+        sender.shutdownNow();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        Set<Subscriber> subscribers = channels.get(subscriber.channel);
+        if (subscribers != null) {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private final class Subscriber {
+        private final Channel channel;
+        private final SseEmitter emitter;
+        private final AtomicReference<SessionStatusDto> pending = new AtomicReference<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicInteger droppedFrames = new AtomicInteger();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        // System.nanoTime() khi lần send hiện tại bắt đầu, 0 khi không có send nào đang chạy
+        private volatile long sendStartedAt;
+        private volatile Thread sendingThread;
+        private volatile boolean closeAfterSend;
+        private volatile boolean closed;
+        private volatile Throwable closeError;
+
+        private Subscriber(Channel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        void offer(SessionStatusDto frame, boolean last) {
+            if (closed) {
+                return;
+            }
+            if (last) {
+                closeAfterSend = true;
+            }
+            // Chỉ tính frame bị thay thế khi chính subscriber này đang kẹt ở send,
+            // không tính khi frame chỉ đang chờ thread gửi rảnh
+            if (pending.getAndSet(frame) != null && sendStartedAt != 0
+                    && droppedFrames.incrementAndGet() > maxDroppedFrames) {
+                log.info("Evicting slow telemetry subscriber for session {}", channel.sessionId());
+                close(new TimeoutException("SSE subscriber is not draining frames"));
+                return;
+            }
+            scheduleDrain();
+        }
+
+        boolean sendingLongerThan(long now, long timeoutNanos) {
+            long started = sendStartedAt;
+            return started != 0 && now - started > timeoutNanos;
+        }
+
+        /**
+         * Stops delivery. While a send is in flight the emitter is locked by it, so completing is left to drain()
+         * once the send returns (the interrupt makes a blocked write fail where the container supports it).
+         */
+        private void close(Throwable error) {
+            if (closed) {
+                return;
+            }
+            closeError = error;
+            closed = true;
+            unsubscribe(this);
+            if (sendStartedAt != 0) {
+                Thread thread = sendingThread;
+                if (thread != null) {
+                    thread.interrupt();
+                }
+                return;
+            }
+            complete();
+        }
+
+        private void complete() {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            Throwable error = closeError;
+            if (error == null) {
+                emitter.complete();
+            } else {
+                emitter.completeWithError(error);
+            }
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                SessionStatusDto frame;
+                while (!closed && (frame = pending.getAndSet(null)) != null) {
+                    send(frame);
+                    droppedFrames.set(0);
+                }
+                if (closeAfterSend && pending.get() == null) {
+                    close(null);
+                }
+            } catch (Exception e) {
+                log.debug("Telemetry send failed for session {}: {}", channel.sessionId(), e.getMessage());
+                close(e);
+            } finally {
+                draining.set(false);
+            }
+            if (closed) {
+                // Bị evict trong lúc send: hoàn tất emitter tại đây, sau khi send đã nhả khóa
+                complete();
+                return;
+            }
+            // A frame may have arrived between the last poll and releasing the flag
+            if (pending.get() != null) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(SessionStatusDto frame) throws Exception {
+            sendingThread = Thread.currentThread();
+            sendStartedAt = System.nanoTime();
+            try {
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(frame, MediaType.APPLICATION_JSON));
+            } finally {
+                sendStartedAt = 0;
+                sendingThread = null;
+                // Interrupt nhắm vào send vừa xong không được lọt sang subscriber kế tiếp của thread này
+                Thread.interrupted();
+            }
+        }
+    }
+}
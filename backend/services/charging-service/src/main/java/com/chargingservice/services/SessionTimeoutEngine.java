@@ -0,0 +1,106 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Tracks the auto-complete deadline of every charging session in a hierarchical timing wheel.
+ * The deadline is persisted in charging_sessions.timeout_at when the session starts, so the wheel is
+ * rebuilt from the active sessions on startup. SessionTimeoutScheduler polls expired ids every tick.
+ */
+@Component
+public class SessionTimeoutEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTimeoutEngine.class);
+    private static final int WHEEL_LEVELS = 4; // 64^4 ticks ≈ 194 days at 1 s
+
+    private final ChargingSessionRepository sessionRepository;
+    private final Duration maxDuration;
+    private final HierarchicalTimingWheel<Long> wheel;
+
+    public SessionTimeoutEngine(
+            ChargingSessionRepository sessionRepository,
+            @Value("${charging.session-timeout.max-hours:12}") long maxHours,
+            @Value("${charging.session-timeout.tick-ms:1000}") long tickMillis) {
+        this.sessionRepository = sessionRepository;
+        this.maxDuration = Duration.ofHours(maxHours);
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_LEVELS, System.currentTimeMillis());
+    }
+
+    public Duration maxDuration() {
+        return maxDuration;
+    }
+
+    public LocalDateTime deadlineFor(LocalDateTime startTime) {
+        return startTime.plus(maxDuration);
+    }
+
+    /**
+     * Schedules the session's timeout_at. When called inside a transaction it takes effect after commit.
+     */
+    public void schedule(ChargingSession session) {
+        schedule(session.getSessionId(), session.getTimeoutAt());
+    }
+
+    public void schedule(Long sessionId, LocalDateTime deadline) {
+        if (deadline == null) {
+            return;
+        }
+        long deadlineMillis = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        AfterCommit.run(() -> {
+            synchronized (wheel) {
+                wheel.schedule(sessionId, deadlineMillis);
+            }
+        });
+    }
+
+    public void cancel(Long sessionId) {
+        AfterCommit.run(() -> {
+            synchronized (wheel) {
+                wheel.cancel(sessionId);
+            }
+        });
+    }
+
+    /**
+     * Advances the wheel to now and returns the ids of sessions whose deadline has passed.
+     */
+    public List<Long> pollExpired() {
+        synchronized (wheel) {
+            return wheel.advance(System.currentTimeMillis());
+        }
+    }
+
+    public int pendingCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void recover() {
+        List<ChargingSession> sessions = sessionRepository.findBySessionStatus(ChargingSession.SessionStatus.charging);
+        for (ChargingSession session : sessions) {
+            if (session.getTimeoutAt() == null && session.getStartTime() != null) {
+                // Phiên tạo trước khi có cột timeout_at
+                session.setTimeoutAt(deadlineFor(session.getStartTime()));
+                sessionRepository.initTimeoutAt(session.getSessionId(), session.getTimeoutAt());
+            }
+            schedule(session);
+        }
+        log.info("Session timeout engine recovered {} deadlines", sessions.size());
+    }
+}
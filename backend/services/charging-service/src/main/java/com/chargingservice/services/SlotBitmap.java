@@ -0,0 +1,106 @@
+package com.chargingservice.services;
+
+/**
+ * One charger-day as 288 five-minute slots packed into five longs (bit i of the day = slot i, set = busy).
+ * A slot is busy when any interval touches part of it, so a free slot is free for its whole five minutes.
+ * Per-slot free-charger counts for a station are computed bit-sliced: the busy bitmaps are added as binary
+ * numbers one bit plane at a time, 64 slots per instruction, instead of testing slot by slot.
+ * Static helpers only; not thread-safe for arrays shared between threads.
+ */
+public final class SlotBitmap {
+
+    public static final int SLOT_MINUTES = 5;
+    public static final int SLOTS = 24 * 60 / SLOT_MINUTES;
+    public static final int WORDS = (SLOTS + 63) / 64;
+    public static final long SLOT_MS = SLOT_MINUTES * 60_000L;
+    public static final long DAY_MS = SLOTS * SLOT_MS;
+
+    private SlotBitmap() {
+    }
+
+    /**
+     * Busy slots of the day starting at dayStartMs, from the intervals of one charger.
+     */
+    public static long[] busy(ChargerIntervals intervals, long dayStartMs) {
+        long[] bits = new long[WORDS];
+        long dayEndMs = dayStartMs + DAY_MS;
+        intervals.forEachOverlap(dayStartMs, dayEndMs, (key, start, end) -> {
+            int from = start <= dayStartMs ? 0 : (int) ((start - dayStartMs) / SLOT_MS);
+            // Làm tròn lên: slot chỉ bị chiếm một phần vẫn tính là bận
+            int to = end >= dayEndMs ? SLOTS : (int) ((end - dayStartMs + SLOT_MS - 1) / SLOT_MS);
+            mark(bits, from, to);
+        });
+        return bits;
+    }
+
+    /**
+     * Sets slots [from, to).
+     */
+    public static void mark(long[] bits, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> (63 - ((to - 1) & 63));
+        if (firstWord == lastWord) {
+            bits[firstWord] |= firstMask & lastMask;
+            return;
+        }
+        bits[firstWord] |= firstMask;
+        for (int w = firstWord + 1; w < lastWord; w++) {
+            bits[w] = -1L;
+        }
+        bits[lastWord] |= lastMask;
+    }
+
+    public static boolean isBusy(long[] bits, int slot) {
+        return (bits[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    /**
+     * Number of chargers free in every slot of the day, given the busy bitmap of each charger.
+     */
+    public static int[] freeCounts(long[][] busy) {
+        int planes = 32 - Integer.numberOfLeadingZeros(Math.max(1, busy.length));
+        // sum[p][w]: bit p của số trụ trống tại mỗi slot trong word w
+        long[][] sum = new long[planes][WORDS];
+        for (long[] charger : busy) {
+            for (int w = 0; w < WORDS; w++) {
+                long carry = ~charger[w];
+                for (int p = 0; p < planes && carry != 0; p++) {
+                    long plane = sum[p][w];
+                    sum[p][w] = plane ^ carry;
+                    carry &= plane;
+                }
+            }
+        }
+        int[] counts = new int[SLOTS];
+        for (int p = 0; p < planes; p++) {
+            for (int w = 0; w < WORDS; w++) {
+                long plane = sum[p][w];
+                while (plane != 0) {
+                    int slot = (w << 6) + Long.numberOfTrailingZeros(plane);
+                    if (slot < SLOTS) {
+                        counts[slot] += 1 << p;
+                    }
+                    plane &= plane - 1;
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Hex digit k holds slots 4k..4k+3, lowest bit first (72 characters per day).
+     */
+    public static String toHex(long[] bits) {
+        char[] hex = new char[SLOTS / 4];
+        for (int i = 0; i < hex.length; i++) {
+            int nibble = (int) (bits[(i * 4) >>> 6] >>> ((i * 4) & 63)) & 0xF;
+            hex[i] = Character.forDigit(nibble, 16);
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,132 @@
+package com.chargingservice.services;
+
+import com.chargingservice.clients.StationServiceClient;
+import com.chargingservice.dtos.StationAvailabilityDto;
+import com.chargingservice.exceptions.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import feign.FeignException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Booking calendar of a station for one day: busy five-minute slots of every charger plus the number of free
+ * chargers per slot, read from the SlotBitmaps of ChargerAvailabilityIndex. The charger list and statuses come
+ * from station-service, cached for a few seconds so repeated calendar reads make no remote call. A charger whose
+ * status cannot be booked (same rule as findAvailableCharger) is busy for the whole day.
+ */
+@Service
+public class StationAvailabilityService {
+
+    private static final Logger log = LoggerFactory.getLogger(StationAvailabilityService.class);
+
+    // Giống validateRequestTimes trong ReservationServiceImpl
+    private static final int MIN_ADVANCE_MINUTES = 30;
+
+    private final ChargerAvailabilityIndex availabilityIndex;
+    private final StationServiceClient stationServiceClient;
+    private final LoadingCache<Long, List<StationCharger>> chargersByStation;
+
+    private record StationCharger(Long chargerId, String status) {
+        // Như findAvailableCharger: chỉ trụ available/reserved (hoặc chưa có trạng thái) mới đặt được
+        boolean bookable() {
+            return status == null || "available".equalsIgnoreCase(status) || "reserved".equalsIgnoreCase(status);
+        }
+    }
+
+    public StationAvailabilityService(
+            ChargerAvailabilityIndex availabilityIndex,
+            StationServiceClient stationServiceClient,
+            @Value("${charging.availability.chargers-ttl-seconds:30}") long chargersTtlSeconds) {
+        this.availabilityIndex = availabilityIndex;
+        this.stationServiceClient = stationServiceClient;
+        this.chargersByStation = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(chargersTtlSeconds))
+                .build(this::loadChargers);
+    }
+
+    public StationAvailabilityDto getAvailability(Long stationId, LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("date is required");
+        }
+        if (date.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("date must not be in the past: " + date);
+        }
+        List<StationCharger> stationChargers = chargers(stationId);
+        List<Long> chargerIds = new ArrayList<>(stationChargers.size());
+        stationChargers.forEach(charger -> chargerIds.add(charger.chargerId()));
+
+        long[][] busy = availabilityIndex.busySlots(chargerIds, date);
+        List<StationAvailabilityDto.ChargerSlotsDto> chargers = new ArrayList<>(chargerIds.size());
+        for (int i = 0; i < busy.length; i++) {
+            StationCharger charger = stationChargers.get(i);
+            if (!charger.bookable()) {
+                SlotBitmap.mark(busy[i], 0, SlotBitmap.SLOTS);
+            }
+            int busyCount = 0;
+            for (long word : busy[i]) {
+                busyCount += Long.bitCount(word);
+            }
+            chargers.add(new StationAvailabilityDto.ChargerSlotsDto(charger.chargerId(), charger.status(),
+                    SlotBitmap.toHex(busy[i]), SlotBitmap.SLOTS - busyCount));
+        }
+        return new StationAvailabilityDto(stationId, date, SlotBitmap.SLOT_MINUTES, SlotBitmap.SLOTS,
+                LocalDateTime.now().plusMinutes(MIN_ADVANCE_MINUTES), chargers, SlotBitmap.freeCounts(busy));
+    }
+
+    // Không có danh sách trụ thì không trả lịch rỗng (trông như trạm không có trụ): báo lỗi để client thử lại
+    private List<StationCharger> chargers(Long stationId) {
+        try {
+            return chargersByStation.get(stationId);
+        } catch (FeignException.NotFound e) {
+            throw new ResourceNotFoundException("Station not found with id: " + stationId);
+        } catch (RuntimeException e) {
+            log.warn("Could not load chargers of station {}: {}", stationId, e.getMessage());
+            throw new IllegalStateException("Station service is unavailable, please try again later");
+        }
+    }
+
+    private List<StationCharger> loadChargers(Long stationId) {
+        List<Map<String, Object>> chargers = stationServiceClient.getChargersByStationId(stationId);
+        List<StationCharger> result = new ArrayList<>();
+        if (chargers != null) {
+            for (Map<String, Object> charger : chargers) {
+                Long chargerId = toLong(charger.get("chargerId"), charger.get("id"), charger.get("charger_id"));
+                if (chargerId == null) {
+                    continue;
+                }
+                Object status = charger.get("status") != null ? charger.get("status") : charger.get("chargerStatus");
+                result.add(new StationCharger(chargerId, status != null ? status.toString() : null));
+            }
+        }
+        result.sort(Comparator.comparing(StationCharger::chargerId));
+        return List.copyOf(result);
+    }
+
+    private static Long toLong(Object... candidates) {
+        for (Object value : candidates) {
+            if (value instanceof Number number) {
+                return number.longValue();
+            }
+            if (value instanceof String text && !text.isBlank()) {
+                try {
+                    return Long.parseLong(text.trim());
+                } catch (NumberFormatException ignored) {
+                    // thử khóa tiếp theo
+                }
+            }
+        }
+        return null;
+    }
+}
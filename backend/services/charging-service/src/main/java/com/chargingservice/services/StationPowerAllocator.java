@@ -0,0 +1,311 @@
+package com.chargingservice.services;
+
+import com.chargingservice.clients.StationServiceClient;
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Splits each station's grid capacity between the sessions charging there (one StationPowerPool per station).
+ * A session's ceiling is its charger's powerRating; the share is equal, by subscription priority, or weighted
+ * towards low state of charge (charging.power.policy). Pools are updated on every start/stop and read by the
+ * status path for the session's power, delivered energy and ETA.
+ * A pool holds every active session of its station, not just those this instance started: it is seeded from the
+ * database the first time the station is used and re-synced every charging.power.pool-resync-ms, which adds
+ * sessions started on other instances and drops ones whose end this instance missed. Ends on other instances
+ * arrive sooner through the session fanout exchange (SessionEndedListener).
+ * Station capacity and charger ratings come from station-service and are cached per station.
+ */
+@Component
+public class StationPowerAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(StationPowerAllocator.class);
+    private static final double INITIAL_SOC = 20.0; // SOC giả lập khi bắt đầu phiên
+
+    public enum Policy {
+        equal, priority, soc
+    }
+
+    /**
+     * Capacity of a station and the rating of each of its chargers, in watts.
+     */
+    public record StationProfile(long capacityW, Map<Long, Long> chargerRatingW) {
+    }
+
+    /**
+     * A session's current share and the energy delivered so far.
+     */
+    public record Allocation(long powerW, long energyWh) {
+    }
+
+    private final StationServiceClient stationServiceClient;
+    private final SubscriptionEntitlementCache entitlementCache;
+    private final ChargingSessionRepository sessionRepository;
+    private final Policy policy;
+    private final long defaultCapacityW;
+    private final long defaultChargerW;
+    private final long poolResyncMs;
+    private final LoadingCache<Long, StationProfile> profiles;
+    private final Map<Long, StationPowerPool> pools = new ConcurrentHashMap<>();
+    private final Map<Long, Long> stationBySession = new ConcurrentHashMap<>();
+    // stationId -> lần cuối pool được đối chiếu với các phiên đang chạy trong DB (epoch ms)
+    private final Map<Long, Long> syncedAt = new ConcurrentHashMap<>();
+
+    public StationPowerAllocator(
+            StationServiceClient stationServiceClient,
+            SubscriptionEntitlementCache entitlementCache,
+            ChargingSessionRepository sessionRepository,
+            @Value("${charging.power.policy:equal}") Policy policy,
+            @Value("${charging.power.default-station-capacity-kw:150}") long defaultCapacityKw,
+            @Value("${charging.power.default-charger-kw:36}") long defaultChargerKw,
+            @Value("${charging.power.profile-ttl-minutes:10}") long profileTtlMinutes,
+            @Value("${charging.power.pool-resync-ms:60000}") long poolResyncMs) {
+        this.stationServiceClient = stationServiceClient;
+        this.entitlementCache = entitlementCache;
+        this.sessionRepository = sessionRepository;
+        this.policy = policy;
+        this.defaultCapacityW = defaultCapacityKw * 1000;
+        this.defaultChargerW = defaultChargerKw * 1000;
+        this.poolResyncMs = poolResyncMs;
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(profileTtlMinutes))
+                .build(this::loadProfile);
+    }
+
+    /**
+     * Station profile, loading it from station-service on a miss. Falls back to the configured defaults
+     * (not cached) when station-service is unavailable.
+     */
+    public StationProfile profile(Long stationId) {
+        try {
+            return profiles.get(stationId);
+        } catch (Exception e) {
+            log.warn("Could not load power profile for station {}: {}", stationId, e.getMessage());
+            return new StationProfile(defaultCapacityW, Map.of());
+        }
+    }
+
+    /**
+     * Adds a running session to its station's pool. Inside a transaction this takes effect after commit.
+     */
+    public void attach(ActiveSessionRegistry.ActiveSession session) {
+        AfterCommit.run(() -> attachNow(session));
+    }
+
+    public void detach(Long sessionId) {
+        AfterCommit.run(() -> {
+            Long stationId = stationBySession.remove(sessionId);
+            StationPowerPool pool = stationId != null ? pools.get(stationId) : null;
+            if (pool != null) {
+                synchronized (pool) {
+                    pool.remove(sessionId, System.currentTimeMillis());
+                }
+            }
+        });
+    }
+
+    /**
+     * Current allocation of a running session, attaching it first if this instance has not seen it yet
+     * (e.g. after a restart or when it was started on another instance).
+     */
+    public Allocation allocation(ActiveSessionRegistry.ActiveSession session) {
+        if (!stationBySession.containsKey(session.sessionId())) {
+            attachNow(session);
+        } else {
+            syncStation(session.stationId());
+        }
+        return find(session.sessionId()).orElseGet(() -> new Allocation(defaultChargerW, 0));
+    }
+
+    public Optional<Allocation> find(Long sessionId) {
+        Long stationId = stationBySession.get(sessionId);
+        StationPowerPool pool = stationId != null ? pools.get(stationId) : null;
+        if (pool == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        synchronized (pool) {
+            if (!pool.contains(sessionId)) {
+                return Optional.empty();
+            }
+            return Optional.of(new Allocation(pool.powerW(sessionId), pool.energyWh(sessionId, now)));
+        }
+    }
+
+    /**
+     * Reports a new state of charge for the session. Only changes shares under the soc policy.
+     */
+    public void updateSoc(Long sessionId, Double soc) {
+        if (policy != Policy.soc || soc == null) {
+            return;
+        }
+        Long stationId = stationBySession.get(sessionId);
+        StationPowerPool pool = stationId != null ? pools.get(stationId) : null;
+        if (pool != null) {
+            synchronized (pool) {
+                pool.reweight(sessionId, socWeight(soc), System.currentTimeMillis());
+            }
+        }
+    }
+
+    private void attachNow(ActiveSessionRegistry.ActiveSession session) {
+        if (session.stationId() == null) {
+            return;
+        }
+        syncStation(session.stationId());
+        StationPowerPool pool = addToPool(session);
+        log.debug("Session {} attached to station {} power pool ({} sessions)", session.sessionId(), session.stationId(), pool.size());
+    }
+
+    private StationPowerPool addToPool(ActiveSessionRegistry.ActiveSession session) {
+        StationProfile profile = profile(session.stationId());
+        long maxPowerW = profile.chargerRatingW().getOrDefault(session.chargerId(), defaultChargerW);
+        long weight = weightFor(session.userId());
+        long now = System.currentTimeMillis();
+        long startMillis = session.startTime() != null
+                ? session.startTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : now;
+        StationPowerPool pool = pools.computeIfAbsent(session.stationId(), id -> new StationPowerPool(profile.capacityW(), now));
+        synchronized (pool) {
+            pool.setCapacity(profile.capacityW(), now);
+            if (!pool.contains(session.sessionId())) {
+                pool.add(session.sessionId(), maxPowerW, weight, startMillis, now);
+            }
+        }
+        stationBySession.put(session.sessionId(), session.stationId());
+        return pool;
+    }
+
+    /**
+     * Brings the station's pool in line with the station's active sessions in the database: on first use, then at
+     * most every poolResyncMs. A session that ends while the read is in flight can be added back until the next
+     * sync; the end broadcast usually removes it first.
+     */
+    private void syncStation(Long stationId) {
+        if (stationId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Long last = syncedAt.get(stationId);
+        if (last != null && now - last < poolResyncMs) {
+            return;
+        }
+        // Chỉ một thread đối chiếu mỗi lần; các thread khác dùng pool hiện tại
+        boolean claimed = last == null ? syncedAt.putIfAbsent(stationId, now) == null : syncedAt.replace(stationId, last, now);
+        if (!claimed) {
+            return;
+        }
+        // Chụp danh sách trước khi đọc DB: phiên gắn vào sau đó đã commit trước khi gắn, không được xoá nhầm
+        Set<Long> known = new HashSet<>();
+        stationBySession.forEach((sessionId, station) -> {
+            if (stationId.equals(station)) {
+                known.add(sessionId);
+            }
+        });
+        List<ChargingSession> active;
+        try {
+            active = sessionRepository.findByStationIdAndSessionStatusIn(stationId, ActiveSessionRegistry.TRACKED_STATUSES);
+        } catch (Exception e) {
+            log.warn("Could not load active sessions of station {} for its power pool: {}", stationId, e.getMessage());
+            syncedAt.remove(stationId, now);
+            return;
+        }
+        for (ChargingSession session : active) {
+            known.remove(session.getSessionId());
+            if (!stationBySession.containsKey(session.getSessionId())) {
+                addToPool(ActiveSessionRegistry.ActiveSession.of(session));
+            }
+        }
+        StationPowerPool pool = pools.get(stationId);
+        for (Long endedSessionId : known) {
+            stationBySession.remove(endedSessionId);
+            if (pool != null) {
+                synchronized (pool) {
+                    pool.remove(endedSessionId, now);
+                }
+            }
+        }
+        log.debug("Station {} power pool synced: {} active sessions, {} dropped", stationId, active.size(), known.size());
+    }
+
+    private long weightFor(Long userId) {
+        return switch (policy) {
+            case equal -> 1;
+            case soc -> socWeight(INITIAL_SOC);
+            case priority -> {
+                try {
+                    String subscriptionPackage = entitlementCache.get(userId).subscriptionPackage();
+                    yield priorityWeight(subscriptionPackage);
+                } catch (Exception e) {
+                    yield 1;
+                }
+            }
+        };
+    }
+
+    // Gói cao hơn được chia nhiều công suất hơn
+    static long priorityWeight(String subscriptionPackage) {
+        if (subscriptionPackage == null) {
+            return 1;
+        }
+        return switch (subscriptionPackage.toUpperCase()) {
+            case "SILVER" -> 2;
+            case "GOLD" -> 3;
+            case "PLATINUM" -> 4;
+            default -> 1;
+        };
+    }
+
+    // Pin càng thấp càng được ưu tiên; xe gần đầy vẫn nhận tối thiểu 5%
+    static long socWeight(double soc) {
+        return Math.max(5, Math.round(100 - soc));
+    }
+
+    private StationProfile loadProfile(Long stationId) {
+        Map<String, Object> station = stationServiceClient.getStationById(stationId);
+        Long capacityW = station != null ? toWatts(station.get("gridCapacityKw")) : null;
+        List<Map<String, Object>> chargers = stationServiceClient.getChargersByStationId(stationId);
+        Map<Long, Long> ratings = new HashMap<>();
+        if (chargers != null) {
+            for (Map<String, Object> charger : chargers) {
+                Object chargerId = charger.get("chargerId");
+                Long ratingW = toWatts(charger.get("powerRating"));
+                if (chargerId instanceof Number number && ratingW != null && ratingW > 0) {
+                    ratings.put(number.longValue(), ratingW);
+                }
+            }
+        }
+        StationProfile profile = new StationProfile(
+                capacityW != null && capacityW > 0 ? capacityW : defaultCapacityW, Map.copyOf(ratings));
+        log.debug("Loaded power profile for station {}: capacity {} W, {} chargers", stationId, profile.capacityW(), ratings.size());
+        return profile;
+    }
+
+    private static Long toWatts(Object kw) {
+        if (kw == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(kw.toString()).movePointRight(3).longValue();
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.chargingservice.services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Shares one station's grid capacity between its running sessions (weighted max-min fairness, "water filling").
+ * Each session draws min(maxPowerW, weight * level), where level is the largest value that keeps the total within
+ * capacity. Sessions are kept in a treap ordered by maxPowerW / weight with subtree sums of power and weight,
+ * so add, remove and re-solving the level are O(log n); reading one session's power is O(1).
+ * <p>
+ * Energy is integrated lazily: every level change is appended to a short log and a session folds the segments it
+ * has not seen yet when its energy is read. The log is compacted once it grows past COMPACT_THRESHOLD entries.
+ * Not thread-safe; callers must synchronise.
+ */
+public class StationPowerPool {
+
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    private long capacityW;
+    private Node root;
+    private final Map<Long, Node> sessions = new HashMap<>();
+
+    // Level history: level[i] applies from changedAt[i] until changedAt[i + 1] (or now)
+    private long[] changedAt = new long[16];
+    private double[] levels = new double[16];
+    private int segments;
+
+    private static final class Node {
+        final long sessionId;
+        final long maxPowerW;
+        final long weight;
+        final double threshold; // level at which the session reaches maxPowerW
+        final int priority = ThreadLocalRandom.current().nextInt();
+        Node left;
+        Node right;
+        long sumPowerW;
+        long sumWeight;
+
+        // Energy accounting
+        int cursor;
+        long integratedUntil;
+        long energyWms; // W·ms
+
+        Node(long sessionId, long maxPowerW, long weight) {
+            this.sessionId = sessionId;
+            this.maxPowerW = maxPowerW;
+            this.weight = weight;
+            this.threshold = (double) maxPowerW / weight;
+            this.sumPowerW = maxPowerW;
+            this.sumWeight = weight;
+        }
+
+        boolean before(Node other) {
+            return threshold < other.threshold || (threshold == other.threshold && sessionId < other.sessionId);
+        }
+
+        long powerAt(double level) {
+            return level >= threshold ? maxPowerW : (long) (weight * level);
+        }
+    }
+
+    public StationPowerPool(long capacityW, long nowMillis) {
+        if (capacityW <= 0) {
+            throw new IllegalArgumentException("Station capacity must be positive");
+        }
+        this.capacityW = capacityW;
+        appendLevel(nowMillis);
+    }
+
+    /**
+     * Adds (or re-adds) a session. Energy is counted from startMillis at the current allocation.
+     */
+    public void add(long sessionId, long maxPowerW, long weight, long startMillis, long nowMillis) {
+        if (maxPowerW <= 0 || weight <= 0) {
+            throw new IllegalArgumentException("maxPowerW and weight must be positive");
+        }
+        long carriedEnergy = 0;
+        long integratedUntil = startMillis;
+        Node previous = sessions.get(sessionId);
+        if (previous != null) {
+            integrate(previous, nowMillis);
+            carriedEnergy = previous.energyWms;
+            integratedUntil = previous.integratedUntil;
+            removeNode(previous);
+        }
+        Node node = new Node(sessionId, maxPowerW, weight);
+        node.energyWms = carriedEnergy;
+        node.integratedUntil = Math.min(integratedUntil, nowMillis);
+        sessions.put(sessionId, node);
+        Node[] parts = split(root, node);
+        root = merge(merge(parts[0], node), parts[1]);
+        appendLevel(nowMillis);
+        node.cursor = segments - 1;
+    }
+
+    /**
+     * Changes a session's weight (e.g. new SOC), keeping the energy it has accumulated.
+     */
+    public void reweight(long sessionId, long weight, long nowMillis) {
+        Node node = sessions.get(sessionId);
+        if (node != null && node.weight != weight) {
+            add(sessionId, node.maxPowerW, weight, node.integratedUntil, nowMillis);
+        }
+    }
+
+    public boolean remove(long sessionId, long nowMillis) {
+        Node node = sessions.get(sessionId);
+        if (node == null) {
+            return false;
+        }
+        removeNode(node);
+        appendLevel(nowMillis);
+        return true;
+    }
+
+    public void setCapacity(long capacityW, long nowMillis) {
+        if (capacityW <= 0) {
+            throw new IllegalArgumentException("Station capacity must be positive");
+        }
+        if (this.capacityW != capacityW) {
+            this.capacityW = capacityW;
+            appendLevel(nowMillis);
+        }
+    }
+
+    public boolean contains(long sessionId) {
+        return sessions.containsKey(sessionId);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public long capacityW() {
+        return capacityW;
+    }
+
+    /**
+     * Power currently allocated to the session, or 0 if it is not in the pool.
+     */
+    public long powerW(long sessionId) {
+        Node node = sessions.get(sessionId);
+        return node == null ? 0 : node.powerAt(levels[segments - 1]);
+    }
+
+    /**
+     * Energy delivered to the session up to nowMillis, in Wh (rounded down), or 0 if it is not in the pool.
+     */
+    public long energyWh(long sessionId, long nowMillis) {
+        Node node = sessions.get(sessionId);
+        if (node == null) {
+            return 0;
+        }
+        integrate(node, nowMillis);
+        return node.energyWms / 3_600_000L;
+    }
+
+    private void removeNode(Node node) {
+        sessions.remove(node.sessionId);
+        Node[] lower = split(root, node);             // [< node, >= node]
+        Node[] upper = splitAfterFirst(lower[1]);     // [node, > node]
+        root = merge(lower[0], upper[1]);
+    }
+
+    /**
+     * Re-solves the level for the current sessions and capacity and records it as a new segment.
+     */
+    private void appendLevel(long nowMillis) {
+        double level = solveLevel();
+        if (segments > 0 && levels[segments - 1] == level) {
+            return;
+        }
+        if (segments > 0 && changedAt[segments - 1] >= nowMillis) {
+            // Same instant: replace the last segment (every session cursor is at most segments - 1)
+            levels[segments - 1] = level;
+            return;
+        }
+        if (segments >= COMPACT_THRESHOLD) {
+            compact();
+        }
+        if (segments == changedAt.length) {
+            changedAt = Arrays.copyOf(changedAt, segments * 2);
+            levels = Arrays.copyOf(levels, segments * 2);
+        }
+        changedAt[segments] = nowMillis;
+        levels[segments] = level;
+        segments++;
+    }
+
+    /**
+     * Largest level L with sum(min(maxPowerW, weight * L)) <= capacity; +Infinity when every session fits.
+     * Walks the treap once: a node is saturated when the total at its own threshold still fits.
+     */
+    private double solveLevel() {
+        if (root == null || root.sumPowerW <= capacityW) {
+            return Double.POSITIVE_INFINITY;
+        }
+        long totalWeight = root.sumWeight;
+        long saturatedPowerW = 0; // sum of maxPowerW of sessions known to be saturated
+        long saturatedWeight = 0;
+        Node node = root;
+        while (node != null) {
+            long prefixPower = saturatedPowerW + sum(node.left, true) + node.maxPowerW;
+            long prefixWeight = saturatedWeight + sum(node.left, false) + node.weight;
+            double total = prefixPower + node.threshold * (totalWeight - prefixWeight);
+            if (total <= capacityW) {
+                saturatedPowerW = prefixPower;
+                saturatedWeight = prefixWeight;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return (double) (capacityW - saturatedPowerW) / (totalWeight - saturatedWeight);
+    }
+
+    private void integrate(Node node, long nowMillis) {
+        long from = node.integratedUntil;
+        for (int i = node.cursor; i < segments; i++) {
+            long end = i + 1 < segments ? changedAt[i + 1] : nowMillis;
+            if (end > from) {
+                node.energyWms += node.powerAt(levels[i]) * (end - from);
+                from = end;
+            }
+        }
+        node.cursor = segments - 1;
+        node.integratedUntil = Math.max(from, node.integratedUntil);
+    }
+
+    /**
+     * Folds every session up to the latest change and drops the older segments (O(n), once per COMPACT_THRESHOLD changes).
+     */
+    private void compact() {
+        long latest = changedAt[segments - 1];
+        for (Node node : sessions.values()) {
+            integrate(node, latest);
+            node.cursor = 0;
+        }
+        changedAt[0] = latest;
+        levels[0] = levels[segments - 1];
+        segments = 1;
+    }
+
+    // --- treap ---
+
+    private static long sum(Node node, boolean power) {
+        return node == null ? 0 : (power ? node.sumPowerW : node.sumWeight);
+    }
+
+    private static Node update(Node node) {
+        node.sumPowerW = node.maxPowerW + sum(node.left, true) + sum(node.right, true);
+        node.sumWeight = node.weight + sum(node.left, false) + sum(node.right, false);
+        return node;
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return update(a);
+        }
+        b.left = merge(a, b.left);
+        return update(b);
+    }
+
+    /**
+     * Splits into [nodes ordered before key, key and nodes after it].
+     */
+    private static Node[] split(Node node, Node key) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (node.before(key)) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            return new Node[]{update(node), parts[1]};
+        }
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        return new Node[]{parts[0], update(node)};
+    }
+
+    /**
+     * Splits off the smallest node: [smallest node, rest].
+     */
+    private static Node[] splitAfterFirst(Node node) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (node.left == null) {
+            Node rest = node.right;
+            node.right = null;
+            return new Node[]{update(node), rest};
+        }
+        Node[] parts = splitAfterFirst(node.left);
+        node.left = parts[1];
+        return new Node[]{parts[0], update(node)};
+    }
+}
@@ -0,0 +1,152 @@
+package com.chargingservice.services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Expected finish time of every session running at one station, for estimating when a waiting driver gets a
+ * charger. The waiting drivers themselves are kept in station_queue_entries (StationQueueService).
+ * Finish times are kept in an indexed binary min-heap (session id -> heap slot), so adding, re-estimating and
+ * removing a session is O(log c) and the next charger to free up is at the root.
+ * Not thread-safe; callers must synchronise.
+ */
+public class StationQueue {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Min-heap of expected finish times (epoch ms)
+    private long[] finishAt = new long[INITIAL_CAPACITY];
+    private long[] finishSession = new long[INITIAL_CAPACITY];
+    private int running;
+    private final Map<Long, Integer> heapSlot = new HashMap<>();
+    private long[] sortedFinish; // bản sao đã sắp xếp cho ước tính ETA; null khi heap thay đổi
+
+    // --- Running sessions ---
+
+    /**
+     * Adds a running session or updates its expected finish time.
+     */
+    public void putFinish(long sessionId, long finishAtMs) {
+        sortedFinish = null;
+        Integer slot = heapSlot.get(sessionId);
+        if (slot != null) {
+            long previous = finishAt[slot];
+            finishAt[slot] = finishAtMs;
+            if (finishAtMs < previous) {
+                siftUp(slot);
+            } else {
+                siftDown(slot);
+            }
+            return;
+        }
+        if (running == finishAt.length) {
+            finishAt = Arrays.copyOf(finishAt, running * 2);
+            finishSession = Arrays.copyOf(finishSession, running * 2);
+        }
+        finishAt[running] = finishAtMs;
+        finishSession[running] = sessionId;
+        heapSlot.put(sessionId, running);
+        siftUp(running++);
+    }
+
+    public boolean removeFinish(long sessionId) {
+        Integer slot = heapSlot.remove(sessionId);
+        if (slot == null) {
+            return false;
+        }
+        sortedFinish = null;
+        int last = --running;
+        if (slot != last) {
+            long moved = finishSession[last];
+            move(last, slot);
+            siftDown(slot);
+            siftUp(heapSlot.get(moved));
+        }
+        return true;
+    }
+
+    public boolean isRunning(long sessionId) {
+        return heapSlot.containsKey(sessionId);
+    }
+
+    public int running() {
+        return running;
+    }
+
+    /**
+     * Earliest expected finish time among running sessions, or Long.MAX_VALUE when none is running.
+     */
+    public long nextFinishMs() {
+        return running > 0 ? finishAt[0] : Long.MAX_VALUE;
+    }
+
+    // --- Estimates ---
+
+    /**
+     * Expected time at which the driver at the given position gets a charger: immediately while chargers are free,
+     * then in order of the running sessions' finish times, each charger taking nextSessionMs per further driver.
+     *
+     * @return epoch ms, or -1 when it cannot be estimated (no free charger and no running session known)
+     */
+    public long estimatedStartMs(int position, int freeChargers, long nowMs, long nextSessionMs) {
+        int behind = position - freeChargers;
+        if (behind < 0) {
+            return nowMs;
+        }
+        if (running == 0) {
+            return -1;
+        }
+        if (sortedFinish == null) {
+            sortedFinish = Arrays.copyOf(finishAt, running);
+            Arrays.sort(sortedFinish);
+        }
+        long rounds = behind / running;
+        return Math.max(nowMs, sortedFinish[behind % running]) + rounds * nextSessionMs;
+    }
+
+    // --- Heap ---
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (finishAt[parent] <= finishAt[slot]) {
+                break;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= running) {
+                return;
+            }
+            if (child + 1 < running && finishAt[child + 1] < finishAt[child]) {
+                child++;
+            }
+            if (finishAt[slot] <= finishAt[child]) {
+                return;
+            }
+            swap(slot, child);
+            slot = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long at = finishAt[a];
+        long session = finishSession[a];
+        move(b, a);
+        finishAt[b] = at;
+        finishSession[b] = session;
+        heapSlot.put(session, b);
+    }
+
+    private void move(int from, int to) {
+        finishAt[to] = finishAt[from];
+        finishSession[to] = finishSession[from];
+        heapSlot.put(finishSession[to], to);
+    }
+}
@@ -0,0 +1,270 @@
+package com.chargingservice.services;
+
+import com.chargingservice.clients.NotificationServiceClient;
+import com.chargingservice.dtos.StationQueueStatusDto;
+import com.chargingservice.dtos.internal.CreateNotificationRequestDto;
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.entities.StationQueueEntry;
+import com.chargingservice.exceptions.ResourceNotFoundException;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.chargingservice.repositories.StationQueueEntryRepository;
+import com.chargingservice.units.Energy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Virtual queue per station for drivers who arrive while every charger is busy. Waiting drivers are stored in
+ * station_queue_entries, so every instance sees the same queue and a restart keeps it; when a session ends, the
+ * instance that ended it deletes the head entry and notifies that driver (the delete decides who was called when
+ * two sessions end at once). Drivers poll their position here instead of rescanning the station's chargers.
+ * The predicted wait comes from the expected finish time of each running session (charging curve of its battery
+ * class at its allocated power), kept per instance in a StationQueue: loaded from the database, refreshed by the
+ * status path and by session ends broadcast from other instances, and reloaded after
+ * charging.queue.estimate-reload-ms so sessions started on other instances are counted.
+ * Known limits:
+ * - max-waiting-per-station is checked before the insert, so concurrent joins can pass it by a few entries
+ * - the freed charger is not held for the called driver: anyone may start on it first, the call is only a hint
+ */
+@Component
+public class StationQueueService {
+
+    private static final Logger log = LoggerFactory.getLogger(StationQueueService.class);
+
+    private final StationQueueEntryRepository queueEntryRepository;
+    private final ChargingSessionRepository sessionRepository;
+    private final StationPowerAllocator powerAllocator;
+    private final ChargingCurves chargingCurves;
+    private final NotificationServiceClient notificationServiceClient;
+    private final DependencyFanOut dependencyFanOut;
+    private final int maxWaitingPerStation;
+    private final long defaultChargerW;
+    private final long estimateReloadMs;
+    private final Map<Long, Estimates> estimates = new ConcurrentHashMap<>();
+
+    // Thời điểm kết thúc dự kiến của các phiên đang chạy ở một trạm, và lúc nạp từ DB
+    private record Estimates(StationQueue queue, long loadedAtMs) {
+    }
+
+    public StationQueueService(
+            StationQueueEntryRepository queueEntryRepository,
+            ChargingSessionRepository sessionRepository,
+            StationPowerAllocator powerAllocator,
+            ChargingCurves chargingCurves,
+            NotificationServiceClient notificationServiceClient,
+            DependencyFanOut dependencyFanOut,
+            @Value("${charging.queue.max-waiting-per-station:5000}") int maxWaitingPerStation,
+            @Value("${charging.power.default-charger-kw:36}") long defaultChargerKw,
+            @Value("${charging.queue.estimate-reload-ms:30000}") long estimateReloadMs) {
+        this.queueEntryRepository = queueEntryRepository;
+        this.sessionRepository = sessionRepository;
+        this.powerAllocator = powerAllocator;
+        this.chargingCurves = chargingCurves;
+        this.notificationServiceClient = notificationServiceClient;
+        this.dependencyFanOut = dependencyFanOut;
+        this.maxWaitingPerStation = maxWaitingPerStation;
+        this.defaultChargerW = defaultChargerKw * 1000;
+        this.estimateReloadMs = estimateReloadMs;
+    }
+
+    /**
+     * Adds the driver to the station's queue; joining again returns the current position.
+     */
+    public StationQueueStatusDto join(Long stationId, Long userId) {
+        if (stationId == null || userId == null) {
+            throw new IllegalArgumentException("stationId and userId are required");
+        }
+        // Đọc DB: phiên có thể đã bắt đầu qua instance khác
+        if (!sessionRepository.findActiveSessionsByUserId(userId).isEmpty()) {
+            throw new IllegalStateException("User " + userId + " already has an active charging session");
+        }
+        if (queueEntryRepository.findByStationIdAndUserId(stationId, userId).isEmpty()) {
+            if (queueEntryRepository.countByStationId(stationId) >= maxWaitingPerStation) {
+                throw new IllegalStateException("Queue of station " + stationId + " is full");
+            }
+            queueEntryRepository.insertEntry(stationId, userId, LocalDateTime.now());
+        }
+        log.info("User {} joined the queue of station {}", userId, stationId);
+        return status(stationId, userId);
+    }
+
+    public StationQueueStatusDto status(Long stationId, Long userId) {
+        StationQueueEntry entry = queueEntryRepository.findByStationIdAndUserId(stationId, userId)
+                .orElseThrow(() -> notQueued(stationId, userId));
+        int position = (int) queueEntryRepository.countByStationIdAndEntryIdLessThan(stationId, entry.getEntryId());
+        int waiting = (int) queueEntryRepository.countByStationId(stationId);
+        StationQueue queue = queueFor(stationId);
+        StationPowerAllocator.StationProfile profile = powerAllocator.profile(stationId);
+        long nextSessionMs = typicalSessionSeconds(profile) * 1000;
+        long now = System.currentTimeMillis();
+        int running;
+        int free;
+        long startMs;
+        synchronized (queue) {
+            running = queue.running();
+            free = Math.max(0, profile.chargerRatingW().size() - running);
+            startMs = queue.estimatedStartMs(position, free, now, nextSessionMs);
+        }
+        StationQueueStatusDto dto = new StationQueueStatusDto();
+        dto.setStationId(stationId);
+        dto.setUserId(userId);
+        dto.setPosition(position + 1);
+        dto.setQueueLength(waiting);
+        dto.setRunningSessions(running);
+        dto.setFreeChargers(free);
+        if (startMs >= 0) {
+            dto.setEstimatedWaitMinutes((int) ((startMs - now + 59_999) / 60_000));
+            dto.setEstimatedStartTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(startMs), ZoneId.systemDefault()));
+        }
+        return dto;
+    }
+
+    public void leave(Long stationId, Long userId) {
+        if (queueEntryRepository.deleteEntry(stationId, userId) == 0) {
+            throw notQueued(stationId, userId);
+        }
+        log.info("User {} left the queue of station {}", userId, stationId);
+    }
+
+    /**
+     * A session started at the station: take the driver out of the queue (in the caller's transaction) and track
+     * the session's expected finish after commit.
+     */
+    public void sessionStarted(ActiveSessionRegistry.ActiveSession session) {
+        if (session.stationId() == null) {
+            return;
+        }
+        queueEntryRepository.deleteEntry(session.stationId(), session.userId());
+        Estimates loaded = estimates.get(session.stationId());
+        if (loaded == null) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            long finishAtMs = expectedFinishMs(session);
+            synchronized (loaded.queue()) {
+                loaded.queue().putFinish(session.sessionId(), finishAtMs);
+            }
+        });
+    }
+
+    /**
+     * Latest estimate of a running session's remaining time (from the status path).
+     */
+    public void updateEstimate(Long stationId, Long sessionId, long secondsRemaining) {
+        Estimates loaded = stationId != null ? estimates.get(stationId) : null;
+        if (loaded == null) {
+            return;
+        }
+        StationQueue queue = loaded.queue();
+        long finishAtMs = System.currentTimeMillis() + secondsRemaining * 1000;
+        synchronized (queue) {
+            if (queue.isRunning(sessionId)) {
+                queue.putFinish(sessionId, finishAtMs);
+            }
+        }
+    }
+
+    /**
+     * A session at the station ended (stopped, cancelled, timed out): its charger is free, so the driver at the
+     * head of the queue is called. Runs after commit, off the request thread.
+     */
+    public void sessionEnded(Long stationId, Long sessionId) {
+        if (stationId == null) {
+            return;
+        }
+        dependencyFanOut.afterCommit("queueAdvance", () -> {
+            dropEstimate(stationId, sessionId);
+            Long next = pollHead(stationId);
+            if (next != null) {
+                notifyChargerFree(stationId, next, sessionId);
+            }
+        });
+    }
+
+    /**
+     * A session at the station ended on another instance (session event broadcast): drop its finish estimate.
+     * That instance calls the next driver.
+     */
+    public void sessionEndedElsewhere(Long stationId, Long sessionId) {
+        dropEstimate(stationId, sessionId);
+    }
+
+    private void dropEstimate(Long stationId, Long sessionId) {
+        Estimates loaded = stationId != null ? estimates.get(stationId) : null;
+        if (loaded == null) {
+            return;
+        }
+        synchronized (loaded.queue()) {
+            loaded.queue().removeFinish(sessionId);
+        }
+    }
+
+    // Xoá người đứng đầu; nếu instance khác vừa xoá trước thì thử người kế tiếp
+    private Long pollHead(Long stationId) {
+        while (true) {
+            Optional<StationQueueEntry> head = queueEntryRepository.findFirstByStationIdOrderByEntryIdAsc(stationId);
+            if (head.isEmpty()) {
+                return null;
+            }
+            if (queueEntryRepository.claimEntry(head.get().getEntryId()) == 1) {
+                return head.get().getUserId();
+            }
+        }
+    }
+
+    private StationQueue queueFor(Long stationId) {
+        long now = System.currentTimeMillis();
+        Estimates loaded = estimates.get(stationId);
+        if (loaded != null && now - loaded.loadedAtMs() < estimateReloadMs) {
+            return loaded.queue();
+        }
+        // Nạp lại từ DB để tính cả phiên bắt đầu qua instance khác (ngoài compute: có thể gọi station-service)
+        StationQueue reloaded = new StationQueue();
+        for (ChargingSession session : sessionRepository.findByStationIdAndSessionStatusIn(
+                stationId, ActiveSessionRegistry.TRACKED_STATUSES)) {
+            reloaded.putFinish(session.getSessionId(), expectedFinishMs(ActiveSessionRegistry.ActiveSession.of(session)));
+        }
+        estimates.put(stationId, new Estimates(reloaded, now));
+        return reloaded;
+    }
+
+    // Thời điểm kết thúc dự kiến: năng lượng đã nạp -> SOC hiện tại -> thời gian còn lại theo đường cong sạc
+    private long expectedFinishMs(ActiveSessionRegistry.ActiveSession session) {
+        ChargingCurve curve = chargingCurves.forClass(session.batteryClass());
+        StationPowerAllocator.Allocation allocation = powerAllocator.allocation(session);
+        long powerW = allocation.powerW() > 0 ? allocation.powerW() : defaultChargerW;
+        double soc = curve.socAfter(ChargingServiceImpl.INITIAL_SOC, Energy.ofWh(allocation.energyWh()));
+        return System.currentTimeMillis() + curve.secondsToFull(soc, powerW) * 1000;
+    }
+
+    // Thời lượng một phiên mới (pin loại chuẩn, từ SOC ban đầu) trên trụ có công suất trung bình của trạm
+    private long typicalSessionSeconds(StationPowerAllocator.StationProfile profile) {
+        long chargerW = (long) profile.chargerRatingW().values().stream()
+                .mapToLong(Long::longValue)
+                .average()
+                .orElse(defaultChargerW);
+        return chargingCurves.forClass(null).secondsToFull(ChargingServiceImpl.INITIAL_SOC, chargerW);
+    }
+
+    private void notifyChargerFree(Long stationId, Long userId, Long endedSessionId) {
+        log.info("Charger freed at station {} (session {}), calling user {}", stationId, endedSessionId, userId);
+        notificationServiceClient.createNotification(new CreateNotificationRequestDto(userId,
+                // Dùng lại loại có sẵn: notification_type là cột ENUM của MySQL mà ddl-auto update không sửa
+                CreateNotificationRequestDto.NotificationType.reservation_reminder,
+                "Charger Available",
+                "A charger is now free at station " + stationId + ". It is your turn to charge.",
+                stationId));
+    }
+
+    private static ResourceNotFoundException notQueued(Long stationId, Long userId) {
+        return new ResourceNotFoundException("User " + userId + " is not in the queue of station " + stationId);
+    }
+}
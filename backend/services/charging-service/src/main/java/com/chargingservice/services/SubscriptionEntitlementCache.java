@@ -0,0 +1,130 @@
+package com.chargingservice.services;
+
+import com.chargingservice.clients.UserServiceClient;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local cache of each user's subscription package (SILVER/GOLD/PLATINUM) loaded from user-service.
+ * Entries are refreshed in the background after refresh-minutes and dropped after ttl-minutes;
+ * user-service broadcasts subscription changes after commit (SubscriptionChangedListener), which evicts the user
+ * on every instance.
+ */
+@Component
+public class SubscriptionEntitlementCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriptionEntitlementCache.class);
+    private static final int BATCH_LOAD_SIZE = 500;
+
+    private final UserServiceClient userServiceClient;
+    private final LoadingCache<Long, Entitlement> cache;
+
+    /**
+     * Cached entitlement. subscriptionPackage is null for users without a package.
+     */
+    public record Entitlement(String subscriptionPackage) {
+        static final Entitlement NONE = new Entitlement(null);
+    }
+
+    public SubscriptionEntitlementCache(
+            UserServiceClient userServiceClient,
+            @Value("${charging.entitlements.max-size:10000}") long maxSize,
+            @Value("${charging.entitlements.ttl-minutes:30}") long ttlMinutes,
+            @Value("${charging.entitlements.refresh-minutes:5}") long refreshMinutes) {
+        this.userServiceClient = userServiceClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .refreshAfterWrite(Duration.ofMinutes(refreshMinutes))
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Entitlement load(Long userId) {
+                        return SubscriptionEntitlementCache.this.load(userId);
+                    }
+
+                    @Override
+                    public Map<Long, Entitlement> loadAll(Set<? extends Long> userIds) {
+                        return SubscriptionEntitlementCache.this.loadAll(userIds);
+                    }
+                });
+    }
+
+    /**
+     * Returns the cached entitlement, loading it from user-service on a miss.
+     * Load failures are not cached and are propagated to the caller.
+     */
+    public Entitlement get(Long userId) {
+        return cache.get(userId);
+    }
+
+    /**
+     * Returns the entitlements of all users, loading the misses from user-service in batched calls
+     * (one request per BATCH_LOAD_SIZE users) instead of one call per user.
+     * Users unknown to user-service get Entitlement.NONE. Load failures are propagated to the caller.
+     */
+    public Map<Long, Entitlement> getAll(Collection<Long> userIds) {
+        return cache.getAll(userIds);
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+        log.info("Entitlement cache invalidated for user {}", userId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private Entitlement load(Long userId) {
+        Map<String, Object> userResponse = userServiceClient.getUserById(userId);
+        Object subscriptionPackage = userResponse != null ? userResponse.get("subscriptionPackage") : null;
+        log.debug("Loaded entitlement for user {}: {}", userId, subscriptionPackage);
+        return toEntitlement(subscriptionPackage);
+    }
+
+    private Map<Long, Entitlement> loadAll(Set<? extends Long> userIds) {
+        List<Long> ids = new ArrayList<>(userIds);
+        Map<Long, Entitlement> loaded = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += BATCH_LOAD_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + BATCH_LOAD_SIZE));
+            List<Map<String, Object>> users = userServiceClient.getUsersByIds(chunk);
+            chunk.forEach(userId -> loaded.put(userId, Entitlement.NONE));
+            if (users != null) {
+                for (Map<String, Object> user : users) {
+                    if (user.get("userId") instanceof Number userId) {
+                        loaded.put(userId.longValue(), toEntitlement(user.get("subscriptionPackage")));
+                    }
+                }
+            }
+        }
+        log.debug("Loaded entitlements for {} users in batch", loaded.size());
+        return loaded;
+    }
+
+    private static Entitlement toEntitlement(Object subscriptionPackage) {
+        return subscriptionPackage == null ? Entitlement.NONE : new Entitlement(subscriptionPackage.toString());
+    }
+}
@@ -0,0 +1,160 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.entities.TariffBand;
+import com.chargingservice.repositories.TariffBandRepository;
+import com.chargingservice.units.Energy;
+import com.chargingservice.units.RatePerKwh;
+import com.chargingservice.units.Vnd;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Time-of-use pricing. Each station's tariff bands (or the default bands) are compiled into a TariffTable
+ * and cached; live quotes on the status path and final bills in stopSession are priced from the table.
+ * Minutes not covered by any band use charging.tariff.base-price-per-kwh.
+ * The subscription discount is a percentage applied on top of the band rates.
+ */
+@Component
+public class TariffEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(TariffEngine.class);
+    private static final Long DEFAULT_TARIFF = 0L; // cache key of the default (station_id = null) tariff
+
+    private final TariffBandRepository bandRepository;
+    private final RatePerKwh baseRate;
+    private final LoadingCache<Long, TariffTable> tables;
+
+    public TariffEngine(
+            TariffBandRepository bandRepository,
+            @Value("${charging.tariff.base-price-per-kwh:3000}") BigDecimal basePricePerKwh,
+            @Value("${charging.tariff.cache-minutes:5}") long cacheMinutes) {
+        this.bandRepository = bandRepository;
+        this.baseRate = RatePerKwh.of(basePricePerKwh);
+        this.tables = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(cacheMinutes))
+                .build(this::compile);
+    }
+
+    public RatePerKwh baseRate() {
+        return baseRate;
+    }
+
+    /**
+     * Compiled tariff of the station (its own bands, else the default bands, else the flat base rate).
+     */
+    public TariffTable table(Long stationId) {
+        return tables.get(stationId != null ? stationId : DEFAULT_TARIFF);
+    }
+
+    /**
+     * Rate in force at the station at the given time, after the discount.
+     */
+    public RatePerKwh rateAt(Long stationId, LocalDateTime time, long discountPercent) {
+        return table(stationId).rateAt(time).discounted(discountPercent);
+    }
+
+    /**
+     * Cost of energy delivered evenly between start and end at the station, after the discount.
+     */
+    public Vnd cost(Long stationId, LocalDateTime start, LocalDateTime end, Energy energy, long discountPercent) {
+        return Vnd.of(table(stationId).costVnd(TariffTable.localMillis(start), TariffTable.localMillis(end),
+                energy.wh(), discountPercent));
+    }
+
+    /**
+     * Sets the final bill of an ended session: total_cost, and price_per_kwh as the effective average rate
+     * (so that energy x price stays equal to the bill for payment). Sessions started before time-of-use
+     * pricing (no discount_percent) keep their flat price.
+     */
+    public Vnd settle(ChargingSession session) {
+        Energy energy = session.getEnergyConsumed() != null ? Energy.ofKwh(session.getEnergyConsumed()) : Energy.ZERO;
+        Vnd total;
+        if (session.getDiscountPercent() == null || session.getStartTime() == null || session.getEndTime() == null) {
+            RatePerKwh flat = session.getPricePerKwh() != null ? RatePerKwh.of(session.getPricePerKwh()) : baseRate;
+            total = flat.costOf(energy);
+        } else {
+            total = cost(session.getStationId(), session.getStartTime(), session.getEndTime(), energy, session.getDiscountPercent());
+            if (energy.wh() > 0) {
+                session.setPricePerKwh(total.toBigDecimal().multiply(BigDecimal.valueOf(1000))
+                        .divide(BigDecimal.valueOf(energy.wh()), 2, RoundingMode.HALF_UP));
+            }
+        }
+        session.setTotalCost(total.toBigDecimal());
+        return total;
+    }
+
+    public List<TariffBand> bands(Long stationId) {
+        return stationId != null
+                ? bandRepository.findByStationIdOrderByBandIdAsc(stationId)
+                : bandRepository.findByStationIdIsNullOrderByBandIdAsc();
+    }
+
+    /**
+     * Replaces the station's bands (stationId null = default tariff). Takes effect on this instance once the
+     * transaction commits and on others when their cached table expires.
+     */
+    @Transactional
+    public List<TariffBand> replaceBands(Long stationId, List<TariffBand> bands) {
+        for (TariffBand band : bands) {
+            validate(band);
+            band.setBandId(null);
+            band.setStationId(stationId);
+        }
+        if (stationId != null) {
+            bandRepository.deleteByStationId(stationId);
+        } else {
+            bandRepository.deleteDefaultBands();
+        }
+        List<TariffBand> saved = bandRepository.saveAll(bands);
+        // Sau commit: xoá trước đó thì một lần đọc song song có thể nạp lại và cache biểu giá cũ đến khi hết hạn
+        AfterCommit.run(() -> {
+            if (stationId != null) {
+                tables.invalidate(stationId);
+            } else {
+                // Trạm không có biểu giá riêng dùng biểu giá mặc định
+                tables.invalidateAll();
+            }
+        });
+        log.info("Tariff of {} replaced with {} bands", stationId != null ? "station " + stationId : "default", saved.size());
+        return saved;
+    }
+
+    private TariffTable compile(Long key) {
+        List<TariffBand> bands = DEFAULT_TARIFF.equals(key) ? List.of() : bandRepository.findByStationIdOrderByBandIdAsc(key);
+        if (bands.isEmpty()) {
+            bands = bandRepository.findByStationIdIsNullOrderByBandIdAsc();
+        }
+        TariffTable table = bands.isEmpty() ? TariffTable.flat(baseRate) : TariffTable.compile(bands, baseRate);
+        log.debug("Compiled tariff for {}: {} bands -> {} table entries", key, bands.size(), table.bandCount());
+        return table;
+    }
+
+    private static void validate(TariffBand band) {
+        if (band.getStartTime() == null || band.getEndTime() == null || band.getPricePerKwh() == null) {
+            throw new IllegalArgumentException("Tariff band needs startTime, endTime and pricePerKwh");
+        }
+        if (band.getPricePerKwh().centiVnd() < 0) {
+            throw new IllegalArgumentException("Tariff price must not be negative");
+        }
+        if (band.getStartTime().equals(band.getEndTime()) && !band.getStartTime().equals(LocalTime.MIDNIGHT)) {
+            throw new IllegalArgumentException("Tariff band " + band.getStartTime() + "-" + band.getEndTime() + " is empty");
+        }
+        if (band.getDayType() == null) {
+            band.setDayType(TariffBand.DayType.all);
+        }
+    }
+}
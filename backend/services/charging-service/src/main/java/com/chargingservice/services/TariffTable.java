@@ -0,0 +1,186 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.TariffBand;
+import com.chargingservice.units.FixedPoint;
+import com.chargingservice.units.RatePerKwh;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A station's tariff compiled into one sorted table of bands covering a week (Monday 00:00 to Monday 00:00).
+ * Times are wall-clock local times (the LocalDateTime values stored on sessions), expressed as "local epoch millis".
+ * Pricing an interval binary-searches its first band once and then walks band by band, so the cost is
+ * O(log bands + bands crossed) with no allocation. Energy is spread evenly over the interval.
+ * Immutable and thread-safe.
+ */
+public final class TariffTable {
+
+    static final long MINUTE_MILLIS = 60_000L;
+    static final long DAY_MILLIS = 24 * 60 * MINUTE_MILLIS;
+    static final long WEEK_MILLIS = 7 * DAY_MILLIS;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    // 1970-01-01 was a Thursday: shift so that position 0 is Monday 00:00
+    private static final long EPOCH_WEEK_SHIFT = 3 * DAY_MILLIS;
+    // Wh * centi-VND/kWh -> VND, with the discount percentage applied in the same rounding step
+    private static final long COST_DIVISOR = 1000L * 100 * 100;
+
+    private final long[] bandStart; // offset in the week, ascending, bandStart[0] == 0
+    private final long[] rateCentiVnd;
+    private final String[] labels;
+
+    private TariffTable(long[] bandStart, long[] rateCentiVnd, String[] labels) {
+        this.bandStart = bandStart;
+        this.rateCentiVnd = rateCentiVnd;
+        this.labels = labels;
+    }
+
+    /**
+     * Compiles bands over a flat base rate. Day-specific bands override "all" bands; among bands of the
+     * same kind the later one (higher id / list position) wins.
+     */
+    public static TariffTable compile(List<TariffBand> bands, RatePerKwh baseRate) {
+        long[] minuteRate = new long[MINUTES_PER_WEEK];
+        String[] minuteLabel = new String[MINUTES_PER_WEEK];
+        Arrays.fill(minuteRate, baseRate.centiVnd());
+        for (TariffBand.DayType pass : new TariffBand.DayType[]{TariffBand.DayType.all, TariffBand.DayType.weekday, TariffBand.DayType.weekend}) {
+            for (TariffBand band : bands) {
+                if (band.getDayType() == pass) {
+                    paint(band, minuteRate, minuteLabel);
+                }
+            }
+        }
+
+        List<Integer> starts = new ArrayList<>();
+        for (int minute = 0; minute < MINUTES_PER_WEEK; minute++) {
+            if (minute == 0 || minuteRate[minute] != minuteRate[minute - 1]
+                    || !Objects.equals(minuteLabel[minute], minuteLabel[minute - 1])) {
+                starts.add(minute);
+            }
+        }
+        long[] bandStart = new long[starts.size()];
+        long[] rates = new long[starts.size()];
+        String[] labels = new String[starts.size()];
+        for (int i = 0; i < starts.size(); i++) {
+            int minute = starts.get(i);
+            bandStart[i] = minute * MINUTE_MILLIS;
+            rates[i] = minuteRate[minute];
+            labels[i] = minuteLabel[minute];
+        }
+        return new TariffTable(bandStart, rates, labels);
+    }
+
+    public static TariffTable flat(RatePerKwh rate) {
+        return new TariffTable(new long[]{0}, new long[]{rate.centiVnd()}, new String[]{null});
+    }
+
+    public static long localMillis(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1000 + time.getNano() / 1_000_000;
+    }
+
+    public int bandCount() {
+        return bandStart.length;
+    }
+
+    public RatePerKwh rateAt(LocalDateTime time) {
+        return RatePerKwh.ofCentiVnd(rateCentiVnd[bandIndex(weekPosition(localMillis(time)))]);
+    }
+
+    public String labelAt(LocalDateTime time) {
+        return labels[bandIndex(weekPosition(localMillis(time)))];
+    }
+
+    /**
+     * Cost in VND (rounded HALF_UP) of energyWh delivered evenly over [startMillis, endMillis),
+     * after a percentage discount (0 for none).
+     */
+    public long costVnd(long startMillis, long endMillis, long energyWh, long discountPercent) {
+        return FixedPoint.divideHalfUp(
+                Math.multiplyExact(costCentiWh(startMillis, endMillis, energyWh), 100 - discountPercent), COST_DIVISOR);
+    }
+
+    /**
+     * Sum over the bands crossed of (Wh delivered in the band * rate in centi-VND per kWh).
+     */
+    public long costCentiWh(long startMillis, long endMillis, long energyWh) {
+        long position = weekPosition(startMillis);
+        int band = bandIndex(position);
+        long duration = endMillis - startMillis;
+        if (duration <= 0 || energyWh == 0) {
+            return Math.multiplyExact(energyWh, rateCentiVnd[band]);
+        }
+        long total = 0;
+        long billedWh = 0;
+        long time = startMillis;
+        while (true) {
+            long bandEnd = band + 1 < bandStart.length ? bandStart[band + 1] : WEEK_MILLIS;
+            long segmentEnd = time + (bandEnd - position);
+            if (segmentEnd >= endMillis) {
+                return total + (energyWh - billedWh) * rateCentiVnd[band];
+            }
+            // Cumulative share rounded down, so the per-band parts always add up to energyWh
+            long cumulativeWh = Math.multiplyExact(energyWh, segmentEnd - startMillis) / duration;
+            total += (cumulativeWh - billedWh) * rateCentiVnd[band];
+            billedWh = cumulativeWh;
+            time = segmentEnd;
+            band = band + 1 < bandStart.length ? band + 1 : 0;
+            position = bandStart[band];
+        }
+    }
+
+    /**
+     * Number of band boundaries inside [startMillis, endMillis).
+     */
+    public int boundariesCrossed(long startMillis, long endMillis) {
+        long position = weekPosition(startMillis);
+        int band = bandIndex(position);
+        int crossed = 0;
+        long time = startMillis;
+        while (true) {
+            long bandEnd = band + 1 < bandStart.length ? bandStart[band + 1] : WEEK_MILLIS;
+            time += bandEnd - position;
+            if (time >= endMillis) {
+                return crossed;
+            }
+            crossed++;
+            band = band + 1 < bandStart.length ? band + 1 : 0;
+            position = bandStart[band];
+        }
+    }
+
+    private static long weekPosition(long localMillis) {
+        return Math.floorMod(localMillis + EPOCH_WEEK_SHIFT, WEEK_MILLIS);
+    }
+
+    private int bandIndex(long position) {
+        int index = Arrays.binarySearch(bandStart, position);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static void paint(TariffBand band, long[] minuteRate, String[] minuteLabel) {
+        int start = band.getStartTime().getHour() * 60 + band.getStartTime().getMinute();
+        int end = band.getEndTime().getHour() * 60 + band.getEndTime().getMinute();
+        if (end <= start) {
+            end += MINUTES_PER_DAY; // 00:00 = hết ngày, hoặc qua nửa đêm sang ngày hôm sau
+        }
+        for (DayOfWeek day : DayOfWeek.values()) {
+            boolean weekend = day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY;
+            if ((band.getDayType() == TariffBand.DayType.weekday && weekend)
+                    || (band.getDayType() == TariffBand.DayType.weekend && !weekend)) {
+                continue;
+            }
+            int dayStart = (day.getValue() - 1) * MINUTES_PER_DAY;
+            for (int minute = start; minute < end; minute++) {
+                int index = (dayStart + minute) % MINUTES_PER_WEEK;
+                minuteRate[index] = band.getPricePerKwh().centiVnd();
+                minuteLabel[index] = band.getLabel();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.chargingservice.units;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Energy in whole watt-hours.
+ * Serialized to JSON and stored in the database as kWh with 2 decimals (the energy_consumed column format).
+ */
+public record Energy(long wh) implements Comparable<Energy> {
+
+    public static final Energy ZERO = new Energy(0);
+    private static final long WH_PER_CENTI_KWH = 10;
+
+    public static Energy ofWh(long wh) {
+        return wh == 0 ? ZERO : new Energy(wh);
+    }
+
+    @JsonCreator
+    public static Energy ofKwh(BigDecimal kwh) {
+        return ofWh(kwh.movePointRight(3).setScale(0, RoundingMode.HALF_UP).longValueExact());
+    }
+
+    public static Energy ofKwh(double kwh) {
+        return ofWh(Math.round(kwh * 1000.0));
+    }
+
+    public Energy plus(Energy other) {
+        return ofWh(Math.addExact(wh, other.wh));
+    }
+
+    public Energy minus(Energy other) {
+        return ofWh(Math.subtractExact(wh, other.wh));
+    }
+
+    public Energy min(Energy other) {
+        return wh <= other.wh ? this : other;
+    }
+
+    public Energy max(Energy other) {
+        return wh >= other.wh ? this : other;
+    }
+
+    /**
+     * Energy rounded HALF_UP to 0.01 kWh, the precision of the energy_consumed column.
+     */
+    public Energy roundToCentiKwh() {
+        return ofWh(FixedPoint.divideHalfUp(wh, WH_PER_CENTI_KWH) * WH_PER_CENTI_KWH);
+    }
+
+    @JsonValue
+    public BigDecimal toKwh() {
+        return BigDecimal.valueOf(FixedPoint.divideHalfUp(wh, WH_PER_CENTI_KWH), 2);
+    }
+
+    public double toKwhDouble() {
+        return wh / 1000.0;
+    }
+
+    @Override
+    public int compareTo(Energy other) {
+        return Long.compare(wh, other.wh);
+    }
+}
@@ -0,0 +1,34 @@
+package com.chargingservice.units;
+
+/**
+ * Integer helpers shared by the fixed-point value types.
+ * All rounding is HALF_UP (away from zero on ties), matching BigDecimal RoundingMode.HALF_UP.
+ */
+public final class FixedPoint {
+
+    private FixedPoint() {
+    }
+
+    /**
+     * numerator / denominator rounded HALF_UP. denominator must be positive.
+     */
+    public static long divideHalfUp(long numerator, long denominator) {
+        long quotient = numerator / denominator;
+        long remainder = numerator % denominator;
+        if (Math.abs(remainder) * 2 >= denominator) {
+            quotient += numerator < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    /**
+     * numerator / denominator rounded UP (away from zero). denominator must be positive.
+     */
+    public static long divideUp(long numerator, long denominator) {
+        long quotient = numerator / denominator;
+        if (numerator % denominator != 0) {
+            quotient += numerator < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
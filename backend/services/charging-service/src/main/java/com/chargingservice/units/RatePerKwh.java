@@ -0,0 +1,54 @@
+package com.chargingservice.units;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Price per kWh in hundredths of a VND, the precision of the price_per_kwh column (scale 2).
+ */
+public record RatePerKwh(long centiVnd) implements Comparable<RatePerKwh> {
+
+    private static final long WH_PER_KWH = 1000;
+    private static final long CENTI = 100;
+
+    public static RatePerKwh ofCentiVnd(long centiVnd) {
+        return new RatePerKwh(centiVnd);
+    }
+
+    public static RatePerKwh ofVnd(long vnd) {
+        return new RatePerKwh(Math.multiplyExact(vnd, CENTI));
+    }
+
+    @JsonCreator
+    public static RatePerKwh of(BigDecimal vndPerKwh) {
+        return new RatePerKwh(vndPerKwh.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact());
+    }
+
+    /**
+     * Rate after a percentage discount (e.g. 25 for 25% off), rounded HALF_UP to 0.01 VND.
+     */
+    public RatePerKwh discounted(long percentOff) {
+        return new RatePerKwh(FixedPoint.divideHalfUp(Math.multiplyExact(centiVnd, CENTI - percentOff), CENTI));
+    }
+
+    /**
+     * Cost of the given energy at this rate, rounded HALF_UP to whole VND.
+     * Same result as kwh.multiply(rate).setScale(0, HALF_UP) for kWh with up to 3 decimals.
+     */
+    public Vnd costOf(Energy energy) {
+        return Vnd.of(FixedPoint.divideHalfUp(Math.multiplyExact(energy.wh(), centiVnd), WH_PER_KWH * CENTI));
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(centiVnd, 2);
+    }
+
+    @Override
+    public int compareTo(RatePerKwh other) {
+        return Long.compare(centiVnd, other.centiVnd);
+    }
+}
@@ -0,0 +1,23 @@
+package com.chargingservice.units;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps RatePerKwh to a DECIMAL price column (scale 2).
+ */
+@Converter
+public class RatePerKwhConverter implements AttributeConverter<RatePerKwh, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(RatePerKwh rate) {
+        return rate == null ? null : rate.toBigDecimal();
+    }
+
+    @Override
+    public RatePerKwh convertToEntityAttribute(BigDecimal vndPerKwh) {
+        return vndPerKwh == null ? null : RatePerKwh.of(vndPerKwh);
+    }
+}
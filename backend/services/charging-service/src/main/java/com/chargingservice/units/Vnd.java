@@ -0,0 +1,56 @@
+package com.chargingservice.units;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money amount in whole Vietnamese dong (VND has no minor unit in practice).
+ */
+public record Vnd(long amount) implements Comparable<Vnd> {
+
+    public static final Vnd ZERO = new Vnd(0);
+
+    @JsonCreator
+    public static Vnd of(long amount) {
+        return amount == 0 ? ZERO : new Vnd(amount);
+    }
+
+    /**
+     * Rounds HALF_UP to whole VND, like setScale(0, RoundingMode.HALF_UP).
+     */
+    public static Vnd of(BigDecimal amount) {
+        return of(amount.setScale(0, RoundingMode.HALF_UP).longValueExact());
+    }
+
+    public Vnd plus(Vnd other) {
+        return of(Math.addExact(amount, other.amount));
+    }
+
+    public Vnd minus(Vnd other) {
+        return of(Math.subtractExact(amount, other.amount));
+    }
+
+    /**
+     * Percentage of this amount (e.g. 25 for 25%), rounded HALF_UP.
+     */
+    public Vnd percent(long percent) {
+        return of(FixedPoint.divideHalfUp(Math.multiplyExact(amount, percent), 100));
+    }
+
+    @JsonValue
+    public long toLong() {
+        return amount;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(amount);
+    }
+
+    @Override
+    public int compareTo(Vnd other) {
+        return Long.compare(amount, other.amount);
+    }
+}
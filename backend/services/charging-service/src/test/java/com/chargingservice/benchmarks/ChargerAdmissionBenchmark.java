@@ -0,0 +1,125 @@
+package com.chargingservice.benchmarks;
+
+import com.chargingservice.repositories.ChargerActiveClaimRepository;
+import com.chargingservice.services.ChargerAdmissionControl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Admit/release throughput of ChargerAdmissionControl by thread count and stripe count. Each thread starts and
+ * ends sessions on its own chargers, so threads only contend on shared stripes. The claim table is an in-memory
+ * map behind a simulated round trip (claimLatencyMicros) held under the stripe lock, as the insert is in production.
+ * Run main() from the test classpath. With 64 stripes the total should grow with threads up to the core count;
+ * with 1 stripe it levels off at two threads, once every admit queues for the one lock held across the insert.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChargerAdmissionBenchmark {
+
+    private static final int CHARGERS_PER_THREAD = 1024;
+
+    @Param({"1", "16", "64"})
+    public int stripes;
+
+    @Param({"50"})
+    public long claimLatencyMicros;
+
+    private ChargerAdmissionControl admission;
+    private final AtomicInteger threadIndex = new AtomicInteger();
+    private final AtomicLong sessionIds = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<Long, Long> claims = new ConcurrentHashMap<>();
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos(claimLatencyMicros);
+        // Proxy thay cho Mockito: mock ghi lại mọi lời gọi và tự trở thành điểm tranh chấp giữa các thread
+        ChargerActiveClaimRepository repository = (ChargerActiveClaimRepository) Proxy.newProxyInstance(
+                ChargerActiveClaimRepository.class.getClassLoader(),
+                new Class<?>[]{ChargerActiveClaimRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "insertClaim" -> {
+                        LockSupport.parkNanos(latencyNanos);
+                        if (claims.putIfAbsent((Long) args[0], (Long) args[1]) != null) {
+                            throw new DataIntegrityViolationException("Duplicate entry for key PRIMARY");
+                        }
+                        yield 1;
+                    }
+                    case "deleteClaim" -> {
+                        LockSupport.parkNanos(latencyNanos);
+                        yield claims.remove(args[0], args[1]) ? 1 : 0;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        admission = new ChargerAdmissionControl(repository, stripes, 10_000);
+    }
+
+    @State(Scope.Thread)
+    public static class Chargers {
+        long firstChargerId;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(ChargerAdmissionBenchmark benchmark) {
+            firstChargerId = 1 + (long) benchmark.threadIndex.getAndIncrement() * CHARGERS_PER_THREAD;
+        }
+
+        long nextChargerId() {
+            next = (next + 1) % CHARGERS_PER_THREAD;
+            return firstChargerId + next;
+        }
+    }
+
+    private void admitAndRelease(Chargers chargers) {
+        long chargerId = chargers.nextChargerId();
+        long sessionId = sessionIds.incrementAndGet();
+        admission.admit(chargerId, sessionId);
+        admission.release(chargerId, sessionId);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void admitRelease1Thread(Chargers chargers) {
+        admitAndRelease(chargers);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void admitRelease2Threads(Chargers chargers) {
+        admitAndRelease(chargers);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void admitRelease4Threads(Chargers chargers) {
+        admitAndRelease(chargers);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void admitRelease8Threads(Chargers chargers) {
+        admitAndRelease(chargers);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ChargerAdmissionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,159 @@
+package com.chargingservice.benchmarks;
+
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.chargingservice.repositories.ReservationRepository;
+import com.chargingservice.services.ChargerAvailabilityIndex;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Which charger at the station is free for [t1, t2)": the two queries per charger that findAvailableCharger used
+ * to issue (running session on the charger, overlapping blocking reservations) against ChargerAvailabilityIndex.
+ * The queries run on an in-memory H2 database with the production indexes, so they include no network round
+ * trip; against MySQL every query adds one. The scan visits every charger, as when the station is fully booked.
+ * Run main() from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChargerAvailabilityBenchmark {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 10, 1, 0, 0);
+    private static final int STATIONS = 50;
+    private static final int DAYS = 30;
+
+    private static final String SESSION_SQL = "SELECT session_id FROM charging_sessions " +
+            "WHERE charger_id = ? AND session_status = 'charging' LIMIT 1";
+    private static final String OVERLAP_SQL = "SELECT reservation_id FROM reservations WHERE charger_id = ? " +
+            "AND status IN ('pending', 'confirmed', 'active') AND reserved_start_time < ? AND reserved_end_time > ?";
+
+    @Param({"8", "32"})
+    public int chargersPerStation;
+
+    @Param({"100", "1000"})
+    public int reservationsPerCharger;
+
+    private Connection connection;
+    private PreparedStatement sessionQuery;
+    private PreparedStatement overlapQuery;
+    private ChargerAvailabilityIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:availability;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("CREATE TABLE reservations (reservation_id BIGINT PRIMARY KEY, station_id BIGINT, " +
+                    "charger_id BIGINT, reserved_start_time TIMESTAMP, reserved_end_time TIMESTAMP, status VARCHAR(16))");
+            statement.execute("CREATE INDEX idx_reservation_status_station ON reservations (status, station_id)");
+            statement.execute("CREATE TABLE charging_sessions (session_id BIGINT PRIMARY KEY, charger_id BIGINT, " +
+                    "session_status VARCHAR(16), timeout_at TIMESTAMP)");
+            statement.execute("CREATE INDEX idx_session_status_timeout ON charging_sessions (session_status, timeout_at)");
+        }
+        index = new ChargerAvailabilityIndex(Mockito.mock(ReservationRepository.class),
+                Mockito.mock(ChargingSessionRepository.class));
+
+        // Mỗi trụ có reservationsPerCharger đặt chỗ 60-150 phút rải trong 30 ngày; ~1/4 đã hủy/hết hạn
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = 0;
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO reservations VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (long charger = 1; charger <= (long) STATIONS * chargersPerStation; charger++) {
+                for (int r = 0; r < reservationsPerCharger; r++) {
+                    LocalDateTime start = BASE.plusMinutes(random.nextInt(DAYS * 24 * 60));
+                    LocalDateTime end = start.plusMinutes(60 + random.nextInt(90));
+                    Reservation.ReservationStatus status = random.nextInt(4) == 0
+                            ? Reservation.ReservationStatus.cancelled : Reservation.ReservationStatus.confirmed;
+                    insert.setLong(1, ++id);
+                    insert.setLong(2, (charger - 1) / chargersPerStation + 1);
+                    insert.setLong(3, charger);
+                    insert.setTimestamp(4, Timestamp.valueOf(start));
+                    insert.setTimestamp(5, Timestamp.valueOf(end));
+                    insert.setString(6, status.name());
+                    insert.addBatch();
+
+                    Reservation reservation = new Reservation();
+                    reservation.setReservationId(id);
+                    reservation.setChargerId(charger);
+                    reservation.setReservedStartTime(start);
+                    reservation.setReservedEndTime(end);
+                    reservation.setStatus(status);
+                    index.refresh(reservation);
+                }
+                insert.executeBatch();
+            }
+        }
+        sessionQuery = connection.prepareStatement(SESSION_SQL);
+        overlapQuery = connection.prepareStatement(OVERLAP_SQL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void databasePerCharger(Blackhole bh) throws SQLException {
+        long firstCharger = firstChargerOfRandomStation();
+        LocalDateTime start = randomStart();
+        Timestamp from = Timestamp.valueOf(start);
+        Timestamp to = Timestamp.valueOf(start.plusHours(2));
+        for (long charger = firstCharger; charger < firstCharger + chargersPerStation; charger++) {
+            sessionQuery.setLong(1, charger);
+            try (ResultSet rs = sessionQuery.executeQuery()) {
+                bh.consume(rs.next());
+            }
+            overlapQuery.setLong(1, charger);
+            overlapQuery.setTimestamp(2, to);
+            overlapQuery.setTimestamp(3, from);
+            try (ResultSet rs = overlapQuery.executeQuery()) {
+                bh.consume(rs.next());
+            }
+        }
+    }
+
+    @Benchmark
+    public void intervalIndex(Blackhole bh) {
+        long firstCharger = firstChargerOfRandomStation();
+        LocalDateTime start = randomStart();
+        LocalDateTime end = start.plusHours(2);
+        for (long charger = firstCharger; charger < firstCharger + chargersPerStation; charger++) {
+            bh.consume(index.conflict(charger, start, end));
+        }
+    }
+
+    private long firstChargerOfRandomStation() {
+        return (long) ThreadLocalRandom.current().nextInt(STATIONS) * chargersPerStation + 1;
+    }
+
+    private static LocalDateTime randomStart() {
+        return BASE.plusMinutes(ThreadLocalRandom.current().nextInt(DAYS * 24 * 60));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ChargerAvailabilityBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
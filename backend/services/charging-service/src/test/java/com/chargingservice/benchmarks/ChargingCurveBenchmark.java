@@ -0,0 +1,89 @@
+package com.chargingservice.benchmarks;
+
+import com.chargingservice.services.ChargingCurve;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One status poll on the charging curve (delivered power at the current SOC and seconds to full through a
+ * 50 kW charger): precomputed lookup table vs the closed-form CC/CV solution vs integrating the curve on
+ * every poll (0.1% SOC steps). Run main() from the test classpath; the GC profiler should report
+ * ~0 B/op (gc.alloc.rate.norm) for the table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChargingCurveBenchmark {
+
+    private static final long CAPACITY_WH = 80_000;
+    private static final long MAX_POWER_W = 150_000;
+    private static final double TAPER_SOC = 0.80;
+    private static final double CUTOFF_C = 0.05;
+    private static final long CHARGER_POWER_W = 50_000;
+
+    // Trước taper, trong vùng trụ giới hạn, và gần đầy
+    @Param({"0.35", "0.85", "0.98"})
+    public double soc;
+
+    private ChargingCurve curve;
+    private double fullSoc;
+
+    @Setup
+    public void setUp() {
+        curve = ChargingCurve.cccv(CAPACITY_WH, MAX_POWER_W, TAPER_SOC, CUTOFF_C);
+        fullSoc = curve.fullSoc();
+    }
+
+    @Benchmark
+    public void table(Blackhole bh) {
+        bh.consume(curve.powerW(soc, CHARGER_POWER_W));
+        bh.consume(curve.secondsToFull(soc, CHARGER_POWER_W));
+    }
+
+    @Benchmark
+    public void analytic(Blackhole bh) {
+        bh.consume(Math.min(CHARGER_POWER_W, analyticPowerW(soc)));
+        double crossover = 1 - (double) CHARGER_POWER_W / MAX_POWER_W * (1 - TAPER_SOC);
+        double seconds = 0;
+        if (soc < crossover) {
+            seconds += (crossover - soc) * CAPACITY_WH / CHARGER_POWER_W * 3600;
+        }
+        double from = Math.max(soc, crossover);
+        double tau = (1 - TAPER_SOC) * CAPACITY_WH / MAX_POWER_W * 3600;
+        seconds += tau * Math.log((1 - from) / (1 - fullSoc));
+        bh.consume(Math.round(seconds));
+    }
+
+    @Benchmark
+    public void integratePerPoll(Blackhole bh) {
+        bh.consume(Math.min(CHARGER_POWER_W, analyticPowerW(soc)));
+        double step = 0.001;
+        double seconds = 0;
+        for (double s = soc; s < fullSoc; s += step) {
+            double ds = Math.min(step, fullSoc - s);
+            seconds += ds * CAPACITY_WH / Math.min(CHARGER_POWER_W, analyticPowerW(s + ds / 2)) * 3600;
+        }
+        bh.consume(Math.round(seconds));
+    }
+
+    private static double analyticPowerW(double soc) {
+        return soc <= TAPER_SOC ? MAX_POWER_W : MAX_POWER_W * (1 - soc) / (1 - TAPER_SOC);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ChargingCurveBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,89 @@
+package com.chargingservice.benchmarks;
+
+import com.chargingservice.configs.LocalDateTimeDeserializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing one LocalDateTime field: the previous deserializer (strip the offset, then try four formatters,
+ * catching DateTimeParseException between them) against the single-pass LocalDateTimeDeserializer.parse.
+ * "zulu" (a lowercase z, not stripped) only matches the 4th formatter in the old code; "invalid" fails all four.
+ * Run main() from the test classpath; the GC profiler shows the exception and Parsed allocations per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LocalDateTimeParseBenchmark {
+
+    private static final DateTimeFormatter[] LEGACY_PARSERS = {
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME,
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS"),
+            DateTimeFormatter.ISO_DATE_TIME
+    };
+
+    @Param({"local", "millis", "offset", "zulu", "invalid"})
+    public String format;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = switch (format) {
+            case "local" -> "2025-10-31T09:00:00";
+            case "millis" -> "2025-10-31T09:00:00.123";
+            case "offset" -> "2025-10-31T09:00:00.123+07:00";
+            case "zulu" -> "2025-10-31T09:00:00z";
+            default -> "31/10/2025 09:00";
+        };
+    }
+
+    @Benchmark
+    public LocalDateTime legacy() {
+        return legacyParse(text);
+    }
+
+    @Benchmark
+    public LocalDateTime singlePass() {
+        return LocalDateTimeDeserializer.parse(text);
+    }
+
+    private static LocalDateTime legacyParse(String text) {
+        String dateString = text.trim();
+        if (dateString.endsWith("Z")) {
+            dateString = dateString.substring(0, dateString.length() - 1);
+        } else if (dateString.contains("+") || dateString.contains("-")) {
+            int idx = Math.max(dateString.lastIndexOf('+'), dateString.lastIndexOf('-'));
+            if (idx > 10) {
+                dateString = dateString.substring(0, idx);
+            }
+        }
+        for (DateTimeFormatter formatter : LEGACY_PARSERS) {
+            try {
+                return LocalDateTime.parse(dateString, formatter);
+            } catch (DateTimeParseException e) {
+                // Try next formatter
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LocalDateTimeParseBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,100 @@
+package com.chargingservice.benchmarks;
+
+import com.chargingservice.dtos.MeterValuesBatchRequestDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays synthetic OCPP-style meter values against POST /api/meter-values.
+ * Each session follows a constant-power phase up to 80% SOC followed by a linear taper.
+ * <p>
+ * Usage: MeterValueReplayGenerator baseUrl firstSessionId sessionCount samplesPerSessionPerSecond seconds
+ * e.g. http://localhost:8082 1 500 4 60  (= 2,000 samples/s for one minute)
+ */
+public class MeterValueReplayGenerator {
+
+    private static final double BATTERY_WH = 80_000;
+    private static final double MAX_POWER_W = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8082";
+        long firstSessionId = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        int sessionCount = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int samplesPerSecond = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 60;
+
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        HttpClient client = HttpClient.newHttpClient();
+
+        double[] energyWh = new double[sessionCount];
+        double[] soc = new double[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            soc[i] = 10 + (i * 7) % 50; // spread initial SOC between 10% and 60%
+        }
+
+        long stepMillis = 1000L / samplesPerSecond;
+        LocalDateTime clock = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        long totalAccepted = 0;
+        long started = System.nanoTime();
+
+        for (int second = 0; second < seconds; second++) {
+            long tickStart = System.nanoTime();
+            MeterValuesBatchRequestDto batch = new MeterValuesBatchRequestDto();
+            batch.setSessions(new ArrayList<>(sessionCount));
+            for (int i = 0; i < sessionCount; i++) {
+                MeterValuesBatchRequestDto.SessionMeterValuesDto session = new MeterValuesBatchRequestDto.SessionMeterValuesDto();
+                session.setSessionId(firstSessionId + i);
+                List<MeterValuesBatchRequestDto.MeterSampleDto> samples = new ArrayList<>(samplesPerSecond);
+                for (int s = 0; s < samplesPerSecond; s++) {
+                    double power = powerAt(soc[i]);
+                    energyWh[i] += power * stepMillis / 3_600_000.0;
+                    soc[i] = Math.min(100.0, soc[i] + power * stepMillis / 3_600_000.0 / BATTERY_WH * 100.0);
+                    MeterValuesBatchRequestDto.MeterSampleDto sample = new MeterValuesBatchRequestDto.MeterSampleDto();
+                    sample.setTimestamp(clock.plus((long) second * 1000 + s * stepMillis, ChronoUnit.MILLIS));
+                    sample.setEnergyWh((long) energyWh[i]);
+                    sample.setPowerW((int) power);
+                    sample.setSoc(Math.round(soc[i] * 10) / 10.0);
+                    samples.add(sample);
+                }
+                session.setSamples(samples);
+                batch.getSessions().add(session);
+            }
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/meter-values"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(batch)))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            totalAccepted += mapper.readTree(response.body()).path("accepted").asLong();
+
+            long sleepMillis = 1000 - (System.nanoTime() - tickStart) / 1_000_000;
+            if (sleepMillis > 0) {
+                Thread.sleep(sleepMillis);
+            }
+        }
+
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        System.out.printf("Sent %d samples in %.1fs, accepted %d (%.0f samples/s)%n",
+                (long) sessionCount * samplesPerSecond * seconds, elapsed, totalAccepted, totalAccepted / elapsed);
+    }
+
+    // Constant power until 80% SOC, then linear taper to 10% of max power at 100%
+    private static double powerAt(double soc) {
+        if (soc < 80) {
+            return MAX_POWER_W;
+        }
+        return MAX_POWER_W * (1.0 - 0.9 * (soc - 80) / 20.0);
+    }
+}
@@ -0,0 +1,138 @@
+package com.chargingservice.benchmarks;
+
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ReservationRepository;
+import com.chargingservice.services.ReservationQrTokens;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking a scanned reservation QR code: verifying the signed code (HMAC, validity window, revocation list) against
+ * the old scheme of looking the "RES:id:code" string up in the reservations table (qr_code is not indexed, as in
+ * production). The database is in-memory H2, so no network round trip or remote call is included in the lookup.
+ * Run main() from the test classpath. The 4-thread variant checks that per-thread Mac instances do not contend;
+ * its total should grow with cores on a multi-core machine.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QrCodeVerificationBenchmark {
+
+    private static final int CODES = 1024;
+    private static final LocalDateTime START = LocalDateTime.now().plusMinutes(10);
+
+    @Param({"20000"})
+    public int reservations;
+
+    private ReservationQrTokens tokens;
+    private String[] signedCodes;
+    private String[] legacyCodes;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        tokens = new ReservationQrTokens(Mockito.mock(ReservationRepository.class), "1:" + "5a".repeat(32), 1);
+        connection = DriverManager.getConnection("jdbc:h2:mem:qrcodes;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("CREATE TABLE reservations (reservation_id BIGINT PRIMARY KEY, user_id BIGINT, " +
+                    "charger_id BIGINT, reserved_start_time TIMESTAMP, reserved_end_time TIMESTAMP, " +
+                    "status VARCHAR(16), qr_code VARCHAR(255))");
+        }
+        signedCodes = new String[CODES];
+        legacyCodes = new String[CODES];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO reservations VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= reservations; id++) {
+                Reservation reservation = new Reservation();
+                reservation.setReservationId(id);
+                reservation.setUserId(random.nextLong(1, 5000));
+                reservation.setChargerId(random.nextLong(1, 800));
+                reservation.setReservedStartTime(START);
+                reservation.setReservedEndTime(START.plusHours(1));
+                String legacy = "RES:" + id + ":" + Long.toHexString(random.nextLong()).toUpperCase();
+                insert.setLong(1, id);
+                insert.setLong(2, reservation.getUserId());
+                insert.setLong(3, reservation.getChargerId());
+                insert.setTimestamp(4, Timestamp.valueOf(START));
+                insert.setTimestamp(5, Timestamp.valueOf(START.plusHours(1)));
+                insert.setString(6, "confirmed");
+                insert.setString(7, legacy);
+                insert.addBatch();
+                if (id <= CODES) {
+                    signedCodes[(int) id - 1] = tokens.issue(reservation);
+                    legacyCodes[(int) id - 1] = legacy;
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Lookup {
+        PreparedStatement byQrCode;
+
+        @Setup(Level.Trial)
+        public void setUp(QrCodeVerificationBenchmark benchmark) throws SQLException {
+            byQrCode = benchmark.connection.prepareStatement(
+                    "SELECT reservation_id, user_id, charger_id, reserved_start_time, reserved_end_time, status " +
+                    "FROM reservations WHERE qr_code = ?");
+        }
+    }
+
+    @Benchmark
+    public void verifySignedCode(Blackhole bh) {
+        bh.consume(tokens.verify(signedCodes[ThreadLocalRandom.current().nextInt(CODES)], LocalDateTime.now()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void verifySignedCode4Threads(Blackhole bh) {
+        bh.consume(tokens.verify(signedCodes[ThreadLocalRandom.current().nextInt(CODES)], LocalDateTime.now()));
+    }
+
+    @Benchmark
+    public void lookUpLegacyCode(Lookup lookup, Blackhole bh) throws SQLException {
+        lookup.byQrCode.setString(1, legacyCodes[ThreadLocalRandom.current().nextInt(CODES)]);
+        try (ResultSet rs = lookup.byQrCode.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getLong(1));
+                bh.consume(rs.getLong(2));
+                bh.consume(rs.getTimestamp(5));
+                bh.consume(rs.getString(6));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(QrCodeVerificationBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,169 @@
+package com.chargingservice.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Hot-path session queries with the full history in charging_sessions ("before") vs after
+ * SessionArchiveScheduler moved sessions older than 90 days to charging_sessions_archive ("after").
+ * Same schema and indexes as the JPA entities, on an H2 file database in MySQL mode (historyRows settled
+ * sessions spread over one year + 500 charging sessions). Loading 10M rows takes several minutes and ~2 GB
+ * of disk; pass -p historyRows=1000000 for a quicker run. Run main() from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class SessionArchiveBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int CHARGERS = 2_000;
+    private static final int ACTIVE_SESSIONS = 500;
+    private static final int MINUTES_PER_YEAR = 525_600;
+    private static final int ARCHIVE_AFTER_MINUTES = 90 * 24 * 60;
+
+    private static final String COLUMNS = "session_id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, " +
+            "station_id BIGINT NOT NULL, charger_id BIGINT NOT NULL, session_code VARCHAR(255) NOT NULL, " +
+            "start_time TIMESTAMP, end_time TIMESTAMP, timeout_at TIMESTAMP, energy_consumed DECIMAL(10,2), " +
+            "price_per_kwh DECIMAL(10,2), discount_percent INT, total_cost DECIMAL(12,2), " +
+            "offline_transaction_id VARCHAR(64), battery_class VARCHAR(16), session_status VARCHAR(16), " +
+            "is_paid BOOLEAN, payment_id BIGINT, created_at TIMESTAMP, updated_at TIMESTAMP";
+
+    // Phiên thứ X bắt đầu AGE(X) phút trước thời điểm gốc, rải đều trong một năm
+    private static final String AGE = "MOD(X * 7919, " + MINUTES_PER_YEAR + ")";
+
+    private static final String LOAD_SQL = "INSERT INTO %s (session_id, user_id, station_id, charger_id, session_code, " +
+            "start_time, end_time, energy_consumed, session_status, is_paid, created_at, updated_at) " +
+            "SELECT X, MOD(X, " + USERS + ") + 1, MOD(X, 200) + 1, MOD(X, " + CHARGERS + ") + 1, CONCAT('S-', X), " +
+            "DATEADD('MINUTE', -" + AGE + ", TIMESTAMP '2026-10-01 00:00:00'), " +
+            "DATEADD('MINUTE', 45 - " + AGE + ", TIMESTAMP '2026-10-01 00:00:00'), 30.00, " +
+            "CASE WHEN MOD(X, 20) = 0 THEN 'cancelled' ELSE 'completed' END, TRUE, " +
+            "TIMESTAMP '2026-10-01 00:00:00', TIMESTAMP '2026-10-01 00:00:00' FROM SYSTEM_RANGE(1, ?) %s";
+
+    private static final String ACTIVE_SQL = "INSERT INTO charging_sessions (session_id, user_id, station_id, charger_id, " +
+            "session_code, start_time, session_status, is_paid) SELECT ? + X, X * 37 + 1, MOD(X, 200) + 1, X * 3 + 1, " +
+            "CONCAT('A-', X), TIMESTAMP '2026-10-01 00:00:00', 'charging', FALSE FROM SYSTEM_RANGE(1, " + ACTIVE_SESSIONS + ")";
+
+    // ChargingSessionRepository.findFirstByChargerIdAndSessionStatus / findActiveSessionsByUserId / trang lịch sử đầu tiên
+    private static final String CHARGER_ACTIVE_SQL = "SELECT session_id FROM charging_sessions " +
+            "WHERE charger_id = ? AND session_status = 'charging' LIMIT 1";
+    private static final String USER_ACTIVE_SQL = "SELECT session_id FROM charging_sessions WHERE user_id = ? " +
+            "AND session_status IN ('charging', 'starting', 'paused', 'reserved')";
+    private static final String USER_PAGE_SQL = "SELECT session_id, start_time FROM charging_sessions " +
+            "WHERE user_id = ? ORDER BY start_time DESC, session_id DESC LIMIT 50";
+
+    @Param({"10000000"})
+    public long historyRows;
+
+    @Param({"before", "after"})
+    public String state;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement chargerActive;
+    private PreparedStatement userActive;
+    private PreparedStatement userPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("session-archive-bench");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("db")
+                + ";MODE=MySQL;CACHE_SIZE=262144", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE charging_sessions (" + COLUMNS + ")");
+            statement.execute("CREATE TABLE charging_sessions_archive (" + COLUMNS + ", archived_at TIMESTAMP)");
+        }
+        if ("before".equals(state)) {
+            load("charging_sessions", "");
+        } else {
+            // Trạng thái cuối giống hệt sau khi SessionArchiveScheduler chạy xong (mọi phiên đã thanh toán)
+            load("charging_sessions", "WHERE " + AGE + " < " + ARCHIVE_AFTER_MINUTES);
+            load("charging_sessions_archive", "WHERE " + AGE + " >= " + ARCHIVE_AFTER_MINUTES);
+        }
+        try (PreparedStatement insert = connection.prepareStatement(ACTIVE_SQL)) {
+            insert.setLong(1, historyRows);
+            insert.executeUpdate();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX idx_session_user_start ON charging_sessions (user_id, start_time, session_id)");
+            statement.execute("CREATE INDEX idx_session_start ON charging_sessions (start_time, session_id)");
+            statement.execute("CREATE INDEX idx_session_status_timeout ON charging_sessions (session_status, timeout_at)");
+            statement.execute("CREATE INDEX idx_archive_user_start ON charging_sessions_archive (user_id, start_time, session_id)");
+            statement.execute("ANALYZE");
+        }
+        chargerActive = connection.prepareStatement(CHARGER_ACTIVE_SQL);
+        userActive = connection.prepareStatement(USER_ACTIVE_SQL);
+        userPage = connection.prepareStatement(USER_PAGE_SQL);
+    }
+
+    private void load(String table, String where) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(String.format(LOAD_SQL, table, where))) {
+            insert.setLong(1, historyRows);
+            insert.executeUpdate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException, IOException {
+        connection.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void chargerActiveSession(Blackhole bh) throws SQLException {
+        chargerActive.setLong(1, ThreadLocalRandom.current().nextInt(CHARGERS) + 1);
+        consume(chargerActive, bh);
+    }
+
+    @Benchmark
+    public void userActiveSessions(Blackhole bh) throws SQLException {
+        userActive.setLong(1, ThreadLocalRandom.current().nextInt(USERS) + 1);
+        consume(userActive, bh);
+    }
+
+    @Benchmark
+    public void userHistoryFirstPage(Blackhole bh) throws SQLException {
+        userPage.setLong(1, ThreadLocalRandom.current().nextInt(USERS) + 1);
+        consume(userPage, bh);
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole bh) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getLong(1));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SessionArchiveBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,68 @@
+package com.chargingservice.benchmarks;
+
+import com.chargingservice.units.Energy;
+import com.chargingservice.units.FixedPoint;
+import com.chargingservice.units.RatePerKwh;
+import com.chargingservice.units.Vnd;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status-path arithmetic (energy, remaining time, cost): BigDecimal vs fixed-point.
+ * Run main() from the test classpath; the GC profiler reports allocation per operation (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SessionCostBenchmark {
+
+    private static final BigDecimal CHARGING_POWER = new BigDecimal("36.00");
+    private static final BigDecimal BATTERY_CAPACITY = new BigDecimal("80.00");
+    private static final Energy BATTERY_CAPACITY_WH = Energy.ofWh(80_000);
+
+    @Param({"7", "95", "600"})
+    public long minutes;
+
+    private final BigDecimal price = new BigDecimal("2250.00");
+
+    @Benchmark
+    public void bigDecimal(Blackhole bh) {
+        BigDecimal energy = BigDecimal.valueOf(minutes * 0.6).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal remaining = BATTERY_CAPACITY.subtract(energy);
+        if (remaining.doubleValue() < 0) remaining = BigDecimal.ZERO;
+        BigDecimal ratePerMinute = CHARGING_POWER.divide(new BigDecimal("60"), 4, RoundingMode.HALF_UP);
+        bh.consume((int) Math.ceil(remaining.divide(ratePerMinute, 0, RoundingMode.UP).doubleValue()));
+        bh.consume(energy.multiply(price).setScale(0, RoundingMode.HALF_UP));
+        bh.consume(BATTERY_CAPACITY.multiply(price).setScale(0, RoundingMode.HALF_UP));
+    }
+
+    @Benchmark
+    public void fixedPoint(Blackhole bh) {
+        Energy energy = Energy.ofWh(minutes * 600);
+        Energy remaining = BATTERY_CAPACITY_WH.minus(energy).max(Energy.ZERO);
+        bh.consume(FixedPoint.divideUp(remaining.wh() * 10, FixedPoint.divideHalfUp(36_000 * 10, 60)));
+        RatePerKwh rate = RatePerKwh.of(price);
+        Vnd cost = rate.costOf(energy);
+        bh.consume(cost.amount());
+        bh.consume(rate.costOf(BATTERY_CAPACITY_WH).amount());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SessionCostBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,177 @@
+package com.chargingservice.benchmarks;
+
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.chargingservice.repositories.ReservationRepository;
+import com.chargingservice.services.ChargerAvailabilityIndex;
+import com.chargingservice.services.SlotBitmap;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-day availability grid of one station (busy 5-minute slots of every charger and free chargers per slot):
+ * loading the day's blocking reservations of the station from the database and filling the grid, against the
+ * cached SlotBitmaps of ChargerAvailabilityIndex. The database is in-memory H2 with the production index on
+ * (status, station_id), so no network round trip is included. Run main() from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StationAvailabilityBenchmark {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 10, 1);
+    private static final int STATIONS = 4;
+    private static final int DAYS = 30;
+
+    private static final String DAY_SQL = "SELECT charger_id, reserved_start_time, reserved_end_time FROM reservations " +
+            "WHERE station_id = ? AND status IN ('pending', 'confirmed', 'active') " +
+            "AND reserved_start_time < ? AND reserved_end_time > ?";
+
+    @Param({"200"})
+    public int chargersPerStation;
+
+    // Số đặt chỗ mỗi trụ mỗi ngày
+    @Param({"4", "12"})
+    public int reservationsPerDay;
+
+    private Connection connection;
+    private PreparedStatement dayQuery;
+    private ChargerAvailabilityIndex index;
+    private List<List<Long>> chargersByStation;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:calendar;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("CREATE TABLE reservations (reservation_id BIGINT PRIMARY KEY, station_id BIGINT, " +
+                    "charger_id BIGINT, reserved_start_time TIMESTAMP, reserved_end_time TIMESTAMP, status VARCHAR(16))");
+            statement.execute("CREATE INDEX idx_reservation_status_station ON reservations (status, station_id)");
+        }
+        index = new ChargerAvailabilityIndex(Mockito.mock(ReservationRepository.class),
+                Mockito.mock(ChargingSessionRepository.class));
+        chargersByStation = new ArrayList<>();
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = 0;
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO reservations VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (long station = 1; station <= STATIONS; station++) {
+                List<Long> chargers = new ArrayList<>();
+                for (int c = 0; c < chargersPerStation; c++) {
+                    long charger = (station - 1) * chargersPerStation + c + 1;
+                    chargers.add(charger);
+                    for (int r = 0; r < DAYS * reservationsPerDay; r++) {
+                        LocalDateTime start = FIRST_DAY.atStartOfDay().plusMinutes(random.nextInt(DAYS * 24 * 60));
+                        LocalDateTime end = start.plusMinutes(30 + random.nextInt(120));
+                        Reservation.ReservationStatus status = random.nextInt(4) == 0
+                                ? Reservation.ReservationStatus.cancelled : Reservation.ReservationStatus.confirmed;
+                        insert.setLong(1, ++id);
+                        insert.setLong(2, station);
+                        insert.setLong(3, charger);
+                        insert.setTimestamp(4, Timestamp.valueOf(start));
+                        insert.setTimestamp(5, Timestamp.valueOf(end));
+                        insert.setString(6, status.name());
+                        insert.addBatch();
+
+                        Reservation reservation = new Reservation();
+                        reservation.setReservationId(id);
+                        reservation.setChargerId(charger);
+                        reservation.setReservedStartTime(start);
+                        reservation.setReservedEndTime(end);
+                        reservation.setStatus(status);
+                        index.refresh(reservation);
+                    }
+                    insert.executeBatch();
+                }
+                chargersByStation.add(chargers);
+            }
+        }
+        dayQuery = connection.prepareStatement(DAY_SQL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void databaseDayGrid(Blackhole bh) throws SQLException {
+        int station = ThreadLocalRandom.current().nextInt(STATIONS);
+        LocalDate date = randomDay();
+        LocalDateTime dayStart = date.atStartOfDay();
+        List<Long> chargers = chargersByStation.get(station);
+        Map<Long, Integer> column = new HashMap<>();
+        for (int i = 0; i < chargers.size(); i++) {
+            column.put(chargers.get(i), i);
+        }
+        boolean[][] busy = new boolean[chargers.size()][SlotBitmap.SLOTS];
+        dayQuery.setLong(1, station + 1);
+        dayQuery.setTimestamp(2, Timestamp.valueOf(dayStart.plusDays(1)));
+        dayQuery.setTimestamp(3, Timestamp.valueOf(dayStart));
+        try (ResultSet rs = dayQuery.executeQuery()) {
+            while (rs.next()) {
+                boolean[] row = busy[column.get(rs.getLong(1))];
+                long from = Duration.between(dayStart, rs.getTimestamp(2).toLocalDateTime()).toMinutes();
+                long to = Duration.between(dayStart, rs.getTimestamp(3).toLocalDateTime()).toMinutes();
+                int first = (int) Math.max(0, from / SlotBitmap.SLOT_MINUTES);
+                int last = (int) Math.min(SlotBitmap.SLOTS, (to + SlotBitmap.SLOT_MINUTES - 1) / SlotBitmap.SLOT_MINUTES);
+                for (int slot = first; slot < last; slot++) {
+                    row[slot] = true;
+                }
+            }
+        }
+        int[] free = new int[SlotBitmap.SLOTS];
+        for (boolean[] row : busy) {
+            for (int slot = 0; slot < SlotBitmap.SLOTS; slot++) {
+                free[slot] += row[slot] ? 0 : 1;
+            }
+        }
+        bh.consume(busy);
+        bh.consume(free);
+    }
+
+    @Benchmark
+    public void slotBitmapGrid(Blackhole bh) {
+        List<Long> chargers = chargersByStation.get(ThreadLocalRandom.current().nextInt(STATIONS));
+        long[][] busy = index.busySlots(chargers, randomDay());
+        bh.consume(busy);
+        bh.consume(SlotBitmap.freeCounts(busy));
+    }
+
+    private static LocalDate randomDay() {
+        return FIRST_DAY.plusDays(ThreadLocalRandom.current().nextInt(DAYS));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StationAvailabilityBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
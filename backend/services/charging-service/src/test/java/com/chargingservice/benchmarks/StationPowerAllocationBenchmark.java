@@ -0,0 +1,67 @@
+package com.chargingservice.benchmarks;
+
+import com.chargingservice.services.StationPowerPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one reallocation (a session stops and another starts) at a contended station with n connectors,
+ * plus reading the power and energy of a session afterwards. Run main() from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StationPowerAllocationBenchmark {
+
+    private static final long[] RATINGS_W = {22_000, 50_000, 60_000, 150_000, 350_000};
+
+    @Param({"10", "100", "500", "1000"})
+    public int connectors;
+
+    private StationPowerPool pool;
+    private long[] sessionIds;
+    private long nextSessionId;
+    private long now;
+    private Random random;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        random = new Random(1);
+        // Capacity covers roughly a third of the connectors at full power, so most sessions are throttled
+        pool = new StationPowerPool(connectors * 40_000L, 0);
+        sessionIds = new long[connectors];
+        for (int i = 0; i < connectors; i++) {
+            sessionIds[i] = nextSessionId++;
+            pool.add(sessionIds[i], RATINGS_W[i % RATINGS_W.length], 1 + i % 4, 0, 0);
+        }
+    }
+
+    @Benchmark
+    public void stopAndStart(Blackhole bh) {
+        now += 1_000;
+        int slot = random.nextInt(connectors);
+        pool.remove(sessionIds[slot], now);
+        sessionIds[slot] = nextSessionId++;
+        pool.add(sessionIds[slot], RATINGS_W[slot % RATINGS_W.length], 1 + slot % 4, now, now);
+        long probe = sessionIds[random.nextInt(connectors)];
+        bh.consume(pool.powerW(probe));
+        bh.consume(pool.energyWh(probe, now));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StationPowerAllocationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,72 @@
+package com.chargingservice.benchmarks;
+
+import com.chargingservice.entities.TariffBand;
+import com.chargingservice.services.TariffTable;
+import com.chargingservice.units.RatePerKwh;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pricing one session interval against a compiled tariff with hourly bands, for sessions crossing
+ * 0 to 20 band boundaries. Run main() from the test classpath; the GC profiler should report
+ * ~0 B/op (gc.alloc.rate.norm) for every crossing count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TariffPricingBenchmark {
+
+    @Param({"0", "1", "2", "5", "10", "20"})
+    public int crossings;
+
+    private TariffTable table;
+    private long start;
+    private long end;
+    private long energyWh;
+
+    @Setup
+    public void setUp() {
+        // Every hour of the week alternates between two prices: 168 bands
+        List<TariffBand> bands = new ArrayList<>();
+        for (int hour = 0; hour < 24; hour += 2) {
+            TariffBand band = new TariffBand();
+            band.setDayType(TariffBand.DayType.all);
+            band.setStartTime(LocalTime.of(hour, 0));
+            band.setEndTime(LocalTime.of(hour + 1, 0));
+            band.setPricePerKwh(RatePerKwh.ofVnd(4500));
+            bands.add(band);
+        }
+        table = TariffTable.compile(bands, RatePerKwh.ofVnd(3000));
+        start = TariffTable.localMillis(LocalDateTime.parse("2025-10-31T09:10:00"));
+        end = start + crossings * 3_600_000L + 40 * 60_000L;
+        energyWh = (end - start) / 100; // 36 kW
+        if (table.boundariesCrossed(start, end) != crossings) {
+            throw new IllegalStateException("expected " + crossings + " crossings");
+        }
+    }
+
+    @Benchmark
+    public long costVnd() {
+        return table.costVnd(start, end, energyWh, 25);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TariffPricingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
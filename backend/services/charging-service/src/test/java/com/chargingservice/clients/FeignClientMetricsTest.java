@@ -0,0 +1,71 @@
+package com.chargingservice.clients;
+
+import feign.Feign;
+import feign.FeignException;
+import feign.Response;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeignClientMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private <T> T client(Class<T> type, int status) {
+        return Feign.builder()
+                .contract(new SpringMvcContract())
+                .addCapability(new FeignClientMetrics(registry))
+                .client((request, options) -> Response.builder()
+                        .status(status)
+                        .request(request)
+                        .headers(Map.of())
+                        .body("{}", StandardCharsets.UTF_8)
+                        .build())
+                .decoder((response, returnType) -> {
+                    Class<?> raw = returnType instanceof ParameterizedType p ? (Class<?>) p.getRawType() : (Class<?>) returnType;
+                    return List.class.isAssignableFrom(raw) ? List.of() : Map.class.isAssignableFrom(raw) ? Map.of() : null;
+                })
+                .target(type, "http://localhost");
+    }
+
+    @Test
+    void registersATimerForEveryClientMethod() {
+        for (Class<?> type : List.of(StationServiceClient.class, UserServiceClient.class,
+                PaymentServiceClient.class, NotificationServiceClient.class)) {
+            client(type, 200);
+            for (Method method : type.getDeclaredMethods()) {
+                assertNotNull(registry.find(FeignClientMetrics.METRIC)
+                                .tags("client", type.getSimpleName(), "method", method.getName(), "outcome", "success")
+                                .timer(),
+                        type.getSimpleName() + "." + method.getName());
+            }
+        }
+    }
+
+    @Test
+    void recordsSuccessAndErrorOutcomes() {
+        client(StationServiceClient.class, 200).getStationById(1L);
+        client(StationServiceClient.class, 200).getStationById(2L);
+        StationServiceClient failing = client(StationServiceClient.class, 500);
+        assertThrows(FeignException.class, () -> failing.getChargersByStationId(1L));
+
+        assertEquals(2, timer("getStationById", "success").count());
+        assertEquals(0, timer("getStationById", "error").count());
+        assertEquals(1, timer("getChargersByStationId", "error").count());
+    }
+
+    private Timer timer(String method, String outcome) {
+        return registry.get(FeignClientMetrics.METRIC)
+                .tags("client", "StationServiceClient", "method", method, "outcome", outcome)
+                .timer();
+    }
+}
@@ -0,0 +1,155 @@
+package com.chargingservice.configs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalDateTimeDeserializerTest {
+
+    // Deserializer cũ (thử lần lượt từng formatter), giữ lại làm chuẩn so sánh
+    private static final DateTimeFormatter[] LEGACY_PARSERS = {
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME,
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS"),
+            DateTimeFormatter.ISO_DATE_TIME
+    };
+
+    static LocalDateTime legacyParse(String text) {
+        String dateString = text.trim();
+        if (dateString.endsWith("Z")) {
+            dateString = dateString.substring(0, dateString.length() - 1);
+        } else if (dateString.contains("+") || dateString.contains("-")) {
+            int idx = Math.max(dateString.lastIndexOf('+'), dateString.lastIndexOf('-'));
+            if (idx > 10) {
+                dateString = dateString.substring(0, idx);
+            }
+        }
+        for (DateTimeFormatter formatter : LEGACY_PARSERS) {
+            try {
+                return LocalDateTime.parse(dateString, formatter);
+            } catch (DateTimeParseException e) {
+                // thử formatter tiếp theo
+            }
+        }
+        return null;
+    }
+
+    @Test
+    void parsesSupportedFormats() {
+        LocalDateTime expected = LocalDateTime.of(2025, 10, 31, 9, 0);
+        assertEquals(expected, LocalDateTimeDeserializer.parse("2025-10-31T09:00"));
+        assertEquals(expected, LocalDateTimeDeserializer.parse("2025-10-31T09:00:00"));
+        assertEquals(expected, LocalDateTimeDeserializer.parse("2025-10-31T09:00:00.000"));
+        assertEquals(expected, LocalDateTimeDeserializer.parse(" 2025-10-31T09:00:00Z "));
+        assertEquals(expected, LocalDateTimeDeserializer.parse("2025-10-31T09:00:00+07:00"));
+        assertEquals(expected, LocalDateTimeDeserializer.parse("2025-10-31T09:00:00-05:00"));
+        assertEquals(expected, LocalDateTimeDeserializer.parse("2025-10-31 09:00:00"));
+        assertEquals(expected.plusNanos(123_456_789), LocalDateTimeDeserializer.parse("2025-10-31T09:00:00.123456789"));
+        assertEquals(LocalDateTime.of(2025, 2, 28, 10, 0), LocalDateTimeDeserializer.parse("2025-02-30T10:00:00"));
+        assertEquals(LocalDateTime.of(2025, 11, 1, 0, 0), LocalDateTimeDeserializer.parse("2025-10-31T24:00:00"));
+
+        long epochMillis = 1_761_876_000_000L;
+        LocalDateTime local = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+        assertEquals(local, LocalDateTimeDeserializer.parse(Long.toString(epochMillis)));
+
+        assertNull(LocalDateTimeDeserializer.parse("2025-02-30T10:00"));
+        assertNull(LocalDateTimeDeserializer.parse("2025-10-31T09:00:60"));
+        assertNull(LocalDateTimeDeserializer.parse("2025-10-31"));
+        assertNull(LocalDateTimeDeserializer.parse(""));
+    }
+
+    @Test
+    void deserializesStringsAndNumbersThroughJackson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(
+                new SimpleModule().addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer()));
+        assertEquals(LocalDateTime.of(2025, 10, 31, 9, 0),
+                mapper.readValue("\"2025-10-31T09:00:00+07:00\"", LocalDateTime.class));
+        assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli(0), ZoneId.systemDefault()),
+                mapper.readValue("0", LocalDateTime.class));
+        Exception e = assertThrows(Exception.class, () -> mapper.readValue("\"31/10/2025\"", LocalDateTime.class));
+        assertTrue(e.getMessage().contains("Unable to parse LocalDateTime"));
+    }
+
+    /**
+     * Random valid and mutated inputs: every text the old deserializer accepted must parse to the same value,
+     * and everything it rejected must be rejected, except the formats added on purpose (space separator, epoch millis).
+     */
+    @Test
+    void matchesLegacyDeserializerOnFuzzedInput() {
+        Random random = new Random(14);
+        int accepted = 0;
+        for (int i = 0; i < 100_000; i++) {
+            String text = mutate(randomDateTime(random), random);
+            LocalDateTime expected = legacyParse(text);
+            LocalDateTime actual = LocalDateTimeDeserializer.parse(text);
+            if (expected == null && actual != null && isNewFormat(text)) {
+                continue;
+            }
+            assertEquals(expected, actual, () -> "input: \"" + text + "\"");
+            if (expected != null) {
+                accepted++;
+            }
+        }
+        assertTrue(accepted > 25_000, "fuzzer should produce mostly valid inputs, got " + accepted);
+    }
+
+    private static boolean isNewFormat(String text) {
+        String trimmed = text.trim();
+        return trimmed.chars().allMatch(Character::isDigit) || trimmed.matches("[+-]?\\d+-\\d\\d-\\d\\d .*");
+    }
+
+    private static final String[] SEPARATORS = {"T", "T", "T", "t", " "};
+    private static final String[] OFFSETS = {"", "", "", "Z", "z", "+07:00", "-05:00", "+0700", "+07", "+18:00", "+19:00",
+            "-00:30:15", "Z[UTC]", "+07:00[Asia/Ho_Chi_Minh]", "Z[Asia/Ho_Chi_Minh]", "Z[Nowhere/City]", "[UTC]"};
+
+    private static String randomDateTime(Random random) {
+        StringBuilder sb = new StringBuilder();
+        switch (random.nextInt(20)) {
+            case 0 -> sb.append(String.format("%04d", random.nextInt(3)));
+            case 1 -> sb.append('+').append(random.nextInt(20) == 0 ? 1_000_000_000 + random.nextInt(9) : 1 + random.nextInt(99_999));
+            case 2 -> sb.append('-').append(String.format("%04d", random.nextInt(20_000)));
+            default -> sb.append(1990 + random.nextInt(60));
+        }
+        sb.append(String.format("-%02d-%02d", random.nextInt(14), random.nextInt(33)));
+        sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        int hour = random.nextInt(10) == 0 ? 24 : random.nextInt(24);
+        sb.append(String.format("%02d:%02d", hour, random.nextInt(10) == 0 ? 0 : random.nextInt(61)));
+        if (random.nextInt(4) != 0) {
+            sb.append(String.format(":%02d", random.nextInt(10) == 0 ? 0 : random.nextInt(61)));
+            if (random.nextBoolean()) {
+                sb.append('.');
+                int digits = random.nextInt(4) == 0 ? 3 : random.nextInt(11);
+                for (int d = 0; d < digits; d++) {
+                    sb.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+        }
+        sb.append(OFFSETS[random.nextInt(OFFSETS.length)]);
+        return sb.toString();
+    }
+
+    private static String mutate(String text, Random random) {
+        StringBuilder sb = new StringBuilder(text);
+        switch (random.nextInt(12)) {
+            case 0 -> sb.deleteCharAt(random.nextInt(sb.length()));
+            case 1 -> sb.insert(random.nextInt(sb.length() + 1), "0123456789-:.+TZ ".charAt(random.nextInt(17)));
+            case 2 -> sb.setCharAt(random.nextInt(sb.length()), "0123456789-:.+TZ ".charAt(random.nextInt(17)));
+            case 3 -> sb.insert(0, "  ").append('\t');
+            case 4 -> {
+                return Long.toString(random.nextLong(4_000_000_000_000L));
+            }
+            default -> {
+            }
+        }
+        return sb.toString();
+    }
+}
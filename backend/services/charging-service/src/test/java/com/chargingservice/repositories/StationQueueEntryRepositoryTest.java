@@ -0,0 +1,71 @@
+package com.chargingservice.repositories;
+
+import com.chargingservice.entities.StationQueueEntry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.config.import=",
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:station-queue-repository;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class StationQueueEntryRepositoryTest {
+
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = StationQueueEntry.class)
+    @EnableJpaRepositories(basePackageClasses = StationQueueEntryRepository.class)
+    static class Config {
+    }
+
+    private static final long STATION = 7L;
+
+    @Autowired
+    private StationQueueEntryRepository queueRepository;
+
+    @Test
+    void positionsFollowJoinOrderWhenDriversLeaveFromTheMiddle() {
+        for (long user = 1; user <= 5; user++) {
+            assertEquals(1, queueRepository.insertEntry(STATION, user, LocalDateTime.now()));
+        }
+        assertEquals(0, queueRepository.insertEntry(STATION, 3L, LocalDateTime.now())); // vào lại: giữ nguyên vị trí
+        queueRepository.insertEntry(STATION + 1, 9L, LocalDateTime.now());
+
+        assertEquals(1, queueRepository.deleteEntry(STATION, 2L));
+        assertEquals(0, queueRepository.deleteEntry(STATION, 2L));
+        assertEquals(0, position(1L));
+        assertEquals(1, position(3L));
+        assertEquals(3, position(5L));
+        assertTrue(queueRepository.findByStationIdAndUserId(STATION, 2L).isEmpty());
+        assertEquals(4, queueRepository.countByStationId(STATION));
+    }
+
+    @Test
+    void headIsCalledOnceWhenTwoSessionsEndTogether() {
+        queueRepository.insertEntry(STATION, 1L, LocalDateTime.now());
+        queueRepository.insertEntry(STATION, 2L, LocalDateTime.now());
+
+        StationQueueEntry head = queueRepository.findFirstByStationIdOrderByEntryIdAsc(STATION).orElseThrow();
+        assertEquals(1L, head.getUserId());
+        assertEquals(1, queueRepository.claimEntry(head.getEntryId()));
+        // Instance thứ hai đọc cùng người đứng đầu: không gọi lại, chuyển sang người kế tiếp
+        assertEquals(0, queueRepository.claimEntry(head.getEntryId()));
+        assertEquals(2L, queueRepository.findFirstByStationIdOrderByEntryIdAsc(STATION).orElseThrow().getUserId());
+    }
+
+    private long position(Long userId) {
+        StationQueueEntry entry = queueRepository.findByStationIdAndUserId(STATION, userId).orElseThrow();
+        return queueRepository.countByStationIdAndEntryIdLessThan(STATION, entry.getEntryId());
+    }
+}
@@ -0,0 +1,79 @@
+package com.chargingservice.repositories;
+
+import com.chargingservice.entities.UserConsumptionRollup;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.config.import=",
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:rollup-repository;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserConsumptionRollupRepositoryTest {
+
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = UserConsumptionRollup.class)
+    @EnableJpaRepositories(basePackageClasses = UserConsumptionRollupRepository.class)
+    static class Config {
+    }
+
+    private static final LocalDate OCTOBER = LocalDate.of(2026, 10, 1);
+
+    @Autowired
+    private UserConsumptionRollupRepository rollupRepository;
+
+    @Test
+    void lifetimeTotalsSumOnlyTheRequestedPeriodType() {
+        save(1L, UserConsumptionRollup.PeriodType.month, OCTOBER.minusMonths(1), 4, 3, 50_000);
+        save(1L, UserConsumptionRollup.PeriodType.month, OCTOBER, 2, 2, 30_000);
+        // Cùng phiên được đếm lại ở dòng ngày: không được cộng vào tổng
+        save(1L, UserConsumptionRollup.PeriodType.day, OCTOBER.plusDays(3), 2, 2, 30_000);
+        save(2L, UserConsumptionRollup.PeriodType.month, OCTOBER, 9, 9, 90_000);
+
+        Object[] totals = rollupRepository.sumLifetimeTotals(1L, UserConsumptionRollup.PeriodType.month).get(0);
+        assertEquals(6L, ((Number) totals[0]).longValue());
+        assertEquals(5L, ((Number) totals[1]).longValue());
+
+        Object[] none = rollupRepository.sumLifetimeTotals(3L, UserConsumptionRollup.PeriodType.month).get(0);
+        assertEquals(0L, ((Number) none[0]).longValue());
+        assertEquals(0L, ((Number) none[1]).longValue());
+    }
+
+    @Test
+    void periodRowsAreReturnedInOrderWithinTheRange() {
+        for (int day = 0; day < 10; day++) {
+            save(1L, UserConsumptionRollup.PeriodType.day, OCTOBER.plusDays(day), 1, 1, 1_000L * day);
+        }
+        List<UserConsumptionRollup> week = rollupRepository
+                .findByUserIdAndPeriodTypeAndPeriodStartBetweenOrderByPeriodStartAsc(
+                        1L, UserConsumptionRollup.PeriodType.day, OCTOBER.plusDays(3), OCTOBER.plusDays(9));
+        assertEquals(7, week.size());
+        assertEquals(OCTOBER.plusDays(3), week.get(0).getPeriodStart());
+        assertEquals(OCTOBER.plusDays(9), week.get(6).getPeriodStart());
+    }
+
+    private void save(Long userId, UserConsumptionRollup.PeriodType periodType, LocalDate periodStart,
+                      long started, long completed, long energyWh) {
+        UserConsumptionRollup rollup = new UserConsumptionRollup();
+        rollup.setUserId(userId);
+        rollup.setPeriodType(periodType);
+        rollup.setPeriodStart(periodStart);
+        rollup.setSessionsStarted(started);
+        rollup.setSessionsCompleted(completed);
+        rollup.setEnergyWh(energyWh);
+        rollupRepository.save(rollup);
+    }
+}
@@ -0,0 +1,105 @@
+package com.chargingservice.schedulers;
+
+import com.chargingservice.clients.StationServiceClient;
+import com.chargingservice.dtos.internal.UpdateChargerStatusDto;
+import com.chargingservice.entities.ChargerStatusOutbox;
+import com.chargingservice.entities.ChargerStatusRelayLease;
+import com.chargingservice.repositories.ChargerStatusOutboxRepository;
+import com.chargingservice.repositories.ChargerStatusRelayLeaseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Two relay instances over one outbox: a charger held by another instance is left alone, and each charger's
+ * newest status is delivered exactly once.
+ */
+@DataJpaTest(properties = {
+        "spring.config.import=",
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:outbox-relay;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ChargerStatusOutboxRelayTest {
+
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = ChargerStatusOutbox.class)
+    @EnableJpaRepositories(basePackageClasses = ChargerStatusOutboxRepository.class)
+    static class Config {
+    }
+
+    @Autowired
+    private ChargerStatusOutboxRepository outboxRepository;
+
+    @Autowired
+    private ChargerStatusRelayLeaseRepository leaseRepository;
+
+    private final StationServiceClient stationServiceClient = mock(StationServiceClient.class);
+
+    @Test
+    void chargersLeasedByAnotherInstanceAreSkippedUntilTheLeaseLapses() {
+        enqueue(7L, UpdateChargerStatusDto.ChargerStatus.reserved);
+        enqueue(7L, UpdateChargerStatusDto.ChargerStatus.available);
+        enqueue(8L, UpdateChargerStatusDto.ChargerStatus.in_use);
+        lease(8L, "other-instance", LocalDateTime.now().plusMinutes(1));
+
+        ChargerStatusOutboxRelay first = relay();
+        ChargerStatusOutboxRelay second = relay();
+        first.relay();
+        second.relay();
+
+        verify(stationServiceClient).updateChargerStatus(eq(7L), argThat(
+                dto -> dto.getStatus() == UpdateChargerStatusDto.ChargerStatus.available));
+        verify(stationServiceClient, never()).updateChargerStatus(eq(8L), any());
+        assertEquals(1, outboxRepository.count());
+
+        // Instance giữ trụ 8 đã chết: lease hết hạn thì instance khác tiếp quản
+        lease(8L, "other-instance", LocalDateTime.now().minusSeconds(1));
+        second.relay();
+        first.relay();
+
+        verify(stationServiceClient).updateChargerStatus(eq(8L), argThat(
+                dto -> dto.getStatus() == UpdateChargerStatusDto.ChargerStatus.in_use));
+        verifyNoMoreInteractions(stationServiceClient);
+        assertEquals(0, outboxRepository.count());
+        assertTrue(leaseRepository.findAll().isEmpty());
+    }
+
+    private ChargerStatusOutboxRelay relay() {
+        return new ChargerStatusOutboxRelay(outboxRepository, leaseRepository, stationServiceClient, 100, 10, 60);
+    }
+
+    private void enqueue(Long chargerId, UpdateChargerStatusDto.ChargerStatus status) {
+        ChargerStatusOutbox entry = new ChargerStatusOutbox();
+        entry.setChargerId(chargerId);
+        entry.setTargetStatus(status);
+        entry.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxRepository.saveAndFlush(entry);
+    }
+
+    private void lease(Long chargerId, String owner, LocalDateTime until) {
+        ChargerStatusRelayLease lease = new ChargerStatusRelayLease();
+        lease.setChargerId(chargerId);
+        lease.setOwner(owner);
+        lease.setLeaseUntil(until);
+        leaseRepository.saveAndFlush(lease);
+    }
+}
@@ -0,0 +1,94 @@
+package com.chargingservice.schedulers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionArchiveSchedulerTest {
+
+    private static final String SESSION_COLUMNS = "session_id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, " +
+            "station_id BIGINT NOT NULL, charger_id BIGINT NOT NULL, session_code VARCHAR(255) NOT NULL, " +
+            "start_time TIMESTAMP, end_time TIMESTAMP, timeout_at TIMESTAMP, energy_consumed DECIMAL(10,2), " +
+            "price_per_kwh DECIMAL(10,2), discount_percent INT, total_cost DECIMAL(12,2), " +
+            "offline_transaction_id VARCHAR(64), battery_class VARCHAR(16), session_status VARCHAR(16), " +
+            "is_paid BOOLEAN, payment_id BIGINT, created_at TIMESTAMP, updated_at TIMESTAMP";
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:archive;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate.execute("CREATE TABLE charging_sessions (" + SESSION_COLUMNS + ")");
+        jdbcTemplate.execute("CREATE TABLE charging_sessions_archive (" + SESSION_COLUMNS
+                + ", archived_at TIMESTAMP NOT NULL)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void movesOnlyOldSettledSessionsAndKeepsIds() {
+        insert(1, CUTOFF.minusDays(10), "completed", true);
+        insert(2, CUTOFF.minusDays(9), "completed", false);   // chưa thanh toán: giữ lại
+        insert(3, CUTOFF.minusDays(8), "cancelled", false);
+        insert(4, CUTOFF.minusDays(7), "active", false);
+        insert(5, CUTOFF.plusDays(1), "completed", true);     // còn mới
+        insert(6, CUTOFF.minusDays(6), "timeout", true);
+
+        int moved = scheduler(100, 10).archiveStartedBefore(CUTOFF);
+
+        assertEquals(3, moved);
+        assertEquals(List.of(2L, 4L, 5L), ids("charging_sessions"));
+        assertEquals(List.of(1L, 3L, 6L), ids("charging_sessions_archive"));
+        assertEquals("S-1", jdbcTemplate.queryForObject(
+                "SELECT session_code FROM charging_sessions_archive WHERE session_id = 1", String.class));
+    }
+
+    @Test
+    void stopsAfterMaxBatchesAndResumesOnNextRun() {
+        // Cùng start_time: keyset phải dùng session_id để không bỏ sót hay lặp phiên
+        for (int id = 1; id <= 7; id++) {
+            insert(id, CUTOFF.minusDays(id <= 4 ? 5 : 3), "completed", true);
+        }
+
+        SessionArchiveScheduler scheduler = scheduler(2, 2);
+        assertEquals(4, scheduler.archiveStartedBefore(CUTOFF));
+        assertEquals(List.of(5L, 6L, 7L), ids("charging_sessions"));
+
+        assertEquals(3, scheduler.archiveStartedBefore(CUTOFF));
+        assertEquals(0, scheduler.archiveStartedBefore(CUTOFF));
+        assertEquals(List.of(), ids("charging_sessions"));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), ids("charging_sessions_archive"));
+    }
+
+    private SessionArchiveScheduler scheduler(int batchSize, int maxBatches) {
+        return new SessionArchiveScheduler(jdbcTemplate, transactionManager, true, 90, batchSize, maxBatches);
+    }
+
+    private void insert(long id, LocalDateTime start, String status, boolean paid) {
+        jdbcTemplate.update("INSERT INTO charging_sessions (session_id, user_id, station_id, charger_id, session_code, " +
+                        "start_time, session_status, is_paid) VALUES (?, 1, 1, 1, ?, ?, ?, ?)",
+                id, "S-" + id, Timestamp.valueOf(start), status, paid);
+    }
+
+    private List<Long> ids(String table) {
+        return jdbcTemplate.queryForList("SELECT session_id FROM " + table + " ORDER BY session_id", Long.class);
+    }
+}
@@ -0,0 +1,195 @@
+package com.chargingservice.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency stress test for ChargerAdmissionControl against an in-memory claim store that mimics the
+ * unique key of charger_active_claims and the latency of a database round trip.
+ * Assertions are on outcomes (admitted/rejected counts, one holder per charger), never on timing.
+ */
+class ChargerAdmissionControlStressTest {
+
+    private static final long STORE_LATENCY_NANOS = 1_000_000; // ~1 ms per insert/delete
+
+    /**
+     * Claim store with the same duplicate-key behaviour as the charger_active_claims primary key.
+     */
+    private static class InMemoryClaimStore implements ChargerAdmissionControl.ClaimStore {
+        final Map<Long, Long> claims = new ConcurrentHashMap<>();
+        private final long latencyNanos;
+
+        InMemoryClaimStore(long latencyNanos) {
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public void insert(Long chargerId, Long sessionId) {
+            LockSupport.parkNanos(latencyNanos);
+            if (claims.putIfAbsent(chargerId, sessionId) != null) {
+                throw new DataIntegrityViolationException("Duplicate entry for key PRIMARY");
+            }
+        }
+
+        @Override
+        public void delete(Long chargerId, Long sessionId) {
+            LockSupport.parkNanos(latencyNanos);
+            claims.remove(chargerId, sessionId);
+        }
+    }
+
+    @Test
+    void admitsExactlyOneSessionPerChargerUnderContention() throws Exception {
+        InMemoryClaimStore store = new InMemoryClaimStore(STORE_LATENCY_NANOS);
+        ChargerAdmissionControl admission = new ChargerAdmissionControl(store, null, 16, 10_000);
+        int chargers = 200;
+        int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+        AtomicLong sessionIds = new AtomicLong();
+        Map<Long, AtomicInteger> admittedPerCharger = new ConcurrentHashMap<>();
+
+        runConcurrently(threads, () -> {
+            List<Long> order = new ArrayList<>();
+            for (long c = 1; c <= chargers; c++) {
+                order.add(c);
+            }
+            Collections.shuffle(order);
+            for (Long chargerId : order) {
+                try {
+                    admission.admit(chargerId, sessionIds.incrementAndGet());
+                    admittedPerCharger.computeIfAbsent(chargerId, k -> new AtomicInteger()).incrementAndGet();
+                } catch (IllegalStateException rejected) {
+                    // charger already taken by another thread
+                }
+            }
+        });
+
+        assertEquals(chargers, admittedPerCharger.size());
+        admittedPerCharger.forEach((chargerId, count) ->
+                assertEquals(1, count.get(), "charger " + chargerId + " admitted " + count.get() + " sessions"));
+        assertEquals(chargers, store.claims.size());
+    }
+
+    @Test
+    void admitReleaseCyclesNeverHoldAChargerTwice() throws Exception {
+        InMemoryClaimStore store = new InMemoryClaimStore(0);
+        ChargerAdmissionControl admission = new ChargerAdmissionControl(store, null, 4, 10_000);
+        int chargers = 8;
+        int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+        int cyclesPerThread = 2_000;
+        AtomicLong sessionIds = new AtomicLong();
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger maxHolders = new AtomicInteger();
+        Map<Long, AtomicInteger> holders = new ConcurrentHashMap<>();
+
+        runConcurrently(threads, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < cyclesPerThread; i++) {
+                long chargerId = random.nextLong(1, chargers + 1);
+                long sessionId = sessionIds.incrementAndGet();
+                try {
+                    admission.admit(chargerId, sessionId);
+                } catch (IllegalStateException busy) {
+                    rejected.incrementAndGet();
+                    continue;
+                }
+                admitted.incrementAndGet();
+                AtomicInteger holding = holders.computeIfAbsent(chargerId, k -> new AtomicInteger());
+                maxHolders.accumulateAndGet(holding.incrementAndGet(), Math::max);
+                holding.decrementAndGet();
+                admission.release(chargerId, sessionId);
+            }
+        });
+
+        assertEquals(threads * cyclesPerThread, admitted.get() + rejected.get());
+        assertTrue(admitted.get() > 0, "no session was ever admitted");
+        assertEquals(1, maxHolders.get(), "a charger was held by more than one session at once");
+        assertTrue(store.claims.isEmpty(), "claims left behind: " + store.claims);
+    }
+
+    @Test
+    void startOnAnotherStripeDoesNotWaitForABusyCharger() throws Exception {
+        // Charger 1 và 2 nằm ở hai stripe khác nhau khi có 64 stripe
+        assertSecondStartAdmitted(64, true);
+        assertSecondStartAdmitted(1, false);
+    }
+
+    /**
+     * Holds charger 1 mid-insert and starts a session on charger 2 meanwhile.
+     */
+    private static void assertSecondStartAdmitted(int stripes, boolean expected) throws Exception {
+        CountDownLatch inserting = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        InMemoryClaimStore store = new InMemoryClaimStore(0) {
+            @Override
+            public void insert(Long chargerId, Long sessionId) {
+                if (chargerId == 1L) {
+                    inserting.countDown();
+                    try {
+                        proceed.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.insert(chargerId, sessionId);
+            }
+        };
+        ChargerAdmissionControl admission = new ChargerAdmissionControl(store, null, stripes, 100);
+        Thread first = new Thread(() -> admission.admit(1L, 1L));
+        first.start();
+        try {
+            inserting.await();
+            boolean admitted;
+            try {
+                admission.admit(2L, 2L);
+                admitted = true;
+            } catch (IllegalStateException busy) {
+                admitted = false;
+            }
+            assertEquals(expected, admitted, "second start with " + stripes + " stripe(s)");
+        } finally {
+            proceed.countDown();
+            first.join();
+        }
+        assertTrue(store.claims.containsKey(1L));
+    }
+
+    private static void runConcurrently(int threads, Runnable body) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    body.run();
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        ready.await();
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertTrue(failures.isEmpty(), "worker failed: " + failures);
+    }
+}
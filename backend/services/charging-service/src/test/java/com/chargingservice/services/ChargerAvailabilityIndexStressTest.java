@@ -0,0 +1,195 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.chargingservice.repositories.ReservationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * ChargerIntervals against a brute-force list of intervals, and ChargerAvailabilityIndex under concurrent
+ * reservation/session changes with readers querying at the same time.
+ */
+class ChargerAvailabilityIndexStressTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+    @Test
+    void intervalTreeMatchesBruteForce() {
+        ChargerIntervals tree = new ChargerIntervals();
+        Map<Long, long[]> reference = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(reference.remove(key) != null, tree.remove(key));
+            } else {
+                long start = random.nextInt(100_000);
+                long end = start + 1 + random.nextInt(random.nextBoolean() ? 60 : 5_000);
+                tree.put(key, start, end);
+                reference.put(key, new long[]{start, end});
+            }
+
+            long from = random.nextInt(100_000);
+            long to = from + 1 + random.nextInt(3_000);
+            TreeSet<Long> expected = new TreeSet<>();
+            reference.forEach((k, interval) -> {
+                if (interval[0] < to && interval[1] > from) {
+                    expected.add(k);
+                }
+            });
+            long first = tree.firstOverlap(from, to);
+            if (expected.isEmpty()) {
+                assertEquals(ChargerIntervals.NONE, first);
+            } else {
+                assertTrue(expected.contains(first), "not an overlapping key: " + first);
+            }
+            if (i % 50 == 0) {
+                TreeSet<Long> visited = new TreeSet<>();
+                tree.forEachOverlap(from, to, (k, start, end) -> visited.add(k));
+                assertEquals(expected, visited);
+            }
+        }
+        assertEquals(reference.size(), tree.size());
+    }
+
+    @Test
+    void concurrentChangesConvergeToTheLastState() throws Exception {
+        ChargerAvailabilityIndex index = new ChargerAvailabilityIndex(
+                mock(ReservationRepository.class), mock(ChargingSessionRepository.class));
+        int chargers = 16;
+        int writers = 6;
+        int reservationsPerWriter = 400;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        // Trạng thái cuối của từng reservation (mỗi writer sở hữu một dải id riêng)
+        List<Reservation> finalStates = Collections.synchronizedList(new ArrayList<>());
+
+        CountDownLatch done = new CountDownLatch(writers);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int w = 0; w < writers; w++) {
+            long firstId = 1 + (long) w * reservationsPerWriter;
+            threads.add(new Thread(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    Map<Long, Reservation> latest = new HashMap<>();
+                    for (int round = 0; round < 20; round++) {
+                        for (long id = firstId; id < firstId + reservationsPerWriter; id++) {
+                            Reservation reservation = reservation(id, random.nextLong(1, chargers + 1),
+                                    random.nextInt(7 * 24), random.nextBoolean()
+                                            ? Reservation.ReservationStatus.confirmed
+                                            : Reservation.ReservationStatus.cancelled);
+                            index.reservationSaved(reservation);
+                            latest.put(id, reservation);
+                        }
+                    }
+                    finalStates.addAll(latest.values());
+                } catch (Throwable t) {
+                    failures.add(t);
+                } finally {
+                    done.countDown();
+                }
+            }));
+        }
+        for (int r = 0; r < 2; r++) {
+            threads.add(new Thread(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (writing.get()) {
+                        LocalDateTime start = BASE.plusHours(random.nextInt(7 * 24));
+                        index.conflict(random.nextLong(1, chargers + 1), start, start.plusHours(2));
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }));
+        }
+        ChargingSession session = new ChargingSession();
+        session.setSessionId(1L);
+        session.setChargerId(1L);
+        session.setStartTime(BASE.plusDays(3));
+        session.setSessionStatus(ChargingSession.SessionStatus.charging);
+        index.sessionSaved(session);
+
+        threads.forEach(Thread::start);
+        done.await();
+        writing.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty(), "worker failed: " + failures);
+
+        // So sánh với kiểm tra brute-force trên trạng thái cuối
+        Random random = new Random(11);
+        for (int q = 0; q < 5_000; q++) {
+            long chargerId = 1 + random.nextInt(chargers);
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(7 * 24 * 60));
+            LocalDateTime end = start.plusMinutes(30 + random.nextInt(180));
+            boolean reserved = finalStates.stream().anyMatch(r -> r.getChargerId() == chargerId
+                    && r.getStatus() == Reservation.ReservationStatus.confirmed
+                    && r.getReservedStartTime().isBefore(end) && r.getReservedEndTime().isAfter(start));
+            boolean running = chargerId == 1 && end.isAfter(session.getStartTime());
+            ChargerAvailabilityIndex.Conflict conflict = index.conflict(chargerId, start, end);
+            assertEquals(reserved || running, conflict != ChargerAvailabilityIndex.Conflict.none,
+                    "charger " + chargerId + " " + start + " - " + end);
+        }
+
+        session.setSessionStatus(ChargingSession.SessionStatus.completed);
+        index.sessionSaved(session);
+        assertNotEquals(ChargerAvailabilityIndex.Conflict.session,
+                index.conflict(1L, BASE.plusDays(10), BASE.plusDays(10).plusHours(1)));
+    }
+
+    @Test
+    void forgetDropsEntriesTheDatabaseNoLongerBacks() {
+        ChargerAvailabilityIndex index = new ChargerAvailabilityIndex(
+                mock(ReservationRepository.class), mock(ChargingSessionRepository.class));
+        // Phiên đã kết thúc trên instance khác: trong index vẫn mở vô thời hạn
+        ChargingSession ended = new ChargingSession();
+        ended.setSessionId(5L);
+        ended.setChargerId(1L);
+        ended.setStartTime(BASE);
+        ended.setSessionStatus(ChargingSession.SessionStatus.charging);
+        index.refresh(ended);
+        index.refresh(reservation(1L, 1L, 30, Reservation.ReservationStatus.confirmed));
+        index.refresh(reservation(2L, 1L, 60, Reservation.ReservationStatus.confirmed));
+        LocalDateTime start = BASE.plusHours(29);
+        LocalDateTime end = BASE.plusHours(32);
+        assertTrue(SlotBitmap.isBusy(index.busySlots(List.of(1L), start.toLocalDate())[0], 0));
+
+        index.forget(1L, start, end);
+        assertEquals(ChargerAvailabilityIndex.Conflict.none, index.conflict(1L, start, end));
+        // DB đọc lại chỉ còn reservation 1
+        index.refresh(reservation(1L, 1L, 30, Reservation.ReservationStatus.confirmed));
+        assertEquals(ChargerAvailabilityIndex.Conflict.reservation, index.conflict(1L, start, end));
+        // Mục ngoài cửa sổ không bị đụng tới; lịch ngày đã cache cũng được tính lại
+        assertEquals(ChargerAvailabilityIndex.Conflict.reservation,
+                index.conflict(1L, BASE.plusHours(60), BASE.plusHours(61)));
+        assertFalse(SlotBitmap.isBusy(index.busySlots(List.of(1L), start.toLocalDate())[0], 0));
+    }
+
+    private static Reservation reservation(long id, long chargerId, int startHour, Reservation.ReservationStatus status) {
+        Reservation reservation = new Reservation();
+        reservation.setReservationId(id);
+        reservation.setChargerId(chargerId);
+        reservation.setReservedStartTime(BASE.plusHours(startHour));
+        reservation.setReservedEndTime(BASE.plusHours(startHour).plusMinutes(90));
+        reservation.setStatus(status);
+        return reservation;
+    }
+}
@@ -0,0 +1,75 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The listeners are registered with Hibernate from the service layer (the entities carry no @EntityListeners):
+ * every insert, update and delete of a reservation must still reach the index and the deadline engine.
+ */
+@DataJpaTest(properties = {
+        "spring.config.import=",
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:availability-listener;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ChargerAvailabilityListener.class, ReservationDeadlineListener.class})
+class ChargerAvailabilityListenerTest {
+
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = Reservation.class)
+    @EnableJpaRepositories(basePackageClasses = ReservationRepository.class)
+    static class Config {
+    }
+
+    @MockBean
+    private ChargerAvailabilityIndex index;
+
+    @MockBean
+    private ReservationDeadlineEngine deadlines;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Test
+    void reservationChangesReachTheIndexAndTheDeadlineEngine() {
+        Reservation reservation = new Reservation();
+        reservation.setUserId(1L);
+        reservation.setStationId(2L);
+        reservation.setChargerId(3L);
+        reservation.setReservedStartTime(LocalDateTime.of(2026, 11, 2, 10, 0));
+        reservation.setReservedEndTime(LocalDateTime.of(2026, 11, 2, 11, 0));
+        reservation.setDurationMinutes(60);
+        Reservation saved = reservationRepository.saveAndFlush(reservation);
+        verify(index).reservationSaved(argThat(r -> r.getReservationId().equals(saved.getReservationId())));
+        verify(deadlines).reservationSaved(argThat(r -> r.getReservationId().equals(saved.getReservationId())));
+
+        saved.setStatus(Reservation.ReservationStatus.cancelled);
+        reservationRepository.saveAndFlush(saved);
+        verify(index, times(2)).reservationSaved(
+                argThat(r -> r.getReservationId().equals(saved.getReservationId())));
+
+        reservationRepository.delete(saved);
+        reservationRepository.flush();
+        verify(index).reservationRemoved(eq(saved.getReservationId()));
+        verify(deadlines).reservationRemoved(eq(saved.getReservationId()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.chargingservice.services;
+
+import com.chargingservice.units.Energy;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChargingCurveTest {
+
+    private static final long CAPACITY_WH = 80_000;
+    private static final long MAX_POWER_W = 150_000;
+    private static final double TAPER_SOC = 0.80;
+    private static final double CUTOFF_C = 0.05;
+
+    private final ChargingCurve curve = ChargingCurve.cccv(CAPACITY_WH, MAX_POWER_W, TAPER_SOC, CUTOFF_C);
+
+    // Đường cong giải tích CC/CV: công suất không đổi tới taperSoc, sau đó giảm tuyến tính theo SOC
+    private static double analyticPowerW(double soc) {
+        return soc <= TAPER_SOC ? MAX_POWER_W : MAX_POWER_W * (1 - soc) / (1 - TAPER_SOC);
+    }
+
+    private static double analyticSeconds(double soc) {
+        double hours = soc <= TAPER_SOC
+                ? soc * CAPACITY_WH / MAX_POWER_W
+                : TAPER_SOC * CAPACITY_WH / MAX_POWER_W
+                + (1 - TAPER_SOC) * CAPACITY_WH / MAX_POWER_W * Math.log((1 - TAPER_SOC) / (1 - soc));
+        return hours * 3600;
+    }
+
+    // Tích phân số dE / min(trụ, pin) — không dùng nghiệm đóng
+    private static double integratedSeconds(double from, double to, long chargerPowerW) {
+        int steps = 200_000;
+        double ds = (to - from) / steps;
+        double seconds = 0;
+        for (int i = 0; i < steps; i++) {
+            double soc = from + (i + 0.5) * ds;
+            seconds += ds * CAPACITY_WH / Math.min(chargerPowerW, analyticPowerW(soc)) * 3600;
+        }
+        return seconds;
+    }
+
+    @Test
+    void tablesMatchTheAnalyticCurve() {
+        double cutoffPowerW = CUTOFF_C * CAPACITY_WH;
+        assertEquals(1 - cutoffPowerW / MAX_POWER_W * (1 - TAPER_SOC), curve.fullSoc(), 1e-12);
+        assertEquals(cutoffPowerW, analyticPowerW(curve.fullSoc()), 1e-6);
+
+        Random random = new Random(17);
+        for (int i = 0; i < 100_000; i++) {
+            double from = random.nextDouble() * curve.fullSoc();
+            double to = from + random.nextDouble() * (curve.fullSoc() - from);
+            // Sai số nội suy: < 0.5% công suất tối đa, < 0.1% thời gian (+ làm tròn 1 giây)
+            assertEquals(analyticPowerW(from), curve.powerW(from), MAX_POWER_W * 0.005, "power at " + from);
+            double expected = analyticSeconds(to) - analyticSeconds(from);
+            assertEquals(expected, curve.secondsToCharge(from, to, Long.MAX_VALUE), expected * 0.001 + 1,
+                    "seconds " + from + " -> " + to);
+        }
+    }
+
+    @Test
+    void chargerLimitMatchesNumericIntegration() {
+        Random random = new Random(42);
+        for (long chargerPowerW : new long[]{3_000, 7_400, 22_000, 50_000, 120_000, 149_999, 150_000, 350_000}) {
+            for (int i = 0; i < 20; i++) {
+                double from = random.nextDouble() * curve.fullSoc();
+                double to = from + random.nextDouble() * (curve.fullSoc() - from);
+                double expected = integratedSeconds(from, to, chargerPowerW);
+                assertEquals(expected, curve.secondsToCharge(from, to, chargerPowerW), expected * 0.002 + 1,
+                        chargerPowerW + " W: " + from + " -> " + to);
+                assertEquals(Math.min(chargerPowerW, curve.powerW(from)), curve.powerW(from, chargerPowerW));
+            }
+        }
+        // 20% -> đầy qua trụ 50 kW: 60 kWh ở 50 kW cho tới khi taper xuống dưới 50 kW
+        double expected = integratedSeconds(0.20, curve.fullSoc(), 50_000);
+        assertEquals(expected, curve.secondsToFull(0.20, 50_000), expected * 0.002);
+    }
+
+    @Test
+    void clampsAtFullAndRejectsInvalidCurves() {
+        assertEquals(0, curve.powerW(curve.fullSoc()));
+        assertEquals(0, curve.powerW(1.0, 50_000));
+        assertEquals(0, curve.secondsToFull(curve.fullSoc(), 50_000));
+        assertEquals(0, curve.secondsToCharge(0.9, 0.5, 50_000));
+        assertTrue(curve.isFull(curve.socAfter(0.20, Energy.ofWh(80_000))));
+        assertEquals(0.45, curve.socAfter(0.20, Energy.ofWh(20_000)), 1e-12);
+        assertEquals(Energy.ZERO, curve.energyToFull(1.0));
+        assertEquals(Math.round((curve.fullSoc() - 0.2) * CAPACITY_WH), curve.energyToFull(0.2).wh());
+        assertEquals(curve.secondsToCharge(0, 0.5, 50_000), curve.secondsToCharge(-1, 0.5, 50_000));
+
+        assertThrows(IllegalArgumentException.class, () -> curve.secondsToFull(0.5, 0));
+        assertThrows(IllegalArgumentException.class, () -> ChargingCurve.cccv(80_000, 150_000, 1.0, CUTOFF_C));
+        assertThrows(IllegalArgumentException.class, () -> ChargingCurve.cccv(80_000, 3_000, 0.8, CUTOFF_C));
+    }
+}
@@ -0,0 +1,104 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.chargingservice.repositories.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ChargingMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private ActiveSessionRegistry activeSessions;
+    private ReservationRepository reservationRepository;
+    private ChargingMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        activeSessions = new ActiveSessionRegistry(mock(ChargingSessionRepository.class));
+        reservationRepository = mock(ReservationRepository.class);
+        metrics = new ChargingMetrics(registry, activeSessions, reservationRepository);
+    }
+
+    @Test
+    void registersEveryTransitionCounterUpFront() {
+        for (ChargingMetrics.Transition transition : ChargingMetrics.Transition.values()) {
+            assertEquals(0, counter(transition).count(), transition.name());
+        }
+        metrics.record(ChargingMetrics.Transition.SESSION_STARTED);
+        metrics.record(ChargingMetrics.Transition.SESSION_STARTED);
+        metrics.record(ChargingMetrics.Transition.RESERVATION_NO_SHOW);
+        assertEquals(2, counter(ChargingMetrics.Transition.SESSION_STARTED).count());
+        assertEquals(1, counter(ChargingMetrics.Transition.RESERVATION_NO_SHOW).count());
+        assertEquals(0, counter(ChargingMetrics.Transition.SESSION_STOPPED).count());
+    }
+
+    @Test
+    void publishesActiveAndReservedSessionsPerStation() {
+        activeSessions.track(session(1L, 10L, 100L));
+        activeSessions.track(session(2L, 10L, 101L));
+        activeSessions.track(session(3L, 20L, 200L));
+        when(reservationRepository.countByStationForStatuses(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{10L, 4L}, new Object[]{30L, 1L}));
+
+        metrics.refreshStationGauges();
+
+        assertEquals(2, stationGauge("10", "active"));
+        assertEquals(4, stationGauge("10", "reserved"));
+        assertEquals(1, stationGauge("20", "active"));
+        assertEquals(0, stationGauge("20", "reserved"));
+        assertEquals(0, stationGauge("30", "active"));
+        assertEquals(1, stationGauge("30", "reserved"));
+        assertEquals(3, registry.get(ChargingMetrics.ACTIVE_SESSIONS).gauge().value());
+
+        // Trạm không còn phiên nào bị gỡ khỏi gauge ở lần làm mới sau
+        activeSessions.untrack(3L);
+        metrics.refreshStationGauges();
+        assertNull(registry.find(ChargingMetrics.STATION_SESSIONS).tags("station", "20").gauge());
+        assertEquals(2, registry.get(ChargingMetrics.ACTIVE_SESSIONS).gauge().value());
+    }
+
+    @Test
+    void keepsPreviousGaugesWhenTheReservationQueryFails() {
+        when(reservationRepository.countByStationForStatuses(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{10L, 4L}));
+        metrics.refreshStationGauges();
+        when(reservationRepository.countByStationForStatuses(any())).thenThrow(new RuntimeException("db down"));
+        metrics.refreshStationGauges();
+        assertEquals(4, stationGauge("10", "reserved"));
+    }
+
+    private Counter counter(ChargingMetrics.Transition transition) {
+        return registry.get(ChargingMetrics.TRANSITIONS)
+                .tag("entity", transition.name().startsWith("SESSION") ? "session" : "reservation")
+                .tag("transition", transition.name().replaceFirst("^(SESSION|RESERVATION)_", "").toLowerCase())
+                .counter();
+    }
+
+    private double stationGauge(String station, String state) {
+        Gauge gauge = registry.get(ChargingMetrics.STATION_SESSIONS).tag("station", station).tag("state", state).gauge();
+        return gauge.value();
+    }
+
+    private static ChargingSession session(Long sessionId, Long stationId, Long chargerId) {
+        ChargingSession session = new ChargingSession();
+        session.setSessionId(sessionId);
+        session.setUserId(sessionId);
+        session.setStationId(stationId);
+        session.setChargerId(chargerId);
+        session.setStartTime(LocalDateTime.now());
+        session.setSessionStatus(ChargingSession.SessionStatus.charging);
+        return session;
+    }
+}
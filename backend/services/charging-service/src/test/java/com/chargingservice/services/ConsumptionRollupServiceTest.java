@@ -0,0 +1,148 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.entities.UserConsumptionRollup;
+import com.chargingservice.repositories.UserConsumptionRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.config.import=",
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:rollup-service;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ConsumptionRollupServiceTest {
+
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = UserConsumptionRollup.class)
+    @EnableJpaRepositories(basePackageClasses = UserConsumptionRollupRepository.class)
+    static class Config {
+    }
+
+    private static final LocalDateTime OCTOBER = LocalDateTime.of(2026, 10, 1, 8, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserConsumptionRollupRepository rollupRepository;
+
+    @Test
+    void startAndCompletionAreCountedOnTheirOwnDayAndMonth() {
+        ConsumptionRollupService service = new ConsumptionRollupService(jdbcTemplate, rollupRepository);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lastMonth = now.withDayOfMonth(1).minusMonths(1).withHour(12);
+
+        // Phiên tháng trước, và hai phiên hôm nay (một đang sạc)
+        service.recordSessionStarted(session(1L, lastMonth, null, null));
+        service.recordSessionCompleted(session(1L, lastMonth, lastMonth.plusHours(1), "10.00"));
+        service.recordSessionStarted(session(1L, now, null, null));
+        service.recordSessionCompleted(session(1L, now, now, "15.50"));
+        service.recordSessionStarted(session(1L, now, null, null));
+        service.recordSessionStarted(session(2L, now, null, null));
+
+        Map<String, Object> stats = service.getDashboardStats(1L);
+        assertEquals(3L, stats.get("totalSessions"));
+        assertEquals(2L, stats.get("completedSessions"));
+        assertEquals(0, new BigDecimal("15.50").compareTo((BigDecimal) stats.get("totalEnergyThisMonth")));
+        assertEquals(0, new BigDecimal("10.00").compareTo((BigDecimal) stats.get("totalEnergyLastMonth")));
+        assertEquals(55.0, (Double) stats.get("energyChangePercent"), 1e-9);
+
+        List<Map<String, Object>> week = service.getWeeklyEnergyUsage(1L);
+        assertEquals(7, week.size());
+        assertEquals(15.5, (Double) week.get(6).get("usage"), 1e-9);
+        assertEquals(0.0, (Double) week.get(0).get("usage"), 1e-9);
+    }
+
+    @Test
+    void replayedSessionsAreSummedIntoOneUpsertPerPeriod() {
+        ConsumptionRollupService service = new ConsumptionRollupService(jdbcTemplate, rollupRepository);
+        service.recordSessionsReplayed(List.of(
+                session(1L, OCTOBER, OCTOBER.plusHours(1), "5.00"),
+                session(1L, OCTOBER.plusHours(2), OCTOBER.plusHours(3), "7.25"),
+                session(1L, OCTOBER.plusDays(1), OCTOBER.plusDays(1).plusHours(1), "1.00")));
+
+        assertRollup(1L, UserConsumptionRollup.PeriodType.day, OCTOBER.toLocalDate(), 2, 2, 12_250);
+        assertRollup(1L, UserConsumptionRollup.PeriodType.day, OCTOBER.toLocalDate().plusDays(1), 1, 1, 1_000);
+        assertRollup(1L, UserConsumptionRollup.PeriodType.month, OCTOBER.toLocalDate(), 3, 3, 13_250);
+    }
+
+    @Test
+    void backfillBuildsRollupsFromHotAndArchivedSessionsOnlyOnce() {
+        insertSession("charging_sessions", 1L, OCTOBER, OCTOBER.plusHours(1), "completed", "12.50");
+        insertSession("charging_sessions", 1L, OCTOBER.plusDays(2), null, "charging", null);
+        // Bắt đầu 30/9, kết thúc 1/10: lượt bắt đầu tính vào tháng 9, năng lượng vào tháng 10
+        insertSession("charging_sessions_archive", 1L, OCTOBER.minusHours(10), OCTOBER.minusHours(7), "completed", "3.00");
+        insertSession("charging_sessions_archive", 2L, OCTOBER.plusDays(3), OCTOBER.plusDays(3).plusHours(1), "cancelled", "1.00");
+
+        ConsumptionRollupService service = new ConsumptionRollupService(jdbcTemplate, rollupRepository);
+        service.backfillIfEmpty();
+        assertRollup(1L, UserConsumptionRollup.PeriodType.month, OCTOBER.toLocalDate(), 2, 2, 15_500);
+        assertRollup(1L, UserConsumptionRollup.PeriodType.month, OCTOBER.toLocalDate().minusMonths(1), 1, 0, 0);
+        assertRollup(1L, UserConsumptionRollup.PeriodType.day, OCTOBER.toLocalDate(), 1, 2, 15_500);
+        assertRollup(2L, UserConsumptionRollup.PeriodType.month, OCTOBER.toLocalDate(), 1, 0, 0);
+        long rows = rollupRepository.count();
+
+        // Bảng không còn trống: không chạy lại
+        service.backfillIfEmpty();
+        assertEquals(rows, rollupRepository.count());
+
+        // Hai instance cùng thấy bảng trống: lần chạy sau ghi đè cùng giá trị, không cộng dồn
+        UserConsumptionRollupRepository emptyTable = mock(UserConsumptionRollupRepository.class);
+        when(emptyTable.count()).thenReturn(0L);
+        new ConsumptionRollupService(jdbcTemplate, emptyTable).backfillIfEmpty();
+        assertEquals(rows, rollupRepository.count());
+        assertRollup(1L, UserConsumptionRollup.PeriodType.month, OCTOBER.toLocalDate(), 2, 2, 15_500);
+        assertRollup(1L, UserConsumptionRollup.PeriodType.day, OCTOBER.toLocalDate(), 1, 2, 15_500);
+    }
+
+    private void assertRollup(Long userId, UserConsumptionRollup.PeriodType periodType, LocalDate periodStart,
+                              long started, long completed, long energyWh) {
+        UserConsumptionRollup rollup = rollupRepository
+                .findByUserIdAndPeriodTypeAndPeriodStartBetweenOrderByPeriodStartAsc(userId, periodType, periodStart, periodStart)
+                .get(0);
+        assertEquals(started, rollup.getSessionsStarted(), "sessionsStarted " + periodType + " " + periodStart);
+        assertEquals(completed, rollup.getSessionsCompleted(), "sessionsCompleted " + periodType + " " + periodStart);
+        assertEquals(energyWh, rollup.getEnergyWh(), "energyWh " + periodType + " " + periodStart);
+    }
+
+    private void insertSession(String table, Long userId, LocalDateTime start, LocalDateTime end,
+                               String status, String energyKwh) {
+        boolean archive = table.endsWith("_archive");
+        jdbcTemplate.update("INSERT INTO " + table + " (" + (archive ? "session_id, archived_at, " : "") +
+                        "user_id, station_id, charger_id, session_code, start_time, end_time, session_status, energy_consumed) " +
+                        "VALUES (" + (archive ? "?, CURRENT_TIMESTAMP, " : "") + "?, 1, 1, ?, ?, ?, ?, ?)",
+                archive ? new Object[]{System.nanoTime(), userId, "S" + System.nanoTime(), start, end, status,
+                        energyKwh != null ? new BigDecimal(energyKwh) : null}
+                        : new Object[]{userId, "S" + System.nanoTime(), start, end, status,
+                        energyKwh != null ? new BigDecimal(energyKwh) : null});
+    }
+
+    private static ChargingSession session(Long userId, LocalDateTime start, LocalDateTime end, String energyKwh) {
+        ChargingSession session = new ChargingSession();
+        session.setUserId(userId);
+        session.setStartTime(start);
+        session.setEndTime(end);
+        session.setEnergyConsumed(energyKwh != null ? new BigDecimal(energyKwh) : null);
+        return session;
+    }
+}
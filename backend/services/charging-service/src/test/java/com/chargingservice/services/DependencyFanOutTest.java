@@ -0,0 +1,68 @@
+package com.chargingservice.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyFanOutTest {
+
+    private final DependencyFanOut fanOut = new DependencyFanOut(4, 16, 1_000);
+
+    @AfterEach
+    void shutdown() {
+        fanOut.shutdown();
+    }
+
+    @Test
+    void runsCallsConcurrently() {
+        long start = System.nanoTime();
+        DependencyFanOut.Scope scope = fanOut.open("test");
+        DependencyFanOut.Call<String> a = scope.fork("a", () -> sleepThen(200, "A"));
+        DependencyFanOut.Call<String> b = scope.fork("b", () -> sleepThen(200, "B"));
+        scope.join();
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertEquals("A", a.get());
+        assertEquals("B", b.get());
+        assertTrue(elapsedMs < 390, "calls ran sequentially: " + elapsedMs + " ms");
+        assertTrue(scope.timingsMillis().get("a") >= 200);
+    }
+
+    @Test
+    void cancelsStragglersAtTheDeadline() {
+        long start = System.nanoTime();
+        DependencyFanOut.Scope scope = fanOut.open("test", Duration.ofMillis(100));
+        DependencyFanOut.Call<String> fast = scope.fork("fast", () -> "ok");
+        DependencyFanOut.Call<String> slow = scope.fork("slow", () -> sleepThen(5_000, "late"));
+        scope.join();
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1_000);
+        assertEquals("ok", fast.get());
+        assertTrue(slow.timedOut());
+        assertEquals("fallback", slow.getOrElse("fallback"));
+        assertThrows(IllegalStateException.class, slow::get);
+        assertEquals(-1L, scope.timingsMillis().get("slow"));
+    }
+
+    @Test
+    void rethrowsTheCallsOwnRuntimeException() {
+        DependencyFanOut.Scope scope = fanOut.open("test");
+        DependencyFanOut.Call<String> failing = scope.fork("failing", () -> {
+            throw new IllegalArgumentException("boom");
+        });
+        assertThrows(IllegalStateException.class, failing::get, "read before join");
+        scope.join();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, failing::get);
+        assertEquals("boom", e.getMessage());
+        assertNull(failing.getOrElse(null));
+    }
+
+    private static String sleepThen(long millis, String value) throws InterruptedException {
+        Thread.sleep(millis);
+        return value;
+    }
+}
@@ -0,0 +1,63 @@
+package com.chargingservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 1_000;
+
+    @Test
+    void firesEveryDeadlineOnItsTickAcrossLevelsAndBeyondSpan() {
+        long start = 1_700_000_123_456L;
+        // 3 levels span 64^3 ticks; some deadlines go past it to exercise clamping
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(TICK, 3, start);
+        Random random = new Random(42);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int key = 0; key < 5_000; key++) {
+            long deadline = start + (long) (random.nextDouble() * 400_000) * TICK + random.nextInt(1_000);
+            deadlines.put(key, deadline);
+            wheel.schedule(key, deadline);
+        }
+        // Cancel and reschedule a few
+        for (int key = 0; key < 100; key++) {
+            assertTrue(wheel.cancel(key));
+            deadlines.remove(key);
+        }
+        for (int key = 100; key < 200; key++) {
+            long deadline = start + (key - 99) * TICK;
+            deadlines.put(key, deadline);
+            wheel.schedule(key, deadline);
+        }
+
+        int fired = 0;
+        for (long now = start; now <= start + 401_000 * TICK; now += TICK) {
+            for (Integer key : wheel.advance(now)) {
+                long deadline = deadlines.get(key);
+                assertTrue(now >= deadline, "key " + key + " fired early");
+                assertTrue(now - deadline < 2 * TICK, "key " + key + " fired late by " + (now - deadline));
+                fired++;
+            }
+        }
+        assertEquals(deadlines.size(), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void pastDeadlinesFireOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 4, 10_000);
+        wheel.schedule("late", 5_000);
+        wheel.schedule("soon", 12_000);
+
+        assertEquals(List.of("late"), wheel.advance(10_000));
+        assertEquals(List.of(), wheel.advance(11_000));
+        assertEquals(List.of("soon"), wheel.advance(12_000));
+        assertFalse(wheel.cancel("soon"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.chargingservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeterSeriesTest {
+
+    private static final long BUCKET_MILLIS = 60_000;
+
+    @Test
+    void downsamplesIntoContiguousBuckets() {
+        MeterSeries series = new MeterSeries(1L, BUCKET_MILLIS);
+        List<MeterSeries.ClosedBucket> closed = new ArrayList<>();
+
+        // 3 minutes of samples every 10 seconds at 36 kW (100 Wh per 10 s)
+        for (int i = 0; i < 18; i++) {
+            assertTrue(series.append(i * 10_000L, 1_000 + i * 100L, 36_000, 20.0 + i, closed::add));
+        }
+        series.close(closed::add);
+
+        assertEquals(3, closed.size());
+        assertEquals(1_000, closed.get(0).energyWhStart());
+        for (int i = 1; i < closed.size(); i++) {
+            assertEquals(closed.get(i - 1).energyWhEnd(), closed.get(i).energyWhStart());
+        }
+        assertEquals(6, closed.get(0).sampleCount());
+        assertEquals(36_000, closed.get(1).avgPowerW());
+        assertEquals(1_700, series.energyWh());
+        assertEquals(37.0, series.lastSoc());
+    }
+
+    @Test
+    void ignoresOutOfOrderAndDuplicateSamples() {
+        MeterSeries series = new MeterSeries(1L, BUCKET_MILLIS);
+        List<MeterSeries.ClosedBucket> closed = new ArrayList<>();
+
+        assertTrue(series.append(10_000, 500, null, null, closed::add));
+        assertFalse(series.append(10_000, 600, null, null, closed::add));
+        assertFalse(series.append(5_000, 600, null, null, closed::add));
+        assertFalse(series.append(20_000, 400, null, null, closed::add));
+        assertTrue(series.append(20_000, 700, null, null, closed::add));
+
+        assertEquals(200, series.energyWh());
+        assertTrue(closed.isEmpty());
+    }
+}
@@ -0,0 +1,115 @@
+package com.chargingservice.services;
+
+import com.chargingservice.dtos.MeterValuesBatchRequestDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MeterValueStoreTest {
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final LocalDateTime START = LocalDateTime.of(2026, 11, 2, 10, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private MeterValueStore store;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:metervalues;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        ActiveSessionRegistry registry = mock(ActiveSessionRegistry.class);
+        when(registry.findBySessionId(any())).thenReturn(Optional.of(mock(ActiveSessionRegistry.ActiveSession.class)));
+        meterRegistry = new SimpleMeterRegistry();
+        store = new MeterValueStore(jdbcTemplate, new DataSourceTransactionManager(dataSource), registry,
+                mock(StationPowerAllocator.class), 60, 500, 20000, MAX_WRITE_ATTEMPTS, 20, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void failedBatchIsRetriedUntilTheDatabaseIsBack() {
+        store.ingest(samples(1L, 5));
+        store.close(1L);
+
+        // Bảng chưa tồn tại: batch bị giữ lại chứ không mất
+        store.flush();
+        store.flush();
+        assertEquals(5, store.retryingBucketCount());
+        assertEquals(2, meterRegistry.counter("charging.meter.write.failures").count());
+
+        createTable("");
+        store.flush();
+        assertEquals(0, store.retryingBucketCount());
+        assertEquals(5, countRows(1L));
+        assertEquals(0, meterRegistry.counter("charging.meter.buckets.dropped").count());
+    }
+
+    @Test
+    void rowsRejectedByTheDatabaseAreDroppedWithoutTheRestOfTheBatch() {
+        createTable(", CONSTRAINT ck_test_session CHECK (session_id <> 2)");
+        store.ingest(samples(1L, 4));
+        store.ingest(samples(2L, 3));
+        store.close(1L);
+        store.close(2L);
+
+        for (int i = 0; i < MAX_WRITE_ATTEMPTS; i++) {
+            store.flush();
+            assertEquals(7, store.retryingBucketCount());
+        }
+        // Hết số lần thử: ghi từng dòng, chỉ bỏ các dòng bị ràng buộc từ chối
+        store.flush();
+        assertEquals(0, store.retryingBucketCount());
+        assertEquals(4, countRows(1L));
+        assertEquals(3, meterRegistry.counter("charging.meter.buckets.dropped").count());
+    }
+
+    private void createTable(String constraint) {
+        jdbcTemplate.execute("CREATE TABLE meter_value_buckets (bucket_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "session_id BIGINT NOT NULL, bucket_start TIMESTAMP NOT NULL, energy_wh_start BIGINT NOT NULL, " +
+                "energy_wh_end BIGINT NOT NULL, avg_power_w INT, max_power_w INT, soc_end DOUBLE, " +
+                "sample_count INT NOT NULL" + constraint + ")");
+    }
+
+    private int countRows(Long sessionId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM meter_value_buckets WHERE session_id = ?", Integer.class, sessionId);
+    }
+
+    // Một mẫu mỗi phút: mỗi mẫu thành một bucket
+    private static MeterValuesBatchRequestDto samples(Long sessionId, int minutes) {
+        List<MeterValuesBatchRequestDto.MeterSampleDto> samples = new ArrayList<>();
+        for (int i = 0; i < minutes; i++) {
+            MeterValuesBatchRequestDto.MeterSampleDto sample = new MeterValuesBatchRequestDto.MeterSampleDto();
+            sample.setTimestamp(START.plusMinutes(i));
+            sample.setEnergyWh(1_000L + i * 500L);
+            sample.setPowerW(30_000);
+            sample.setSoc(20.0 + i);
+            samples.add(sample);
+        }
+        MeterValuesBatchRequestDto.SessionMeterValuesDto session = new MeterValuesBatchRequestDto.SessionMeterValuesDto();
+        session.setSessionId(sessionId);
+        session.setSamples(samples);
+        MeterValuesBatchRequestDto request = new MeterValuesBatchRequestDto();
+        request.setSessions(List.of(session));
+        return request;
+    }
+}
@@ -0,0 +1,204 @@
+package com.chargingservice.services;
+
+import com.chargingservice.clients.NotificationServiceClient;
+import com.chargingservice.dtos.OfflineSessionsBatchRequestDto;
+import com.chargingservice.dtos.OfflineSessionsReconcileResponseDto;
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.chargingservice.repositories.ReservationRepository;
+import com.chargingservice.units.RatePerKwh;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OfflineSessionReconcilerTest {
+
+    private static final Long STATION_ID = 10L;
+    private static final LocalDateTime START = LocalDateTime.now().minusHours(3).withNano(0);
+
+    private JdbcTemplate jdbcTemplate;
+    private ConsumptionRollupService rollups;
+    private NotificationServiceClient notifications;
+    private DependencyFanOut fanOut;
+    private SubscriptionEntitlementCache entitlements;
+    private OfflineSessionReconciler reconciler;
+
+    // Bảng charging_sessions giả lập: offline_transaction_id -> [session_id, session_code]
+    private final Map<String, Object[]> table = new LinkedHashMap<>();
+    private final List<ChargingSession> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        rollups = mock(ConsumptionRollupService.class);
+        notifications = mock(NotificationServiceClient.class);
+        fanOut = new DependencyFanOut(2, 16, 1000);
+
+        TariffEngine tariffEngine = mock(TariffEngine.class);
+        when(tariffEngine.rateAt(any(), any(), anyLong())).thenReturn(RatePerKwh.ofVnd(3800));
+        entitlements = mock(SubscriptionEntitlementCache.class);
+        when(entitlements.getAll(anyCollection())).thenAnswer(invocation -> {
+            Map<Long, SubscriptionEntitlementCache.Entitlement> loaded = new HashMap<>();
+            for (Object userId : (Collection<?>) invocation.getArgument(0)) {
+                loaded.put((Long) userId, new SubscriptionEntitlementCache.Entitlement(userId.equals(1L) ? "GOLD" : null));
+            }
+            return loaded;
+        });
+        ChargingMetrics metrics = new ChargingMetrics(new SimpleMeterRegistry(),
+                new ActiveSessionRegistry(mock(ChargingSessionRepository.class)), mock(ReservationRepository.class));
+
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            // args = [station, ids..., station, ids...] (bảng chính rồi bảng lưu trữ)
+            Object[] args = (Object[]) invocation.getRawArguments()[2];
+            for (int i = 1; i < args.length / 2; i++) {
+                Object[] row = table.get((String) args[i]);
+                if (row != null) {
+                    ResultSet rs = mock(ResultSet.class);
+                    when(rs.getString(1)).thenReturn((String) args[i]);
+                    when(rs.getLong(2)).thenReturn((Long) row[0]);
+                    when(rs.getString(3)).thenReturn((String) row[1]);
+                    handler.processRow(rs);
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        doAnswer(invocation -> {
+            Collection<ChargingSession> batch = invocation.getArgument(1);
+            for (ChargingSession session : batch) {
+                inserted.add(session);
+                table.putIfAbsent(session.getOfflineTransactionId(),
+                        new Object[]{100L + table.size(), session.getSessionCode()});
+            }
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+
+        reconciler = new OfflineSessionReconciler(jdbcTemplate, tariffEngine, entitlements, fanOut, rollups,
+                notifications, metrics, 100, 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fanOut.shutdown();
+    }
+
+    @Test
+    void dedupesWithinTheBatchAndAgainstStoredSessions() {
+        table.put("TX-OLD", new Object[]{7L, "old-code"});
+
+        OfflineSessionsReconcileResponseDto response = reconciler.reconcile(batch(
+                session("TX-1", 1L, START, START.plusMinutes(40), 21_400L),
+                session("TX-OLD", 1L, START, START.plusMinutes(10), 5_000L),
+                session("TX-2", 2L, START, START.plusMinutes(20), 9_990L),
+                session("TX-1", 1L, START, START.plusMinutes(40), 21_400L),
+                session("TX-BAD", 1L, START, START.minusMinutes(1), 100L)));
+
+        assertEquals(2, response.getCreated());
+        assertEquals(2, response.getDuplicates());
+        assertEquals(1, response.getRejected());
+        List<OfflineSessionsReconcileResponseDto.ResultDto> results = response.getResults();
+        assertEquals(OfflineSessionsReconcileResponseDto.Status.created, results.get(0).getStatus());
+        assertEquals(OfflineSessionsReconcileResponseDto.Status.duplicate, results.get(1).getStatus());
+        assertEquals(7L, results.get(1).getSessionId());
+        assertEquals(OfflineSessionsReconcileResponseDto.Status.created, results.get(2).getStatus());
+        assertEquals(OfflineSessionsReconcileResponseDto.Status.duplicate, results.get(3).getStatus());
+        assertEquals(results.get(0).getSessionId(), results.get(3).getSessionId());
+        assertEquals(OfflineSessionsReconcileResponseDto.Status.rejected, results.get(4).getStatus());
+        assertEquals("endTime is before startTime", results.get(4).getReason());
+
+        // Một lô insert gồm hai phiên mới; discount theo gói, user không có gói -> không giảm giá
+        assertEquals(2, inserted.size());
+        assertEquals(40, inserted.get(0).getDiscountPercent());
+        assertEquals(new BigDecimal("21.40"), inserted.get(0).getEnergyConsumed());
+        assertEquals(0, inserted.get(1).getDiscountPercent());
+        assertEquals(ChargingSession.SessionStatus.completed, inserted.get(1).getSessionStatus());
+        verify(rollups).recordSessionsReplayed(argThat(sessions -> sessions.size() == 2));
+        verify(notifications, timeout(2000).times(2)).createNotification(any());
+    }
+
+    @Test
+    void replayingTheSameBatchCreatesNothing() {
+        OfflineSessionsBatchRequestDto request = batch(
+                session("TX-1", 1L, START, START.plusMinutes(40), 21_400L),
+                session("TX-2", 1L, START.plusHours(1), START.plusHours(2), 30_000L));
+        OfflineSessionsReconcileResponseDto first = reconciler.reconcile(request);
+        OfflineSessionsReconcileResponseDto second = reconciler.reconcile(request);
+
+        assertEquals(2, first.getCreated());
+        assertEquals(0, second.getCreated());
+        assertEquals(2, second.getDuplicates());
+        assertEquals(first.getResults().get(1).getSessionId(), second.getResults().get(1).getSessionId());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        verify(rollups, times(1)).recordSessionsReplayed(any());
+    }
+
+    @Test
+    void failsTheWholeBatchWhenSubscriptionsCannotBeLoaded() {
+        when(entitlements.getAll(anyCollection())).thenThrow(new RuntimeException("user-service down"));
+
+        assertThrows(IllegalStateException.class, () -> reconciler.reconcile(batch(
+                session("TX-1", 1L, START, START.plusMinutes(40), 21_400L),
+                session("TX-2", 2L, START, START.plusMinutes(20), 9_990L))));
+        // Không ghi gì với giá thiếu giảm giá; trạm gửi lại cả lô sau
+        assertTrue(inserted.isEmpty());
+        verify(entitlements, times(1)).getAll(anyCollection());
+        verifyNoInteractions(rollups);
+    }
+
+    @Test
+    void rejectsInvalidRequests() {
+        assertThrows(IllegalArgumentException.class, () -> reconciler.reconcile(new OfflineSessionsBatchRequestDto()));
+        OfflineSessionsBatchRequestDto tooLarge = batch();
+        tooLarge.setSessions(new ArrayList<>());
+        for (int i = 0; i < 101; i++) {
+            tooLarge.getSessions().add(session("TX-" + i, 1L, START, START.plusMinutes(1), 1L));
+        }
+        assertThrows(IllegalArgumentException.class, () -> reconciler.reconcile(tooLarge));
+
+        LocalDateTime now = LocalDateTime.now();
+        assertNull(OfflineSessionReconciler.validate(session("TX", 1L, START, START, 0L), now));
+        assertEquals("transactionId is required",
+                OfflineSessionReconciler.validate(session(" ", 1L, START, START, 0L), now));
+        assertEquals("endTime is in the future",
+                OfflineSessionReconciler.validate(session("TX", 1L, START, now.plusHours(1), 0L), now));
+        assertEquals("energyWh must be zero or positive",
+                OfflineSessionReconciler.validate(session("TX", 1L, START, START, -1L), now));
+    }
+
+    private static OfflineSessionsBatchRequestDto batch(OfflineSessionsBatchRequestDto.OfflineSessionDto... sessions) {
+        OfflineSessionsBatchRequestDto request = new OfflineSessionsBatchRequestDto();
+        request.setStationId(STATION_ID);
+        request.setSessions(List.of(sessions));
+        return request;
+    }
+
+    private static OfflineSessionsBatchRequestDto.OfflineSessionDto session(String transactionId, Long userId,
+                                                                             LocalDateTime start, LocalDateTime end,
+                                                                             Long energyWh) {
+        OfflineSessionsBatchRequestDto.OfflineSessionDto session = new OfflineSessionsBatchRequestDto.OfflineSessionDto();
+        session.setTransactionId(transactionId);
+        session.setChargerId(100L);
+        session.setUserId(userId);
+        session.setStartTime(start);
+        session.setEndTime(end);
+        session.setEnergyWh(energyWh);
+        return session;
+    }
+}
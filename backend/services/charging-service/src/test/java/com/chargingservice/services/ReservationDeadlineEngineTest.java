@@ -0,0 +1,81 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ReservationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReservationDeadlineEngineTest {
+
+    private final ReservationRepository repository = mock(ReservationRepository.class);
+    private final ReservationDeadlineEngine engine = new ReservationDeadlineEngine(repository, 10);
+
+    @Test
+    void confirmedReservationGetsReminderAndNoShowUntilCheckedIn() {
+        Reservation reservation = reservation(1L, Reservation.ReservationStatus.confirmed, LocalDateTime.now().minusMinutes(20));
+        engine.reservationSaved(reservation);
+        assertEquals(Set.of(ReservationDeadlineEngine.Kind.reminder, ReservationDeadlineEngine.Kind.no_show), dueKinds());
+
+        // Lên lịch lại rồi check-in: không còn deadline nào
+        engine.reservationSaved(reservation);
+        reservation.setIsCheckedIn(true);
+        engine.reservationSaved(reservation);
+        assertTrue(engine.pollDue().isEmpty());
+        assertEquals(0, engine.pendingCount());
+    }
+
+    @Test
+    void deadlinesFollowTheReservationState() {
+        LocalDateTime start = LocalDateTime.now().plusHours(3);
+        Reservation reservation = reservation(2L, Reservation.ReservationStatus.confirmed, start);
+        reservation.setReminderSent(true);
+        assertEquals(Set.of(ReservationDeadlineEngine.Kind.no_show),
+                ReservationDeadlineEngine.deadlinesOf(reservation).keySet());
+        assertEquals(start.plus(ReservationDeadlineEngine.CHECK_IN_GRACE),
+                ReservationDeadlineEngine.deadlinesOf(reservation).get(ReservationDeadlineEngine.Kind.no_show));
+
+        Reservation hold = reservation(3L, Reservation.ReservationStatus.pending, start);
+        hold.setHoldExpiresAt(LocalDateTime.now().minusSeconds(1));
+        engine.reservationSaved(hold);
+        assertEquals(List.of(new ReservationDeadlineEngine.Deadline(ReservationDeadlineEngine.Kind.hold_expiry, 3L)),
+                engine.pollDue());
+
+        hold.setStatus(Reservation.ReservationStatus.cancelled);
+        assertTrue(ReservationDeadlineEngine.deadlinesOf(hold).isEmpty());
+    }
+
+    @Test
+    void recoversOpenReservationsOnStartup() {
+        Reservation upcoming = reservation(4L, Reservation.ReservationStatus.confirmed, LocalDateTime.now().plusDays(2));
+        Reservation overdue = reservation(5L, Reservation.ReservationStatus.confirmed, LocalDateTime.now().minusHours(1));
+        overdue.setReminderSent(true);
+        when(repository.findByStatusIn(anyCollection())).thenReturn(List.of(upcoming, overdue));
+
+        engine.recover();
+        assertEquals(3, engine.pendingCount());
+        assertEquals(List.of(new ReservationDeadlineEngine.Deadline(ReservationDeadlineEngine.Kind.no_show, 5L)),
+                engine.pollDue());
+    }
+
+    private Set<ReservationDeadlineEngine.Kind> dueKinds() {
+        return engine.pollDue().stream().map(ReservationDeadlineEngine.Deadline::kind).collect(Collectors.toSet());
+    }
+
+    private static Reservation reservation(Long id, Reservation.ReservationStatus status, LocalDateTime start) {
+        Reservation reservation = new Reservation();
+        reservation.setReservationId(id);
+        reservation.setStatus(status);
+        reservation.setReservedStartTime(start);
+        reservation.setReservedEndTime(start.plusHours(1));
+        return reservation;
+    }
+}
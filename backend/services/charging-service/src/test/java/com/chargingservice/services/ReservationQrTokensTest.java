@@ -0,0 +1,123 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ReservationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReservationQrTokensTest {
+
+    private static final byte[] KEY_1 = "0123456789abcdef0123456789abcdef".getBytes();
+    private static final byte[] KEY_2 = "fedcba9876543210fedcba9876543210".getBytes();
+    private static final LocalDateTime START = LocalDateTime.now().plusDays(7).truncatedTo(ChronoUnit.MINUTES);
+
+    private final ReservationRepository reservationRepository = mock(ReservationRepository.class);
+
+    @Test
+    void issuedCodeVerifiesWithinItsWindowOnly() {
+        ReservationQrTokens tokens = new ReservationQrTokens(reservationRepository, Map.of(1, KEY_1), 1);
+        String code = tokens.issue(reservation());
+        assertTrue(code.startsWith(ReservationQrTokens.PREFIX));
+        assertEquals(70, code.length());
+
+        ReservationQrTokens.Claims claims = tokens.verify(code, START.minusMinutes(30)).orElseThrow();
+        assertEquals(42L, claims.reservationId());
+        assertEquals(7L, claims.chargerId());
+        assertEquals(1001L, claims.userId());
+        assertEquals(START.plusHours(1), claims.validUntil());
+        assertEquals(1, claims.keyId());
+
+        assertThrows(IllegalStateException.class, () -> tokens.verify(code, START.minusMinutes(31)));
+        assertThrows(IllegalStateException.class, () -> tokens.verify(code, START.plusHours(1)));
+    }
+
+    @Test
+    void tamperedOrForeignCodesAreRejectedAndLegacyCodesFallBack() {
+        ReservationQrTokens tokens = new ReservationQrTokens(reservationRepository, Map.of(1, KEY_1), 1);
+        String code = tokens.issue(reservation());
+
+        // Đổi user id trong payload (byte 26..33)
+        byte[] raw = Base64.getUrlDecoder().decode(code.substring(ReservationQrTokens.PREFIX.length()));
+        raw[33] ^= 1;
+        String tampered = ReservationQrTokens.PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+        assertThrows(IllegalArgumentException.class, () -> tokens.verify(tampered, START));
+        assertThrows(IllegalArgumentException.class, () -> tokens.verify(ReservationQrTokens.PREFIX + "abc", START));
+
+        String forged = new ReservationQrTokens(reservationRepository, Map.of(1, KEY_2), 1).issue(reservation());
+        assertThrows(IllegalArgumentException.class, () -> tokens.verify(forged, START));
+
+        assertTrue(tokens.verify("RES:42:ABCD1234", START).isEmpty());
+    }
+
+    @Test
+    void rotationKeepsOldCodesValidUntilTheKeyIsRetired() {
+        String oldCode = new ReservationQrTokens(reservationRepository, Map.of(1, KEY_1), 1).issue(reservation());
+
+        ReservationQrTokens rotated = new ReservationQrTokens(reservationRepository, Map.of(1, KEY_1, 2, KEY_2), 2);
+        assertEquals(1, rotated.verify(oldCode, START).orElseThrow().keyId());
+        assertEquals(2, rotated.verify(rotated.issue(reservation()), START).orElseThrow().keyId());
+
+        ReservationQrTokens retired = new ReservationQrTokens(reservationRepository, Map.of(2, KEY_2), 2);
+        assertTrue(retired.verify(oldCode, START).isEmpty());
+
+        Map<Integer, byte[]> parsed = ReservationQrTokens.parseKeys(" 1:" + HexFormat.of().formatHex(KEY_1) + " , 2:" + "ab".repeat(32));
+        assertArrayEquals(KEY_1, parsed.get(1));
+        assertEquals(32, parsed.get(2).length);
+        assertThrows(IllegalArgumentException.class, () -> ReservationQrTokens.parseKeys("1:abcd"));
+        assertThrows(IllegalArgumentException.class, () -> new ReservationQrTokens(reservationRepository, Map.of(1, KEY_1), 3));
+    }
+
+    @Test
+    void codesSignedWithoutConfiguredKeysFallBackToTheStoredCode() {
+        ReservationQrTokens tokens = new ReservationQrTokens(reservationRepository, Map.of(), -1);
+        String code = tokens.issue(reservation());
+
+        // Instance khác (hoặc sau restart) có khóa ngẫu nhiên khác: không được báo sai chữ ký
+        assertTrue(tokens.verify(code, START).isEmpty());
+        assertTrue(new ReservationQrTokens(reservationRepository, Map.of(), -1).verify(code, START).isEmpty());
+    }
+
+    @Test
+    void revokedCodesAreRejectedUntilTheyExpire() {
+        ReservationQrTokens tokens = new ReservationQrTokens(reservationRepository, Map.of(1, KEY_1), 1);
+        Reservation reservation = reservation();
+        String code = tokens.issue(reservation);
+
+        tokens.revoke(reservation);
+        assertThrows(IllegalStateException.class, () -> tokens.verify(code, START));
+        assertEquals(Map.of(42L, START.plusHours(1)), tokens.revocations());
+
+        // Danh sách từ DB (instance khác hủy, no-show hàng loạt); mục có mã đã hết hạn bị bỏ
+        Reservation ended = reservation();
+        ended.setReservationId(41L);
+        ended.setReservedEndTime(LocalDateTime.now().minusMinutes(1));
+        tokens.revoke(ended);
+        LocalDateTime future = LocalDateTime.now().plusHours(2);
+        List<Object[]> rows = List.<Object[]>of(new Object[]{43L, future});
+        when(reservationRepository.findRevokedQrCodes(anyCollection(), any())).thenReturn(rows);
+        tokens.refreshRevocations();
+        assertEquals(Map.of(42L, START.plusHours(1), 43L, future.withNano(0)), tokens.revocations());
+    }
+
+    private static Reservation reservation() {
+        Reservation reservation = new Reservation();
+        reservation.setReservationId(42L);
+        reservation.setChargerId(7L);
+        reservation.setUserId(1001L);
+        reservation.setReservedStartTime(START);
+        reservation.setReservedEndTime(START.plusHours(1));
+        return reservation;
+    }
+}
@@ -0,0 +1,211 @@
+package com.chargingservice.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 100 clients booking random windows on the chargers of one station at the same time, through the same
+ * read-then-insert flow as ReservationServiceImpl.createReservation, against H2 with the production unique key.
+ */
+class ReservationSlotClaimsContentionTest {
+
+    private static final int CLIENTS = 100;
+    private static final int ATTEMPTS_PER_CLIENT = 40;
+    private static final int CHARGERS = 8;
+    private static final int DAYS = 14;
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 11, 2, 0, 0);
+
+    private static final String OVERLAP_SQL = "SELECT COUNT(*) FROM reservations WHERE charger_id = ? " +
+            "AND status IN ('pending', 'confirmed', 'active') AND reserved_start_time < ? AND reserved_end_time > ?";
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ReservationSlotClaims slotClaims;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:slotclaims;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        slotClaims = new ReservationSlotClaims(jdbcTemplate);
+        jdbcTemplate.execute("CREATE TABLE reservations (reservation_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "station_id BIGINT, charger_id BIGINT, reserved_start_time TIMESTAMP, reserved_end_time TIMESTAMP, " +
+                "status VARCHAR(16), hold_expires_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE reservation_slot_claims (claim_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "charger_id BIGINT NOT NULL, slot_index BIGINT NOT NULL, reservation_id BIGINT NOT NULL, " +
+                "CONSTRAINT uk_slot_claim_charger_slot UNIQUE (charger_id, slot_index))");
+        jdbcTemplate.execute("CREATE INDEX idx_slot_claim_reservation ON reservation_slot_claims (reservation_id)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void parallelClientsNeverDoubleBookACharger() throws Exception {
+        AtomicLong booked = new AtomicLong();
+        AtomicLong overlapping = new AtomicLong();
+        AtomicLong claimConflicts = new AtomicLong();
+        long start = System.nanoTime();
+        runConcurrently(CLIENTS, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < ATTEMPTS_PER_CLIENT; i++) {
+                long chargerId = random.nextLong(1, CHARGERS + 1);
+                // Giờ bất kỳ trong 14 ngày, có cả giờ lệch lưới 5 phút
+                LocalDateTime from = DAY.plusDays(random.nextInt(DAYS)).plusMinutes(random.nextInt(24 * 60));
+                LocalDateTime to = from.plusMinutes(15 + random.nextInt(106));
+                switch (book(chargerId, from, to)) {
+                    case booked -> booked.incrementAndGet();
+                    case overlapping -> overlapping.incrementAndGet();
+                    case claim_conflict -> claimConflicts.incrementAndGet();
+                }
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long attempts = (long) CLIENTS * ATTEMPTS_PER_CLIENT;
+        System.out.printf("Slot claims, %d clients on %d chargers of one station: %d booked, %d seen by the overlap " +
+                        "check, %d caught by the unique key, in %.2f s (%.0f bookings/s, %.0f attempts/s)%n",
+                CLIENTS, CHARGERS, booked.get(), overlapping.get(), claimConflicts.get(), seconds,
+                booked.get() / seconds, attempts / seconds);
+
+        assertEquals(attempts, booked.get() + overlapping.get() + claimConflicts.get());
+        assertTrue(booked.get() > 0);
+        Integer doubleBooked = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reservations a JOIN reservations b " +
+                "ON a.charger_id = b.charger_id AND a.reservation_id < b.reservation_id " +
+                "AND a.reserved_start_time < b.reserved_end_time AND a.reserved_end_time > b.reserved_start_time", Integer.class);
+        assertEquals(0, doubleBooked);
+        Integer orphanClaims = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reservation_slot_claims c " +
+                "WHERE NOT EXISTS (SELECT 1 FROM reservations r WHERE r.reservation_id = c.reservation_id)", Integer.class);
+        assertEquals(0, orphanClaims);
+    }
+
+    @Test
+    void cancelledOrLapsedReservationsDoNotBlockTheirSlots() {
+        assertEquals(Outcome.booked, book(1L, DAY.plusHours(9), DAY.plusHours(10).plusMinutes(2)));
+        // Đặt chỗ cũ lệch lưới: 10:03-10:30 không trùng giờ nhưng chung slot 10:00-10:05 nên bị unique key chặn
+        assertEquals(Outcome.claim_conflict, book(1L, DAY.plusHours(10).plusMinutes(3), DAY.plusHours(10).plusMinutes(30)));
+        assertEquals(Outcome.booked, book(1L, DAY.plusHours(10).plusMinutes(5), DAY.plusHours(10).plusMinutes(30)));
+        assertEquals(Outcome.booked, book(2L, DAY.plusHours(9).plusMinutes(30), DAY.plusHours(11)));
+
+        // Hủy không xóa claim; lần đặt tiếp theo dọn claim cũ
+        jdbcTemplate.update("UPDATE reservations SET status = 'cancelled' WHERE charger_id = 1");
+        assertEquals(Outcome.booked, book(1L, DAY.plusHours(9).plusMinutes(30), DAY.plusHours(11)));
+
+        long holdId = insertReservation(3L, DAY.plusHours(9), DAY.plusHours(10), "pending");
+        jdbcTemplate.update("UPDATE reservations SET hold_expires_at = ? WHERE reservation_id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), holdId);
+        slotClaims.claim(holdId, 3L, DAY.plusHours(9), DAY.plusHours(10));
+        assertDoesNotThrow(() -> slotClaims.claim(99L, 3L, DAY.plusHours(9).plusMinutes(55), DAY.plusHours(10).plusMinutes(5)));
+
+        // 10:02 chiếm một phần slot 10:00-10:05
+        slotClaims.claim(100L, 4L, DAY.plusHours(9), DAY.plusHours(10).plusMinutes(2));
+        assertEquals(13, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM reservation_slot_claims WHERE reservation_id = 100", Integer.class));
+    }
+
+    @Test
+    void snappedBackToBackBookingsDoNotShareASlot() {
+        LocalDateTime handover = DAY.plusHours(10).plusMinutes(32);
+        assertEquals(Outcome.booked, bookSnapped(1L, DAY.plusHours(10), handover));
+        assertEquals(Outcome.booked, bookSnapped(1L, handover, DAY.plusHours(11)));
+        assertEquals(Outcome.overlapping, bookSnapped(1L, DAY.plusHours(10).plusMinutes(29), DAY.plusHours(10).plusMinutes(40)));
+
+        assertEquals(DAY.plusHours(10).plusMinutes(30), ReservationSlotClaims.snap(handover));
+        assertEquals(DAY.plusHours(10).plusMinutes(35), ReservationSlotClaims.snap(handover.plusSeconds(30)));
+        assertEquals(DAY.plusHours(10).plusMinutes(5),
+                ReservationSlotClaims.snapEnd(DAY.plusHours(10), DAY.plusHours(10).plusMinutes(1)));
+    }
+
+    private enum Outcome { booked, overlapping, claim_conflict }
+
+    /**
+     * Same as {@link #book} with the window snapped to the slot grid first, as createReservation does.
+     */
+    private Outcome bookSnapped(long chargerId, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = ReservationSlotClaims.snap(from);
+        return book(chargerId, start, ReservationSlotClaims.snapEnd(start, to));
+    }
+
+    /**
+     * createReservation in miniature: overlap pre-check, insert the reservation, claim its slots, all in one transaction.
+     */
+    private Outcome book(long chargerId, LocalDateTime from, LocalDateTime to) {
+        try {
+            return transactionTemplate.execute(status -> {
+                Integer overlaps = jdbcTemplate.queryForObject(OVERLAP_SQL, Integer.class,
+                        chargerId, Timestamp.valueOf(to), Timestamp.valueOf(from));
+                if (overlaps != null && overlaps > 0) {
+                    return Outcome.overlapping;
+                }
+                long reservationId = insertReservation(chargerId, from, to, "confirmed");
+                slotClaims.claim(reservationId, chargerId, from, to);
+                return Outcome.booked;
+            });
+        } catch (IllegalStateException e) {
+            return Outcome.claim_conflict;
+        }
+    }
+
+    private long insertReservation(long chargerId, LocalDateTime from, LocalDateTime to, String status) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO reservations " +
+                    "(station_id, charger_id, reserved_start_time, reserved_end_time, status) VALUES (1, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, chargerId);
+            ps.setTimestamp(2, Timestamp.valueOf(from));
+            ps.setTimestamp(3, Timestamp.valueOf(to));
+            ps.setString(4, status);
+            return ps;
+        }, keys);
+        return keys.getKey().longValue();
+    }
+
+    private static void runConcurrently(int threads, Runnable body) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    body.run();
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        ready.await();
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertTrue(failures.isEmpty(), "worker failed: " + failures);
+    }
+}
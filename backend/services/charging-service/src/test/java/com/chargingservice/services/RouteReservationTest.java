@@ -0,0 +1,123 @@
+package com.chargingservice.services;
+
+import com.chargingservice.clients.NotificationServiceClient;
+import com.chargingservice.clients.PaymentServiceClient;
+import com.chargingservice.clients.StationServiceClient;
+import com.chargingservice.dtos.ReservationResponseDto;
+import com.chargingservice.dtos.RouteBookingRequestDto;
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.chargingservice.repositories.ReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RouteReservationTest {
+
+    private final ReservationRepository reservationRepository = mock(ReservationRepository.class);
+    private final StationServiceClient stationServiceClient = mock(StationServiceClient.class);
+    private final ChargerStatusOutboxService chargerStatusOutbox = mock(ChargerStatusOutboxService.class);
+    private final List<Reservation> stored = new ArrayList<>();
+    private DependencyFanOut fanOut;
+    private ReservationServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        fanOut = new DependencyFanOut(4, 16, 1_000);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+        AtomicLong ids = new AtomicLong();
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(inv -> {
+            Reservation reservation = inv.getArgument(0);
+            if (reservation.getReservationId() == null) {
+                reservation.setReservationId(ids.incrementAndGet());
+                stored.add(reservation);
+            }
+            return reservation;
+        });
+        when(reservationRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(reservationRepository.findByRouteIdOrderByReservedStartTimeAsc(anyString())).thenAnswer(inv ->
+                stored.stream().filter(r -> inv.getArgument(0).equals(r.getRouteId())).toList());
+        when(reservationRepository.lockByRouteId(anyString())).thenAnswer(inv ->
+                stored.stream().filter(r -> inv.getArgument(0).equals(r.getRouteId())).toList());
+        when(stationServiceClient.getStationById(anyLong())).thenReturn(Map.of("status", "online"));
+
+        service = new ReservationServiceImpl(reservationRepository, mock(ChargingService.class),
+                mock(ChargingSessionRepository.class), stationServiceClient, mock(PaymentServiceClient.class),
+                mock(NotificationServiceClient.class), mock(SubscriptionEntitlementCache.class), chargerStatusOutbox,
+                fanOut, mock(ChargingMetrics.class), mock(ChargerAvailabilityIndex.class), mock(ReservationSlotClaims.class),
+                new ReservationQrTokens(reservationRepository, Map.of(1, new byte[32]), 1), transactionTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fanOut.shutdown();
+    }
+
+    @Test
+    void holdsEveryLegThenConfirmsThemTogether() {
+        List<ReservationResponseDto> holds = service.holdRouteReservations(7L, List.of(leg(2, 20L, 5), leg(1, 10L, 2)));
+
+        assertEquals(2, holds.size());
+        String routeId = holds.get(0).getRouteId();
+        assertNotNull(routeId);
+        assertEquals(10L, holds.get(0).getStationId()); // theo thứ tự chặng
+        for (ReservationResponseDto hold : holds) {
+            assertEquals(routeId, hold.getRouteId());
+            assertEquals(Reservation.ReservationStatus.pending, hold.getStatus());
+            assertNotNull(hold.getHoldExpiresAt());
+            assertNull(hold.getQrCode());
+        }
+        verify(chargerStatusOutbox, never()).enqueue(anyLong(), any(), any());
+
+        List<ReservationResponseDto> confirmed = service.commitRouteReservations(routeId, 7L);
+        assertTrue(confirmed.stream().allMatch(r -> r.getStatus() == Reservation.ReservationStatus.confirmed
+                && r.getHoldExpiresAt() == null && r.getQrCode() != null));
+        verify(chargerStatusOutbox, times(2)).enqueue(anyLong(), any(), any());
+
+        // Gọi lại: không xác nhận lần nữa
+        assertEquals(2, service.commitRouteReservations(routeId, 7L).size());
+        verify(chargerStatusOutbox, times(2)).enqueue(anyLong(), any(), any());
+    }
+
+    @Test
+    void lapsedHoldCannotBeCommittedAndCancelUsesTheRouteId() {
+        String routeId = service.holdRouteReservations(7L, List.of(leg(1, 10L, 2), leg(2, 20L, 5)))
+                .get(0).getRouteId();
+        stored.get(1).setHoldExpiresAt(LocalDateTime.now().minusSeconds(1));
+
+        assertThrows(IllegalStateException.class, () -> service.commitRouteReservations(routeId, 7L));
+        assertTrue(stored.stream().allMatch(r -> r.getStatus() == Reservation.ReservationStatus.pending));
+
+        when(reservationRepository.findById(1L)).thenReturn(Optional.of(stored.get(0)));
+        service.cancelRouteReservation(1L, 7L);
+        assertTrue(stored.stream().allMatch(r -> r.getStatus() == Reservation.ReservationStatus.cancelled));
+        verify(reservationRepository, never()).findByUserIdOrderByReservedStartTimeDesc(anyLong());
+    }
+
+    private static RouteBookingRequestDto.RouteBookingItemDto leg(int order, Long stationId, int hoursAhead) {
+        RouteBookingRequestDto.RouteBookingItemDto leg = new RouteBookingRequestDto.RouteBookingItemDto();
+        leg.setOrder(order);
+        leg.setStationId(stationId);
+        leg.setChargerId(stationId * 10);
+        leg.setReservedStartTime(LocalDateTime.now().plusHours(hoursAhead));
+        leg.setReservedEndTime(leg.getReservedStartTime().plusMinutes(60));
+        leg.setDurationMinutes(60);
+        return leg;
+    }
+}
@@ -0,0 +1,41 @@
+package com.chargingservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionCursorTest {
+
+    @Test
+    void roundTripsThroughOpaqueToken() {
+        SessionCursor cursor = new SessionCursor(LocalDateTime.of(2025, 10, 31, 9, 0, 12, 345_000_000), 42L);
+        String token = cursor.encode();
+
+        assertFalse(token.contains("|"));
+        assertEquals(cursor, SessionCursor.decode(token));
+        assertNull(SessionCursor.decode(null));
+        assertNull(SessionCursor.decode(" "));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThrows(IllegalArgumentException.class, () -> SessionCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> SessionCursor.decode(
+                new SessionCursor(LocalDateTime.of(2025, 1, 1, 0, 0), 1L).encode().substring(3)));
+    }
+
+    @Test
+    void escapesCsvFieldsAndClampsPageSize() {
+        assertEquals("", SessionHistoryService.csvField(null));
+        assertEquals("SES-1", SessionHistoryService.csvField("SES-1"));
+        assertEquals("\"a,\"\"b\"\"\"", SessionHistoryService.csvField("a,\"b\""));
+        assertEquals("100", SessionHistoryService.csvField(new BigDecimal("1E+2")));
+
+        assertEquals(SessionHistoryService.DEFAULT_PAGE_SIZE, SessionHistoryService.clampLimit(0));
+        assertEquals(SessionHistoryService.MAX_PAGE_SIZE, SessionHistoryService.clampLimit(1_000_000));
+        assertEquals(10, SessionHistoryService.clampLimit(10));
+    }
+}
@@ -0,0 +1,50 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.ArchivedChargingSession;
+import com.chargingservice.entities.ChargingSession;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionHistoryServiceTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2026, 3, 1, 8, 0);
+
+    @Test
+    void mergesHotAndArchivedPagesNewestFirst() {
+        List<ChargingSession> hot = List.of(hot(9, T.plusDays(3)), hot(7, T.plusDays(1)), hot(5, T));
+        List<ArchivedChargingSession> cold = List.of(cold(8, T.plusDays(2)), cold(4, T), cold(2, T.minusDays(1)));
+
+        List<ChargingSession> merged = SessionHistoryService.merge(hot, cold, 5);
+
+        // Cùng startTime: sessionId lớn hơn đứng trước, bất kể nằm ở bảng nào
+        assertEquals(List.of(9L, 8L, 7L, 5L, 4L), merged.stream().map(ChargingSession::getSessionId).toList());
+    }
+
+    @Test
+    void nullStartTimeSortsLast() {
+        List<ChargingSession> hot = List.of(hot(6, T), hot(3, null));
+        List<ArchivedChargingSession> cold = List.of(cold(1, T.minusDays(1)));
+
+        List<ChargingSession> merged = SessionHistoryService.merge(hot, cold, 10);
+
+        assertEquals(List.of(6L, 1L, 3L), merged.stream().map(ChargingSession::getSessionId).toList());
+    }
+
+    private static ChargingSession hot(long id, LocalDateTime start) {
+        ChargingSession session = new ChargingSession();
+        session.setSessionId(id);
+        session.setStartTime(start);
+        return session;
+    }
+
+    private static ArchivedChargingSession cold(long id, LocalDateTime start) {
+        ArchivedChargingSession session = new ArchivedChargingSession();
+        session.setSessionId(id);
+        session.setStartTime(start);
+        return session;
+    }
+}
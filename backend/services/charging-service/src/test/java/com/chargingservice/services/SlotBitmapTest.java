@@ -0,0 +1,97 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.chargingservice.repositories.ReservationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SlotBitmapTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 20);
+
+    @Test
+    void busySlotsAndFreeCountsMatchBruteForce() {
+        Random random = new Random(3);
+        int chargers = 200;
+        long dayStart = 1_000_000_000L;
+        long[][] busy = new long[chargers][];
+        boolean[][] expected = new boolean[chargers][SlotBitmap.SLOTS];
+        for (int c = 0; c < chargers; c++) {
+            ChargerIntervals intervals = new ChargerIntervals();
+            for (int k = 0; k < 6; k++) {
+                // Có cả khoảng tràn sang ngày trước/sau và không khớp biên slot
+                long start = dayStart - 3_600_000L + random.nextInt((int) SlotBitmap.DAY_MS);
+                long end = start + 1 + random.nextInt(4 * 3_600_000);
+                intervals.put(k, start, end);
+                for (int slot = 0; slot < SlotBitmap.SLOTS; slot++) {
+                    long slotStart = dayStart + slot * SlotBitmap.SLOT_MS;
+                    if (start < slotStart + SlotBitmap.SLOT_MS && end > slotStart) {
+                        expected[c][slot] = true;
+                    }
+                }
+            }
+            busy[c] = SlotBitmap.busy(intervals, dayStart);
+            for (int slot = 0; slot < SlotBitmap.SLOTS; slot++) {
+                assertEquals(expected[c][slot], SlotBitmap.isBusy(busy[c], slot), "charger " + c + " slot " + slot);
+            }
+        }
+
+        int[] counts = SlotBitmap.freeCounts(busy);
+        for (int slot = 0; slot < SlotBitmap.SLOTS; slot++) {
+            int free = 0;
+            for (int c = 0; c < chargers; c++) {
+                free += expected[c][slot] ? 0 : 1;
+            }
+            assertEquals(free, counts[slot], "slot " + slot);
+        }
+    }
+
+    @Test
+    void cachedDayFollowsReservationChanges() {
+        ChargerAvailabilityIndex index = new ChargerAvailabilityIndex(
+                mock(ReservationRepository.class), mock(ChargingSessionRepository.class));
+        List<Long> chargers = List.of(1L, 2L);
+        assertEquals(2, SlotBitmap.freeCounts(index.busySlots(chargers, DAY))[0]);
+
+        Reservation reservation = new Reservation();
+        reservation.setReservationId(5L);
+        reservation.setChargerId(1L);
+        reservation.setReservedStartTime(DAY.atTime(9, 0));
+        reservation.setReservedEndTime(DAY.atTime(10, 2));
+        reservation.setStatus(Reservation.ReservationStatus.confirmed);
+        index.refresh(reservation);
+
+        long[][] busy = index.busySlots(chargers, DAY);
+        assertTrue(SlotBitmap.isBusy(busy[0], slot(9, 0)));
+        assertTrue(SlotBitmap.isBusy(busy[0], slot(10, 0))); // 10:00-10:05 chỉ bận 2 phút vẫn tính bận
+        assertFalse(SlotBitmap.isBusy(busy[0], slot(10, 5)));
+        assertFalse(SlotBitmap.isBusy(busy[0], slot(8, 55)));
+        assertEquals(1, SlotBitmap.freeCounts(busy)[slot(9, 30)]);
+        assertEquals("0".repeat(72), SlotBitmap.toHex(busy[1]));
+
+        // Dời giờ rồi hủy: bitmap đã cache được tính lại
+        reservation.setReservedStartTime(DAY.atTime(20, 0));
+        reservation.setReservedEndTime(DAY.plusDays(1).atTime(1, 0));
+        index.refresh(reservation);
+        busy = index.busySlots(chargers, DAY);
+        assertFalse(SlotBitmap.isBusy(busy[0], slot(9, 0)));
+        assertTrue(SlotBitmap.isBusy(busy[0], SlotBitmap.SLOTS - 1));
+        assertTrue(SlotBitmap.isBusy(index.busySlots(chargers, DAY.plusDays(1))[0], slot(0, 55)));
+
+        reservation.setStatus(Reservation.ReservationStatus.cancelled);
+        index.refresh(reservation);
+        assertEquals(2, SlotBitmap.freeCounts(index.busySlots(chargers, DAY))[SlotBitmap.SLOTS - 1]);
+        assertFalse(SlotBitmap.isBusy(index.busySlots(chargers, DAY.plusDays(1))[0], slot(0, 55)));
+    }
+
+    private static int slot(int hour, int minute) {
+        return (hour * 60 + minute) / SlotBitmap.SLOT_MINUTES;
+    }
+}
@@ -0,0 +1,63 @@
+package com.chargingservice.services;
+
+import com.chargingservice.clients.StationServiceClient;
+import com.chargingservice.dtos.StationAvailabilityDto;
+import com.chargingservice.entities.Reservation;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import com.chargingservice.repositories.ReservationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StationAvailabilityServiceTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    private final ChargerAvailabilityIndex index = new ChargerAvailabilityIndex(
+            mock(ReservationRepository.class), mock(ChargingSessionRepository.class));
+    private final StationServiceClient stationServiceClient = mock(StationServiceClient.class);
+    private final StationAvailabilityService service = new StationAvailabilityService(index, stationServiceClient, 30);
+
+    @Test
+    void calendarListsEveryChargerOfTheStationWithItsStatus() {
+        // Trụ 12 không có powerRating vẫn phải có trong lịch; trụ 13 đang bảo trì bận cả ngày
+        when(stationServiceClient.getChargersByStationId(1L)).thenReturn(List.of(
+                Map.of("chargerId", 13, "status", "maintenance", "powerRating", 60),
+                Map.of("chargerId", 11, "status", "available", "powerRating", 60),
+                Map.of("chargerId", 12, "status", "available")));
+        Reservation reservation = new Reservation();
+        reservation.setReservationId(1L);
+        reservation.setChargerId(11L);
+        reservation.setReservedStartTime(DAY.atTime(10, 0));
+        reservation.setReservedEndTime(DAY.atTime(11, 0));
+        reservation.setStatus(Reservation.ReservationStatus.confirmed);
+        index.refresh(reservation);
+
+        StationAvailabilityDto availability = service.getAvailability(1L, DAY);
+
+        List<StationAvailabilityDto.ChargerSlotsDto> chargers = availability.getChargers();
+        assertEquals(List.of(11L, 12L, 13L), chargers.stream().map(StationAvailabilityDto.ChargerSlotsDto::getChargerId).toList());
+        assertEquals(SlotBitmap.SLOTS - 12, chargers.get(0).getFreeSlots());
+        assertEquals(SlotBitmap.SLOTS, chargers.get(1).getFreeSlots());
+        assertEquals("maintenance", chargers.get(2).getStatus());
+        assertEquals(0, chargers.get(2).getFreeSlots());
+        assertEquals(1, availability.getFreeChargers()[10 * 60 / SlotBitmap.SLOT_MINUTES]);
+        assertEquals(2, availability.getFreeChargers()[0]);
+
+        // Danh sách trụ được cache: lần đọc thứ hai không gọi station-service
+        service.getAvailability(1L, DAY);
+        verify(stationServiceClient, times(1)).getChargersByStationId(1L);
+    }
+
+    @Test
+    void failsInsteadOfReturningAnEmptyCalendarWhenStationServiceIsDown() {
+        when(stationServiceClient.getChargersByStationId(2L)).thenThrow(new RuntimeException("connection refused"));
+
+        assertThrows(IllegalStateException.class, () -> service.getAvailability(2L, DAY));
+    }
+}
@@ -0,0 +1,76 @@
+package com.chargingservice.services;
+
+import com.chargingservice.clients.StationServiceClient;
+import com.chargingservice.entities.ChargingSession;
+import com.chargingservice.repositories.ChargingSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StationPowerAllocatorTest {
+
+    private static final long STATION = 3L;
+
+    private ChargingSessionRepository sessionRepository;
+    private StationPowerAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        StationServiceClient stationServiceClient = mock(StationServiceClient.class);
+        when(stationServiceClient.getStationById(STATION)).thenReturn(Map.of("gridCapacityKw", 100));
+        when(stationServiceClient.getChargersByStationId(STATION)).thenReturn(List.of(
+                Map.of("chargerId", 1, "powerRating", 100),
+                Map.of("chargerId", 2, "powerRating", 100),
+                Map.of("chargerId", 3, "powerRating", 100)));
+        sessionRepository = mock(ChargingSessionRepository.class);
+        // resync 0: mỗi lần đọc đều đối chiếu lại với DB
+        allocator = new StationPowerAllocator(stationServiceClient, mock(SubscriptionEntitlementCache.class),
+                sessionRepository, StationPowerAllocator.Policy.equal, 150, 36, 10, 0);
+    }
+
+    @Test
+    void firstAttachSharesCapacityWithSessionsStartedOnOtherInstances() {
+        ChargingSession own = session(10L, 1L);
+        when(sessionRepository.findByStationIdAndSessionStatusIn(eq(STATION), any()))
+                .thenReturn(List.of(session(20L, 2L), own));
+
+        allocator.attach(ActiveSessionRegistry.ActiveSession.of(own));
+
+        assertEquals(50_000, allocator.find(10L).orElseThrow().powerW());
+        assertEquals(50_000, allocator.find(20L).orElseThrow().powerW());
+    }
+
+    @Test
+    void resyncDropsSessionsThatEndedElsewhereAndAddsNewOnes() {
+        ChargingSession own = session(10L, 1L);
+        when(sessionRepository.findByStationIdAndSessionStatusIn(eq(STATION), any()))
+                .thenReturn(List.of(session(20L, 2L), own))
+                .thenReturn(List.of(own, session(30L, 3L)));
+        allocator.attach(ActiveSessionRegistry.ActiveSession.of(own));
+
+        StationPowerAllocator.Allocation allocation = allocator.allocation(ActiveSessionRegistry.ActiveSession.of(own));
+
+        assertEquals(50_000, allocation.powerW());
+        assertTrue(allocator.find(20L).isEmpty());
+        assertEquals(50_000, allocator.find(30L).orElseThrow().powerW());
+    }
+
+    private static ChargingSession session(Long sessionId, Long chargerId) {
+        ChargingSession session = new ChargingSession();
+        session.setSessionId(sessionId);
+        session.setUserId(sessionId * 100);
+        session.setStationId(STATION);
+        session.setChargerId(chargerId);
+        session.setStartTime(LocalDateTime.now());
+        session.setSessionStatus(ChargingSession.SessionStatus.charging);
+        return session;
+    }
+}
@@ -0,0 +1,104 @@
+package com.chargingservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StationPowerPoolTest {
+
+    @Test
+    void matchesBruteForceWaterFillingAcrossStartsAndStops() {
+        long capacityW = 400_000;
+        StationPowerPool pool = new StationPowerPool(capacityW, 0);
+        Random random = new Random(7);
+        Map<Long, long[]> running = new HashMap<>(); // sessionId -> {maxPowerW, weight}
+        List<Long> ids = new ArrayList<>();
+        long[] ratings = {7_000, 22_000, 50_000, 60_000, 150_000, 350_000};
+
+        for (int step = 0; step < 3_000; step++) {
+            long now = step * 1_000L;
+            if (ids.isEmpty() || random.nextInt(100) < 55) {
+                long id = step;
+                long maxPowerW = ratings[random.nextInt(ratings.length)];
+                long weight = 1 + random.nextInt(4);
+                pool.add(id, maxPowerW, weight, now, now);
+                running.put(id, new long[]{maxPowerW, weight});
+                ids.add(id);
+            } else {
+                Long id = ids.remove(random.nextInt(ids.size()));
+                assertTrue(pool.remove(id, now));
+                running.remove(id);
+            }
+
+            double level = bruteForceLevel(running, capacityW);
+            long total = 0;
+            for (Map.Entry<Long, long[]> entry : running.entrySet()) {
+                long expected = Math.min(entry.getValue()[0], (long) (entry.getValue()[1] * level));
+                long actual = pool.powerW(entry.getKey());
+                assertEquals(expected, actual, 2, "session " + entry.getKey() + " at step " + step);
+                total += actual;
+            }
+            assertTrue(total <= capacityW, "allocated " + total + " W > capacity at step " + step);
+        }
+    }
+
+    @Test
+    void integratesEnergyOverReallocations() {
+        StationPowerPool pool = new StationPowerPool(100_000, 0);
+        pool.add(1, 100_000, 1, 0, 0);           // alone: 100 kW
+        pool.add(2, 100_000, 1, 3_600_000, 3_600_000); // after 1 h both get 50 kW
+        pool.remove(2, 7_200_000);                // after another hour session 1 is back to 100 kW
+
+        assertEquals(100_000 + 50_000 + 100_000, pool.energyWh(1, 3 * 3_600_000));
+        assertEquals(100_000, pool.powerW(1));
+        assertEquals(0, pool.energyWh(2, 3 * 3_600_000));
+    }
+
+    @Test
+    void keepsEnergyAcrossReweightAndCompaction() {
+        StationPowerPool pool = new StationPowerPool(10_000, 0);
+        pool.add(1, 10_000, 1, 0, 0);
+        pool.add(2, 10_000, 1, 0, 0);
+        // Many changes on another session force log compaction in between
+        long now = 0;
+        for (int i = 0; i < 5_000; i++) {
+            now += 720; // 5 000 * 720 ms = 1 h
+            if (i % 2 == 0) {
+                pool.reweight(2, 3, now);
+            } else {
+                pool.reweight(2, 1, now);
+            }
+        }
+        // Session 1 alternates between 5 kW (equal weights) and 2.5 kW (1:3), half the time each
+        assertEquals(3_750, pool.energyWh(1, now), 1);
+        assertEquals(6_250, pool.energyWh(2, now), 1);
+    }
+
+    private static double bruteForceLevel(Map<Long, long[]> running, long capacityW) {
+        long totalMax = running.values().stream().mapToLong(s -> s[0]).sum();
+        if (totalMax <= capacityW) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double low = 0;
+        double high = capacityW;
+        for (int i = 0; i < 200; i++) {
+            double mid = (low + high) / 2;
+            double total = 0;
+            for (long[] s : running.values()) {
+                total += Math.min(s[0], s[1] * mid);
+            }
+            if (total <= capacityW) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,35 @@
+package com.chargingservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StationQueueTest {
+
+    @Test
+    void estimatesStartFromOrderedFinishTimes() {
+        StationQueue queue = new StationQueue();
+        queue.putFinish(10, 5_000);
+        queue.putFinish(11, 2_000);
+        queue.putFinish(12, 9_000);
+        assertEquals(2_000, queue.nextFinishMs());
+
+        queue.putFinish(11, 7_000); // ước tính lại
+        assertEquals(5_000, queue.nextFinishMs());
+        assertTrue(queue.removeFinish(10));
+        assertEquals(7_000, queue.nextFinishMs());
+
+        long now = 1_000;
+        long nextSession = 60_000;
+        // Một trụ đang trống: người đầu tiên vào ngay
+        assertEquals(now, queue.estimatedStartMs(0, 1, now, nextSession));
+        assertEquals(7_000, queue.estimatedStartMs(1, 1, now, nextSession));
+        assertEquals(9_000, queue.estimatedStartMs(2, 1, now, nextSession));
+        // Vòng thứ hai trên trụ kết thúc sớm nhất
+        assertEquals(7_000 + nextSession, queue.estimatedStartMs(3, 1, now, nextSession));
+
+        queue.removeFinish(11);
+        queue.removeFinish(12);
+        assertEquals(-1, queue.estimatedStartMs(0, 0, now, nextSession));
+    }
+}
@@ -0,0 +1,86 @@
+package com.chargingservice.services;
+
+import com.chargingservice.entities.TariffBand;
+import com.chargingservice.units.Energy;
+import com.chargingservice.units.RatePerKwh;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TariffTableTest {
+
+    private static final RatePerKwh BASE = RatePerKwh.ofVnd(3000);
+
+    private static TariffBand band(TariffBand.DayType dayType, String start, String end, long vnd) {
+        TariffBand band = new TariffBand();
+        band.setDayType(dayType);
+        band.setStartTime(LocalTime.parse(start));
+        band.setEndTime(LocalTime.parse(end));
+        band.setPricePerKwh(RatePerKwh.ofVnd(vnd));
+        return band;
+    }
+
+    private static final List<TariffBand> BANDS = List.of(
+            band(TariffBand.DayType.all, "22:00", "06:00", 2000),      // off-peak, past midnight
+            band(TariffBand.DayType.weekday, "17:00", "20:00", 4500),  // weekday evening peak
+            band(TariffBand.DayType.weekend, "00:00", "00:00", 2500)   // whole weekend
+    );
+
+    @Test
+    void resolvesBandsByDayAndTime() {
+        TariffTable table = TariffTable.compile(BANDS, BASE);
+        // 2025-10-31 is a Friday
+        assertEquals(3000, vnd(table.rateAt(LocalDateTime.parse("2025-10-31T12:00:00"))));
+        assertEquals(4500, vnd(table.rateAt(LocalDateTime.parse("2025-10-31T17:00:00"))));
+        assertEquals(3000, vnd(table.rateAt(LocalDateTime.parse("2025-10-31T20:00:00"))));
+        assertEquals(2000, vnd(table.rateAt(LocalDateTime.parse("2025-10-31T23:59:00"))));
+        assertEquals(2500, vnd(table.rateAt(LocalDateTime.parse("2025-11-01T03:00:00")))); // weekend wins over off-peak
+        assertEquals(2500, vnd(table.rateAt(LocalDateTime.parse("2025-11-02T23:30:00"))));
+        assertEquals(2000, vnd(table.rateAt(LocalDateTime.parse("2025-11-03T05:59:00")))); // Monday early
+        assertEquals(3000, vnd(table.rateAt(LocalDateTime.parse("2025-11-03T06:00:00"))));
+    }
+
+    @Test
+    void pricesIntervalsLikeAMinuteByMinuteWalk() {
+        TariffTable table = TariffTable.compile(BANDS, BASE);
+        Random random = new Random(11);
+        long base = TariffTable.localMillis(LocalDateTime.parse("2025-10-27T00:00:00"));
+        for (int i = 0; i < 500; i++) {
+            long start = base + random.nextInt(14 * 24 * 60) * TariffTable.MINUTE_MILLIS;
+            long minutes = 1 + random.nextInt(3 * 24 * 60);
+            long end = start + minutes * TariffTable.MINUTE_MILLIS;
+            long energyWh = minutes * (100 + random.nextInt(900)); // 6-60 kW
+
+            // Reference: same cumulative rounding, one minute at a time
+            long expected = 0;
+            long billed = 0;
+            for (long m = 1; m <= minutes; m++) {
+                long cumulative = energyWh * m / minutes;
+                LocalDateTime minuteStart = LocalDateTime.parse("1970-01-01T00:00:00")
+                        .plusSeconds((start + (m - 1) * TariffTable.MINUTE_MILLIS) / 1000);
+                expected += (cumulative - billed) * table.rateAt(minuteStart).centiVnd();
+                billed = cumulative;
+            }
+            assertEquals(expected, table.costCentiWh(start, end, energyWh), "interval " + i);
+        }
+    }
+
+    @Test
+    void appliesDiscountAndMatchesFlatRateWithoutBands() {
+        TariffTable flat = TariffTable.flat(BASE);
+        long start = TariffTable.localMillis(LocalDateTime.parse("2025-10-31T09:00:00"));
+        long end = start + 3 * 3_600_000L;
+        assertEquals(BASE.costOf(Energy.ofWh(42_345)).amount(), flat.costVnd(start, end, 42_345, 0));
+        assertEquals(BASE.discounted(25).costOf(Energy.ofWh(42_345)).amount(), flat.costVnd(start, end, 42_345, 25));
+        assertEquals(0, flat.boundariesCrossed(start, end));
+    }
+
+    private static long vnd(RatePerKwh rate) {
+        return rate.centiVnd() / 100;
+    }
+}
@@ -0,0 +1,62 @@
+package com.chargingservice.units;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The fixed-point types must give exactly the same numbers as the BigDecimal code they replace.
+ */
+class FixedPointTest {
+
+    private static final BigDecimal[] PRICES = {
+            new BigDecimal("3000.00"), new BigDecimal("2250.00"), new BigDecimal("1800.00"),
+            new BigDecimal("1500.00"), new BigDecimal("2999.99"), new BigDecimal("1234.57")
+    };
+
+    @Test
+    void simulatedEnergyMatchesBigDecimal() {
+        for (long minutes = 0; minutes <= 200_000; minutes++) {
+            BigDecimal expected = BigDecimal.valueOf(minutes * 0.6).setScale(2, RoundingMode.HALF_UP);
+            assertEquals(expected, Energy.ofWh(minutes * 600).toKwh(), "minutes=" + minutes);
+        }
+    }
+
+    @Test
+    void costMatchesBigDecimal() {
+        for (BigDecimal price : PRICES) {
+            RatePerKwh rate = RatePerKwh.of(price);
+            for (long centiKwh = 0; centiKwh <= 100_000; centiKwh++) {
+                BigDecimal kwh = BigDecimal.valueOf(centiKwh, 2);
+                BigDecimal expected = kwh.multiply(price).setScale(0, RoundingMode.HALF_UP);
+                assertEquals(expected.longValueExact(), rate.costOf(Energy.ofKwh(kwh)).amount(),
+                        "kwh=" + kwh + ", price=" + price);
+            }
+        }
+    }
+
+    @Test
+    void discountMatchesBigDecimal() {
+        BigDecimal base = new BigDecimal("3000.00");
+        for (int percent : new int[]{0, 25, 40, 50, 33}) {
+            BigDecimal expected = base.multiply(BigDecimal.ONE.subtract(BigDecimal.valueOf(percent, 2)))
+                    .setScale(2, RoundingMode.HALF_UP);
+            assertEquals(expected, RatePerKwh.of(base).discounted(percent).toBigDecimal());
+        }
+    }
+
+    @Test
+    void divideHalfUpRoundsAwayFromZeroOnTies() {
+        for (long n = -1000; n <= 1000; n++) {
+            for (long d : new long[]{1, 2, 3, 7, 10, 100}) {
+                long expected = BigDecimal.valueOf(n).divide(BigDecimal.valueOf(d), 0, RoundingMode.HALF_UP).longValueExact();
+                assertEquals(expected, FixedPoint.divideHalfUp(n, d), n + "/" + d);
+                long expectedUp = BigDecimal.valueOf(n).divide(BigDecimal.valueOf(d), 0, RoundingMode.UP).longValueExact();
+                assertEquals(expectedUp, FixedPoint.divideUp(n, d), n + "/" + d);
+            }
+        }
+    }
+}
@@ -3,9 +3,12 @@ package com.stationservice.dtos;
 
 import lombok.Data;
 
+import java.math.BigDecimal;
+
 @Data
 public class CreateStationRequestDto {
     private String stationCode;
     private String stationName;
     private String location; // Ví dụ: '{"address": "123 Main St", "city": "HCMC"}'
+    private BigDecimal gridCapacityKw; // Optional
 }
\ No newline at end of file
@@ -14,5 +14,6 @@ public class StationResponseDto {
     private String location; // Tạm thời vẫn là String
     private Station.StationStatus status;
     private BigDecimal rating;
+    private BigDecimal gridCapacityKw;
     private LocalDateTime createdAt;
 }
\ No newline at end of file
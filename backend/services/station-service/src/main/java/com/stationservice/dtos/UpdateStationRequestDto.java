@@ -4,9 +4,12 @@ package com.stationservice.dtos;
 import com.stationservice.entities.Station;
 import lombok.Data;
 
+import java.math.BigDecimal;
+
 @Data
 public class UpdateStationRequestDto {
     private String stationName;
     private String location;
     private Station.StationStatus status;
+    private BigDecimal gridCapacityKw;
 }
\ No newline at end of file
@@ -34,6 +34,10 @@ public class Station {
     @Column(name = "rating", precision = 3, scale = 2)
     private BigDecimal rating;
 
+    // Công suất lưới tối đa của trạm (kW); null = không giới hạn riêng, charging-service dùng giá trị mặc định
+    @Column(name = "grid_capacity_kw", precision = 8, scale = 2)
+    private BigDecimal gridCapacityKw;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
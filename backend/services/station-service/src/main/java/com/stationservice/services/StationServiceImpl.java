@@ -34,6 +34,7 @@ public class StationServiceImpl implements StationService {
         station.setStationCode(requestDto.getStationCode());
         station.setStationName(requestDto.getStationName());
         station.setLocation(requestDto.getLocation());
+        station.setGridCapacityKw(requestDto.getGridCapacityKw());
 
         Station savedStation = stationRepository.save(station);
         return convertToDto(savedStation);
@@ -144,6 +145,9 @@ public class StationServiceImpl implements StationService {
         if (requestDto.getStatus() != null) {
             station.setStatus(requestDto.getStatus());
         }
+        if (requestDto.getGridCapacityKw() != null) {
+            station.setGridCapacityKw(requestDto.getGridCapacityKw());
+        }
 
         Station updatedStation = stationRepository.save(station);
         return convertToDto(updatedStation);
@@ -171,6 +175,7 @@ public class StationServiceImpl implements StationService {
             dto.setLocation(station.getLocation());
             dto.setStatus(station.getStatus());
             dto.setRating(station.getRating());
+            dto.setGridCapacityKw(station.getGridCapacityKw());
             dto.setCreatedAt(station.getCreatedAt());
             
             log.trace("Converted station {} to DTO", station.getStationId());
@@ -0,0 +1,38 @@
+package com.userservice.configs;
+
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RabbitMQConfig {
+
+    @Value("${app.rabbitmq.entitlement-exchange:entitlement.events}")
+    private String entitlementExchangeName;
+
+    /**
+     * Fanout exchange cho sự kiện đổi gói subscription.
+     * Mỗi instance charging-service bind một queue riêng nên mọi instance đều nhận được sự kiện
+     */
+    @Bean
+    public FanoutExchange entitlementExchange() {
+        return new FanoutExchange(entitlementExchangeName, true, false);
+    }
+
+    @Bean
+    public MessageConverter jsonMessageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+
+    @Bean
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+        RabbitTemplate template = new RabbitTemplate(connectionFactory);
+        template.setMessageConverter(jsonMessageConverter());
+        return template;
+    }
+}
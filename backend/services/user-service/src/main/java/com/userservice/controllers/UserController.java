@@ -66,6 +66,14 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    // --- READ (BATCH) ---
+    // POST /api/users/batch  body: [1, 2, 3]
+    @PostMapping("/batch")
+    public ResponseEntity<List<UserResponseDto>> getUsersByIds(@RequestBody List<Long> userIds) {
+        log.info("Received request to get {} users by ID", userIds.size());
+        return ResponseEntity.ok(userService.getUsersByIds(userIds));
+    }
+
     // --- UPDATE ---
     // PUT /api/users/{id}
     @PutMapping("/{id}")
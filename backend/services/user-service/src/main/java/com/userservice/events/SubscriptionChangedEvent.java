@@ -0,0 +1,16 @@
+package com.userservice.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user's subscription package was purchased, changed, cleared or expired.
+ * Published inside the transaction and sent to RabbitMQ only after it commits.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionChangedEvent {
+    private Long userId;
+}
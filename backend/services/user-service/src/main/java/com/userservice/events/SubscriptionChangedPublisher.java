@@ -0,0 +1,41 @@
+package com.userservice.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Broadcasts subscription changes to every charging-service instance so each drops its cached entitlement.
+ * Runs after commit: evicting earlier would let a concurrent read re-cache the old package before the new one
+ * is visible.
+ */
+@Component
+public class SubscriptionChangedPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriptionChangedPublisher.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final String exchangeName;
+
+    public SubscriptionChangedPublisher(
+            RabbitTemplate rabbitTemplate,
+            @Value("${app.rabbitmq.entitlement-exchange:entitlement.events}") String exchangeName) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.exchangeName = exchangeName;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void publish(SubscriptionChangedEvent event) {
+        try {
+            rabbitTemplate.convertAndSend(exchangeName, "", event);
+            log.debug("Published subscription change for user {}", event.getUserId());
+        } catch (Exception e) {
+            // Cache bên charging-service sẽ tự hết hạn theo TTL
+            log.warn("Failed to publish subscription change for user {}: {}", event.getUserId(), e.getMessage());
+        }
+    }
+}
@@ -2,10 +2,12 @@
 package com.userservice.schedulers;
 
 import com.userservice.entities.User;
+import com.userservice.events.SubscriptionChangedEvent;
 import com.userservice.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +25,7 @@ public class SubscriptionScheduler {
 
     private static final Logger log = LoggerFactory.getLogger(SubscriptionScheduler.class);
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Check and clear expired subscriptions
@@ -54,6 +57,7 @@ public class SubscriptionScheduler {
                 user.setSubscriptionPackage(null);
                 user.setSubscriptionExpiresAt(null);
                 userRepository.save(user);
+                eventPublisher.publishEvent(new SubscriptionChangedEvent(user.getId()));
                 
                 clearedCount++;
             } catch (Exception e) {
@@ -6,11 +6,13 @@ import com.userservice.dtos.PurchasePackageRequestDto;
 import com.userservice.dtos.UpdateSubscriptionRequestDto;
 import com.userservice.dtos.UserResponseDto;
 import com.userservice.entities.User;
+import com.userservice.events.SubscriptionChangedEvent;
 import com.userservice.exceptions.ResourceNotFoundException;
 import com.userservice.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +27,7 @@ public class PackageServiceImpl implements PackageService {
     private static final Logger log = LoggerFactory.getLogger(PackageServiceImpl.class);
     private final UserRepository userRepository;
     private final WalletServiceClient walletServiceClient;
+    private final ApplicationEventPublisher eventPublisher;
     private final com.userservice.repositories.PackageRepository packageRepository;
 
     // Fallback values if package not found in database
@@ -92,6 +95,7 @@ public class PackageServiceImpl implements PackageService {
         
         User savedUser = userRepository.save(user);
         log.info("Package {} purchased successfully for user {}", packageType, userId);
+        invalidateChargingEntitlement(userId);
 
         // 7. Convert to DTO
         return convertToDto(savedUser);
@@ -137,10 +141,17 @@ public class PackageServiceImpl implements PackageService {
 
         User savedUser = userRepository.save(user);
         log.info("Subscription updated successfully for user {}", userId);
+        invalidateChargingEntitlement(userId);
 
         return convertToDto(savedUser);
     }
 
+    // Báo mọi instance charging-service xóa cache gói của user (discount được áp dụng ngay cho phiên sạc tiếp theo).
+    // Sự kiện chỉ được gửi sau khi transaction commit (SubscriptionChangedPublisher)
+    private void invalidateChargingEntitlement(Long userId) {
+        eventPublisher.publishEvent(new SubscriptionChangedEvent(userId));
+    }
+
     private BigDecimal getFallbackPackagePrice(User.SubscriptionPackage packageType) {
         switch (packageType) {
             case SILVER:
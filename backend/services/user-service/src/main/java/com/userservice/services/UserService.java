@@ -17,6 +17,7 @@ public interface UserService {
     User registerUser(RegisterRequestDto registerRequestDto); // Sẽ mã hóa mật khẩu
     UserResponseDto getUserById(Long userId);
     List<UserResponseDto> getAllUsers();
+    List<UserResponseDto> getUsersByIds(List<Long> userIds); // Tra cứu theo lô cho các service nội bộ
     UserResponseDto updateUser(Long userId, UpdateUserRequestDto updateUserRequestDto);
     void deleteUser(Long userId);
 
@@ -75,6 +75,18 @@ public class UserServiceImpl implements UserService {
                 .collect(Collectors.toList());
     }
 
+    // --- READ (BATCH) ---
+    // User không tồn tại bị bỏ qua; gói đã hết hạn được xóa như khi đọc từng user
+    @Override
+    public List<UserResponseDto> getUsersByIds(List<Long> userIds) {
+        log.debug("Fetching {} users by ID", userIds.size());
+        List<User> users = userRepository.findAllById(userIds);
+        users.forEach(this::checkAndClearExpiredSubscription);
+        return users.stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
     // --- UPDATE ---
     @Override
     public UserResponseDto updateUser(Long userId, UpdateUserRequestDto updateUserRequestDto) {
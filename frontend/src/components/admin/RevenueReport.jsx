@@ -503,7 +503,7 @@ const RevenueReport = () => {
     try {
       const [paymentsResponse, sessionsResponse] = await Promise.all([
         getAllTransactions({ page: 0, size: 1000 }).catch(() => ({ data: { content: [] } })),
-        apiClient.get('/sessions').catch(() => ({ data: [] }))
+        apiClient.get('/sessions', { params: { all: true } }).catch(() => ({ data: [] }))
       ]);
 
       const payments = paymentsResponse.data?.content || 
@@ -134,7 +134,7 @@ const ChargingPointMonitoring = () => {
 
       // Fetch sessions
       try {
-        const response = await apiClient.get('/sessions').catch(() => ({ data: [] }));
+        const response = await apiClient.get('/sessions', { params: { all: true } }).catch(() => ({ data: [] }));
         const sessionsList = Array.isArray(response.data) ? response.data : [];
         setSessions(sessionsList);
         console.log('✅ Loaded sessions:', sessionsList.length);
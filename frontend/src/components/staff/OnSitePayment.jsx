@@ -53,7 +53,7 @@ const OnSitePayment = () => {
   const fetchAllSessions = async () => {
     try {
       setLoading(true);
-      const sessionsResponse = await apiClient.get('/sessions').catch(() => ({ data: [] }));
+      const sessionsResponse = await apiClient.get('/sessions', { params: { all: true } }).catch(() => ({ data: [] }));
       let sessionsList = Array.isArray(sessionsResponse.data) ? sessionsResponse.data : [];
       
       // Sort by startTime descending
@@ -58,7 +58,7 @@ const SessionManagement = () => {
 
             // Fetch sessions - chỉ lấy sessions đang hoạt động (không lấy completed/cancelled)
             try {
-                const sessionsResponse = await apiClient.get('/sessions').catch(() => ({ data: [] }));
+                const sessionsResponse = await apiClient.get('/sessions', { params: { all: true } }).catch(() => ({ data: [] }));
                 const allSessions = Array.isArray(sessionsResponse.data) ? sessionsResponse.data : [];
 
                 // Filter: Chỉ giữ lại sessions đang hoạt động (charging, reserved, starting)
@@ -58,7 +58,7 @@ const StaffDashboard = () => {
 
       // Fetch sessions for KPI calculations
       try {
-        const sessionsResponse = await apiClient.get('/sessions');
+        const sessionsResponse = await apiClient.get('/sessions', { params: { all: true } });
         sessionsList = Array.isArray(sessionsResponse.data) ? sessionsResponse.data : [];
         console.log('✅ Sessions loaded:', sessionsList.length);
       } catch (err) {
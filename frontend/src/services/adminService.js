@@ -10,7 +10,7 @@ export const getAdminDashboardStats = async () => {
     const [stations, users, sessions, transactions] = await Promise.all([
       apiClient.get('/stations/getall').catch(() => ({ data: [] })),
       apiClient.get('/users/getall').catch(() => ({ data: [] })),
-      apiClient.get('/sessions').catch(() => ({ data: [] })),
+      apiClient.get('/sessions', { params: { all: true } }).catch(() => ({ data: [] })),
       apiClient.get('/transactions/history').catch(() => ({ data: [] }))
     ]);
 
@@ -215,7 +215,7 @@ export const getRecentActivities = async (limit = 10) => {
   try {
     // Load sessions, users, and stations in parallel
     const [sessions, users, stations] = await Promise.all([
-      apiClient.get('/sessions').catch(() => ({ data: [] })),
+      apiClient.get('/sessions', { params: { all: true } }).catch(() => ({ data: [] })),
       apiClient.get('/users/getall').catch(() => ({ data: [] })),
       apiClient.get('/stations/getall').catch(() => ({ data: [] }))
     ]);
@@ -108,14 +108,17 @@ export const setDefaultVehicle = async (vehicleId) => {
     return updateVehicle(vehicleId, { isDefault: true });
 };
 
-export const getMyTransactionsHistory = async () => {
+// Không truyền cursor/limit: backend trả toàn bộ lịch sử; truyền limit (và cursor) để lấy từng trang
+export const getMyTransactionsHistory = async ({ cursor, limit } = {}) => {
     try {
         console.log('🧾 Fetching transactions history...');
-        const response = await apiClient.get('/transactions/history');
+        const response = await apiClient.get('/transactions/history', { params: { cursor, limit } });
         // Backend trả về List<SessionResponseDto> trực tiếp trong response body
         // response.data có thể là array hoặc {data: [...]}
         const data = Array.isArray(response.data) ? response.data : (response.data?.data || []);
-        return { data };
+        // Trang tiếp theo (keyset cursor); null = trang cuối
+        const nextCursor = response.headers?.['x-next-cursor'] || null;
+        return { data, nextCursor };
     } catch (error) {
         console.error('❌ Failed to fetch history:', error);
         throw error;